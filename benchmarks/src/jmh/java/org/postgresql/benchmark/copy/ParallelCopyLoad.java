@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.benchmark.copy;
+
+import org.postgresql.copy.ParallelCopyLoader;
+import org.postgresql.core.BaseConnection;
+import org.postgresql.util.ConnectionUtil;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loads the same rows over a varying number of connections. While neither the client nor the
+ * network is saturated, the time should drop in proportion to the number of connections, since
+ * each COPY is processed by its own backend.
+ */
+@Fork(value = 1, jvmArgsPrepend = "-Xmx512m")
+@Measurement(iterations = 10)
+@Warmup(iterations = 3)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ParallelCopyLoad {
+  private final List<BaseConnection> connections = new ArrayList<BaseConnection>();
+  private final List<byte[]> rows = new ArrayList<byte[]>();
+  private Statement statement;
+
+  @Param({"1", "2", "4", "8"})
+  int nconnections;
+
+  @Param({"1000000"})
+  int nrows;
+
+  @Setup(Level.Trial)
+  public void setUp() throws SQLException {
+    Properties props = ConnectionUtil.getProperties();
+    for (int i = 0; i < nconnections; i++) {
+      Connection connection = DriverManager.getConnection(ConnectionUtil.getURL(), props);
+      connections.add(connection.unwrap(BaseConnection.class));
+    }
+    statement = connections.get(0).createStatement();
+    statement.execute("drop table if exists parallel_copy_perf_test");
+    // an index and a check make the backend, not the network, the bottleneck
+    statement.execute("create unlogged table parallel_copy_perf_test(a int4 primary key,"
+        + " b varchar(100) check (length(b) > 5), c timestamptz)");
+    for (int i = 0; i < nrows; i++) {
+      rows.add((i + "\tsome text " + i + "\t2021-01-01 00:00:00+00\n")
+          .getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  @Setup(Level.Invocation)
+  public void truncate() throws SQLException {
+    statement.execute("truncate parallel_copy_perf_test");
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws SQLException {
+    statement.execute("drop table parallel_copy_perf_test");
+    statement.close();
+    for (BaseConnection connection : connections) {
+      connection.close();
+    }
+  }
+
+  @Benchmark
+  public long load() throws SQLException {
+    ParallelCopyLoader loader = new ParallelCopyLoader(connections,
+        "COPY parallel_copy_perf_test FROM STDIN");
+    return loader.load(rows.iterator());
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(ParallelCopyLoad.class.getSimpleName())
+        .detectJvmArgs()
+        .build();
+
+    new Runner(opt).run();
+  }
+}
@@ -48,6 +48,13 @@ public class UTF8Decoding {
   @Param({"1", "5", "10", "50", "100"})
   public int length;
 
+  /**
+   * Text repeated {@link #length} times: pure ascii, or ascii mixed with other scripts up to
+   * characters outside the basic multilingual plane.
+   */
+  @Param({"ascii", "latin", "cyrillic", "cjk", "mixed"})
+  public String corpus;
+
   private byte[] source;
   private CharsetDecoder decoder;
   private Encoding encoding;
@@ -57,8 +64,9 @@ public class UTF8Decoding {
   @Setup
   public void setup() {
     StringBuilder sb = new StringBuilder();
+    String unit = corpus(corpus);
     for (int i = 0; i < length; i++) {
-      sb.append("Hello мир,");
+      sb.append(unit);
     }
     source = sb.toString().getBytes(UTF_8);
     decoder = UTF_8.newDecoder();
@@ -95,6 +103,23 @@ public class UTF8Decoding {
     return decoder.decode(ByteBuffer.wrap(source), buf, true);
   }
 
+  static String corpus(String name) {
+    switch (name) {
+      case "ascii":
+        return "Hello world,";
+      case "latin":
+        return "Grüße, café,";
+      case "cyrillic":
+        return "Привет мир,";
+      case "cjk":
+        return "你好，世界。";
+      case "mixed":
+        return "Hello мир, 世界 \uD83D\uDE00,";
+      default:
+        throw new IllegalArgumentException("Unknown corpus: " + name);
+    }
+  }
+
   public static void main(String[] args) throws RunnerException {
     Options opt = new OptionsBuilder()
         .include(UTF8Decoding.class.getSimpleName())
@@ -45,6 +45,12 @@ public class UTF8Encoding {
   @Param({"1", "5", "10", "50", "100"})
   public int length;
 
+  /**
+   * Text repeated {@link #length} times, see {@link UTF8Decoding#corpus}.
+   */
+  @Param({"ascii", "latin", "cyrillic", "cjk", "mixed"})
+  public String corpus;
+
   private String source;
   private CharsetEncoder encoder;
   private ByteBuffer buf;
@@ -53,8 +59,9 @@ public class UTF8Encoding {
   @Setup
   public void setup() {
     StringBuilder sb = new StringBuilder();
+    String unit = UTF8Decoding.corpus(corpus);
     for (int i = 0; i < length; i++) {
-      sb.append("Hello мир,");
+      sb.append(unit);
     }
     source = sb.toString();
     encoder = UTF_8.newEncoder();
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.benchmark.statement;
+
+import org.postgresql.PGProperty;
+import org.postgresql.util.ConnectionUtil;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the allocations of a server-prepared statement that is executed over and over with new
+ * parameters. Once warmed up, the driver should allocate nothing but the object carrying the
+ * update count, which {@link #main(String[])} checks against {@link #MAX_BYTES_PER_OP}.
+ */
+@Fork(value = 5, jvmArgsPrepend = "-Xmx128m")
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ExecuteUpdateAllocation {
+  /**
+   * Allocation ceiling per operation, in bytes. The result of {@code executeUpdate} takes about
+   * 40 bytes; the rest is headroom for the JDK socket streams.
+   */
+  private static final double MAX_BYTES_PER_OP = 128;
+
+  private Connection connection;
+  private PreparedStatement update;
+  private int value;
+
+  @Setup(Level.Trial)
+  public void setUp() throws SQLException {
+    Properties props = ConnectionUtil.getProperties();
+    PGProperty.PREPARE_THRESHOLD.set(props, -1);
+    connection = DriverManager.getConnection(ConnectionUtil.getURL(), props);
+    Statement s = connection.createStatement();
+    try {
+      s.execute("drop table if exists execute_update_allocation");
+      s.execute("create temp table execute_update_allocation(id int4 primary key, i int4,"
+          + " l int8, d float8, t text)");
+      s.execute("insert into execute_update_allocation(id) values (1)");
+    } finally {
+      s.close();
+    }
+    update = connection.prepareStatement(
+        "update execute_update_allocation set i = ?, l = ?, d = ?, t = ? where id = ?");
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws SQLException {
+    update.close();
+    connection.close();
+  }
+
+  @Benchmark
+  public int executeUpdate() throws SQLException {
+    int value = ++this.value;
+    PreparedStatement update = this.update;
+    update.setInt(1, value);
+    update.setLong(2, value);
+    update.setDouble(3, value);
+    update.setString(4, "constant");
+    update.setInt(5, 1);
+    return update.executeUpdate();
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(ExecuteUpdateAllocation.class.getSimpleName())
+        .addProfiler(GCProfiler.class)
+        .detectJvmArgs()
+        .build();
+
+    Collection<RunResult> results = new Runner(opt).run();
+    for (RunResult result : results) {
+      for (Map.Entry<String, Result> e : result.getSecondaryResults().entrySet()) {
+        if (!e.getKey().endsWith("gc.alloc.rate.norm")) {
+          continue;
+        }
+        double bytesPerOp = e.getValue().getScore();
+        if (bytesPerOp > MAX_BYTES_PER_OP) {
+          throw new IllegalStateException(
+              result.getParams().getBenchmark() + " allocates " + bytesPerOp
+                  + " bytes per operation, the ceiling is " + MAX_BYTES_PER_OP);
+        }
+      }
+    }
+  }
+}
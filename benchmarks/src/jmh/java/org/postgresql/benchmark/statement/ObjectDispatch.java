@@ -0,0 +1,193 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.benchmark.statement;
+
+import org.postgresql.PGProperty;
+import org.postgresql.geometric.PGbox;
+import org.postgresql.geometric.PGcircle;
+import org.postgresql.geometric.PGlseg;
+import org.postgresql.geometric.PGpath;
+import org.postgresql.geometric.PGpoint;
+import org.postgresql.geometric.PGpolygon;
+import org.postgresql.util.ConnectionUtil;
+import org.postgresql.util.PGInterval;
+import org.postgresql.util.PGobject;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.Period;
+import java.time.ZoneOffset;
+import java.util.Calendar;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Benchmark to test the cost of finding the conversion in {@code setObject(int, Object)} and
+ * {@code getObject(int, Class)} for a mix of 30 and more Java types, which makes the type tests
+ * megamorphic.
+ */
+@Fork(value = 5, jvmArgsPrepend = "-Xmx128m")
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Threads(1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ObjectDispatch {
+
+  /**
+   * Column expressions and the class each one is read as.
+   */
+  private static final Object[][] COLUMNS = {
+      {"'abc'::text", String.class},
+      {"1.5::numeric", BigDecimal.class},
+      {"true", Boolean.class},
+      {"1::int2", Short.class},
+      {"1::int4", Integer.class},
+      {"1::int8", Long.class},
+      {"1::int8", BigInteger.class},
+      {"1.5::float4", Float.class},
+      {"1.5::float8", Double.class},
+      {"'2021-01-01'::date", Date.class},
+      {"'10:00'::time", Time.class},
+      {"'2021-01-01 10:00'::timestamp", Timestamp.class},
+      {"'2021-01-01 10:00'::timestamp", Calendar.class},
+      {"'2021-01-01 10:00'::timestamp", java.util.Date.class},
+      {"'{1,2}'::int4[]", java.sql.Array.class},
+      {"'a0eebc99-9c0b-4ef8-bb6d-6bb9bd380a11'::uuid", UUID.class},
+      {"'2021-01-01'::date", LocalDate.class},
+      {"'10:00'::time", LocalTime.class},
+      {"'2021-01-01 10:00'::timestamp", LocalDateTime.class},
+      {"'2021-01-01 10:00Z'::timestamptz", OffsetDateTime.class},
+      {"'1 day'::interval", PGInterval.class},
+      {"'1 day'::interval", Duration.class},
+      {"'1 mon'::interval", Period.class},
+      {"'(1,2)'::point", PGpoint.class},
+      {"'(1,2),(3,4)'::box", PGbox.class},
+      {"'[(1,2),(3,4)]'::lseg", PGlseg.class},
+      {"'<(1,2),3>'::circle", PGcircle.class},
+      {"'[(1,2),(3,4)]'::path", PGpath.class},
+      {"'((1,2),(3,4),(5,6))'::polygon", PGpolygon.class},
+      {"'{}'::json", PGobject.class},
+  };
+
+  private Connection connection;
+  private PreparedStatement bind;
+  private Object[] values;
+  private PreparedStatement query;
+  private ResultSet rs;
+  private Class<?>[] classes;
+
+  @Param({"true", "false"})
+  public boolean binaryTransfer;
+
+  @Setup(Level.Trial)
+  public void setUp() throws SQLException {
+    Properties props = ConnectionUtil.getProperties();
+    PGProperty.BINARY_TRANSFER.set(props, binaryTransfer);
+    PGProperty.PREPARE_THRESHOLD.set(props, -1);
+    connection = DriverManager.getConnection(ConnectionUtil.getURL(), props);
+
+    values = new Object[]{
+        "abc", new BigDecimal("1.5"), (short) 1, 1, 1L, 1.5f, 1.5d, new byte[]{1, 2},
+        Date.valueOf("2021-01-01"), Time.valueOf("10:00:00"),
+        Timestamp.valueOf("2021-01-01 10:00:00"), true, (byte) 1, 'c',
+        LocalDate.of(2021, 1, 1), LocalTime.of(10, 0), LocalDateTime.of(2021, 1, 1, 10, 0),
+        OffsetDateTime.of(2021, 1, 1, 10, 0, 0, 0, ZoneOffset.UTC), Duration.ofSeconds(90),
+        Period.ofDays(3), UUID.randomUUID(), new PGpoint(1, 2), new PGbox(1, 2, 3, 4),
+        new PGInterval(0, 0, 1, 0, 0, 0), connection.createArrayOf("int4", new Integer[]{1}),
+        BigInteger.ONE, new AtomicLong(1), new int[]{1, 2}, new String[]{"a"},
+        new Integer[]{1}, new double[]{1.5}, new long[]{1L}, new boolean[]{true},
+        new short[]{1},
+    };
+    StringBuilder sql = new StringBuilder("SELECT ");
+    for (int i = 0; i < values.length; i++) {
+      sql.append(i == 0 ? "?" : ", ?");
+    }
+    bind = connection.prepareStatement(sql.toString());
+
+    sql = new StringBuilder("SELECT ");
+    classes = new Class<?>[COLUMNS.length];
+    for (int i = 0; i < COLUMNS.length; i++) {
+      sql.append(i == 0 ? "" : ", ").append(COLUMNS[i][0]);
+      classes[i] = (Class<?>) COLUMNS[i][1];
+    }
+    query = connection.prepareStatement(sql.toString(),
+        ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+    rs = query.executeQuery();
+    rs.next();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws SQLException {
+    rs.close();
+    query.close();
+    bind.close();
+    connection.close();
+  }
+
+  @Benchmark
+  public void setObject() throws SQLException {
+    Object[] values = this.values;
+    for (int i = 0; i < values.length; i++) {
+      bind.setObject(i + 1, values[i]);
+    }
+  }
+
+  @Benchmark
+  public void getObject(Blackhole b) throws SQLException {
+    Class<?>[] classes = this.classes;
+    for (int i = 0; i < classes.length; i++) {
+      b.consume(rs.getObject(i + 1, classes[i]));
+    }
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(ObjectDispatch.class.getSimpleName())
+        .addProfiler(GCProfiler.class)
+        .detectJvmArgs()
+        .build();
+
+    new Runner(opt).run();
+  }
+}
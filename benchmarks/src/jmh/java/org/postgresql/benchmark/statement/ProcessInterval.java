@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.benchmark.statement;
+
+import org.postgresql.PGProperty;
+import org.postgresql.util.ConnectionUtil;
+import org.postgresql.util.PGInterval;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark to test performance of reading result sets with many {@code interval} columns, in
+ * text and binary format.
+ */
+@Fork(value = 5, jvmArgsPrepend = "-Xmx128m")
+@Measurement(iterations = 10, time = 1, timeUnit = TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1, timeUnit = TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Threads(1)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProcessInterval {
+
+  private static final int COLUMNS = 4;
+
+  private Connection connection;
+  private PreparedStatement ps;
+  private ResultSet rs;
+
+  @Param({"10", "1000"})
+  public int rowsize;
+
+  @Param({"true", "false"})
+  public boolean binaryTransfer;
+
+  @Setup(Level.Trial)
+  public void setUp() throws SQLException {
+    Properties props = ConnectionUtil.getProperties();
+    PGProperty.BINARY_TRANSFER.set(props, binaryTransfer);
+    PGProperty.PREPARE_THRESHOLD.set(props, -1);
+
+    connection = DriverManager.getConnection(ConnectionUtil.getURL(), props);
+    ps = connection.prepareStatement(
+        "select i * interval '1.5 seconds', i * interval '1 day 02:03:04', "
+            + "i * interval '17 minutes', i * interval '0.000123 seconds' "
+            + "from generate_series(1, ?) i",
+        ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+    ps.setInt(1, rowsize);
+    rs = ps.executeQuery();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws SQLException {
+    rs.close();
+    ps.close();
+    connection.close();
+  }
+
+  @Benchmark
+  public void getObject(Blackhole b) throws SQLException {
+    rs.beforeFirst();
+    while (rs.next()) {
+      for (int i = 1; i <= COLUMNS; i++) {
+        b.consume(rs.getObject(i, PGInterval.class));
+      }
+    }
+  }
+
+  @Benchmark
+  public void getDuration(Blackhole b) throws SQLException {
+    rs.beforeFirst();
+    while (rs.next()) {
+      for (int i = 1; i <= COLUMNS; i++) {
+        b.consume(rs.getObject(i, Duration.class));
+      }
+    }
+  }
+
+  @Benchmark
+  public void getString(Blackhole b) throws SQLException {
+    rs.beforeFirst();
+    while (rs.next()) {
+      for (int i = 1; i <= COLUMNS; i++) {
+        b.consume(rs.getString(i));
+      }
+    }
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(ProcessInterval.class.getSimpleName())
+        .addProfiler(GCProfiler.class)
+        .detectJvmArgs()
+        .build();
+
+    new Runner(opt).run();
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.benchmark.time;
+
+import org.postgresql.util.PGInterval;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests the parsing of the interval text formats the server produces, and decoding of the binary
+ * format for comparison.
+ */
+@Fork(value = 5, jvmArgsPrepend = "-Xmx128m")
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ParseInterval {
+
+  @Param({
+      "1 year 2 mons 3 days 04:05:06.789",
+      "-1 years -2 mons +3 days -04:05:06",
+      "@ 1 year 2 mons 3 days 4 hours 5 mins 6.789 secs ago",
+      "P1Y2M3DT4H5M6.789S"
+  })
+  String value;
+
+  private final PGInterval interval = new PGInterval();
+
+  private final byte[] binary = new byte[16];
+
+  @Setup
+  public void setUp() throws SQLException {
+    new PGInterval(value).toBytes(binary, 0);
+  }
+
+  @Benchmark
+  public PGInterval parseText() throws SQLException {
+    interval.setValue(value);
+    return interval;
+  }
+
+  @Benchmark
+  public PGInterval decodeBinary() throws SQLException {
+    interval.setByteValue(binary, 0);
+    return interval;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    Options opt = new OptionsBuilder()
+        .include(ParseInterval.class.getSimpleName())
+        .addProfiler(GCProfiler.class)
+        .detectJvmArgs()
+        .build();
+
+    new Runner(opt).run();
+  }
+}
@@ -141,6 +141,27 @@ public interface PGConnection {
    */
   void addDataType(String type, Class<? extends PGobject> klass) throws SQLException;
 
+  /**
+   * <p>Maps values of a composite type to a Java class. {@link java.sql.ResultSet#getObject(int)}
+   * then returns instances of the class for columns of the type, and {@link java.sql.Array#getArray()}
+   * returns arrays of it for arrays of the type.</p>
+   *
+   * <p>The class can be {@link java.sql.Struct}, {@code Object[]}, a record class, or a class with
+   * a single public constructor taking one argument per attribute, in attribute order. Constructor
+   * arguments are converted as by {@link java.sql.ResultSet#getObject(int, Class)}.</p>
+   *
+   * <p>When binary transfer is enabled and all attributes of the type can be received in binary,
+   * the type and its array type are requested in binary format.</p>
+   *
+   * @param type the composite type to register, a table name or a type created with
+   *        {@code CREATE TYPE ... AS}
+   * @param klass the class values are mapped to
+   * @throws SQLException if the type is not a composite type or the class has no suitable
+   *         constructor
+   * @since 42.3.0
+   */
+  void addCompositeType(String type, Class<?> klass) throws SQLException;
+
   /**
    * Set the default statement reuse threshold before enabling server-side prepare. See
    * {@link org.postgresql.PGStatement#setPrepareThreshold(int)} for details.
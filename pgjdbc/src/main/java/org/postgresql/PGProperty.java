@@ -98,6 +98,48 @@ public enum PGProperty {
     false,
     new String[] {"always", "never", "conservative"}),
 
+  /**
+   * Number of batch entries after which {@code addBatch} executes the entries added so far, so that
+   * a large batch is not held in memory. {@code executeBatch} executes the rest and returns the
+   * update counts of all entries. A value of {@code 0}, which is the default, executes the whole
+   * batch in {@code executeBatch}.
+   */
+  BATCH_CHUNK_SIZE(
+    "batchChunkSize",
+    "0",
+    "Executes a batch in chunks of this many entries as they are added with addBatch(), so that a large batch is not "
+        + "held in memory. executeBatch() executes the remaining entries and returns the update counts of all of them. "
+        + "0 (default) executes the whole batch in executeBatch()"),
+
+  /**
+   * Specifies how batched INSERT statements are executed. In {@code copy} mode, a batch of a plain
+   * {@code INSERT INTO t(c1, c2) VALUES (?, ?)} is sent as {@code COPY t(c1, c2) FROM STDIN
+   * (FORMAT binary)} when every bound value has a binary form in the type of its column.
+   */
+  BATCH_INSERT_MODE(
+    "batchInsertMode",
+    "default",
+    "Specifies how batched INSERT statements are executed. In batchInsertMode=default mode, each batch entry is executed "
+        + "(or rewritten into multi-values blocks with reWriteBatchedInserts). In batchInsertMode=copy mode, a batch of a "
+        + "single INSERT INTO table(columns) VALUES (?, ...) without RETURNING or ON CONFLICT is streamed as COPY FROM STDIN "
+        + "in binary format, falling back to the default mode when a bound value has no binary form in the type of its column",
+    false,
+    new String[] {"default", "copy"}),
+
+  /**
+   * Maximum number of entries of a batch without generated keys that are sent ahead of their
+   * results. Once as many are unacknowledged, the driver reads results until half of them are,
+   * without the Sync and round trip of the default. A value of {@code 0}, which is the default,
+   * limits the entries in flight by an estimate of their response size instead.
+   */
+  BATCH_WINDOW_SIZE(
+    "batchWindowSize",
+    "0",
+    "Maximum number of batch entries sent ahead of their results. When the window is full, the driver reads results "
+        + "until half of it is acknowledged, without interrupting the batch with a Sync, and does the same earlier "
+        + "if the estimated size of the pending results could fill the network buffers. "
+        + "0 (default) limits the entries in flight by an estimate of their response size"),
+
   /**
    * Use binary format for sending and receiving data if possible.
    */
@@ -277,6 +319,31 @@ public enum PGProperty {
     null,
     "The Kerberos service name to use when authenticating with GSSAPI."),
 
+  /**
+   * Directory of the temporary files of spooled column values, see
+   * {@link #LARGE_VALUE_SPOOL_THRESHOLD}. By default the files are created in the directory of
+   * the {@code java.io.tmpdir} system property.
+   */
+  LARGE_VALUE_SPOOL_DIRECTORY(
+    "largeValueSpoolDirectory",
+    null,
+    "Directory of the temporary files of column values spooled with largeValueSpoolThreshold. "
+      + "Defaults to the java.io.tmpdir directory"),
+
+  /**
+   * <p>Column values larger than this many bytes are copied from the connection to a temporary
+   * file while the row is received, instead of being kept on the heap. The stream getters of the
+   * result set read such values from the file. {@code 0} (the default) disables spooling.</p>
+   *
+   * <p>Combine with a small {@code defaultRowFetchSize} so that only a few rows are spooled at a
+   * time. Spooled values are not counted against {@link #MAX_RESULT_BUFFER}.</p>
+   */
+  LARGE_VALUE_SPOOL_THRESHOLD(
+    "largeValueSpoolThreshold",
+    "0",
+    "Column values larger than this number of bytes are spooled to a temporary file instead of "
+      + "being held in memory. 0 disables spooling"),
+
   LOAD_BALANCE_HOSTS(
     "loadBalanceHosts",
     "false",
@@ -511,6 +578,16 @@ public enum PGProperty {
     "false",
     "Enable optimization to rewrite and collapse compatible INSERT statements that are batched."),
 
+  /**
+   * Configure optimization to execute a batch of an UPDATE or DELETE statement as one statement
+   * that joins the target table against the batched values, passed as arrays.
+   */
+  REWRITE_BATCHED_UPDATES(
+    "reWriteBatchedUpdates",
+    "false",
+    "Enable optimization to rewrite a batched UPDATE or DELETE statement into one statement joined "
+      + "against unnest() of the batched values. (backend >= 9.4)"),
+
   /**
    * Socket write buffer size (SO_SNDBUF). A value of {@code -1}, which is the default, means system
    * default.
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql;
+
+import org.checkerframework.checker.index.qual.Positive;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.sql.SQLException;
+
+/**
+ * This interface defines the public PostgreSQL extensions to java.sql.ResultSet. All ResultSets
+ * constructed by the PostgreSQL driver implement PGResultSet.
+ */
+public interface PGResultSet {
+
+  /**
+   * <p>Returns the value of a {@code json} or {@code jsonb} column as a stream of the raw
+   * document bytes, without decoding the document into a {@link String} first.</p>
+   *
+   * <p>The bytes are in the client encoding of the connection (normally UTF-8). When
+   * {@code jsonb} is received in binary format, the leading format version byte is skipped, so
+   * the stream always contains the textual JSON document. The stream reads directly from the
+   * current row, so it is only valid until the cursor is moved.</p>
+   *
+   * @param columnIndex the first column is 1, the second is 2, ...
+   * @return the JSON document, or null if the value is SQL {@code NULL}
+   * @throws SQLException if the column is not of {@code json} or {@code jsonb} type, or the
+   *         result set is not positioned on a row
+   */
+  @Nullable InputStream getJsonStream(@Positive int columnIndex) throws SQLException;
+
+  /**
+   * Returns the value of a {@code json} or {@code jsonb} column as a stream of the raw document
+   * bytes.
+   *
+   * @param columnLabel the label of the column
+   * @return the JSON document, or null if the value is SQL {@code NULL}
+   * @throws SQLException if the column is not of {@code json} or {@code jsonb} type, or the
+   *         result set is not positioned on a row
+   * @see #getJsonStream(int)
+   */
+  @Nullable InputStream getJsonStream(String columnLabel) throws SQLException;
+
+  /**
+   * <p>Returns the value of the designated column as a read-only {@link ByteBuffer} holding the
+   * same bytes {@link java.sql.ResultSet#getBytes(int)} would return.</p>
+   *
+   * <p>When the value was received in binary format the buffer is a view over the row data and
+   * no copy is made. The buffer must not be used after the cursor is moved, and its contents
+   * are undefined if the row is modified through the updatable result set API.</p>
+   *
+   * @param columnIndex the first column is 1, the second is 2, ...
+   * @return the column value, or null if the value is SQL {@code NULL}
+   * @throws SQLException if the result set is not positioned on a row
+   */
+  @Nullable ByteBuffer getByteBuffer(@Positive int columnIndex) throws SQLException;
+
+  /**
+   * Returns the value of the designated column as a read-only {@link ByteBuffer}.
+   *
+   * @param columnLabel the label of the column
+   * @return the column value, or null if the value is SQL {@code NULL}
+   * @throws SQLException if the result set is not positioned on a row
+   * @see #getByteBuffer(int)
+   */
+  @Nullable ByteBuffer getByteBuffer(String columnLabel) throws SQLException;
+}
@@ -18,6 +18,15 @@ import java.io.InputStream;
 import java.io.OutputStream;
 import java.io.Reader;
 import java.io.Writer;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.sql.SQLException;
 
 /**
@@ -31,6 +40,11 @@ public class CopyManager {
   // of characters.
   static final int DEFAULT_BUFFER_SIZE = 65536;
 
+  /**
+   * Size of the regions of a file that {@link #copyIn(String, Path, int)} maps at a time.
+   */
+  private static final long MAPPED_REGION_SIZE = 64L * 1024 * 1024;
+
   private final Encoding encoding;
   private final QueryExecutor queryExecutor;
   private final BaseConnection connection;
@@ -41,6 +55,10 @@ public class CopyManager {
     this.connection = connection;
   }
 
+  BaseConnection getConnection() {
+    return connection;
+  }
+
   public CopyIn copyIn(String sql) throws SQLException {
     CopyOperation op = queryExecutor.startCopy(sql, connection.getAutoCommit());
     if (op == null || op instanceof CopyIn) {
@@ -122,11 +140,12 @@ public class CopyManager {
    * @throws IOException upon output stream or database connection failure
    */
   public long copyOut(final String sql, OutputStream to) throws SQLException, IOException {
-    byte[] buf;
+    byte[] buf = new byte[DEFAULT_BUFFER_SIZE];
+    int len;
     CopyOut cp = copyOut(sql);
     try {
-      while ((buf = cp.readFromCopy()) != null) {
-        to.write(buf);
+      while ((len = cp.readFromCopy(buf, 0, buf.length)) >= 0) {
+        to.write(buf, 0, len);
       }
       return cp.getHandledRowCount();
     } catch (IOException ioEX) {
@@ -135,7 +154,51 @@ public class CopyManager {
         cp.cancelCopy();
       }
       try { // read until exhausted or operation cancelled SQLException
-        while ((buf = cp.readFromCopy()) != null) {
+        while (cp.readFromCopy(buf, 0, buf.length) >= 0) {
+        }
+      } catch (SQLException sqlEx) {
+      } // typically after several kB
+      throw ioEX;
+    } finally { // see to it that we do not leave the connection locked
+      if (cp.isActive()) {
+        cp.cancelCopy();
+      }
+    }
+  }
+
+  /**
+   * Pass results of a COPY TO STDOUT query from database into a channel. The data is received
+   * into a single reused buffer rather than an array per row.
+   *
+   * @param sql COPY TO STDOUT statement
+   * @param to the channel to write the results to.
+   *           The channel is not closed at the end of the operation.
+   * @return number of rows updated for server 8.2 or newer; -1 for older
+   * @throws SQLException on database usage errors
+   * @throws IOException upon channel or database connection failure
+   */
+  public long copyOut(final String sql, WritableByteChannel to) throws SQLException, IOException {
+    byte[] buf = new byte[DEFAULT_BUFFER_SIZE];
+    ByteBuffer data = ByteBuffer.wrap(buf);
+    int len;
+    CopyOut cp = copyOut(sql);
+    try {
+      while ((len = cp.readFromCopy(buf, 0, buf.length)) >= 0) {
+        // through Buffer, whose methods return Buffer on every Java version
+        ((Buffer) data).clear();
+        ((Buffer) data).limit(len);
+        while (data.hasRemaining()) {
+          to.write(data);
+        }
+      }
+      return cp.getHandledRowCount();
+    } catch (IOException ioEX) {
+      // if not handled this way the close call will hang, at least in 8.2
+      if (cp.isActive()) {
+        cp.cancelCopy();
+      }
+      try { // read until exhausted or operation cancelled SQLException
+        while (cp.readFromCopy(buf, 0, buf.length) >= 0) {
         }
       } catch (SQLException sqlEx) {
       } // typically after several kB
@@ -232,6 +295,109 @@ public class CopyManager {
     }
   }
 
+  /**
+   * Use COPY FROM STDIN for very fast copying from a channel into a database table.
+   *
+   * @param sql COPY FROM STDIN statement
+   * @param from a channel reading a CSV file or such
+   * @return number of rows updated for server 8.2 or newer; -1 for older
+   * @throws SQLException on database usage issues
+   * @throws IOException upon channel or database connection failure
+   */
+  public long copyIn(final String sql, ReadableByteChannel from) throws SQLException, IOException {
+    return copyIn(sql, from, DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * Use COPY FROM STDIN for very fast copying from a channel into a database table.
+   *
+   * @param sql COPY FROM STDIN statement
+   * @param from a channel reading a CSV file or such
+   * @param bufferSize number of bytes to buffer and push over network to server at once
+   * @return number of rows updated for server 8.2 or newer; -1 for older
+   * @throws SQLException on database usage issues
+   * @throws IOException upon channel or database connection failure
+   */
+  public long copyIn(final String sql, ReadableByteChannel from, int bufferSize)
+      throws SQLException, IOException {
+    byte[] buf = new byte[bufferSize];
+    ByteBuffer data = ByteBuffer.wrap(buf);
+    int len;
+    CopyIn cp = copyIn(sql);
+    try {
+      while ((len = from.read(data)) >= 0) {
+        if (data.position() == buf.length || len == 0 && data.position() > 0) {
+          cp.writeToCopy(buf, 0, data.position());
+          ((Buffer) data).clear();
+        }
+      }
+      if (data.position() > 0) {
+        cp.writeToCopy(buf, 0, data.position());
+      }
+      return cp.endCopy();
+    } finally { // see to it that we do not leave the connection locked
+      if (cp.isActive()) {
+        cp.cancelCopy();
+      }
+    }
+  }
+
+  /**
+   * Use COPY FROM STDIN for very fast copying from a file into a database table.
+   *
+   * @param sql COPY FROM STDIN statement
+   * @param from a CSV file or such
+   * @return number of rows updated for server 8.2 or newer; -1 for older
+   * @throws SQLException on database usage issues
+   * @throws IOException upon file or database connection failure
+   */
+  public long copyIn(final String sql, Path from) throws SQLException, IOException {
+    return copyIn(sql, from, DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * Use COPY FROM STDIN for very fast copying from a file into a database table. A regular file
+   * is memory-mapped rather than read, which saves copying each chunk through a read buffer;
+   * other files, such as pipes, are read as a channel.
+   *
+   * @param sql COPY FROM STDIN statement
+   * @param from a CSV file or such
+   * @param bufferSize number of bytes to push over network to server at once
+   * @return number of rows updated for server 8.2 or newer; -1 for older
+   * @throws SQLException on database usage issues
+   * @throws IOException upon file or database connection failure
+   */
+  public long copyIn(final String sql, Path from, int bufferSize)
+      throws SQLException, IOException {
+    FileChannel channel = FileChannel.open(from, StandardOpenOption.READ);
+    try {
+      if (!Files.isRegularFile(from)) {
+        return copyIn(sql, channel, bufferSize);
+      }
+      byte[] buf = new byte[bufferSize];
+      long size = channel.size();
+      CopyIn cp = copyIn(sql);
+      try {
+        for (long position = 0; position < size; position += MAPPED_REGION_SIZE) {
+          MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, position,
+              Math.min(MAPPED_REGION_SIZE, size - position));
+          while (region.hasRemaining()) {
+            int len = Math.min(buf.length, region.remaining());
+            region.get(buf, 0, len);
+            cp.writeToCopy(buf, 0, len);
+          }
+        }
+        return cp.endCopy();
+      } finally { // see to it that we do not leave the connection locked
+        if (cp.isActive()) {
+          cp.cancelCopy();
+        }
+      }
+    } finally {
+      channel.close();
+    }
+  }
+
   /**
    * Use COPY FROM STDIN for very fast copying from an ByteStreamWriter into a database table.
    *
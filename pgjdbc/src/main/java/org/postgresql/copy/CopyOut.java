@@ -28,4 +28,18 @@ public interface CopyOut extends CopyOperation {
    * @throws SQLException if something goes wrong for example socket timeout
    */
   byte @Nullable [] readFromCopy(boolean block) throws SQLException;
+
+  /**
+   * Blocks until data is received from server on an active copy operation, and reads up to
+   * {@code len} bytes of it into the given buffer. Unlike {@link #readFromCopy()}, this does not
+   * allocate an array per message: a message larger than {@code len} is returned over several
+   * calls, and the data does not keep the message boundaries.
+   *
+   * @param buf buffer to store the data
+   * @param off offset in the buffer
+   * @param len maximum number of bytes to read, at least 1
+   * @return number of bytes read, or -1 if server completed the copy operation
+   * @throws SQLException if something goes wrong for example socket timeout
+   */
+  int readFromCopy(byte[] buf, int off, int len) throws SQLException;
 }
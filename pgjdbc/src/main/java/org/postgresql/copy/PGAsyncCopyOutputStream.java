@@ -0,0 +1,398 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.copy;
+
+import static org.postgresql.util.internal.Nullness.castNonNull;
+
+import org.postgresql.PGConnection;
+import org.postgresql.util.ByteStreamWriter;
+import org.postgresql.util.GT;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.PSQLState;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.SQLException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * OutputStream for buffered input into a PostgreSQL COPY FROM STDIN operation that sends the data
+ * from a background thread, so that the thread writing to the stream can prepare the next rows
+ * while the previous ones are on the wire.
+ *
+ * <p>The data is written into one of a fixed number of rotating buffers. A full buffer is handed
+ * to the flusher thread, which sends it with {@link CopyIn#writeToCopy(byte[], int, int)}, and the
+ * writer continues with the next free buffer, waiting for one only when all of them are queued.
+ * The memory used is therefore bounded by {@code bufferCount * bufferSize}.</p>
+ *
+ * <p>If sending fails, the error is thrown by the next write, {@link #flushCopy()} or
+ * {@link #endCopy()}, and the COPY is cancelled. The stream must be closed, ended or cancelled to
+ * stop the flusher thread.</p>
+ */
+public class PGAsyncCopyOutputStream extends OutputStream implements CopyIn {
+  private static final int DEFAULT_BUFFER_COUNT = 2;
+
+  private @Nullable CopyIn op;
+  private final int bufferCount;
+  private final BlockingQueue<Chunk> free;
+  private final BlockingQueue<Chunk> filled;
+  private final Flusher flusher;
+  private final byte[] singleByteBuffer = new byte[1];
+  /**
+   * Buffer being filled by the writer.
+   */
+  private Chunk current;
+  private boolean flusherStopped;
+
+  /**
+   * Uses given connection for specified COPY FROM STDIN operation.
+   *
+   * @param connection database connection to use for copying (protocol version 3 required)
+   * @param sql        COPY FROM STDIN statement
+   * @throws SQLException if initializing the operation fails
+   */
+  public PGAsyncCopyOutputStream(PGConnection connection, String sql) throws SQLException {
+    this(connection, sql, CopyManager.DEFAULT_BUFFER_SIZE, DEFAULT_BUFFER_COUNT);
+  }
+
+  /**
+   * Uses given connection for specified COPY FROM STDIN operation.
+   *
+   * @param connection  database connection to use for copying (protocol version 3 required)
+   * @param sql         COPY FROM STDIN statement
+   * @param bufferSize  try to send this many bytes at a time
+   * @param bufferCount number of rotating buffers, at least 2
+   * @throws SQLException if initializing the operation fails
+   */
+  public PGAsyncCopyOutputStream(PGConnection connection, String sql, int bufferSize,
+      int bufferCount) throws SQLException {
+    this(connection.getCopyAPI().copyIn(sql), bufferSize, bufferCount);
+  }
+
+  /**
+   * Use given CopyIn operation for writing.
+   *
+   * @param op COPY FROM STDIN operation
+   */
+  public PGAsyncCopyOutputStream(CopyIn op) {
+    this(op, CopyManager.DEFAULT_BUFFER_SIZE, DEFAULT_BUFFER_COUNT);
+  }
+
+  /**
+   * Use given CopyIn operation for writing.
+   *
+   * @param op          COPY FROM STDIN operation
+   * @param bufferSize  try to send this many bytes at a time
+   * @param bufferCount number of rotating buffers, at least 2
+   */
+  public PGAsyncCopyOutputStream(CopyIn op, int bufferSize, int bufferCount) {
+    if (bufferCount < 2) {
+      throw new IllegalArgumentException(
+          GT.tr("At least {0} buffers are needed, but {1} were requested.", 2, bufferCount));
+    }
+    this.op = op;
+    this.bufferCount = bufferCount;
+    free = new ArrayBlockingQueue<Chunk>(bufferCount);
+    // one more slot for the end marker
+    filled = new ArrayBlockingQueue<Chunk>(bufferCount + 1);
+    current = new Chunk(bufferSize);
+    for (int i = 1; i < bufferCount; i++) {
+      free.add(new Chunk(bufferSize));
+    }
+    flusher = new Flusher(op, free, filled);
+    flusher.start();
+  }
+
+  private CopyIn getOp() {
+    return castNonNull(op);
+  }
+
+  private void checkClosed() throws IOException {
+    if (op == null) {
+      throw new IOException(GT.tr("This copy stream is closed."));
+    }
+  }
+
+  /**
+   * Throws the error of the flusher thread, if any, after cancelling the COPY.
+   */
+  private void checkError() throws SQLException {
+    SQLException error = flusher.error;
+    if (error == null) {
+      if (flusherStopped) {
+        throw new PSQLException(GT.tr("Tried to write to an inactive copy operation"),
+            PSQLState.OBJECT_NOT_IN_STATE);
+      }
+      return;
+    }
+    stopFlusher();
+    CopyIn op = getOp();
+    if (op.isActive()) {
+      try {
+        op.cancelCopy();
+      } catch (SQLException e) {
+        error.setNextException(e);
+      }
+    }
+    throw error;
+  }
+
+  private static PSQLException interrupted(InterruptedException e) {
+    Thread.currentThread().interrupt();
+    return new PSQLException(GT.tr("Interrupted while waiting for the COPY flusher thread."),
+        PSQLState.OBJECT_NOT_IN_STATE, e);
+  }
+
+  /**
+   * Hands the current buffer to the flusher thread and takes the next free one.
+   */
+  private void submit() throws SQLException {
+    Chunk next;
+    try {
+      next = free.take();
+    } catch (InterruptedException e) {
+      throw interrupted(e);
+    }
+    // there is always room, since the queue holds more chunks than there are
+    filled.add(current);
+    current = next;
+  }
+
+  /**
+   * Hands the current buffer to the flusher thread, if it holds data, and waits until every
+   * buffer is sent.
+   */
+  private void drain() throws SQLException {
+    checkError();
+    if (current.length > 0) {
+      submit();
+    }
+    // the flusher is idle once the writer holds every buffer
+    Chunk[] chunks = new Chunk[bufferCount - 1];
+    try {
+      for (int i = 0; i < chunks.length; i++) {
+        chunks[i] = free.take();
+      }
+    } catch (InterruptedException e) {
+      throw interrupted(e);
+    } finally {
+      for (Chunk chunk : chunks) {
+        if (chunk != null) {
+          free.add(chunk);
+        }
+      }
+    }
+    checkError();
+  }
+
+  private void stopFlusher() {
+    if (flusherStopped) {
+      return;
+    }
+    flusherStopped = true;
+    filled.add(Flusher.END);
+    boolean interrupted = false;
+    while (true) {
+      try {
+        flusher.join();
+        break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  public void write(int b) throws IOException {
+    checkClosed();
+    if (b < 0 || b > 255) {
+      throw new IOException(GT.tr("Cannot write to copy a byte of value {0}", b));
+    }
+    singleByteBuffer[0] = (byte) b;
+    write(singleByteBuffer, 0, 1);
+  }
+
+  public void write(byte[] buf) throws IOException {
+    write(buf, 0, buf.length);
+  }
+
+  public void write(byte[] buf, int off, int siz) throws IOException {
+    checkClosed();
+    try {
+      writeToCopy(buf, off, siz);
+    } catch (SQLException se) {
+      throw new IOException("Write to copy failed.", se);
+    }
+  }
+
+  public void close() throws IOException {
+    // Don't complain about a double close.
+    if (op == null) {
+      return;
+    }
+
+    try {
+      if (getOp().isActive()) {
+        endCopy();
+      }
+    } catch (SQLException se) {
+      throw new IOException("Ending write to copy failed.", se);
+    } finally {
+      stopFlusher();
+      op = null;
+    }
+  }
+
+  public void flush() throws IOException {
+    checkClosed();
+    try {
+      flushCopy();
+    } catch (SQLException e) {
+      throw new IOException("Unable to flush stream", e);
+    }
+  }
+
+  public void writeToCopy(byte[] buf, int off, int siz) throws SQLException {
+    checkError();
+    while (siz > 0) {
+      if (current.length == current.data.length) {
+        submit();
+      }
+      int length = Math.min(siz, current.data.length - current.length);
+      System.arraycopy(buf, off, current.data, current.length, length);
+      current.length += length;
+      off += length;
+      siz -= length;
+    }
+  }
+
+  public void writeToCopy(ByteStreamWriter from) throws SQLException {
+    // send the buffered data first so order is preserved
+    drain();
+    getOp().writeToCopy(from);
+  }
+
+  public int getFormat() {
+    return getOp().getFormat();
+  }
+
+  public int getFieldFormat(int field) {
+    return getOp().getFieldFormat(field);
+  }
+
+  /**
+   * Cancels the COPY, discarding the buffered data.
+   *
+   * @throws SQLException if cancelling fails
+   */
+  public void cancelCopy() throws SQLException {
+    current.length = 0;
+    flusher.discard = true;
+    stopFlusher();
+    getOp().cancelCopy();
+  }
+
+  public int getFieldCount() {
+    return getOp().getFieldCount();
+  }
+
+  public boolean isActive() {
+    return op != null && getOp().isActive();
+  }
+
+  /**
+   * Sends all buffered data and flushes the connection.
+   *
+   * @throws SQLException if sending failed
+   */
+  public void flushCopy() throws SQLException {
+    drain();
+    getOp().flushCopy();
+  }
+
+  /**
+   * Sends all buffered data and finishes the COPY.
+   *
+   * @return number of rows updated for server 8.2 or newer (see getHandledRowCount())
+   * @throws SQLException if sending failed, or the COPY failed
+   */
+  public long endCopy() throws SQLException {
+    drain();
+    stopFlusher();
+    getOp().endCopy();
+    return getHandledRowCount();
+  }
+
+  public long getHandledRowCount() {
+    return getOp().getHandledRowCount();
+  }
+
+  /**
+   * Sends the filled buffers in order until the end marker arrives. After a failure, or once the
+   * COPY is cancelled, the buffers are returned unsent.
+   */
+  private static final class Flusher extends Thread {
+    /**
+     * Chunk handed to the flusher thread to stop it.
+     */
+    static final Chunk END = new Chunk(0);
+
+    private final CopyIn op;
+    private final BlockingQueue<Chunk> free;
+    private final BlockingQueue<Chunk> filled;
+    volatile @Nullable SQLException error;
+    volatile boolean discard;
+
+    Flusher(CopyIn op, BlockingQueue<Chunk> free, BlockingQueue<Chunk> filled) {
+      super("PostgreSQL JDBC driver COPY flusher");
+      setDaemon(true); // Don't prevent the VM from shutting down
+      this.op = op;
+      this.free = free;
+      this.filled = filled;
+    }
+
+    @Override
+    public void run() {
+      try {
+        Chunk chunk;
+        while ((chunk = filled.take()) != END) {
+          if (error == null && !discard) {
+            try {
+              op.writeToCopy(chunk.data, 0, chunk.length);
+            } catch (SQLException e) {
+              error = e;
+            } catch (RuntimeException e) {
+              error = new PSQLException(GT.tr("Write to copy failed."),
+                  PSQLState.UNEXPECTED_ERROR, e);
+            }
+          }
+          chunk.length = 0;
+          free.add(chunk);
+        }
+      } catch (InterruptedException e) {
+        error = new PSQLException(GT.tr("The COPY flusher thread was interrupted."),
+            PSQLState.OBJECT_NOT_IN_STATE, e);
+      }
+    }
+  }
+
+  /**
+   * A buffer and the number of bytes written to it.
+   */
+  private static final class Chunk {
+    final byte[] data;
+    int length;
+
+    Chunk(int size) {
+      data = new byte[size];
+    }
+  }
+}
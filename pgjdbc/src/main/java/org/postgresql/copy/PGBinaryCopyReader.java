@@ -0,0 +1,485 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.copy;
+
+import org.postgresql.PGConnection;
+import org.postgresql.core.Encoding;
+import org.postgresql.util.ByteConverter;
+import org.postgresql.util.GT;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.PSQLState;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * Reads typed rows from a {@code COPY ... TO STDOUT (FORMAT binary)} operation. The data is
+ * received straight into a reusable buffer and each row is parsed in place, so reading a row does
+ * not allocate; only the values returned as objects, such as strings, are allocated:
+ *
+ * <pre>
+ * PGBinaryCopyReader reader = new PGBinaryCopyReader(connection,
+ *     "COPY measurement(id, name, taken_at) TO STDOUT (FORMAT binary)");
+ * while (reader.nextRow()) {
+ *   long id = reader.getLong(0);
+ *   String name = reader.getString(1);
+ *   LocalDateTime takenAt = reader.getLocalDateTime(2);
+ * }
+ * </pre>
+ *
+ * <p>Fields are numbered from 0. The values are in the binary format of their columns, so each
+ * one must be read with the method matching the type of its column: {@link #getInt(int)} for
+ * {@code int4}, {@link #getLong(int)} for {@code int8}, and so on. Other types can be decoded from
+ * {@link #getBytes(int)}.</p>
+ */
+public class PGBinaryCopyReader {
+  /**
+   * Signature of the binary COPY format.
+   */
+  private static final byte[] SIGNATURE = {
+      'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xff, '\r', '\n', 0,
+  };
+
+  /**
+   * Flag of the header telling that each row has an OID.
+   */
+  private static final int FLAG_OIDS = 1 << 16;
+
+  /**
+   * Seconds from 1970-01-01 to 2000-01-01, the epoch of PostgreSQL timestamps.
+   */
+  private static final long PG_EPOCH_SECONDS = 946684800L;
+
+  private final CopyOut op;
+  private final Encoding encoding;
+  private final int fieldCount;
+  private byte[] buffer;
+  /**
+   * Start of the current row in the buffer.
+   */
+  private int rowStart;
+  /**
+   * Parse position in the buffer.
+   */
+  private int pos;
+  /**
+   * End of the received data in the buffer.
+   */
+  private int limit;
+  /**
+   * Offsets of the fields of the current row, relative to {@link #rowStart}.
+   */
+  private final int[] offsets;
+  /**
+   * Lengths of the fields of the current row, -1 for NULL.
+   */
+  private final int[] lengths;
+  private boolean headerRead;
+  private boolean onRow;
+  private boolean done;
+
+  /**
+   * Starts a COPY TO STDOUT operation in binary format.
+   *
+   * @param connection database connection to use for copying
+   * @param sql        COPY TO STDOUT statement with the {@code FORMAT binary} option
+   * @throws SQLException if initializing the operation fails
+   */
+  public PGBinaryCopyReader(PGConnection connection, String sql) throws SQLException {
+    this(connection, sql, CopyManager.DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * Starts a COPY TO STDOUT operation in binary format.
+   *
+   * @param connection database connection to use for copying
+   * @param sql        COPY TO STDOUT statement with the {@code FORMAT binary} option
+   * @param bufferSize initial size of the buffer; it grows if a row does not fit
+   * @throws SQLException if initializing the operation fails
+   */
+  public PGBinaryCopyReader(PGConnection connection, String sql, int bufferSize)
+      throws SQLException {
+    CopyManager copyManager = connection.getCopyAPI();
+    this.encoding = copyManager.getConnection().getEncoding();
+    this.op = copyManager.copyOut(sql);
+    if (op.getFormat() != 1) {
+      op.cancelCopy();
+      throw new PSQLException(GT.tr("COPY is not in binary format: {0}", sql),
+          PSQLState.INVALID_PARAMETER_VALUE);
+    }
+    this.fieldCount = op.getFieldCount();
+    this.buffer = new byte[Math.max(bufferSize, 64)];
+    this.offsets = new int[fieldCount];
+    this.lengths = new int[fieldCount];
+  }
+
+  /**
+   * Returns the underlying COPY operation, for instance to get the number of rows copied.
+   *
+   * @return the COPY TO STDOUT operation
+   */
+  public CopyOut getCopyOut() {
+    return op;
+  }
+
+  /**
+   * Returns the number of fields of each row.
+   *
+   * @return the number of fields
+   */
+  public int getFieldCount() {
+    return fieldCount;
+  }
+
+  /**
+   * Makes sure that {@code length} bytes from the parse position are in the buffer, receiving
+   * more data after moving the current row to the start of the buffer, or growing the buffer if
+   * the row does not fit.
+   */
+  private void ensure(int length) throws SQLException {
+    while (limit - pos < length) {
+      if (limit == buffer.length) {
+        if (rowStart > 0) {
+          System.arraycopy(buffer, rowStart, buffer, 0, limit - rowStart);
+          pos -= rowStart;
+          limit -= rowStart;
+          rowStart = 0;
+        } else {
+          buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, pos + length));
+        }
+      }
+      int read = op.readFromCopy(buffer, limit, buffer.length - limit);
+      if (read < 0) {
+        done = true;
+        throw new PSQLException(GT.tr("Premature end of the binary COPY data."),
+            PSQLState.COMMUNICATION_ERROR);
+      }
+      limit += read;
+    }
+  }
+
+  private void readHeader() throws SQLException {
+    ensure(SIGNATURE.length + 8);
+    for (int i = 0; i < SIGNATURE.length; i++) {
+      if (buffer[pos + i] != SIGNATURE[i]) {
+        throw new PSQLException(GT.tr("The COPY data does not start with the binary COPY signature."),
+            PSQLState.COMMUNICATION_ERROR);
+      }
+    }
+    pos += SIGNATURE.length;
+    int flags = ByteConverter.int4(buffer, pos);
+    int extensionLength = ByteConverter.int4(buffer, pos + 4);
+    pos += 8;
+    if ((flags & FLAG_OIDS) != 0) {
+      throw new PSQLException(GT.tr("Binary COPY WITH OIDS is not supported."),
+          PSQLState.NOT_IMPLEMENTED);
+    }
+    ensure(extensionLength);
+    pos += extensionLength;
+    headerRead = true;
+  }
+
+  /**
+   * Moves to the next row. When there are no more rows, the COPY is complete and the connection
+   * can be used again.
+   *
+   * @return true if there is a row, false if all rows were read
+   * @throws SQLException if the COPY fails, or the data is malformed
+   */
+  public boolean nextRow() throws SQLException {
+    onRow = false;
+    if (done) {
+      return false;
+    }
+    if (!headerRead) {
+      readHeader();
+    }
+    rowStart = pos;
+    ensure(2);
+    int count = ByteConverter.int2(buffer, pos);
+    pos += 2;
+    if (count == -1) {
+      // trailer: receive the end of the operation, which releases the connection
+      done = true;
+      while (op.readFromCopy(buffer, 0, buffer.length) != -1) {
+        // there is no data after the trailer
+      }
+      rowStart = pos = limit = 0;
+      return false;
+    }
+    if (count != fieldCount) {
+      throw new PSQLException(
+          GT.tr("A row of the COPY has {0} fields, but the COPY expects {1}.", count, fieldCount),
+          PSQLState.COMMUNICATION_ERROR);
+    }
+    for (int i = 0; i < fieldCount; i++) {
+      ensure(4);
+      int length = ByteConverter.int4(buffer, pos);
+      pos += 4;
+      lengths[i] = length;
+      offsets[i] = pos - rowStart;
+      if (length > 0) {
+        ensure(length);
+        pos += length;
+      }
+    }
+    onRow = true;
+    return true;
+  }
+
+  /**
+   * Aborts the COPY, discarding the rows that were not read.
+   *
+   * @throws SQLException if cancelling fails
+   */
+  public void cancelCopy() throws SQLException {
+    onRow = false;
+    done = true;
+    rowStart = pos = limit = 0;
+    if (op.isActive()) {
+      op.cancelCopy();
+    }
+  }
+
+  private int length(int field) throws SQLException {
+    if (!onRow || field < 0 || field >= fieldCount) {
+      throw new PSQLException(
+          !onRow
+              ? GT.tr("There is no current row of the COPY.")
+              : GT.tr("The field index is out of range: {0}, number of fields: {1}.", field,
+                  fieldCount),
+          !onRow ? PSQLState.INVALID_CURSOR_STATE : PSQLState.INVALID_PARAMETER_VALUE);
+    }
+    return lengths[field];
+  }
+
+  /**
+   * Returns the offset of a fixed-width value in the buffer, or -1 if it is NULL.
+   */
+  private int fixed(int field, int width) throws SQLException {
+    int length = length(field);
+    if (length == -1) {
+      return -1;
+    }
+    if (length != width) {
+      throw new PSQLException(
+          GT.tr("Field {0} of the COPY has {1} bytes, but a value of this type has {2}.", field,
+              length, width),
+          PSQLState.DATA_TYPE_MISMATCH);
+    }
+    return rowStart + offsets[field];
+  }
+
+  private int offset(int field) {
+    return rowStart + offsets[field];
+  }
+
+  /**
+   * Returns whether a field of the current row is NULL.
+   *
+   * @param field the field index, from 0
+   * @return true if the value is NULL
+   * @throws SQLException if there is no current row or no such field
+   */
+  public boolean isNull(int field) throws SQLException {
+    return length(field) == -1;
+  }
+
+  /**
+   * Returns the value of a {@code bool} field.
+   *
+   * @param field the field index, from 0
+   * @return the value, false if it is NULL
+   * @throws SQLException if there is no current row or no such field, or the field is not a bool
+   */
+  public boolean getBoolean(int field) throws SQLException {
+    int offset = fixed(field, 1);
+    return offset != -1 && ByteConverter.bool(buffer, offset);
+  }
+
+  /**
+   * Returns the value of an {@code int2} field.
+   *
+   * @param field the field index, from 0
+   * @return the value, 0 if it is NULL
+   * @throws SQLException if there is no current row or no such field, or the field is not an int2
+   */
+  public short getShort(int field) throws SQLException {
+    int offset = fixed(field, 2);
+    return offset == -1 ? 0 : ByteConverter.int2(buffer, offset);
+  }
+
+  /**
+   * Returns the value of an {@code int4} field.
+   *
+   * @param field the field index, from 0
+   * @return the value, 0 if it is NULL
+   * @throws SQLException if there is no current row or no such field, or the field is not an int4
+   */
+  public int getInt(int field) throws SQLException {
+    int offset = fixed(field, 4);
+    return offset == -1 ? 0 : ByteConverter.int4(buffer, offset);
+  }
+
+  /**
+   * Returns the value of an {@code int8} field.
+   *
+   * @param field the field index, from 0
+   * @return the value, 0 if it is NULL
+   * @throws SQLException if there is no current row or no such field, or the field is not an int8
+   */
+  public long getLong(int field) throws SQLException {
+    int offset = fixed(field, 8);
+    return offset == -1 ? 0 : ByteConverter.int8(buffer, offset);
+  }
+
+  /**
+   * Returns the value of a {@code float4} field.
+   *
+   * @param field the field index, from 0
+   * @return the value, 0 if it is NULL
+   * @throws SQLException if there is no current row or no such field, or the field is not a
+   *     float4
+   */
+  public float getFloat(int field) throws SQLException {
+    int offset = fixed(field, 4);
+    return offset == -1 ? 0 : ByteConverter.float4(buffer, offset);
+  }
+
+  /**
+   * Returns the value of a {@code float8} field.
+   *
+   * @param field the field index, from 0
+   * @return the value, 0 if it is NULL
+   * @throws SQLException if there is no current row or no such field, or the field is not a
+   *     float8
+   */
+  public double getDouble(int field) throws SQLException {
+    int offset = fixed(field, 8);
+    return offset == -1 ? 0 : ByteConverter.float8(buffer, offset);
+  }
+
+  /**
+   * Returns the value of a {@code numeric} field.
+   *
+   * @param field the field index, from 0
+   * @return the value, or null if it is NULL
+   * @throws SQLException if there is no current row or no such field, or the value is NaN
+   */
+  public @Nullable BigDecimal getBigDecimal(int field) throws SQLException {
+    int length = length(field);
+    if (length == -1) {
+      return null;
+    }
+    Number value = ByteConverter.numeric(buffer, offset(field), length);
+    if (!(value instanceof BigDecimal)) {
+      throw new PSQLException(GT.tr("Bad value for type {0} : {1}", "BigDecimal", value),
+          PSQLState.NUMERIC_VALUE_OUT_OF_RANGE);
+    }
+    return (BigDecimal) value;
+  }
+
+  /**
+   * Returns the value of a {@code text}, {@code varchar}, {@code char} or {@code name} field.
+   *
+   * @param field the field index, from 0
+   * @return the value, or null if it is NULL
+   * @throws SQLException if there is no current row or no such field, or the value cannot be
+   *     decoded
+   */
+  public @Nullable String getString(int field) throws SQLException {
+    int length = length(field);
+    if (length == -1) {
+      return null;
+    }
+    try {
+      return encoding.decode(buffer, offset(field), length);
+    } catch (IOException e) {
+      throw new PSQLException(
+          GT.tr("Invalid character data was found.  This is most likely caused by stored data containing characters that are invalid for the character set the database was created in.  The most common example of this is storing 8bit data in a SQL_ASCII database."),
+          PSQLState.DATA_ERROR, e);
+    }
+  }
+
+  /**
+   * Returns a copy of the binary value of a field, such as the contents of a {@code bytea}.
+   *
+   * @param field the field index, from 0
+   * @return the value, or null if it is NULL
+   * @throws SQLException if there is no current row or no such field
+   */
+  public byte @Nullable [] getBytes(int field) throws SQLException {
+    int length = length(field);
+    if (length == -1) {
+      return null;
+    }
+    int offset = offset(field);
+    return Arrays.copyOfRange(buffer, offset, offset + length);
+  }
+
+  /**
+   * Returns the value of a {@code timestamp} field. {@code infinity} and {@code -infinity} are
+   * returned as {@link LocalDateTime#MAX} and {@link LocalDateTime#MIN}.
+   *
+   * @param field the field index, from 0
+   * @return the value, or null if it is NULL
+   * @throws SQLException if there is no current row or no such field, or the field is not a
+   *     timestamp
+   */
+  public @Nullable LocalDateTime getLocalDateTime(int field) throws SQLException {
+    int offset = fixed(field, 8);
+    if (offset == -1) {
+      return null;
+    }
+    long micros = ByteConverter.int8(buffer, offset);
+    if (micros == Long.MAX_VALUE) {
+      return LocalDateTime.MAX;
+    } else if (micros == Long.MIN_VALUE) {
+      return LocalDateTime.MIN;
+    }
+    return LocalDateTime.ofEpochSecond(epochSeconds(micros), nanos(micros), ZoneOffset.UTC);
+  }
+
+  /**
+   * Returns the value of a {@code timestamptz} field, in UTC. {@code infinity} and
+   * {@code -infinity} are returned as {@link OffsetDateTime#MAX} and {@link OffsetDateTime#MIN}.
+   *
+   * @param field the field index, from 0
+   * @return the value, or null if it is NULL
+   * @throws SQLException if there is no current row or no such field, or the field is not a
+   *     timestamptz
+   */
+  public @Nullable OffsetDateTime getOffsetDateTime(int field) throws SQLException {
+    int offset = fixed(field, 8);
+    if (offset == -1) {
+      return null;
+    }
+    long micros = ByteConverter.int8(buffer, offset);
+    if (micros == Long.MAX_VALUE) {
+      return OffsetDateTime.MAX;
+    } else if (micros == Long.MIN_VALUE) {
+      return OffsetDateTime.MIN;
+    }
+    return OffsetDateTime.of(
+        LocalDateTime.ofEpochSecond(epochSeconds(micros), nanos(micros), ZoneOffset.UTC),
+        ZoneOffset.UTC);
+  }
+
+  private static long epochSeconds(long micros) {
+    return Math.floorDiv(micros, 1000000L) + PG_EPOCH_SECONDS;
+  }
+
+  private static int nanos(long micros) {
+    return (int) Math.floorMod(micros, 1000000L) * 1000;
+  }
+}
@@ -0,0 +1,406 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.copy;
+
+import org.postgresql.PGConnection;
+import org.postgresql.core.BaseConnection;
+import org.postgresql.core.Oid;
+import org.postgresql.core.PGStream;
+import org.postgresql.core.Utils;
+import org.postgresql.util.ByteConverter;
+import org.postgresql.util.GT;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.PSQLState;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Writes typed rows to a {@code COPY ... FROM STDIN (FORMAT binary)} operation. The values are
+ * encoded into a reusable buffer, which is sent in large chunks, so no text is formatted or
+ * parsed on either side:
+ *
+ * <pre>
+ * PGBinaryCopyWriter writer = new PGBinaryCopyWriter(connection,
+ *     "COPY measurement(id, name, taken_at) FROM STDIN (FORMAT binary)");
+ * for (Measurement m : measurements) {
+ *   writer.startRow();
+ *   writer.writeLong(m.id);
+ *   writer.writeText(m.name);
+ *   writer.writeTimestamp(m.takenAt);
+ * }
+ * long rows = writer.endCopy();
+ * </pre>
+ *
+ * <p>The server does not convert binary values, so each value must be written with the method
+ * matching the type of its column: {@link #writeInt(int)} for {@code int4},
+ * {@link #writeLong(long)} for {@code int8}, and so on. Each row must have as many fields as the
+ * COPY has columns.</p>
+ */
+public class PGBinaryCopyWriter {
+  /**
+   * Signature, flags and header extension length of the binary COPY format.
+   */
+  static final byte[] HEADER = {
+      'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xff, '\r', '\n', 0,
+      0, 0, 0, 0,
+      0, 0, 0, 0,
+  };
+
+  /**
+   * Seconds from 1970-01-01 to 2000-01-01, the epoch of PostgreSQL timestamps.
+   */
+  private static final long PG_EPOCH_SECONDS = 946684800L;
+
+  private final BaseConnection connection;
+  private final CopyIn op;
+  private final byte[] buffer;
+  private int pos;
+  private final int fieldCount;
+  /**
+   * Fields written to the current row, -1 before the first row.
+   */
+  private int fields = -1;
+
+  /**
+   * Starts a COPY FROM STDIN operation in binary format.
+   *
+   * @param connection database connection to use for copying
+   * @param sql        COPY FROM STDIN statement with the {@code FORMAT binary} option
+   * @throws SQLException if initializing the operation fails
+   */
+  public PGBinaryCopyWriter(PGConnection connection, String sql) throws SQLException {
+    this(connection, sql, CopyManager.DEFAULT_BUFFER_SIZE);
+  }
+
+  /**
+   * Starts a COPY FROM STDIN operation in binary format.
+   *
+   * @param connection database connection to use for copying
+   * @param sql        COPY FROM STDIN statement with the {@code FORMAT binary} option
+   * @param bufferSize try to send this many bytes at a time
+   * @throws SQLException if initializing the operation fails
+   */
+  public PGBinaryCopyWriter(PGConnection connection, String sql, int bufferSize)
+      throws SQLException {
+    CopyManager copyManager = connection.getCopyAPI();
+    this.connection = copyManager.getConnection();
+    this.op = copyManager.copyIn(sql);
+    if (op.getFormat() != 1) {
+      op.cancelCopy();
+      throw new PSQLException(GT.tr("COPY is not in binary format: {0}", sql),
+          PSQLState.INVALID_PARAMETER_VALUE);
+    }
+    this.fieldCount = op.getFieldCount();
+    this.buffer = new byte[Math.max(bufferSize, 64)];
+    System.arraycopy(HEADER, 0, buffer, 0, HEADER.length);
+    pos = HEADER.length;
+  }
+
+  /**
+   * Returns the underlying COPY operation, for instance to check whether it is still active.
+   *
+   * @return the COPY FROM STDIN operation
+   */
+  public CopyIn getCopyIn() {
+    return op;
+  }
+
+  private void checkRowComplete() throws SQLException {
+    if (fields != -1 && fields != fieldCount) {
+      throw new PSQLException(
+          GT.tr("A row of the COPY has {0} fields, but the COPY expects {1}.", fields, fieldCount),
+          PSQLState.INVALID_PARAMETER_VALUE);
+    }
+  }
+
+  private void ensure(int length) throws SQLException {
+    if (pos + length > buffer.length) {
+      flush();
+    }
+  }
+
+  private void flush() throws SQLException {
+    if (pos > 0) {
+      op.writeToCopy(buffer, 0, pos);
+      pos = 0;
+    }
+  }
+
+  /**
+   * Reserves room for a field of the current row and writes its length.
+   */
+  private void startField(int length) throws SQLException {
+    if (fields == -1 || fields == fieldCount) {
+      throw new PSQLException(
+          fields == -1
+              ? GT.tr("A value was written before startRow() was called.")
+              : GT.tr("A row of the COPY has {0} fields, but the COPY expects {1}.", fields + 1,
+                  fieldCount),
+          PSQLState.INVALID_PARAMETER_VALUE);
+    }
+    fields++;
+    ensure(4 + Math.max(length, 0));
+    ByteConverter.int4(buffer, pos, length);
+    pos += 4;
+  }
+
+  /**
+   * Starts a new row. The previous row, if any, must be complete.
+   *
+   * @throws SQLException if the previous row lacks fields, or sending data fails
+   */
+  public void startRow() throws SQLException {
+    checkRowComplete();
+    ensure(2);
+    ByteConverter.int2(buffer, pos, fieldCount);
+    pos += 2;
+    fields = 0;
+  }
+
+  /**
+   * Writes a NULL field.
+   *
+   * @throws SQLException if the row is already complete, or sending data fails
+   */
+  public void writeNull() throws SQLException {
+    startField(-1);
+  }
+
+  /**
+   * Writes a {@code bool} field.
+   *
+   * @param value the value
+   * @throws SQLException if the row is already complete, or sending data fails
+   */
+  public void writeBoolean(boolean value) throws SQLException {
+    startField(1);
+    ByteConverter.bool(buffer, pos, value);
+    pos += 1;
+  }
+
+  /**
+   * Writes an {@code int2} field.
+   *
+   * @param value the value
+   * @throws SQLException if the row is already complete, or sending data fails
+   */
+  public void writeShort(short value) throws SQLException {
+    startField(2);
+    ByteConverter.int2(buffer, pos, value);
+    pos += 2;
+  }
+
+  /**
+   * Writes an {@code int4} field.
+   *
+   * @param value the value
+   * @throws SQLException if the row is already complete, or sending data fails
+   */
+  public void writeInt(int value) throws SQLException {
+    startField(4);
+    ByteConverter.int4(buffer, pos, value);
+    pos += 4;
+  }
+
+  /**
+   * Writes an {@code int8} field.
+   *
+   * @param value the value
+   * @throws SQLException if the row is already complete, or sending data fails
+   */
+  public void writeLong(long value) throws SQLException {
+    startField(8);
+    ByteConverter.int8(buffer, pos, value);
+    pos += 8;
+  }
+
+  /**
+   * Writes a {@code float4} field.
+   *
+   * @param value the value
+   * @throws SQLException if the row is already complete, or sending data fails
+   */
+  public void writeFloat(float value) throws SQLException {
+    startField(4);
+    ByteConverter.float4(buffer, pos, value);
+    pos += 4;
+  }
+
+  /**
+   * Writes a {@code float8} field.
+   *
+   * @param value the value
+   * @throws SQLException if the row is already complete, or sending data fails
+   */
+  public void writeDouble(double value) throws SQLException {
+    startField(8);
+    ByteConverter.float8(buffer, pos, value);
+    pos += 8;
+  }
+
+  /**
+   * Writes a {@code text}, {@code varchar} or {@code char} field, or NULL if the value is
+   * {@code null}. The string is encoded as UTF-8 straight into the buffer.
+   *
+   * @param value the value
+   * @throws SQLException if the row is already complete, or sending data fails
+   */
+  public void writeText(@Nullable String value) throws SQLException {
+    if (value == null) {
+      writeNull();
+      return;
+    }
+    int length = PGStream.utf8Length(value);
+    if (4 + length <= buffer.length) {
+      startField(length);
+      pos = Utils.encodeUTF8(value, buffer, pos);
+    } else {
+      writeLargeField(value.getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+  /**
+   * Writes a field in the binary format of its column's type, such as a {@code bytea} value, or
+   * NULL if the value is {@code null}.
+   *
+   * @param value the binary value
+   * @throws SQLException if the row is already complete, or sending data fails
+   */
+  public void writeBytes(byte @Nullable [] value) throws SQLException {
+    if (value == null) {
+      writeNull();
+      return;
+    }
+    if (4 + value.length <= buffer.length) {
+      startField(value.length);
+      System.arraycopy(value, 0, buffer, pos, value.length);
+      pos += value.length;
+    } else {
+      writeLargeField(value);
+    }
+  }
+
+  /**
+   * Sends a value that does not fit in the buffer directly after its length.
+   */
+  private void writeLargeField(byte[] value) throws SQLException {
+    startField(value.length);
+    flush();
+    op.writeToCopy(value, 0, value.length);
+  }
+
+  /**
+   * Writes a {@code timestamp} field, or NULL if the value is {@code null}.
+   * {@link LocalDateTime#MAX} and {@link LocalDateTime#MIN} are written as {@code infinity} and
+   * {@code -infinity}.
+   *
+   * @param value the value
+   * @throws SQLException if the row is already complete, or sending data fails
+   */
+  public void writeTimestamp(@Nullable LocalDateTime value) throws SQLException {
+    if (value == null) {
+      writeNull();
+      return;
+    }
+    if (value.equals(LocalDateTime.MAX)) {
+      writeLong(Long.MAX_VALUE);
+    } else if (value.equals(LocalDateTime.MIN)) {
+      writeLong(Long.MIN_VALUE);
+    } else {
+      writeLong(toMicros(value.toEpochSecond(ZoneOffset.UTC), value.getNano()));
+    }
+  }
+
+  /**
+   * Writes a {@code timestamptz} field, or NULL if the value is {@code null}.
+   * {@link OffsetDateTime#MAX} and {@link OffsetDateTime#MIN} are written as {@code infinity} and
+   * {@code -infinity}.
+   *
+   * @param value the value
+   * @throws SQLException if the row is already complete, or sending data fails
+   */
+  public void writeTimestamp(@Nullable OffsetDateTime value) throws SQLException {
+    if (value == null) {
+      writeNull();
+      return;
+    }
+    if (value.equals(OffsetDateTime.MAX)) {
+      writeLong(Long.MAX_VALUE);
+    } else if (value.equals(OffsetDateTime.MIN)) {
+      writeLong(Long.MIN_VALUE);
+    } else {
+      writeLong(toMicros(value.toEpochSecond(), value.getNano()));
+    }
+  }
+
+  /**
+   * Converts a point in time to microseconds since the PostgreSQL epoch, rounding the
+   * nanoseconds the way the server rounds fractional seconds.
+   */
+  private static long toMicros(long epochSeconds, int nanos) {
+    return (epochSeconds - PG_EPOCH_SECONDS) * 1000000L + (nanos + 500) / 1000;
+  }
+
+  /**
+   * Writes an array field of the default array type of the elements, such as {@code int4[]} for
+   * an {@code int[]}, or NULL if the value is {@code null}.
+   *
+   * @param elements a Java array, such as {@code int[]}, {@code Long[]} or {@code String[][]}
+   * @throws SQLException if the elements have no binary form, the row is already complete, or
+   *     sending data fails
+   */
+  public void writeArray(@Nullable Object elements) throws SQLException {
+    writeArray(elements, Oid.UNSPECIFIED);
+  }
+
+  /**
+   * Writes an array field of the given array type, or NULL if the value is {@code null}. The
+   * array type must be the type of the column, since the server checks the element type.
+   *
+   * @param elements a Java array, such as {@code int[]}, {@code Long[]} or {@code String[][]}
+   * @param arrayOid the OID of the array type, such as {@link Oid#TEXT_ARRAY}
+   * @throws SQLException if the elements have no binary form in the array type, the row is
+   *     already complete, or sending data fails
+   */
+  public void writeArray(@Nullable Object elements, int arrayOid) throws SQLException {
+    if (elements == null) {
+      writeNull();
+      return;
+    }
+    writeBytes(connection.encodeArrayBinary(elements, arrayOid));
+  }
+
+  /**
+   * Completes the last row, sends the remaining data, and finishes the COPY.
+   *
+   * @return number of rows copied
+   * @throws SQLException if the last row lacks fields, or the COPY fails
+   */
+  public long endCopy() throws SQLException {
+    checkRowComplete();
+    ensure(2);
+    ByteConverter.int2(buffer, pos, -1);
+    pos += 2;
+    flush();
+    return op.endCopy();
+  }
+
+  /**
+   * Aborts the COPY. No rows are copied.
+   *
+   * @throws SQLException if cancelling fails
+   */
+  public void cancelCopy() throws SQLException {
+    pos = 0;
+    op.cancelCopy();
+  }
+}
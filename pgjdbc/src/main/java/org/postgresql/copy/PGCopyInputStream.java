@@ -127,6 +127,22 @@ public class PGCopyInputStream extends InputStream implements CopyOut {
     return readFromCopy();
   }
 
+  @Override
+  public int readFromCopy(byte[] buf, int off, int len) throws SQLException {
+    byte[] data = this.buf;
+    if (data == null && at < 0) {
+      return -1;
+    }
+    if (data == null || at >= this.len) {
+      // nothing buffered, so the operation can read straight into the caller's buffer
+      return getOp().readFromCopy(buf, off, len);
+    }
+    int length = Math.min(len, this.len - at);
+    System.arraycopy(data, at, buf, off, length);
+    at += length;
+    return length;
+  }
+
   public void close() throws IOException {
     // Don't complain about a double close.
     if (op == null) {
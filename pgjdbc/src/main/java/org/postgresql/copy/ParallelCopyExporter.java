@@ -0,0 +1,642 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.copy;
+
+import static org.postgresql.util.internal.Nullness.castNonNull;
+
+import org.postgresql.core.BaseConnection;
+import org.postgresql.core.ServerVersion;
+import org.postgresql.util.GT;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.PSQLState;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+/**
+ * Exports a table over several connections at once, all reading the same snapshot. A single
+ * {@code COPY TO STDOUT} is processed by one backend; this class splits the table into ranges and
+ * copies each range on its own connection and thread:
+ *
+ * <pre>
+ * ParallelCopyExporter exporter = new ParallelCopyExporter(dataSource, "measurement", 4);
+ * exporter.setCopyOptions("(FORMAT csv)");
+ * exporter.export(new ParallelCopyExporter.PartitionSink() {
+ *   public OutputStream open(int partition) throws IOException {
+ *     return new FileOutputStream("measurement-" + partition + ".csv");
+ *   }
+ * });
+ * </pre>
+ *
+ * <p>A coordinator connection exports its snapshot with {@code pg_export_snapshot()}, and every
+ * worker connection imports it with {@code SET TRANSACTION SNAPSHOT} in a repeatable read
+ * transaction, so the partitions together hold exactly the rows of one consistent state of the
+ * table. This requires PostgreSQL 9.2 or later.</p>
+ *
+ * <p>By default the table is split into ranges of pages by {@code ctid}, which servers since
+ * PostgreSQL 14 read with a TID range scan, so each worker reads only its own pages. On older
+ * servers each worker scans the whole table; {@link #setKeyColumn(String)} splits by ranges of an
+ * indexed integer column instead.</p>
+ *
+ * <p>The table, column and options are inserted into the statements verbatim, so identifiers that
+ * need quoting must be given quoted.</p>
+ */
+public class ParallelCopyExporter {
+  /**
+   * Receives the data of each partition.
+   */
+  public interface PartitionSink {
+    /**
+     * Returns the stream for the data of the given partition. It is called on the thread copying
+     * the partition, and the stream is closed once the partition is written.
+     *
+     * @param partition partition, from 0 to the number of partitions - 1
+     * @return stream for the data of the partition
+     * @throws IOException if the stream cannot be opened
+     */
+    OutputStream open(int partition) throws IOException;
+  }
+
+  /**
+   * Receives the rows of all partitions, one at a time.
+   */
+  public interface RowHandler {
+    /**
+     * Handles one row. It is called on the thread calling
+     * {@link ParallelCopyExporter#exportRows(RowHandler)}, with the rows of the partitions
+     * interleaved.
+     *
+     * @param row the row in the format of the COPY, with its line ending
+     * @throws IOException if the row cannot be handled, which aborts the export
+     */
+    void handleRow(byte[] row) throws IOException;
+  }
+
+  /**
+   * Rows queued for the row handler per partition.
+   */
+  private static final int QUEUED_ROWS = 1024;
+
+  private final @Nullable DataSource dataSource;
+  private final @Nullable BaseConnection coordinator;
+  private final @Nullable List<BaseConnection> workers;
+  private final String table;
+  private final int partitions;
+  private String columns = "*";
+  private String copyOptions = "";
+  private @Nullable String keyColumn;
+  private int bufferSize = CopyManager.DEFAULT_BUFFER_SIZE;
+
+  /**
+   * Exports the table over connections obtained from the given data source: one coordinator and
+   * one per partition. The connections are closed once the table is exported.
+   *
+   * @param dataSource data source for the connections
+   * @param table      table to export
+   * @param partitions number of concurrent connections
+   */
+  public ParallelCopyExporter(DataSource dataSource, String table, int partitions) {
+    if (partitions < 1) {
+      throw new IllegalArgumentException(
+          GT.tr("At least {0} connections are needed, but {1} were requested.", 1, partitions));
+    }
+    this.dataSource = dataSource;
+    this.coordinator = null;
+    this.workers = null;
+    this.table = table;
+    this.partitions = partitions;
+  }
+
+  /**
+   * Exports the table over the given connections, which are left open.
+   *
+   * @param coordinator connection exporting the snapshot
+   * @param workers     connections copying the partitions, one each
+   * @param table       table to export
+   */
+  public ParallelCopyExporter(BaseConnection coordinator, List<BaseConnection> workers,
+      String table) {
+    if (workers.isEmpty()) {
+      throw new IllegalArgumentException(
+          GT.tr("At least {0} connections are needed, but {1} were requested.", 1, 0));
+    }
+    this.dataSource = null;
+    this.coordinator = coordinator;
+    this.workers = new ArrayList<BaseConnection>(workers);
+    this.table = table;
+    this.partitions = workers.size();
+  }
+
+  /**
+   * Sets the columns to export. The default is {@code *}.
+   *
+   * @param columns comma separated list of columns or expressions
+   */
+  public void setColumns(String columns) {
+    this.columns = columns;
+  }
+
+  /**
+   * Sets the options of the COPY, for instance {@code (FORMAT csv)}. The default is the
+   * text format.
+   *
+   * @param copyOptions options appended to {@code COPY ... TO STDOUT}
+   */
+  public void setCopyOptions(String copyOptions) {
+    this.copyOptions = copyOptions;
+  }
+
+  /**
+   * Splits the table by even ranges of the given integer column rather than by {@code ctid}.
+   * Rows with a null key go to the first partition.
+   *
+   * @param keyColumn integer column to split by, or null to split by {@code ctid}
+   */
+  public void setKeyColumn(@Nullable String keyColumn) {
+    this.keyColumn = keyColumn;
+  }
+
+  /**
+   * Sets the size of the buffer of each partition. The default is 64 KiB.
+   *
+   * @param bufferSize receive this many bytes at a time
+   */
+  public void setBufferSize(int bufferSize) {
+    this.bufferSize = bufferSize;
+  }
+
+  /**
+   * Exports each partition to its own stream, concurrently.
+   *
+   * @param sink opens the stream of each partition
+   * @return number of rows exported
+   * @throws SQLException if a connection fails, or a COPY fails
+   * @throws IOException if writing to a stream fails
+   */
+  public long export(PartitionSink sink) throws SQLException, IOException {
+    return export(sink, null);
+  }
+
+  /**
+   * Exports the rows of all partitions to one handler. The partitions are still copied
+   * concurrently; only handling the rows is serial. The COPY must use the text or csv format.
+   *
+   * @param handler handles every row
+   * @return number of rows exported
+   * @throws SQLException if a connection fails, or a COPY fails
+   * @throws IOException if the handler fails
+   */
+  public long exportRows(RowHandler handler) throws SQLException, IOException {
+    return export(null, handler);
+  }
+
+  private long export(@Nullable PartitionSink sink, @Nullable RowHandler handler)
+      throws SQLException, IOException {
+    if (coordinator != null) {
+      return export(coordinator, castNonNull(workers), sink, handler);
+    }
+    DataSource dataSource = castNonNull(this.dataSource);
+    List<Connection> opened = new ArrayList<Connection>(partitions + 1);
+    try {
+      List<BaseConnection> connections = new ArrayList<BaseConnection>(partitions + 1);
+      for (int i = 0; i <= partitions; i++) {
+        Connection connection = dataSource.getConnection();
+        opened.add(connection);
+        connections.add(connection.unwrap(BaseConnection.class));
+      }
+      return export(connections.get(0), connections.subList(1, connections.size()), sink,
+          handler);
+    } finally {
+      for (Connection connection : opened) {
+        try {
+          connection.close();
+        } catch (SQLException e) {
+          // the table is exported, or the export failure is being thrown
+        }
+      }
+    }
+  }
+
+  private long export(BaseConnection coordinator, List<BaseConnection> workers,
+      @Nullable PartitionSink sink, @Nullable RowHandler handler)
+      throws SQLException, IOException {
+    if (!coordinator.haveMinimumServerVersion(ServerVersion.v9_2)) {
+      throw new PSQLException(
+          GT.tr("Exporting a snapshot requires PostgreSQL {0} or later.", "9.2"),
+          PSQLState.NOT_IMPLEMENTED);
+    }
+    int count = workers.size();
+    List<BaseConnection> connections = new ArrayList<BaseConnection>(count + 1);
+    connections.add(coordinator);
+    connections.addAll(workers);
+    boolean[] autoCommit = new boolean[count + 1];
+    int[] isolation = new int[count + 1];
+    int started = 0;
+    Export export = new Export(handler != null ? count * QUEUED_ROWS : 0);
+    List<Worker> threads = new ArrayList<Worker>(count);
+    try {
+      for (; started <= count; started++) {
+        BaseConnection connection = connections.get(started);
+        autoCommit[started] = connection.getAutoCommit();
+        isolation[started] = connection.getTransactionIsolation();
+        connection.setAutoCommit(false);
+        connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+      }
+      String snapshot = queryString(coordinator, "SELECT pg_export_snapshot()");
+      List<String> predicates = split(coordinator, count);
+      for (BaseConnection worker : workers) {
+        execute(worker, "SET TRANSACTION SNAPSHOT '" + snapshot + "'");
+      }
+      // the snapshot stays valid for the workers that imported it
+      coordinator.commit();
+
+      for (int i = 0; i < count; i++) {
+        String sql = "COPY (SELECT " + columns + " FROM " + table + predicates.get(i)
+            + ") TO STDOUT" + (copyOptions.isEmpty() ? "" : " " + copyOptions);
+        Worker worker = new Worker(workers.get(i), sql, i, sink, export, bufferSize);
+        threads.add(worker);
+        worker.start();
+      }
+      if (handler != null) {
+        export.handleRows(handler, count);
+      }
+      long rows = 0;
+      for (Worker worker : threads) {
+        join(worker);
+        rows += worker.rows;
+      }
+      export.throwError();
+      for (BaseConnection worker : workers) {
+        worker.commit();
+      }
+      return rows;
+    } catch (SQLException e) {
+      abort(connections, started, export, threads, e);
+      throw e;
+    } catch (IOException e) {
+      abort(connections, started, export, threads, null);
+      throw e;
+    } catch (RuntimeException e) {
+      abort(connections, started, export, threads, null);
+      throw e;
+    } finally {
+      for (int i = 0; i < started; i++) {
+        try {
+          connections.get(i).setTransactionIsolation(isolation[i]);
+          connections.get(i).setAutoCommit(autoCommit[i]);
+        } catch (SQLException e) {
+          // the connection is broken, which the caller learns when using it
+        }
+      }
+    }
+  }
+
+  /**
+   * Returns the WHERE clause of each partition, in the snapshot of the coordinator.
+   */
+  private List<String> split(BaseConnection coordinator, int count) throws SQLException {
+    List<String> predicates = new ArrayList<String>(count);
+    String keyColumn = this.keyColumn;
+    if (count == 1) {
+      predicates.add("");
+    } else if (keyColumn == null) {
+      PreparedStatement ps = coordinator.prepareStatement(
+          "SELECT pg_relation_size(?::regclass) / current_setting('block_size')::int");
+      long pages;
+      try {
+        ps.setString(1, table);
+        ResultSet rs = ps.executeQuery();
+        rs.next();
+        pages = rs.getLong(1);
+        rs.close();
+      } finally {
+        ps.close();
+      }
+      // the first and last ranges are open, so no row is missed however the table grows
+      for (int i = 0; i < count; i++) {
+        long from = pages * i / count;
+        long to = pages * (i + 1) / count;
+        predicates.add(where(i == 0 ? null : "ctid >= '(" + from + ",0)'::tid",
+            i == count - 1 ? null : "ctid < '(" + to + ",0)'::tid"));
+      }
+    } else {
+      Statement st = coordinator.createStatement();
+      @Nullable String min;
+      @Nullable String max;
+      try {
+        ResultSet rs = st.executeQuery(
+            "SELECT min(" + keyColumn + "), max(" + keyColumn + ") FROM " + table);
+        rs.next();
+        min = rs.getString(1);
+        max = rs.getString(2);
+        rs.close();
+      } finally {
+        st.close();
+      }
+      if (min == null || max == null) {
+        // no keys, so every row has a null key
+        min = "0";
+        max = "0";
+      }
+      BigInteger low = new BigInteger(min);
+      BigInteger span = new BigInteger(max).subtract(low).add(BigInteger.ONE);
+      BigInteger parts = BigInteger.valueOf(count);
+      for (int i = 0; i < count; i++) {
+        BigInteger from = low.add(span.multiply(BigInteger.valueOf(i)).divide(parts));
+        BigInteger to = low.add(span.multiply(BigInteger.valueOf(i + 1)).divide(parts));
+        predicates.add(where(i == 0 ? null : keyColumn + " >= " + from,
+            i == count - 1 ? null
+                : (i == 0 ? keyColumn + " IS NULL OR " : "") + keyColumn + " < " + to));
+      }
+    }
+    return predicates;
+  }
+
+  private static String where(@Nullable String from, @Nullable String to) {
+    if (from == null) {
+      return to == null ? "" : " WHERE " + to;
+    }
+    return to == null ? " WHERE " + from : " WHERE " + from + " AND " + to;
+  }
+
+  /**
+   * Stops the workers and rolls every transaction back. Errors doing so are chained to the error
+   * that caused the abort.
+   */
+  private static void abort(List<BaseConnection> connections, int started, Export export,
+      List<Worker> threads, @Nullable SQLException cause) {
+    export.fail(new PSQLException(GT.tr("The export was aborted."),
+        PSQLState.OBJECT_NOT_IN_STATE));
+    for (Worker worker : threads) {
+      export.discardRows();
+      join(worker);
+    }
+    for (int i = 0; i < started; i++) {
+      try {
+        connections.get(i).rollback();
+      } catch (SQLException e) {
+        if (cause != null) {
+          cause.setNextException(e);
+        }
+      }
+    }
+  }
+
+  private static void join(Thread thread) {
+    boolean interrupted = false;
+    while (true) {
+      try {
+        thread.join();
+        break;
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static String queryString(BaseConnection connection, String sql) throws SQLException {
+    Statement st = connection.createStatement();
+    try {
+      ResultSet rs = st.executeQuery(sql);
+      rs.next();
+      return castNonNull(rs.getString(1));
+    } finally {
+      st.close();
+    }
+  }
+
+  private static void execute(BaseConnection connection, String sql) throws SQLException {
+    Statement st = connection.createStatement();
+    try {
+      st.execute(sql);
+    } finally {
+      st.close();
+    }
+  }
+
+  /**
+   * State shared by the workers: the first failure, and the rows queued for the row handler.
+   */
+  private static final class Export {
+    /**
+     * Queued by each worker once its partition is copied.
+     */
+    static final byte[] END = new byte[0];
+
+    final @Nullable BlockingQueue<byte[]> rows;
+    private volatile @Nullable Exception error;
+
+    Export(int queuedRows) {
+      rows = queuedRows > 0 ? new ArrayBlockingQueue<byte[]>(queuedRows) : null;
+    }
+
+    boolean failed() {
+      return error != null;
+    }
+
+    synchronized void fail(Exception e) {
+      if (error == null) {
+        error = e;
+      }
+    }
+
+    void throwError() throws SQLException, IOException {
+      Exception error = this.error;
+      if (error instanceof IOException) {
+        throw (IOException) error;
+      }
+      if (error != null) {
+        throw (SQLException) error;
+      }
+    }
+
+    /**
+     * Empties the queue, so that workers blocked on it can notice the failure.
+     */
+    void discardRows() {
+      BlockingQueue<byte[]> rows = this.rows;
+      if (rows != null) {
+        rows.clear();
+      }
+    }
+
+    /**
+     * Hands the queued rows to the handler until every worker is done. After a failure the rows
+     * are discarded, so that the workers are not blocked while they cancel their COPY.
+     */
+    void handleRows(RowHandler handler, int workers) {
+      BlockingQueue<byte[]> rows = castNonNull(this.rows);
+      boolean interrupted = false;
+      while (workers > 0) {
+        byte[] row;
+        try {
+          row = rows.take();
+        } catch (InterruptedException e) {
+          interrupted = true;
+          fail(new PSQLException(GT.tr("Interrupted while waiting for the exported rows."),
+              PSQLState.OBJECT_NOT_IN_STATE, e));
+          continue;
+        }
+        if (row == END) {
+          workers--;
+        } else if (!failed()) {
+          try {
+            handler.handleRow(row);
+          } catch (IOException e) {
+            fail(e);
+          } catch (RuntimeException e) {
+            fail(new PSQLException(GT.tr("Handling an exported row failed."),
+                PSQLState.UNEXPECTED_ERROR, e));
+          }
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Copies one partition, to its sink or to the queue of the row handler. Once another partition
+   * fails, the COPY is cancelled.
+   */
+  private static final class Worker extends Thread {
+    private final BaseConnection connection;
+    private final String sql;
+    private final int partition;
+    private final @Nullable PartitionSink sink;
+    private final Export export;
+    private final int bufferSize;
+    long rows;
+
+    Worker(BaseConnection connection, String sql, int partition, @Nullable PartitionSink sink,
+        Export export, int bufferSize) {
+      super("PostgreSQL JDBC driver COPY export " + partition);
+      setDaemon(true); // Don't prevent the VM from shutting down
+      this.connection = connection;
+      this.sql = sql;
+      this.partition = partition;
+      this.sink = sink;
+      this.export = export;
+      this.bufferSize = bufferSize;
+    }
+
+    @Override
+    public void run() {
+      CopyOut op = null;
+      try {
+        op = connection.getCopyAPI().copyOut(sql);
+        PartitionSink sink = this.sink;
+        if (sink != null) {
+          copyToSink(op, sink);
+        } else {
+          copyToQueue(op, castNonNull(export.rows));
+        }
+        if (!op.isActive()) {
+          rows = op.getHandledRowCount();
+        }
+      } catch (SQLException e) {
+        export.fail(e);
+      } catch (IOException e) {
+        export.fail(e);
+      } catch (RuntimeException e) {
+        export.fail(new PSQLException(GT.tr("Exporting partition {0} failed.", partition),
+            PSQLState.UNEXPECTED_ERROR, e));
+      } finally {
+        if (op != null) {
+          cancel(op);
+        }
+        BlockingQueue<byte[]> queue = export.rows;
+        if (queue != null) {
+          // there is room once the handler takes rows or the failure discards them
+          putUninterruptibly(queue, Export.END);
+        }
+      }
+    }
+
+    private void copyToSink(CopyOut op, PartitionSink sink) throws SQLException, IOException {
+      OutputStream out = sink.open(partition);
+      try {
+        byte[] buf = new byte[bufferSize];
+        int len;
+        while (!export.failed() && (len = op.readFromCopy(buf, 0, buf.length)) >= 0) {
+          out.write(buf, 0, len);
+        }
+      } finally {
+        out.close();
+      }
+    }
+
+    private void copyToQueue(CopyOut op, BlockingQueue<byte[]> queue) throws SQLException {
+      if (op.getFormat() != 0) {
+        throw new PSQLException(
+            GT.tr("Only text and csv rows can be handled one at a time."),
+            PSQLState.INVALID_PARAMETER_VALUE);
+      }
+      byte[] row;
+      while (!export.failed() && (row = op.readFromCopy()) != null) {
+        try {
+          while (!queue.offer(row, 10, TimeUnit.MILLISECONDS)) {
+            if (export.failed()) {
+              return;
+            }
+          }
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new PSQLException(GT.tr("Interrupted while queueing an exported row."),
+              PSQLState.OBJECT_NOT_IN_STATE, e);
+        }
+      }
+    }
+
+    /**
+     * Cancels the COPY if it has not finished, so that the connection can be rolled back.
+     */
+    private void cancel(CopyOut op) {
+      if (!op.isActive()) {
+        return;
+      }
+      try {
+        op.cancelCopy();
+      } catch (SQLException e) {
+        export.fail(e);
+      }
+    }
+
+    private static void putUninterruptibly(BlockingQueue<byte[]> queue, byte[] row) {
+      boolean interrupted = false;
+      while (true) {
+        try {
+          queue.put(row);
+          break;
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+}
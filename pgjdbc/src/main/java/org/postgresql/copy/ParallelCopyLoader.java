@@ -0,0 +1,364 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.copy;
+
+import static org.postgresql.util.internal.Nullness.castNonNull;
+
+import org.postgresql.core.BaseConnection;
+import org.postgresql.core.TransactionState;
+import org.postgresql.util.GT;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.PSQLState;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+
+import javax.sql.DataSource;
+
+/**
+ * Loads rows into a table over several connections at once. A single COPY is processed by one
+ * backend, so its speed is bound by one server core; this class spreads the rows over one
+ * {@code COPY FROM STDIN} per connection, which run concurrently:
+ *
+ * <pre>
+ * ParallelCopyLoader loader = new ParallelCopyLoader(dataSource,
+ *     "COPY measurement FROM STDIN (FORMAT csv)", 4);
+ * long rows = loader.load(csvLines);
+ * </pre>
+ *
+ * <p>Each row is a byte array holding one complete row in the format of the COPY, for instance a
+ * line of text ending with a newline, or the tuple data of the binary format. The binary header
+ * and trailer are written by the loader. The rows are sent by a
+ * {@link PGAsyncCopyOutputStream} per connection, so the thread calling {@link #load(Iterator)}
+ * only has to pick a connection for each row with the {@link Partitioner} and buffer it.</p>
+ *
+ * <p>By default each connection commits its part of the rows on its own, as if it were loaded by
+ * a separate client: with auto-commit enabled, when its COPY ends. If a connection fails while
+ * the COPYs are ended, the parts already ended stay committed. With
+ * {@link #setTwoPhaseCommit(boolean)} the parts are prepared with {@code PREPARE TRANSACTION} and
+ * only committed once all of them are prepared, so either all rows are loaded or none. Once all are
+ * prepared they are never rolled back: if {@code COMMIT PREPARED} fails, the error names the
+ * prepared transactions that must be committed manually. This requires
+ * {@code max_prepared_transactions} to be at least the number of connections.</p>
+ */
+public class ParallelCopyLoader {
+  /**
+   * Chooses the connection for each row.
+   */
+  public interface Partitioner {
+    /**
+     * Returns the partition for the given row.
+     *
+     * @param row        the row, in the format of the COPY
+     * @param rowNumber  zero-based position of the row in the row source
+     * @param partitions number of partitions, i.e. of connections
+     * @return partition of the row, from 0 to {@code partitions - 1}
+     */
+    int partition(byte[] row, long rowNumber, int partitions);
+  }
+
+  /**
+   * Hands the rows to the connections in turn, which spreads them evenly.
+   */
+  public static final Partitioner ROUND_ROBIN = new Partitioner() {
+    @Override
+    public int partition(byte[] row, long rowNumber, int partitions) {
+      return (int) (rowNumber % partitions);
+    }
+  };
+
+  private static final byte[] BINARY_TRAILER = {(byte) 0xff, (byte) 0xff};
+
+  private final @Nullable DataSource dataSource;
+  private final @Nullable List<BaseConnection> connections;
+  private final String sql;
+  private final int partitions;
+  private Partitioner partitioner = ROUND_ROBIN;
+  private boolean twoPhaseCommit;
+  private int bufferSize = CopyManager.DEFAULT_BUFFER_SIZE;
+
+  /**
+   * Loads the rows over connections obtained from the given data source. The connections are
+   * closed once the rows are loaded.
+   *
+   * @param dataSource data source for the connections
+   * @param sql        COPY FROM STDIN statement for the target table
+   * @param partitions number of concurrent connections
+   */
+  public ParallelCopyLoader(DataSource dataSource, String sql, int partitions) {
+    if (partitions < 1) {
+      throw new IllegalArgumentException(
+          GT.tr("At least {0} connections are needed, but {1} were requested.", 1, partitions));
+    }
+    this.dataSource = dataSource;
+    this.connections = null;
+    this.sql = sql;
+    this.partitions = partitions;
+  }
+
+  /**
+   * Loads the rows over the given connections, which are left open.
+   *
+   * @param connections connections to load the rows over, one COPY each
+   * @param sql         COPY FROM STDIN statement for the target table
+   */
+  public ParallelCopyLoader(List<BaseConnection> connections, String sql) {
+    if (connections.isEmpty()) {
+      throw new IllegalArgumentException(
+          GT.tr("At least {0} connections are needed, but {1} were requested.", 1, 0));
+    }
+    this.dataSource = null;
+    this.connections = new ArrayList<BaseConnection>(connections);
+    this.sql = sql;
+    this.partitions = connections.size();
+  }
+
+  /**
+   * Sets how the rows are spread over the connections. The default is {@link #ROUND_ROBIN}.
+   *
+   * @param partitioner chooses the connection for each row
+   */
+  public void setPartitioner(Partitioner partitioner) {
+    this.partitioner = partitioner;
+  }
+
+  /**
+   * Sets whether the rows are committed with two-phase commit, so that either all of them are
+   * loaded or none. The connections must not be in a transaction when loading starts.
+   *
+   * @param twoPhaseCommit true to commit all connections or none
+   */
+  public void setTwoPhaseCommit(boolean twoPhaseCommit) {
+    this.twoPhaseCommit = twoPhaseCommit;
+  }
+
+  /**
+   * Sets the size of the buffers of each connection. The default is 64 KiB.
+   *
+   * @param bufferSize try to send this many bytes at a time
+   */
+  public void setBufferSize(int bufferSize) {
+    this.bufferSize = bufferSize;
+  }
+
+  /**
+   * Loads the rows. On failure every COPY is cancelled; see the class description for which rows
+   * may already be committed.
+   *
+   * @param rows rows in the format of the COPY
+   * @return number of rows copied
+   * @throws SQLException if a connection fails, or a COPY fails
+   */
+  public long load(Iterator<byte[]> rows) throws SQLException {
+    if (connections != null) {
+      return load(connections, rows);
+    }
+    DataSource dataSource = castNonNull(this.dataSource);
+    List<Connection> opened = new ArrayList<Connection>(partitions);
+    @Nullable SQLException error = null;
+    try {
+      List<BaseConnection> connections = new ArrayList<BaseConnection>(partitions);
+      for (int i = 0; i < partitions; i++) {
+        Connection connection = dataSource.getConnection();
+        opened.add(connection);
+        connections.add(connection.unwrap(BaseConnection.class));
+      }
+      return load(connections, rows);
+    } catch (SQLException e) {
+      error = e;
+      throw e;
+    } finally {
+      for (Connection connection : opened) {
+        try {
+          connection.close();
+        } catch (SQLException e) {
+          // the rows are loaded, so only report it along with a load failure
+          if (error != null) {
+            error.setNextException(e);
+          }
+        }
+      }
+    }
+  }
+
+  private long load(List<BaseConnection> connections, Iterator<byte[]> rows) throws SQLException {
+    int count = connections.size();
+    @Nullable PGAsyncCopyOutputStream[] streams = new PGAsyncCopyOutputStream[count];
+    boolean[] autoCommit = new boolean[count];
+    String gid = "pgjdbc_copy_" + UUID.randomUUID() + "_";
+    // connections switched to manual commit, and connections with a prepared transaction
+    int started = 0;
+    int prepared = 0;
+    long handled;
+    try {
+      try {
+        if (twoPhaseCommit) {
+          for (BaseConnection connection : connections) {
+            if (connection.getTransactionState() != TransactionState.IDLE) {
+              throw new PSQLException(
+                  GT.tr("Two-phase commit requires connections that are not in a transaction."),
+                  PSQLState.OBJECT_NOT_IN_STATE);
+            }
+          }
+          for (; started < count; started++) {
+            BaseConnection connection = connections.get(started);
+            autoCommit[started] = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+          }
+        }
+        boolean binary = false;
+        for (int i = 0; i < count; i++) {
+          PGAsyncCopyOutputStream stream = new PGAsyncCopyOutputStream(
+              connections.get(i).getCopyAPI().copyIn(sql), bufferSize, 2);
+          streams[i] = stream;
+          binary = stream.getFormat() == 1;
+          if (binary) {
+            stream.writeToCopy(PGBinaryCopyWriter.HEADER, 0, PGBinaryCopyWriter.HEADER.length);
+          }
+        }
+
+        long rowNumber = 0;
+        while (rows.hasNext()) {
+          byte[] row = rows.next();
+          int partition = partitioner.partition(row, rowNumber, count);
+          if (partition < 0 || partition >= count) {
+            throw new PSQLException(
+                GT.tr(
+                    "The partitioner returned {0} for row {1}, but there are only {2} partitions.",
+                    partition, rowNumber, count),
+                PSQLState.INVALID_PARAMETER_VALUE);
+          }
+          castNonNull(streams[partition]).writeToCopy(row, 0, row.length);
+          rowNumber++;
+        }
+
+        handled = 0;
+        for (int i = 0; i < count; i++) {
+          PGAsyncCopyOutputStream stream = castNonNull(streams[i]);
+          if (binary) {
+            stream.writeToCopy(BINARY_TRAILER, 0, BINARY_TRAILER.length);
+          }
+          handled += stream.endCopy();
+        }
+
+        if (twoPhaseCommit) {
+          for (; prepared < count; prepared++) {
+            BaseConnection connection = connections.get(prepared);
+            execute(connection, "PREPARE TRANSACTION '" + gid + prepared + "'");
+            // COMMIT PREPARED cannot run in a transaction block
+            connection.setAutoCommit(true);
+          }
+        }
+      } catch (SQLException e) {
+        abort(connections, streams, gid, started, prepared, e);
+        throw e;
+      } catch (RuntimeException e) {
+        abort(connections, streams, gid, started, prepared, null);
+        throw e;
+      }
+      if (twoPhaseCommit) {
+        // every part is prepared, so from now on the rows are committed and never rolled back
+        commitPrepared(connections, gid);
+      }
+      return handled;
+    } finally {
+      for (int i = 0; i < started; i++) {
+        try {
+          connections.get(i).setAutoCommit(autoCommit[i]);
+        } catch (SQLException e) {
+          // the connection is broken, which the caller learns when using it
+        }
+      }
+    }
+  }
+
+  /**
+   * Commits every prepared transaction. Once all are prepared the rows must be committed, so a
+   * failure does not stop the remaining commits.
+   */
+  private static void commitPrepared(List<BaseConnection> connections, String gid)
+      throws SQLException {
+    PSQLException error = null;
+    for (int i = 0; i < connections.size(); i++) {
+      try {
+        execute(connections.get(i), "COMMIT PREPARED '" + gid + i + "'");
+      } catch (SQLException e) {
+        PSQLException failure = new PSQLException(
+            GT.tr("Could not commit the prepared transaction {0}; it must be committed manually.",
+                gid + i),
+            PSQLState.CONNECTION_FAILURE, e);
+        if (error == null) {
+          error = failure;
+        } else {
+          error.setNextException(failure);
+        }
+      }
+    }
+    if (error != null) {
+      throw error;
+    }
+  }
+
+  /**
+   * Cancels every COPY and, with two-phase commit, rolls every transaction back. Errors doing so
+   * are chained to the error that caused the abort.
+   */
+  private static void abort(List<BaseConnection> connections,
+      @Nullable PGAsyncCopyOutputStream[] streams, String gid, int started, int prepared,
+      @Nullable SQLException cause) {
+    List<SQLException> errors = new ArrayList<SQLException>();
+    for (@Nullable PGAsyncCopyOutputStream stream : streams) {
+      if (stream == null) {
+        continue;
+      }
+      try {
+        if (stream.isActive()) {
+          stream.cancelCopy();
+        }
+      } catch (SQLException e) {
+        errors.add(e);
+      }
+      try {
+        stream.close();
+      } catch (IOException e) {
+        // not active any more, so nothing is sent
+      }
+    }
+    for (int i = 0; i < started; i++) {
+      try {
+        if (i < prepared) {
+          execute(connections.get(i), "ROLLBACK PREPARED '" + gid + i + "'");
+        } else {
+          connections.get(i).rollback();
+        }
+      } catch (SQLException e) {
+        errors.add(e);
+      }
+    }
+    if (cause != null) {
+      for (SQLException e : errors) {
+        cause.setNextException(e);
+      }
+    }
+  }
+
+  private static void execute(BaseConnection connection, String sql) throws SQLException {
+    Statement stmt = connection.createStatement();
+    try {
+      stmt.executeUpdate(sql);
+    } finally {
+      stmt.close();
+    }
+  }
+}
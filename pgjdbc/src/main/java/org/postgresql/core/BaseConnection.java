@@ -92,6 +92,14 @@ public interface BaseConnection extends PGConnection, Connection {
 
   TypeInfo getTypeInfo();
 
+  /**
+   * Returns the {@link org.postgresql.util.PGCodec codecs} that were resolved for this
+   * connection.
+   *
+   * @return the codec registry, never null
+   */
+  CodecRegistry getCodecRegistry();
+
   /**
    * <p>Check if we have at least a particular server version.</p>
    *
@@ -149,6 +157,18 @@ public interface BaseConnection extends PGConnection, Connection {
   // Ew. Quick hack to give access to the connection-specific utils implementation.
   TimestampUtils getTimestampUtils();
 
+  /**
+   * Encodes a Java array, such as an {@code int[]} or a {@code String[][]}, in the binary format
+   * of an array type.
+   *
+   * @param elements the array
+   * @param arrayOid the OID of the array type, {@link Oid#UNSPECIFIED} for the default array type
+   *     of the elements
+   * @return the binary value
+   * @throws SQLException if the elements have no binary form in the array type
+   */
+  byte[] encodeArrayBinary(Object elements, int arrayOid) throws SQLException;
+
   // Get the per-connection logger.
   java.util.logging.Logger getLogger();
 
@@ -20,30 +20,13 @@ final class ByteOptimizedUTF8Encoder extends OptimizedUTF8Encoder {
    */
   @Override
   public String decode(byte[] encodedString, int offset, int length) throws IOException {
-    //for very short strings going straight to chars is up to 30% faster
-    if (length <= 32) {
-      return charDecode(encodedString, offset, length);
+    int end = offset + length;
+    int nonAscii = firstNonAscii(encodedString, offset, end);
+    if (nonAscii == end) {
+      // all chars are ascii, so latin-1 gives the same result and lets the jdk copy the bytes
+      // straight into a compact string
+      return new String(encodedString, offset, length, StandardCharsets.ISO_8859_1);
     }
-    for (int i = offset, j = offset + length; i < j; ++i) {
-      // bytes are signed values. all ascii values are positive
-      if (encodedString[i] < 0) {
-        return slowDecode(encodedString, offset, length, i);
-      }
-    }
-    // we have confirmed all chars are ascii, give java that hint
-    return new String(encodedString, offset, length, StandardCharsets.US_ASCII);
-  }
-
-  /**
-   * Decodes to {@code char[]} in presence of non-ascii values after first copying all known ascii chars directly
-   * from {@code byte[]} to {@code char[]}.
-   */
-  private synchronized String slowDecode(byte[] encodedString, int offset, int length, int curIdx) throws IOException {
-    final char[] chars = getCharArray(length);
-    int out = 0;
-    for (int i = offset; i < curIdx; ++i) {
-      chars[out++] = (char) encodedString[i];
-    }
-    return decodeToChars(encodedString, curIdx, length - (curIdx - offset), chars, out);
+    return slowDecode(encodedString, offset, length, nonAscii);
   }
 }
@@ -0,0 +1,279 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.core;
+
+import org.postgresql.util.GT;
+import org.postgresql.util.PGCodec;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.PSQLState;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The {@link PGCodec} instances available on a connection, keyed by the oid of the type they
+ * handle and by their Java type.
+ */
+public final class CodecRegistry {
+  private static final Logger LOGGER = Logger.getLogger(CodecRegistry.class.getName());
+
+  private static final CodecRegistry EMPTY = new CodecRegistry(
+      Collections.<Integer, Entry>emptyMap(), Collections.<Class<?>, Entry>emptyMap(),
+      Collections.<Entry>emptyList());
+
+  /**
+   * The codecs found for each class loader. The codecs are loaded by that class loader, so they
+   * are only weakly referenced; otherwise the value would keep the key reachable. The codecs stay
+   * loaded as long as a connection uses them.
+   */
+  private static final Map<@Nullable ClassLoader, WeakReference<List<PGCodec<?>>>> SERVICES =
+      new WeakHashMap<@Nullable ClassLoader, WeakReference<List<PGCodec<?>>>>();
+
+  private final Map<Integer, Entry> byOid;
+  private final Map<Class<?>, Entry> byClass;
+  private final List<Entry> entries;
+
+  private CodecRegistry(Map<Integer, Entry> byOid, Map<Class<?>, Entry> byClass,
+      List<Entry> entries) {
+    this.byOid = byOid;
+    this.byClass = byClass;
+    this.entries = entries;
+  }
+
+  /**
+   * A registry without codecs.
+   *
+   * @return the empty registry
+   */
+  public static CodecRegistry empty() {
+    return EMPTY;
+  }
+
+  /**
+   * Resolves the types of the codecs found by {@link ServiceLoader} against the database. Codecs
+   * whose type does not exist are skipped.
+   *
+   * @param typeInfo type information of the connection
+   * @return registry of the codecs usable on the connection
+   * @throws SQLException if the type lookup fails
+   */
+  public static CodecRegistry create(TypeInfo typeInfo) throws SQLException {
+    List<PGCodec<?>> codecs = loadCodecs();
+    if (codecs.isEmpty()) {
+      return EMPTY;
+    }
+    Map<Integer, Entry> byOid = new HashMap<Integer, Entry>();
+    Map<Class<?>, Entry> byClass = new HashMap<Class<?>, Entry>();
+    List<Entry> entries = new ArrayList<Entry>(codecs.size());
+    for (PGCodec<?> codec : codecs) {
+      String typeName = codec.getTypeName();
+      int oid = typeInfo.getPGType(typeName);
+      if (oid == Oid.UNSPECIFIED) {
+        LOGGER.log(Level.FINE, "Type {0} of codec {1} does not exist, skipping it",
+            new Object[]{typeName, codec.getClass().getName()});
+        continue;
+      }
+      int arrayOid = codec.supportsArrays() ? typeInfo.getPGArrayType(typeName) : Oid.UNSPECIFIED;
+      Entry entry = new Entry(codec, oid, arrayOid);
+      byOid.put(oid, entry);
+      if (!byClass.containsKey(codec.getJavaType())) {
+        byClass.put(codec.getJavaType(), entry);
+      }
+      entries.add(entry);
+    }
+    return new CodecRegistry(byOid, byClass, entries);
+  }
+
+  private static List<PGCodec<?>> loadCodecs() {
+    ClassLoader loader = Thread.currentThread().getContextClassLoader();
+    synchronized (SERVICES) {
+      WeakReference<List<PGCodec<?>>> cached = SERVICES.get(loader);
+      List<PGCodec<?>> codecs = cached == null ? null : cached.get();
+      if (codecs != null) {
+        return codecs;
+      }
+      codecs = new ArrayList<PGCodec<?>>();
+      @SuppressWarnings("unchecked")
+      Class<PGCodec<?>> codecClass = (Class<PGCodec<?>>) (Class<?>) PGCodec.class;
+      Iterator<PGCodec<?>> it = ServiceLoader.load(codecClass, loader).iterator();
+      while (true) {
+        try {
+          if (!it.hasNext()) {
+            break;
+          }
+          codecs.add(it.next());
+        } catch (ServiceConfigurationError e) {
+          LOGGER.log(Level.WARNING, "Unable to load codec", e);
+        }
+      }
+      codecs = Collections.unmodifiableList(codecs);
+      SERVICES.put(loader, new WeakReference<List<PGCodec<?>>>(codecs));
+      return codecs;
+    }
+  }
+
+  /**
+   * Returns true if no codecs are registered.
+   *
+   * @return true if the registry is empty
+   */
+  public boolean isEmpty() {
+    return entries.isEmpty();
+  }
+
+  /**
+   * Returns the oids of the types and array types of codecs that support the binary format.
+   *
+   * @return set of oids to transfer in binary
+   */
+  public Set<Integer> getBinaryOids() {
+    Set<Integer> oids = new HashSet<Integer>();
+    for (Entry entry : entries) {
+      if (entry.codec.supportsBinary()) {
+        oids.add(entry.oid);
+        if (entry.arrayOid != Oid.UNSPECIFIED) {
+          oids.add(entry.arrayOid);
+        }
+      }
+    }
+    return oids;
+  }
+
+  /**
+   * Finds the codec for a type.
+   *
+   * @param oid oid of the type
+   * @return the codec, or null if there is none for the type
+   */
+  public @Nullable Entry forOid(int oid) {
+    if (entries.isEmpty()) {
+      return null;
+    }
+    return byOid.get(oid);
+  }
+
+  /**
+   * Finds the codec for a Java class. A codec registered for the class itself is preferred,
+   * otherwise codecs registered for a superclass or interface of the class match too.
+   *
+   * @param type the class of a parameter value
+   * @return the codec, or null if there is none for the class
+   */
+  public @Nullable Entry forClass(Class<?> type) {
+    Entry exact = byClass.get(type);
+    if (exact != null || entries.isEmpty()) {
+      return exact;
+    }
+    for (Entry entry : entries) {
+      if (entry.codec.getJavaType().isAssignableFrom(type)) {
+        return entry;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * A codec together with the oids it was resolved to on the connection.
+   */
+  public static final class Entry {
+    private final PGCodec<?> codec;
+    private final int oid;
+    private final int arrayOid;
+
+    Entry(PGCodec<?> codec, int oid, int arrayOid) {
+      this.codec = codec;
+      this.oid = oid;
+      this.arrayOid = arrayOid;
+    }
+
+    public PGCodec<?> getCodec() {
+      return codec;
+    }
+
+    public Class<?> getJavaType() {
+      return codec.getJavaType();
+    }
+
+    public int getOid() {
+      return oid;
+    }
+
+    /**
+     * The oid of the array type, if the codec supports arrays.
+     *
+     * @return oid of the array type or {@link Oid#UNSPECIFIED}
+     */
+    public int getArrayOid() {
+      return arrayOid;
+    }
+
+    /**
+     * Decodes a value received in the given format.
+     *
+     * @param value raw value
+     * @param offset offset of the value in {@code value}
+     * @param length length of the value
+     * @param binary true if the value is in binary format
+     * @param encoding connection encoding, used for text values
+     * @return decoded value
+     * @throws SQLException if decoding fails
+     */
+    public Object decode(byte[] value, int offset, int length, boolean binary, Encoding encoding)
+        throws SQLException {
+      if (binary) {
+        return codec.decodeBinary(value, offset, length);
+      }
+      String text;
+      try {
+        text = encoding.decode(value, offset, length);
+      } catch (IOException e) {
+        throw new PSQLException(GT.tr("Invalid character data was found."),
+            PSQLState.DATA_ERROR, e);
+      }
+      return codec.decodeText(text);
+    }
+
+    /**
+     * Encodes a value in binary format.
+     *
+     * @param value value of the codec Java type
+     * @return binary representation
+     * @throws SQLException if encoding fails
+     */
+    @SuppressWarnings("unchecked")
+    public byte[] encodeBinary(Object value) throws SQLException {
+      return ((PGCodec<Object>) codec).encodeBinary(value);
+    }
+
+    /**
+     * Encodes a value in text format.
+     *
+     * @param value value of the codec Java type
+     * @return text representation
+     * @throws SQLException if encoding fails
+     */
+    @SuppressWarnings("unchecked")
+    public String encodeText(Object value) throws SQLException {
+      return ((PGCodec<Object>) codec).encodeText(value);
+    }
+  }
+}
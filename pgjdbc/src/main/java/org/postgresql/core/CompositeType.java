@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.core;
+
+import org.postgresql.util.GT;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.PSQLState;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.sql.SQLException;
+import java.sql.Struct;
+
+/**
+ * The attributes of a composite type as listed in {@code pg_attribute}, and the Java class its
+ * values are mapped to, if one was registered with
+ * {@link org.postgresql.PGConnection#addCompositeType(String, Class)}.
+ */
+public final class CompositeType {
+  private final String name;
+  private final int oid;
+  private final String[] attributeNames;
+  private final int[] attributeOids;
+
+  private volatile @Nullable Mapping mapping;
+
+  /**
+   * The Java class registered for a composite type, with the constructor used to create its
+   * instances.
+   */
+  private static final class Mapping {
+    final Class<?> javaClass;
+    final @Nullable MethodHandle constructor;
+    final Class<?> @Nullable [] parameterTypes;
+
+    Mapping(Class<?> javaClass, @Nullable MethodHandle constructor,
+        Class<?> @Nullable [] parameterTypes) {
+      this.javaClass = javaClass;
+      this.constructor = constructor;
+      this.parameterTypes = parameterTypes;
+    }
+  }
+
+  public CompositeType(String name, int oid, String[] attributeNames, int[] attributeOids) {
+    this.name = name;
+    this.oid = oid;
+    this.attributeNames = attributeNames;
+    this.attributeOids = attributeOids;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public int getOid() {
+    return oid;
+  }
+
+  public int getAttributeCount() {
+    return attributeOids.length;
+  }
+
+  public String getAttributeName(int index) {
+    return attributeNames[index];
+  }
+
+  public int getAttributeOid(int index) {
+    return attributeOids[index];
+  }
+
+  /**
+   * Returns true if a Java class was registered for this type.
+   *
+   * @return true if the type was registered
+   */
+  public boolean isRegistered() {
+    return mapping != null;
+  }
+
+  /**
+   * The Java class values are mapped to: {@link Struct}, {@code Object[]}, or a class constructed
+   * from the attribute values.
+   *
+   * @return the registered class, or {@link Struct} if none was registered
+   */
+  public Class<?> getJavaClass() {
+    Mapping mapping = this.mapping;
+    return mapping == null ? Struct.class : mapping.javaClass;
+  }
+
+  /**
+   * The parameter types of the constructor of the registered class.
+   *
+   * @return the parameter types, or null if values are not mapped to a custom class
+   */
+  public Class<?> @Nullable [] getParameterTypes() {
+    Mapping mapping = this.mapping;
+    return mapping == null ? null : mapping.parameterTypes;
+  }
+
+  /**
+   * Creates an instance of the registered class.
+   *
+   * @param arguments attribute values converted to the constructor parameter types
+   * @return the new instance
+   * @throws SQLException if the constructor fails
+   */
+  public Object newInstance(@Nullable Object[] arguments) throws SQLException {
+    Mapping mapping = this.mapping;
+    MethodHandle constructor = mapping == null ? null : mapping.constructor;
+    if (constructor == null) {
+      throw new IllegalStateException("No class is registered for composite type " + name);
+    }
+    try {
+      return constructor.invoke(arguments);
+    } catch (Throwable t) {
+      throw new PSQLException(GT.tr("Failed to create object for: {0}.", name),
+          PSQLState.DATA_ERROR, t);
+    }
+  }
+
+  /**
+   * Registers the class values of this type are mapped to. {@link Struct} and {@code Object[]}
+   * are used as is. For other classes the canonical constructor of a record class, or else the
+   * only public constructor that takes one parameter per attribute, creates the instances.
+   *
+   * @param javaClass the class to map values to
+   * @throws SQLException if the class has no suitable constructor
+   */
+  public void setJavaClass(Class<?> javaClass) throws SQLException {
+    if (javaClass == Struct.class || javaClass == Object[].class) {
+      mapping = new Mapping(javaClass, null, null);
+      return;
+    }
+    Constructor<?> constructor = findConstructor(javaClass);
+    try {
+      MethodHandle handle = MethodHandles.publicLookup().unreflectConstructor(constructor)
+          .asSpreader(Object[].class, attributeOids.length);
+      mapping = new Mapping(javaClass, handle, constructor.getParameterTypes());
+    } catch (IllegalAccessException e) {
+      throw new PSQLException(
+          GT.tr("The constructor of {0} is not accessible.", javaClass.getName()),
+          PSQLState.INVALID_PARAMETER_TYPE, e);
+    }
+  }
+
+  private Constructor<?> findConstructor(Class<?> javaClass) throws SQLException {
+    if (!Modifier.isPublic(javaClass.getModifiers())) {
+      throw new PSQLException(
+          GT.tr("The constructor of {0} is not accessible.", javaClass.getName()),
+          PSQLState.INVALID_PARAMETER_TYPE);
+    }
+    Class<?>[] componentTypes = getRecordComponentTypes(javaClass);
+    if (componentTypes != null) {
+      if (componentTypes.length == attributeOids.length) {
+        try {
+          return javaClass.getConstructor(componentTypes);
+        } catch (NoSuchMethodException e) {
+          // the canonical constructor of a public record is always public
+        }
+      }
+    } else {
+      Constructor<?> found = null;
+      for (Constructor<?> constructor : javaClass.getConstructors()) {
+        if (constructor.getParameterTypes().length == attributeOids.length) {
+          if (found != null) {
+            found = null;
+            break;
+          }
+          found = constructor;
+        }
+      }
+      if (found != null) {
+        return found;
+      }
+    }
+    throw new PSQLException(
+        GT.tr("Class {0} must have exactly one public constructor taking the {1} attributes of type {2}.",
+            javaClass.getName(), attributeOids.length, name),
+        PSQLState.INVALID_PARAMETER_TYPE);
+  }
+
+  /**
+   * Returns the types of the record components, or null if the class is not a record or the
+   * runtime does not support records.
+   */
+  private static Class<?> @Nullable [] getRecordComponentTypes(Class<?> javaClass) {
+    try {
+      Method getRecordComponents = Class.class.getMethod("getRecordComponents");
+      Object[] components = (Object[]) getRecordComponents.invoke(javaClass);
+      if (components == null) {
+        return null;
+      }
+      Class<?>[] types = new Class<?>[components.length];
+      for (int i = 0; i < components.length; i++) {
+        types[i] = (Class<?>) components[i].getClass().getMethod("getType").invoke(components[i]);
+      }
+      return types;
+    } catch (ReflectiveOperationException e) {
+      return null;
+    }
+  }
+}
@@ -94,7 +94,7 @@ public class Encoding {
           return new CharOptimizedUTF8Encoder();
         }
       };
-    } else {
+    } else if (runtimeFeatureVersion() < 17) {
       //for newer versions, use default java behavior
       UTF_ENCODING_PROVIDER = new UTFEncodingProvider() {
         @Override
@@ -102,6 +102,29 @@ public class Encoding {
           return new ByteOptimizedUTF8Encoder();
         }
       };
+    } else {
+      //jdk 17+ decodes utf-8 in String with vectorized intrinsics
+      UTF_ENCODING_PROVIDER = new UTFEncodingProvider() {
+        @Override
+        public Encoding getEncoding() {
+          return new IntrinsicUTF8Encoder();
+        }
+      };
+    }
+  }
+
+  /**
+   * Returns the feature release of the running jdk, such as 8 or 17.
+   */
+  private static int runtimeFeatureVersion() {
+    String version = System.getProperty("java.specification.version", "1.8");
+    if (version.startsWith("1.")) {
+      version = version.substring(2);
+    }
+    try {
+      return Integer.parseInt(version);
+    } catch (NumberFormatException e) {
+      return 8;
     }
   }
 
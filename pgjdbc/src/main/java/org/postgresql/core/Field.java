@@ -38,6 +38,9 @@ public class Field {
   private int sqlType;
   private String pgType = NOT_YET_LOADED;
 
+  // Conversion last resolved by getObject(int, Class) for this field, opaque to this class
+  private @Nullable Object readerCache;
+
   // New string to avoid clashes with other strings
   private static final String NOT_YET_LOADED = new String("pgType is not yet loaded");
 
@@ -172,4 +175,22 @@ public class Field {
   public boolean isTypeInitialized() {
     return pgType != NOT_YET_LOADED;
   }
+
+  /**
+   * @return the conversion the result set last resolved for this field, or null if none
+   */
+  public @Nullable Object getReaderCache() {
+    return readerCache;
+  }
+
+  /**
+   * Remembers the conversion the result set resolved for this field, so that later calls with
+   * the same requested class skip the lookup. Fields are shared by the result sets of a
+   * statement, so the value must be immutable.
+   *
+   * @param readerCache the resolved conversion
+   */
+  public void setReaderCache(@Nullable Object readerCache) {
+    this.readerCache = readerCache;
+  }
 }
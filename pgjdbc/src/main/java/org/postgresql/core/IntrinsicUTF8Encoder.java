@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.core;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * UTF-8 encoder for jdk 17+, where the UTF-8 decoding of the {@code String} constructor checks
+ * for ascii with vectorized intrinsics. The jdk replaces malformed input with U+FFFD instead of
+ * failing, so a result that contains U+FFFD is decoded again with the validating decoder, which
+ * either reports the malformed input or confirms that U+FFFD was part of the value.
+ */
+final class IntrinsicUTF8Encoder extends OptimizedUTF8Encoder {
+
+  private static final char REPLACEMENT = '\uFFFD';
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String decode(byte[] encodedString, int offset, int length) throws IOException {
+    String value = new String(encodedString, offset, length, StandardCharsets.UTF_8);
+    if (value.indexOf(REPLACEMENT) < 0) {
+      return value;
+    }
+    int end = offset + length;
+    return slowDecode(encodedString, offset, length, firstNonAscii(encodedString, offset, end));
+  }
+}
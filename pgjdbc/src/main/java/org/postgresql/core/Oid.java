@@ -72,11 +72,38 @@ public class Oid {
   public static final int POINT = 600;
   public static final int POINT_ARRAY = 1017;
   public static final int BOX = 603;
+  public static final int JSONB = 3802;
   public static final int JSONB_ARRAY = 3807;
   public static final int JSON = 114;
   public static final int JSON_ARRAY = 199;
   public static final int REF_CURSOR = 1790;
   public static final int REF_CURSOR_ARRAY = 2201;
+  public static final int RECORD = 2249;
+  public static final int RECORD_ARRAY = 2287;
+  public static final int INT4RANGE = 3904;
+  public static final int INT4RANGE_ARRAY = 3905;
+  public static final int NUMRANGE = 3906;
+  public static final int NUMRANGE_ARRAY = 3907;
+  public static final int TSRANGE = 3908;
+  public static final int TSRANGE_ARRAY = 3909;
+  public static final int TSTZRANGE = 3910;
+  public static final int TSTZRANGE_ARRAY = 3911;
+  public static final int DATERANGE = 3912;
+  public static final int DATERANGE_ARRAY = 3913;
+  public static final int INT8RANGE = 3926;
+  public static final int INT8RANGE_ARRAY = 3927;
+  public static final int INT4MULTIRANGE = 4451;
+  public static final int INT4MULTIRANGE_ARRAY = 6150;
+  public static final int NUMMULTIRANGE = 4532;
+  public static final int NUMMULTIRANGE_ARRAY = 6151;
+  public static final int TSMULTIRANGE = 4533;
+  public static final int TSMULTIRANGE_ARRAY = 6152;
+  public static final int TSTZMULTIRANGE = 4534;
+  public static final int TSTZMULTIRANGE_ARRAY = 6153;
+  public static final int DATEMULTIRANGE = 4535;
+  public static final int DATEMULTIRANGE_ARRAY = 6155;
+  public static final int INT8MULTIRANGE = 4536;
+  public static final int INT8MULTIRANGE_ARRAY = 6157;
   public static final int LINE = 628;
   public static final int LSEG = 601;
   public static final int PATH = 602;
@@ -8,6 +8,7 @@ package org.postgresql.core;
 import org.postgresql.util.GT;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.charset.CharsetDecoder;
 import java.nio.charset.StandardCharsets;
 
@@ -69,6 +70,168 @@ abstract class OptimizedUTF8Encoder extends Encoding {
     return new String(chars, 0, out);
   }
 
+  /**
+   * Returns the index of the first byte that is not ascii, checking eight bytes per step while
+   * they are all ascii.
+   *
+   * @param data
+   *          The {@code byte[]} to check.
+   * @param offset
+   *          The starting index in <i>data</i>.
+   * @param end
+   *          The index after the last byte to check.
+   * @return
+   *          The index of the first negative byte, or <i>end</i> if all bytes are ascii.
+   */
+  static int firstNonAscii(byte[] data, int offset, int end) {
+    int i = offset;
+    while (i + 8 <= end
+        && (data[i] | data[i + 1] | data[i + 2] | data[i + 3]
+          | data[i + 4] | data[i + 5] | data[i + 6] | data[i + 7]) >= 0) {
+      i += 8;
+    }
+    while (i < end && data[i] >= 0) {
+      ++i;
+    }
+    return i;
+  }
+
+  /**
+   * Decodes to {@code char[]} in presence of non-ascii values after first copying all known ascii
+   * chars directly from {@code byte[]} to {@code char[]}.
+   */
+  synchronized String slowDecode(byte[] encodedString, int offset, int length, int curIdx)
+      throws IOException {
+    final char[] chars = getCharArray(length);
+    int out = 0;
+    for (int i = offset; i < curIdx; ++i) {
+      chars[out++] = (char) encodedString[i];
+    }
+    return decodeToChars(encodedString, curIdx, length - (curIdx - offset), chars, out);
+  }
+
+  /**
+   * Returns the number of bytes <i>value</i> takes in utf-8, in a single pass over its chars and
+   * without encoding it. Unpaired surrogates count as one byte, since they are replaced with
+   * {@code '?'} the same way {@link String#getBytes(java.nio.charset.Charset)} does.
+   *
+   * @param value
+   *          The string to measure.
+   * @return
+   *          The exact length of the utf-8 encoding of <i>value</i>.
+   */
+  static int encodedLength(String value) {
+    final int len = value.length();
+    int bytes = len;
+    for (int i = 0; i < len; ++i) {
+      char ch = value.charAt(i);
+      if (ch < 0x80) {
+        continue;
+      }
+      if (ch < 0x800) {
+        bytes += 1;
+      } else if (!Character.isSurrogate(ch)) {
+        bytes += 2;
+      } else if (Character.isHighSurrogate(ch) && i + 1 < len
+          && Character.isLowSurrogate(value.charAt(i + 1))) {
+        // two chars, four bytes
+        bytes += 2;
+        ++i;
+      }
+    }
+    return bytes;
+  }
+
+  /**
+   * Encodes <i>value</i> as utf-8 into <i>out</i>, using <i>buffer</i> to assemble the bytes so
+   * no array the size of the encoded string is allocated. Exactly
+   * {@link #encodedLength(String)} bytes are written.
+   *
+   * @param value
+   *          The string to encode.
+   * @param out
+   *          The stream to write to.
+   * @param buffer
+   *          Scratch space, at least 4 bytes long.
+   * @throws IOException
+   *          If <i>out</i> fails.
+   */
+  static void encode(String value, OutputStream out, byte[] buffer) throws IOException {
+    final int len = value.length();
+    final int limit = buffer.length - 4;
+    int pos = 0;
+    for (int i = 0; i < len; ++i) {
+      if (pos > limit) {
+        out.write(buffer, 0, pos);
+        pos = 0;
+      }
+      char ch = value.charAt(i);
+      if (ch < 0x80) {
+        buffer[pos++] = (byte) ch;
+      } else if (ch < 0x800) {
+        buffer[pos++] = (byte) (0xc0 | (ch >> 6));
+        buffer[pos++] = (byte) (0x80 | (ch & 0x3f));
+      } else if (!Character.isSurrogate(ch)) {
+        buffer[pos++] = (byte) (0xe0 | (ch >> 12));
+        buffer[pos++] = (byte) (0x80 | ((ch >> 6) & 0x3f));
+        buffer[pos++] = (byte) (0x80 | (ch & 0x3f));
+      } else if (Character.isHighSurrogate(ch) && i + 1 < len
+          && Character.isLowSurrogate(value.charAt(i + 1))) {
+        int cp = Character.toCodePoint(ch, value.charAt(++i));
+        buffer[pos++] = (byte) (0xf0 | (cp >> 18));
+        buffer[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+        buffer[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+        buffer[pos++] = (byte) (0x80 | (cp & 0x3f));
+      } else {
+        buffer[pos++] = '?';
+      }
+    }
+    if (pos > 0) {
+      out.write(buffer, 0, pos);
+    }
+  }
+
+  /**
+   * Encodes <i>value</i> as utf-8 into <i>target</i> from <i>offset</i>, which must leave room for
+   * {@link #encodedLength(String)} bytes.
+   *
+   * @param value
+   *          The string to encode.
+   * @param target
+   *          The array to write to.
+   * @param offset
+   *          The index in <i>target</i> of the first byte.
+   * @return
+   *          The index in <i>target</i> after the last byte written.
+   */
+  static int encode(String value, byte[] target, int offset) {
+    final int len = value.length();
+    int pos = offset;
+    for (int i = 0; i < len; ++i) {
+      char ch = value.charAt(i);
+      if (ch < 0x80) {
+        target[pos++] = (byte) ch;
+      } else if (ch < 0x800) {
+        target[pos++] = (byte) (0xc0 | (ch >> 6));
+        target[pos++] = (byte) (0x80 | (ch & 0x3f));
+      } else if (!Character.isSurrogate(ch)) {
+        target[pos++] = (byte) (0xe0 | (ch >> 12));
+        target[pos++] = (byte) (0x80 | ((ch >> 6) & 0x3f));
+        target[pos++] = (byte) (0x80 | (ch & 0x3f));
+      } else if (Character.isHighSurrogate(ch) && i + 1 < len
+          && Character.isLowSurrogate(value.charAt(i + 1))) {
+        int cp = Character.toCodePoint(ch, value.charAt(++i));
+        target[pos++] = (byte) (0xf0 | (cp >> 18));
+        target[pos++] = (byte) (0x80 | ((cp >> 12) & 0x3f));
+        target[pos++] = (byte) (0x80 | ((cp >> 6) & 0x3f));
+        target[pos++] = (byte) (0x80 | (cp & 0x3f));
+      } else {
+        target[pos++] = '?';
+      }
+    }
+    return pos;
+  }
+
   /**
    * Decodes <i>data</i> from <i>offset</i> with given <i>length</i> as utf-8 and
    * gives each decoded code point to the <i>codePointConsumer</i>.
@@ -5,6 +5,8 @@
 
 package org.postgresql.core;
 
+import static org.postgresql.util.internal.Nullness.castNonNull;
+
 import org.postgresql.gss.GSSInputStream;
 import org.postgresql.gss.GSSOutputStream;
 import org.postgresql.util.ByteStreamWriter;
@@ -21,6 +23,8 @@ import org.ietf.jgss.MessageProp;
 import java.io.BufferedOutputStream;
 import java.io.Closeable;
 import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
 import java.io.FilterOutputStream;
 import java.io.Flushable;
 import java.io.IOException;
@@ -31,6 +35,10 @@ import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.net.SocketException;
 import java.net.SocketTimeoutException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.sql.SQLException;
 
 import javax.net.SocketFactory;
@@ -81,6 +89,9 @@ public class PGStream implements Closeable, Flushable {
 
   private int maxRowSizeBytes = -1;
 
+  private int largeValueSpoolThreshold;
+  private @Nullable String largeValueSpoolDirectory;
+
   /**
    * Constructor: Connect to the PostgreSQL back end and return a stream connection.
    *
@@ -340,6 +351,17 @@ public class PGStream implements Closeable, Flushable {
     pgOutput.write(int4Buf);
   }
 
+  /**
+   * Sends an 8-byte integer to the back end.
+   *
+   * @param val the integer to be sent
+   * @throws IOException if an I/O error occurs
+   */
+  public void sendInteger8(long val) throws IOException {
+    sendInteger4((int) (val >>> 32));
+    sendInteger4((int) val);
+  }
+
   /**
    * Sends a 2-byte integer (short) to the back end.
    *
@@ -355,6 +377,29 @@ public class PGStream implements Closeable, Flushable {
     pgOutput.write(int2Buf);
   }
 
+  /**
+   * Returns the number of bytes {@link #sendUTF8(String)} sends for a string.
+   *
+   * @param str the string
+   * @return the length of the string in UTF-8
+   */
+  public static int utf8Length(String str) {
+    return OptimizedUTF8Encoder.encodedLength(str);
+  }
+
+  /**
+   * Sends a string encoded as UTF-8, without building the encoded byte array first.
+   *
+   * @param str the string to be sent
+   * @throws IOException if an I/O error occurs
+   */
+  public void sendUTF8(String str) throws IOException {
+    if (streamBuffer == null) {
+      streamBuffer = new byte[8192];
+    }
+    OptimizedUTF8Encoder.encode(str, pgOutput, streamBuffer);
+  }
+
   /**
    * Send an array of bytes to the backend.
    *
@@ -495,6 +540,46 @@ public class PGStream implements Closeable, Flushable {
     return res;
   }
 
+  /**
+   * Receives a fixed-size string from the backend, returning {@code previous} instead of a new
+   * string when the received bytes are its ASCII encoding. Messages that tend to repeat, such as
+   * command tags, are then received without allocating.
+   *
+   * @param len the length of the string to receive, in bytes.
+   * @param previous the string to return if it matches, or null
+   * @return the decoded string
+   * @throws IOException if something wrong happens
+   */
+  public String receiveString(int len, @Nullable String previous) throws IOException {
+    if (!pgInput.ensureBytes(len)) {
+      throw new EOFException();
+    }
+
+    byte[] buf = pgInput.getBuffer();
+    int index = pgInput.getIndex();
+    String res;
+    if (previous != null && isAscii(previous, buf, index, len)) {
+      res = previous;
+    } else {
+      res = encoding.decode(buf, index, len);
+    }
+    pgInput.skip(len);
+    return res;
+  }
+
+  private static boolean isAscii(String str, byte[] buf, int index, int len) {
+    if (str.length() != len) {
+      return false;
+    }
+    for (int i = 0; i < len; i++) {
+      char c = str.charAt(i);
+      if (c >= 0x80 || buf[index + i] != (byte) c) {
+        return false;
+      }
+    }
+    return true;
+  }
+
   /**
    * Receives a fixed-size string from the backend, and tries to avoid "UTF-8 decode failed"
    * errors.
@@ -556,26 +641,171 @@ public class PGStream implements Closeable, Flushable {
 
     byte[][] answer = new byte[nf][];
 
-    increaseByteCounter(dataToReadSize);
+    final boolean spoolingEnabled = largeValueSpoolThreshold > 0;
+    if (!spoolingEnabled) {
+      increaseByteCounter(dataToReadSize);
+    }
+    SpooledValue[] spooled = null;
+    int spooledBytes = 0;
+    IOException spoolError = null;
     OutOfMemoryError oom = null;
     for (int i = 0; i < nf; ++i) {
       int size = receiveInteger4();
-      if (size != -1) {
+      if (size == -1) {
+        continue;
+      }
+      if (spoolingEnabled && size > largeValueSpoolThreshold) {
+        if (spooled == null) {
+          spooled = new SpooledValue[nf];
+        }
         try {
-          answer[i] = new byte[size];
-          receive(answer[i], 0, size);
-        } catch (OutOfMemoryError oome) {
-          oom = oome;
-          skip(size);
+          spooled[i] = receiveSpooled(size);
+        } catch (SpoolException e) {
+          spoolError = e.getCause();
         }
+        spooledBytes += size;
+        continue;
+      }
+      try {
+        answer[i] = new byte[size];
+        receive(answer[i], 0, size);
+      } catch (OutOfMemoryError oome) {
+        oom = oome;
+        skip(size);
       }
     }
 
+    if (oom != null || spoolError != null) {
+      new Tuple(answer, spooled).release();
+    }
     if (oom != null) {
       throw oom;
     }
+    if (spoolError != null) {
+      throw new PSQLException(GT.tr("Unable to spool a large column value to a temporary file."),
+          PSQLState.IO_ERROR, spoolError);
+    }
+    if (spoolingEnabled) {
+      increaseByteCounter(dataToReadSize - spooledBytes);
+    }
+
+    return new Tuple(answer, spooled);
+  }
+
+  /**
+   * Copies a column value of the current DataRow to a temporary file. The value is always
+   * consumed from the connection, even if writing the file fails, so the protocol stays in sync.
+   *
+   * @param size number of bytes in the value
+   * @return the spooled value
+   * @throws IOException if a data I/O error occurs on the connection
+   * @throws SpoolException if the temporary file cannot be written
+   */
+  private SpooledValue receiveSpooled(int size) throws IOException, SpoolException {
+    if (streamBuffer == null) {
+      streamBuffer = new byte[8192];
+    }
+    SpooledValue.deleteUnreachable();
+    File file = null;
+    OutputStream out = null;
+    IOException error = null;
+    try {
+      // Files.createTempFile makes the file readable by its owner only
+      String directory = largeValueSpoolDirectory;
+      Path path = directory == null
+          ? Files.createTempFile("pgjdbc-value", ".tmp")
+          : Files.createTempFile(Paths.get(directory), "pgjdbc-value", ".tmp");
+      file = path.toFile();
+      out = new FileOutputStream(file);
+    } catch (IOException e) {
+      error = e;
+    } catch (InvalidPathException e) {
+      error = new IOException(e.getMessage(), e);
+    }
+
+    int remaining = size;
+    while (remaining > 0) {
+      int count = Math.min(remaining, streamBuffer.length);
+      receive(streamBuffer, 0, count);
+      remaining -= count;
+      if (out != null) {
+        try {
+          out.write(streamBuffer, 0, count);
+        } catch (IOException e) {
+          error = e;
+          out = closeQuietly(out);
+        }
+      }
+    }
+    if (out != null) {
+      try {
+        out.close();
+      } catch (IOException e) {
+        error = e;
+      }
+    }
+    if (error != null || file == null) {
+      if (file != null && !file.delete()) {
+        file.deleteOnExit();
+      }
+      throw new SpoolException(error);
+    }
+    return new SpooledValue(file, size);
+  }
 
-    return new Tuple(answer);
+  private static @Nullable OutputStream closeQuietly(OutputStream out) {
+    try {
+      out.close();
+    } catch (IOException ignore) {
+      // the write error is reported instead
+    }
+    return null;
+  }
+
+  /**
+   * Signals a failure to write a spooled value, as opposed to an I/O error on the connection.
+   */
+  private static class SpoolException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    SpoolException(@Nullable IOException cause) {
+      super(cause);
+    }
+
+    @Override
+    public synchronized IOException getCause() {
+      return (IOException) castNonNull(super.getCause());
+    }
+  }
+
+  /**
+   * Sets the size above which DataRow column values are copied to a temporary file instead of
+   * being held in memory.
+   *
+   * @param threshold size in bytes, or 0 to keep all values in memory
+   * @see org.postgresql.PGProperty#LARGE_VALUE_SPOOL_THRESHOLD
+   */
+  public void setLargeValueSpoolThreshold(int threshold) {
+    this.largeValueSpoolThreshold = threshold;
+  }
+
+  /**
+   * Sets the directory of the temporary files of spooled values.
+   *
+   * @param directory directory for the files, or null for the default temporary-file directory
+   * @see org.postgresql.PGProperty#LARGE_VALUE_SPOOL_DIRECTORY
+   */
+  public void setLargeValueSpoolDirectory(@Nullable String directory) {
+    this.largeValueSpoolDirectory = directory;
+  }
+
+  /**
+   * Get the size above which DataRow column values are spooled to a temporary file.
+   *
+   * @return size in bytes, or 0 if spooling is disabled
+   */
+  public int getLargeValueSpoolThreshold() {
+    return largeValueSpoolThreshold;
   }
 
   /**
@@ -12,8 +12,11 @@ import org.checkerframework.checker.index.qual.NonNegative;
 import org.checkerframework.checker.index.qual.Positive;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.sql.SQLException;
+import java.util.List;
 
 /**
  * <p>Abstraction of a list of parameters to be substituted into a Query. The protocol-specific details
@@ -70,6 +73,18 @@ public interface ParameterList {
    */
   void setIntParameter(@Positive int index, int value) throws SQLException;
 
+  /**
+   * Binds a fixed-width binary value to a parameter. The value is kept in a primitive slot of the
+   * list and written straight into the Bind message, so rebinding it does not allocate.
+   *
+   * @param index the 1-based parameter index to bind.
+   * @param value the value; {@code float4} and {@code float8} values are passed as their raw
+   *     IEEE 754 bits.
+   * @param oid the type OID of the parameter, one of int2, int4, int8, float4 and float8.
+   * @throws SQLException on error or if <code>index</code> is out of range
+   */
+  void setPrimitiveParameter(@Positive int index, long value, int oid) throws SQLException;
+
   /**
    * Binds a String value that is an unquoted literal to the server's query parser (for example, a
    * bare integer) to a parameter. Associated with the parameter is a typename for the parameter
@@ -163,6 +178,19 @@ public interface ParameterList {
    */
   void setBinaryParameter(@Positive int index, byte[] value, int oid) throws SQLException;
 
+  /**
+   * Binds a binary value that is written directly to the connection when the query is sent. The
+   * bytes must be in the binary format of the OID. The writer should remain valid until query
+   * execution has completed.
+   *
+   * @param index the 1-based parameter index to bind.
+   * @param writer a writer that can send the value.
+   * @param oid the type OID of the parameter.
+   * @throws SQLException on error or if <code>index</code> is out of range
+   */
+  void setBinaryParameter(@Positive int index, ByteStreamWriter writer, int oid)
+      throws SQLException;
+
   /**
    * Binds a SQL NULL value to a parameter. Associated with the parameter is a typename for the
    * parameter that should correspond to an entry in pg_types.
@@ -209,4 +237,41 @@ public interface ParameterList {
    * @return Object array containing the parameter values.
    */
   @Nullable Object @Nullable [] getValues();
+
+  /**
+   * Checks whether the bound values can be written by
+   * {@link #writeCopyBinaryRow(int[], OutputStream)}, that is whether each of them has a binary
+   * form in the type of its target column without an assignment cast on the server.
+   *
+   * @param columnTypes the type OIDs of the target columns, one per parameter
+   * @return true if the values can be written as a row of a binary COPY
+   */
+  boolean isCopyBinaryCompatible(int[] columnTypes);
+
+  /**
+   * Writes the bound values as one tuple of a {@code COPY ... FROM STDIN (FORMAT binary)} stream:
+   * the field count followed by the length and binary value of each field.
+   *
+   * @param columnTypes the type OIDs of the target columns, one per parameter
+   * @param out the stream of the copy data
+   * @throws IOException if the row cannot be written
+   * @see #isCopyBinaryCompatible(int[])
+   */
+  void writeCopyBinaryRow(int[] columnTypes, OutputStream out) throws IOException;
+
+  /**
+   * Binds one column of a batch as a one-dimensional array: the value of parameter
+   * {@code column} of each batch entry becomes an element of the array bound to parameter
+   * {@code index} of this list. All the values must have the same type, and the array is sent in
+   * binary form if each of them has one, or else as an array literal if each of them is text.
+   *
+   * @param index the 1-based parameter index of this list to bind the array to
+   * @param rows the batch entries
+   * @param column the 1-based parameter index in the batch entries
+   * @param typeInfo the types of the connection, to look up the array type
+   * @return false if the values cannot be combined into an array, and nothing was bound
+   * @throws SQLException if the array type cannot be looked up
+   */
+  boolean setBatchArrayParameter(@Positive int index, List<? extends @Nullable ParameterList> rows,
+      @Positive int column, TypeInfo typeInfo) throws SQLException;
 }
@@ -10,6 +10,7 @@ import org.postgresql.PGNotification;
 import org.postgresql.copy.CopyOperation;
 import org.postgresql.core.v3.TypeTransferModeRegistry;
 import org.postgresql.jdbc.AutoSave;
+import org.postgresql.jdbc.BatchInsertMode;
 import org.postgresql.jdbc.BatchResultHandler;
 import org.postgresql.jdbc.EscapeSyntaxCallMode;
 import org.postgresql.jdbc.PreferQueryMode;
@@ -234,6 +235,30 @@ public interface QueryExecutor extends TypeTransferModeRegistry {
 
   boolean isReWriteBatchedInsertsEnabled();
 
+  /**
+   * Returns whether batched UPDATE and DELETE statements are rewritten into one statement.
+   *
+   * @return true if the rewrite is enabled
+   * @see org.postgresql.PGProperty#REWRITE_BATCHED_UPDATES
+   */
+  boolean isReWriteBatchedUpdatesEnabled();
+
+  /**
+   * Returns how batched INSERT statements are executed.
+   *
+   * @return the batch insert mode
+   * @see org.postgresql.PGProperty#BATCH_INSERT_MODE
+   */
+  BatchInsertMode getBatchInsertMode();
+
+  /**
+   * Returns the number of batch entries after which {@code addBatch} executes the batch.
+   *
+   * @return the batch chunk size, or 0 to execute a batch only in {@code executeBatch}
+   * @see org.postgresql.PGProperty#BATCH_CHUNK_SIZE
+   */
+  int getBatchChunkSize();
+
   CachedQuery createQuery(String sql, boolean escapeProcessing, boolean isParameterized,
       String @Nullable ... columnNames)
       throws SQLException;
@@ -342,6 +367,13 @@ public interface QueryExecutor extends TypeTransferModeRegistry {
    */
   void setBinaryReceiveOids(Set<Integer> useBinaryForOids);
 
+  /**
+   * Adds an oid to the oids that should be received using binary encoding.
+   *
+   * @param oid The oid to request with binary encoding.
+   */
+  void addBinaryReceiveOid(int oid);
+
   /**
    * Sets the oids that should be sent using binary encoding.
    *
@@ -8,6 +8,7 @@ package org.postgresql.core;
 import org.postgresql.PGNotification;
 import org.postgresql.PGProperty;
 import org.postgresql.jdbc.AutoSave;
+import org.postgresql.jdbc.BatchInsertMode;
 import org.postgresql.jdbc.EscapeSyntaxCallMode;
 import org.postgresql.jdbc.PreferQueryMode;
 import org.postgresql.util.HostSpec;
@@ -45,6 +46,9 @@ public abstract class QueryExecutorBase implements QueryExecutor {
   private int serverVersionNum = 0;
   private TransactionState transactionState = TransactionState.IDLE;
   private final boolean reWriteBatchedInserts;
+  private final boolean reWriteBatchedUpdates;
+  private final BatchInsertMode batchInsertMode;
+  private final int batchChunkSize;
   private final boolean columnSanitiserDisabled;
   private final EscapeSyntaxCallMode escapeSyntaxCallMode;
   private final PreferQueryMode preferQueryMode;
@@ -73,6 +77,9 @@ public abstract class QueryExecutorBase implements QueryExecutor {
     this.database = database;
     this.cancelSignalTimeout = cancelSignalTimeout;
     this.reWriteBatchedInserts = PGProperty.REWRITE_BATCHED_INSERTS.getBoolean(info);
+    this.reWriteBatchedUpdates = PGProperty.REWRITE_BATCHED_UPDATES.getBoolean(info);
+    this.batchInsertMode = BatchInsertMode.of(PGProperty.BATCH_INSERT_MODE.get(info));
+    this.batchChunkSize = Math.max(0, PGProperty.BATCH_CHUNK_SIZE.getInt(info));
     this.columnSanitiserDisabled = PGProperty.DISABLE_COLUMN_SANITISER.getBoolean(info);
     String callMode = PGProperty.ESCAPE_SYNTAX_CALL_MODE.get(info);
     this.escapeSyntaxCallMode = EscapeSyntaxCallMode.of(callMode);
@@ -288,6 +295,21 @@ public abstract class QueryExecutorBase implements QueryExecutor {
     return this.reWriteBatchedInserts;
   }
 
+  @Override
+  public boolean isReWriteBatchedUpdatesEnabled() {
+    return this.reWriteBatchedUpdates;
+  }
+
+  @Override
+  public BatchInsertMode getBatchInsertMode() {
+    return batchInsertMode;
+  }
+
+  @Override
+  public int getBatchChunkSize() {
+    return batchChunkSize;
+  }
+
   @Override
   public final CachedQuery borrowQuery(String sql) throws SQLException {
     return statementCache.borrow(sql);
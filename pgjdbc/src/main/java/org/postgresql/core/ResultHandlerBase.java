@@ -79,4 +79,15 @@ public class ResultHandlerBase implements ResultHandler {
   public @Nullable SQLWarning getWarning() {
     return firstWarning;
   }
+
+  /**
+   * Forgets the errors and warnings handled so far, so the handler can receive the results of
+   * another execution.
+   */
+  protected void reset() {
+    firstException = null;
+    lastException = null;
+    firstWarning = null;
+    lastWarning = null;
+  }
 }
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.core;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * <p>A column value that was copied from the connection to a temporary file while its DataRow
+ * was received, instead of being kept on the heap.</p>
+ *
+ * <p>Values are spooled when they are larger than
+ * {@link org.postgresql.PGProperty#LARGE_VALUE_SPOOL_THRESHOLD}. Every tuple holding the value
+ * holds a reference to it, taken with {@link #retain()}, and the file is removed once all of them
+ * are given back with {@link #release()}, which the result set calls when it discards the row.
+ * Files of values that become unreachable without being released, for instance because a result
+ * set is never closed, are removed the next time a value is spooled.</p>
+ */
+public class SpooledValue {
+  /**
+   * Queue of the values that were garbage collected, see {@link #deleteUnreachable()}.
+   */
+  private static final ReferenceQueue<SpooledValue> UNREACHABLE =
+      new ReferenceQueue<SpooledValue>();
+  /**
+   * Keeps the references of live values reachable until their file is deleted.
+   */
+  private static final Set<FileReference> LIVE =
+      Collections.synchronizedSet(new HashSet<FileReference>());
+
+  private final File file;
+  private final int length;
+  private final FileReference reference;
+  private int references = 1;
+
+  SpooledValue(File file, int length) {
+    this.file = file;
+    this.length = length;
+    this.reference = new FileReference(this, file);
+    LIVE.add(reference);
+  }
+
+  /**
+   * Deletes the files of values that were garbage collected without being released.
+   */
+  static void deleteUnreachable() {
+    Reference<? extends SpooledValue> ref;
+    while ((ref = UNREACHABLE.poll()) != null) {
+      ((FileReference) ref).delete();
+    }
+  }
+
+  /**
+   * Length of the value in bytes.
+   *
+   * @return the number of bytes in this value
+   */
+  public int length() {
+    return length;
+  }
+
+  /**
+   * Opens a new stream over the value. Each call returns an independent stream positioned at the
+   * start of the value.
+   *
+   * @return stream of the raw column bytes
+   * @throws IOException if the temporary file cannot be read
+   */
+  public InputStream getInputStream() throws IOException {
+    return new BufferedInputStream(new FileInputStream(file), 8192);
+  }
+
+  /**
+   * Reads the whole value into memory.
+   *
+   * @return the raw column bytes
+   * @throws IOException if the temporary file cannot be read
+   */
+  public byte[] toBytes() throws IOException {
+    byte[] data = new byte[length];
+    InputStream in = new FileInputStream(file);
+    try {
+      int pos = 0;
+      while (pos < length) {
+        int read = in.read(data, pos, length - pos);
+        if (read < 0) {
+          throw new IOException("Spooled value " + file + " is truncated at " + pos + " bytes");
+        }
+        pos += read;
+      }
+    } finally {
+      in.close();
+    }
+    return data;
+  }
+
+  /**
+   * Takes another reference to the value, for a tuple that shares it.
+   */
+  public synchronized void retain() {
+    if (references == 0) {
+      throw new IllegalStateException("Spooled value " + file + " was already released");
+    }
+    references++;
+  }
+
+  /**
+   * Gives back a reference to the value, and deletes the temporary file once no tuple holds the
+   * value anymore. Streams that are already open keep working on platforms that allow removing
+   * open files.
+   */
+  public void release() {
+    synchronized (this) {
+      if (references == 0 || --references > 0) {
+        return;
+      }
+    }
+    reference.delete();
+  }
+
+  /**
+   * Deletes the file of a value once the value is garbage collected.
+   */
+  private static class FileReference extends PhantomReference<SpooledValue> {
+    private final File file;
+
+    FileReference(SpooledValue value, File file) {
+      super(value, UNREACHABLE);
+      this.file = file;
+    }
+
+    void delete() {
+      if (!LIVE.remove(this)) {
+        return;
+      }
+      clear();
+      if (!file.delete() && file.exists()) {
+        file.deleteOnExit();
+      }
+    }
+  }
+}
@@ -5,16 +5,21 @@
 
 package org.postgresql.core;
 
+import static org.postgresql.util.internal.Nullness.castNonNull;
+
 import org.checkerframework.checker.index.qual.NonNegative;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.dataflow.qual.Pure;
 
+import java.io.IOException;
+
 /**
  * Class representing a row in a {@link java.sql.ResultSet}.
  */
 public class Tuple {
   private final boolean forUpdate;
   final byte[] @Nullable [] data;
+  private final @Nullable SpooledValue @Nullable [] spooled;
 
   /**
    * Construct an empty tuple. Used in updatable result sets.
@@ -29,11 +34,26 @@ public class Tuple {
    * @param data the tuple data
    */
   public Tuple(byte[] @Nullable [] data) {
-    this(data, false);
+    this(data, null, false);
+  }
+
+  /**
+   * Construct a populated tuple where some of the values were spooled to disk.
+   * @param data the tuple data, {@code null} for spooled values
+   * @param spooled the spooled values, {@code null} for values held in {@code data}
+   */
+  public Tuple(byte[] @Nullable [] data, @Nullable SpooledValue @Nullable [] spooled) {
+    this(data, spooled, false);
   }
 
   private Tuple(byte[] @Nullable [] data, boolean forUpdate) {
+    this(data, null, forUpdate);
+  }
+
+  private Tuple(byte[] @Nullable [] data, @Nullable SpooledValue @Nullable [] spooled,
+      boolean forUpdate) {
     this.data = data;
+    this.spooled = spooled;
     this.forUpdate = forUpdate;
   }
 
@@ -88,7 +108,60 @@ public class Tuple {
   private Tuple copy(boolean forUpdate) {
     byte[][] dataCopy = new byte[data.length][];
     System.arraycopy(data, 0, dataCopy, 0, data.length);
-    return new Tuple(dataCopy, forUpdate);
+    @Nullable SpooledValue @Nullable [] spooledCopy = null;
+    if (spooled != null) {
+      spooledCopy = spooled.clone();
+      for (SpooledValue value : spooledCopy) {
+        if (value != null) {
+          value.retain();
+        }
+      }
+    }
+    return new Tuple(dataCopy, spooledCopy, forUpdate);
+  }
+
+  /**
+   * Get the spooled value for the given field.
+   * @param index 0-based field position in the tuple
+   * @return the spooled value, or null if the value is held in memory or is SQL NULL
+   */
+  @Pure
+  public @Nullable SpooledValue getSpooled(@NonNegative int index) {
+    return spooled == null ? null : spooled[index];
+  }
+
+  /**
+   * Get the data for the given field, reading a spooled value into memory first if needed. The
+   * loaded value is kept in the tuple, so subsequent calls to {@link #get(int)} return it.
+   * @param index 0-based field position in the tuple
+   * @return byte array of the data
+   * @throws IOException if a spooled value cannot be read
+   */
+  public byte @Nullable [] load(@NonNegative int index) throws IOException {
+    byte[] value = data[index];
+    if (value == null && spooled != null) {
+      SpooledValue spooledValue = spooled[index];
+      if (spooledValue != null) {
+        value = spooledValue.toBytes();
+        data[index] = value;
+      }
+    }
+    return value;
+  }
+
+  /**
+   * Release the spooled values of the tuple, deleting their temporary files unless a copy of the
+   * tuple still holds them. The tuple must not be used afterwards.
+   */
+  public void release() {
+    if (spooled == null) {
+      return;
+    }
+    for (SpooledValue value : spooled) {
+      if (value != null) {
+        value.release();
+      }
+    }
   }
 
   /**
@@ -101,5 +174,9 @@ public class Tuple {
       throw new IllegalArgumentException("Attempted to write to readonly tuple");
     }
     data[index] = fieldData;
+    if (spooled != null && spooled[index] != null) {
+      castNonNull(spooled[index]).release();
+      spooled[index] = null;
+    }
   }
 }
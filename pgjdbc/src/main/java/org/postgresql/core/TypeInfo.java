@@ -83,6 +83,27 @@ public interface TypeInfo {
    */
   char getArrayDelimiter(int oid) throws SQLException;
 
+  /**
+   * Look up the attributes of a composite type. The result is cached, so changes to the type
+   * after the first lookup are not seen.
+   *
+   * @param oid the type's OID
+   * @return the composite type, or null if the type is not a composite type
+   * @throws SQLException if an error occurs when retrieving the attributes
+   */
+  @Nullable CompositeType getCompositeType(int oid) throws SQLException;
+
+  /**
+   * Registers the Java class values of a composite type are mapped to.
+   *
+   * @param type the name of the composite type
+   * @param javaClass {@link java.sql.Struct}, {@code Object[]}, or a class with a constructor that
+   *     takes one argument per attribute
+   * @return the composite type
+   * @throws SQLException if the type is not a composite type or the class cannot be used
+   */
+  CompositeType addCompositeType(String type, Class<?> javaClass) throws SQLException;
+
   Iterator<String> getPGTypeNamesWithSQLTypes();
 
   Iterator<Integer> getPGTypeOidsWithSQLTypes();
@@ -34,6 +34,20 @@ public class Utils {
     return sb.toString();
   }
 
+  /**
+   * Encodes a string as UTF-8 into an array, without allocating an array for the encoded bytes.
+   * Unpaired surrogates are encoded as {@code '?'}.
+   *
+   * @param str the string to encode
+   * @param target the array to write to, with room for {@link PGStream#utf8Length(String)}
+   *     bytes from {@code offset}
+   * @param offset the index of the first byte to write
+   * @return the index after the last byte written
+   */
+  public static int encodeUTF8(String str, byte[] target, int offset) {
+    return OptimizedUTF8Encoder.encode(str, target, offset);
+  }
+
   /**
    * Escape the given literal {@code value} and append it to the string builder {@code sbuf}. If
    * {@code sbuf} is {@code null}, a new StringBuilder will be returned. The argument
@@ -7,6 +7,7 @@
 package org.postgresql.core.v3;
 
 import org.postgresql.core.ParameterList;
+import org.postgresql.core.TypeInfo;
 import org.postgresql.util.ByteStreamWriter;
 import org.postgresql.util.GT;
 import org.postgresql.util.PSQLException;
@@ -17,7 +18,9 @@ import org.checkerframework.checker.index.qual.Positive;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.sql.SQLException;
+import java.util.List;
 
 /**
  * Parameter list for V3 query strings that contain multiple statements. We delegate to one
@@ -82,6 +85,12 @@ class CompositeParameterList implements V3ParameterList {
     subparams[sub].setIntParameter(index - offsets[sub], value);
   }
 
+  public void setPrimitiveParameter(@Positive int index, long value, int oid)
+      throws SQLException {
+    int sub = findSubParam(index);
+    subparams[sub].setPrimitiveParameter(index - offsets[sub], value, oid);
+  }
+
   public void setLiteralParameter(@Positive int index, String value, int oid) throws SQLException {
     int sub = findSubParam(index);
     subparams[sub].setStringParameter(index - offsets[sub], value, oid);
@@ -97,6 +106,12 @@ class CompositeParameterList implements V3ParameterList {
     subparams[sub].setBinaryParameter(index - offsets[sub], value, oid);
   }
 
+  public void setBinaryParameter(@Positive int index, ByteStreamWriter writer, int oid)
+      throws SQLException {
+    int sub = findSubParam(index);
+    subparams[sub].setBinaryParameter(index - offsets[sub], writer, oid);
+  }
+
   public void setBytea(@Positive int index, byte[] data, int offset, @NonNegative int length) throws SQLException {
     int sub = findSubParam(index);
     subparams[sub].setBytea(index - offsets[sub], data, offset, length);
@@ -161,10 +176,6 @@ class CompositeParameterList implements V3ParameterList {
     }
   }
 
-  public byte @Nullable [][] getEncoding() {
-    return null; // unsupported
-  }
-
   public byte @Nullable [] getFlags() {
     return null; // unsupported
   }
@@ -181,6 +192,22 @@ class CompositeParameterList implements V3ParameterList {
     // no-op, unsupported
   }
 
+  @Override
+  public boolean isCopyBinaryCompatible(int[] columnTypes) {
+    return false;
+  }
+
+  @Override
+  public void writeCopyBinaryRow(int[] columnTypes, OutputStream out) {
+    throw new UnsupportedOperationException("A multi-statement query cannot be sent as COPY");
+  }
+
+  @Override
+  public boolean setBatchArrayParameter(@Positive int index,
+      List<? extends @Nullable ParameterList> rows, @Positive int column, TypeInfo typeInfo) {
+    return false;
+  }
+
   public void convertFunctionOutParameters() {
     for (SimpleParameterList subparam : subparams) {
       subparam.convertFunctionOutParameters();
@@ -108,6 +108,9 @@ public class ConnectionFactoryImpl extends ConnectionFactory {
     String maxResultBuffer = PGProperty.MAX_RESULT_BUFFER.get(info);
     newStream.setMaxResultBuffer(maxResultBuffer);
 
+    newStream.setLargeValueSpoolThreshold(PGProperty.LARGE_VALUE_SPOOL_THRESHOLD.getInt(info));
+    newStream.setLargeValueSpoolDirectory(PGProperty.LARGE_VALUE_SPOOL_DIRECTORY.get(info));
+
     // Enable TCP keep-alive probe if required.
     boolean requireTCPKeepAlive = PGProperty.TCP_KEEP_ALIVE.getBoolean(info);
     newStream.getSocket().setKeepAlive(requireTCPKeepAlive);
@@ -13,10 +13,16 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.sql.SQLException;
 import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Queue;
 
 public class CopyDualImpl extends CopyOperationImpl implements CopyDual {
   private final Queue<byte[]> received = new ArrayDeque<byte[]>();
+  /**
+   * Bytes of the head of {@link #received} already returned by
+   * {@link #readFromCopy(byte[], int, int)}.
+   */
+  private int receivedAt;
 
   public void writeToCopy(byte[] data, int off, int siz) throws SQLException {
     getQueryExecutor().writeToCopy(this, data, off, siz);
@@ -44,7 +50,32 @@ public class CopyDualImpl extends CopyOperationImpl implements CopyDual {
       getQueryExecutor().readFromCopy(this, block);
     }
 
-    return received.poll();
+    byte[] data = received.poll();
+    if (data != null && receivedAt > 0) {
+      data = Arrays.copyOfRange(data, receivedAt, data.length);
+      receivedAt = 0;
+    }
+    return data;
+  }
+
+  @Override
+  public int readFromCopy(byte[] buf, int off, int len) throws SQLException {
+    if (received.isEmpty()) {
+      getQueryExecutor().readFromCopy(this, true);
+    }
+
+    byte[] data = received.peek();
+    if (data == null) {
+      return -1;
+    }
+    int n = Math.min(len, data.length - receivedAt);
+    System.arraycopy(data, receivedAt, buf, off, n);
+    receivedAt += n;
+    if (receivedAt == data.length) {
+      received.remove();
+      receivedAt = 0;
+    }
+    return n;
   }
 
   @Override
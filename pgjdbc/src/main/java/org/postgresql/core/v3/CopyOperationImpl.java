@@ -21,6 +21,16 @@ public abstract class CopyOperationImpl implements CopyOperation {
   int rowFormat;
   int @Nullable [] fieldFormats;
   long handledRowCount = -1;
+  /**
+   * Bytes of the current CopyData message that are still on the wire, see
+   * {@link QueryExecutorImpl#readFromCopy(CopyOperationImpl, byte[], int, int)}.
+   */
+  int unreadCopyData;
+  /**
+   * Whether processCopyResults should leave the payload of the next CopyData message on the wire
+   * instead of passing it to {@link #handleCopydata(byte[])}.
+   */
+  boolean receiveCopyDataInPlace;
 
   void init(QueryExecutorImpl q, int fmt, int[] fmts) {
     queryExecutor = q;
@@ -39,6 +39,11 @@ public class CopyOutImpl extends CopyOperationImpl implements CopyOut {
     return currentDataRow;
   }
 
+  @Override
+  public int readFromCopy(byte[] buf, int off, int len) throws SQLException {
+    return getQueryExecutor().readFromCopy(this, buf, off, len);
+  }
+
   protected void handleCopydata(byte[] data) {
     currentDataRow = data;
   }
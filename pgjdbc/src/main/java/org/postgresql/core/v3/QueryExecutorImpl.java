@@ -139,6 +139,12 @@ public class QueryExecutorImpl extends QueryExecutorBase {
 
   private final AdaptiveFetchCache adaptiveFetchCache;
 
+  /**
+   * Maximum number of batch executions without results sent ahead of their responses, or 0 to
+   * bound them by {@link #estimatedReceiveBufferBytes}, see {@link PGProperty#BATCH_WINDOW_SIZE}.
+   */
+  private final int batchWindowSize;
+
   @SuppressWarnings({"assignment.type.incompatible", "argument.type.incompatible",
       "method.invocation.invalid"})
   public QueryExecutorImpl(PGStream pgStream, String user, String database,
@@ -150,6 +156,7 @@ public class QueryExecutorImpl extends QueryExecutorBase {
 
     this.allowEncodingChanges = PGProperty.ALLOW_ENCODING_CHANGES.getBoolean(info);
     this.cleanupSavePoints = PGProperty.CLEANUP_SAVEPOINTS.getBoolean(info);
+    this.batchWindowSize = Math.max(0, PGProperty.BATCH_WINDOW_SIZE.getInt(info));
     // assignment.type.incompatible, argument.type.incompatible
     this.replicationProtocol = new V3ReplicationProtocol(this, pgStream);
     readStartupMessages();
@@ -474,6 +481,16 @@ public class QueryExecutorImpl extends QueryExecutorBase {
   //
   // See github issue #194 and #195 .
   //
+  // With batchWindowSize, a batch that expects no result rows bounds the number of
+  // executions sent ahead of their CommandComplete instead. When the window is full,
+  // we send a Flush rather than a Sync, so the server sends the responses it has
+  // buffered, and read them until half of the window is acknowledged. The same is
+  // done when the estimated size of the pending responses reaches
+  // MAX_BUFFERED_RECV_BYTES first, for instance with a large window, so the window
+  // cannot deadlock either. Responses without rows are small, so a window of a few
+  // hundred entries stays below the buffers, and the batch is sent without a round
+  // trip every few hundred entries.
+  //
   // Assume 64k server->client buffering, which is extremely conservative. A typical
   // system will have 200kb or more of buffers for its receive buffers, and the sending
   // system will typically have the same on the send side, giving us 400kb or to work
@@ -984,6 +1001,9 @@ public class QueryExecutorImpl extends QueryExecutorBase {
           } while (hasLock(op));
         }
       } else if (op instanceof CopyOut) {
+        synchronized (this) {
+          skipUnreadCopyData(op);
+        }
         sendQueryCancel();
       }
 
@@ -1129,6 +1149,13 @@ public class QueryExecutorImpl extends QueryExecutorBase {
     }
 
     try {
+      if (op.unreadCopyData > 0) {
+        // the rest of a message partially read by readFromCopy(op, buf, off, siz)
+        int siz = op.unreadCopyData;
+        op.unreadCopyData = 0;
+        op.handleCopydata(pgStream.receive(siz));
+        return;
+      }
       processCopyResults(op, block); // expect a call to handleCopydata() to store the data
     } catch (IOException ioe) {
       throw new PSQLException(GT.tr("Database connection failed when reading from copy"),
@@ -1136,6 +1163,63 @@ public class QueryExecutorImpl extends QueryExecutorBase {
     }
   }
 
+  /**
+   * Wait for data to be received from server on an active copy operation, and read up to the given
+   * number of bytes of it straight from the stream into a buffer. A CopyData message larger than
+   * the buffer is read over several calls, its unread rest staying on the wire in between.
+   *
+   * @param op the copy operation presumably currently holding lock on this connection
+   * @param buf buffer to store the data
+   * @param off offset in the buffer
+   * @param siz maximum number of bytes to read
+   * @return number of bytes read, or -1 if the copy operation completed
+   * @throws SQLException on any failure
+   */
+  synchronized int readFromCopy(CopyOperationImpl op, byte[] buf, int off, int siz)
+      throws SQLException {
+    if (!hasLock(op)) {
+      throw new PSQLException(GT.tr("Tried to read from inactive copy"),
+          PSQLState.OBJECT_NOT_IN_STATE);
+    }
+    if (siz <= 0) {
+      return 0;
+    }
+
+    try {
+      while (op.unreadCopyData == 0) {
+        op.receiveCopyDataInPlace = true;
+        try {
+          // expect processCopyResults() to set unreadCopyData to the length of a message
+          processCopyResults(op, true);
+        } finally {
+          op.receiveCopyDataInPlace = false;
+        }
+        if (op.unreadCopyData == 0 && !hasLock(op)) {
+          return -1;
+        }
+      }
+      int len = Math.min(siz, op.unreadCopyData);
+      pgStream.receive(buf, off, len);
+      op.unreadCopyData -= len;
+      return len;
+    } catch (IOException ioe) {
+      throw new PSQLException(GT.tr("Database connection failed when reading from copy"),
+          PSQLState.CONNECTION_FAILURE, ioe);
+    }
+  }
+
+  /**
+   * Discards the rest of a CopyData message partially read by
+   * {@link #readFromCopy(CopyOperationImpl, byte[], int, int)}.
+   */
+  private void skipUnreadCopyData(CopyOperationImpl op) throws IOException {
+    if (op.unreadCopyData > 0) {
+      int siz = op.unreadCopyData;
+      op.unreadCopyData = 0;
+      pgStream.skip(siz);
+    }
+  }
+
   AtomicBoolean processingCopyResults = new AtomicBoolean(false);
 
   /**
@@ -1168,6 +1252,9 @@ public class QueryExecutorImpl extends QueryExecutorBase {
 
     // put this all in a try, finally block and reset the processingCopyResults in the finally clause
     try {
+      if (op != null) {
+        skipUnreadCopyData(op);
+      }
       boolean endReceiving = false;
       SQLException error = null;
       SQLException errors = null;
@@ -1286,6 +1373,12 @@ public class QueryExecutorImpl extends QueryExecutorBase {
 
             assert len > 0 : "Copy Data length must be greater than 4";
 
+            if (op instanceof CopyOut && op.receiveCopyDataInPlace) {
+              // readFromCopy(op, buf, off, siz) reads the payload straight from the stream
+              op.unreadCopyData = len;
+              endReceiving = true;
+              break;
+            }
             byte[] buf = pgStream.receive(len);
             if (op == null) {
               error = new PSQLException(GT.tr("Got CopyData without an active copy operation"),
@@ -1418,6 +1511,26 @@ public class QueryExecutorImpl extends QueryExecutorBase {
        */
     }
 
+    if (!disallowBatching && batchWindowSize > 0 && batchHandler != null
+        && (flags & QueryExecutor.QUERY_NO_RESULTS) != 0
+        && (flags & QueryExecutor.QUERY_EXECUTE_AS_SIMPLE) == 0) {
+      int pending = pendingExecuteQueue.size();
+      if (pending >= batchWindowSize || estimatedReceiveBufferBytes >= MAX_BUFFERED_RECV_BYTES) {
+        LOGGER.log(Level.FINEST, "Batch window or receive buffer full, reading results");
+        sendFlush();
+        processResults(resultHandler, flags, false, Math.min(pending, batchWindowSize) / 2);
+        if (resultHandler.getException() != null) {
+          // The backend skips every message until Sync
+          sendSync();
+          processResults(resultHandler, flags);
+        }
+        // Only the responses still pending remain buffered
+        estimatedReceiveBufferBytes = pending == 0 ? 0
+            : (int) ((long) estimatedReceiveBufferBytes * pendingExecuteQueue.size() / pending);
+      }
+      return;
+    }
+
     if (disallowBatching || estimatedReceiveBufferBytes >= MAX_BUFFERED_RECV_BYTES) {
       LOGGER.log(Level.FINEST, "Forcing Sync, receive buffer full or batching disallowed");
       sendSync();
@@ -1488,6 +1601,14 @@ public class QueryExecutorImpl extends QueryExecutorBase {
   // Message sending
   //
 
+  private void sendFlush() throws IOException {
+    LOGGER.log(Level.FINEST, " FE=> Flush");
+
+    pgStream.sendChar('H'); // Flush
+    pgStream.sendInteger4(4); // Length
+    pgStream.flush();
+  }
+
   private void sendSync() throws IOException {
     LOGGER.log(Level.FINEST, " FE=> Sync");
 
@@ -1495,7 +1616,7 @@ public class QueryExecutorImpl extends QueryExecutorBase {
     pgStream.sendInteger4(4); // Length
     pgStream.flush();
     // Below "add queues" are likely not required at all
-    pendingExecuteQueue.add(new ExecuteRequest(sync, null, true));
+    pendingExecuteQueue.add(sync.getExecuteRequest(true));
     pendingDescribePortalQueue.add(sync);
   }
 
@@ -1796,7 +1917,8 @@ public class QueryExecutorImpl extends QueryExecutorBase {
     pgStream.sendChar(0); // portal name terminator
     pgStream.sendInteger4(limit); // row limit
 
-    pendingExecuteQueue.add(new ExecuteRequest(query, portal, false));
+    pendingExecuteQueue.add(
+        portal == null ? query.getExecuteRequest(false) : new ExecuteRequest(query, portal, false));
   }
 
   private void sendClosePortal(String portalName) throws IOException {
@@ -1974,7 +2096,7 @@ public class QueryExecutorImpl extends QueryExecutorBase {
     pgStream.send(encoded);
     pgStream.sendChar(0);
     pgStream.flush();
-    pendingExecuteQueue.add(new ExecuteRequest(query, null, true));
+    pendingExecuteQueue.add(query.getExecuteRequest(true));
     pendingDescribePortalQueue.add(query);
   }
 
@@ -2069,6 +2191,16 @@ public class QueryExecutorImpl extends QueryExecutorBase {
 
   protected void processResults(ResultHandler handler, int flags, boolean adaptiveFetch)
       throws IOException {
+    processResults(handler, flags, adaptiveFetch, -1);
+  }
+
+  /**
+   * Processes results until ReadyForQuery or, if {@code maxPendingExecutes} is not negative, until
+   * no more than that many executions await their results. Processing also stops at an error
+   * then, since the backend skips everything until Sync.
+   */
+  private void processResults(ResultHandler handler, int flags, boolean adaptiveFetch,
+      int maxPendingExecutes) throws IOException {
     boolean noResults = (flags & QueryExecutor.QUERY_NO_RESULTS) != 0;
     boolean bothRowsAndStatus = (flags & QueryExecutor.QUERY_BOTH_ROWS_AND_STATUS) != 0;
 
@@ -2085,6 +2217,10 @@ public class QueryExecutorImpl extends QueryExecutorBase {
     boolean doneAfterRowDescNoData = false;
 
     while (!endQuery) {
+      if (maxPendingExecutes >= 0 && (pendingExecuteQueue.size() <= maxPendingExecutes
+          || handler.getException() != null)) {
+        break;
+      }
       c = pgStream.receiveChar();
       switch (c) {
         case 'A': // Asynchronous Notify
@@ -2315,6 +2451,8 @@ public class QueryExecutorImpl extends QueryExecutorBase {
             if (tuple != null) {
               tuples.add(tuple);
             }
+          } else if (tuple != null) {
+            tuple.release();
           }
 
           if (LOGGER.isLoggable(Level.FINEST)) {
@@ -2333,6 +2471,13 @@ public class QueryExecutorImpl extends QueryExecutorBase {
           // Error Response (response to pretty much everything; backend then skips until Sync)
           SQLException error = receiveErrorResponse();
           handler.handleError(error);
+          if (tuples != null) {
+            // the rows of the failed result are never handed to the handler
+            for (Tuple row : tuples) {
+              row.release();
+            }
+            tuples = null;
+          }
           if (willHealViaReparse(error)) {
             // prepared statement ... is not valid kind of error
             // Technically speaking, the error is unexpected, thus we invalidate other
@@ -2667,7 +2812,9 @@ public class QueryExecutorImpl extends QueryExecutorBase {
     // TODO: better handle the msg len
     int len = pgStream.receiveInteger4();
     // read len -5 bytes (-4 for len and -1 for trailing \0)
-    String status = pgStream.receiveString(len - 5);
+    // repeated executions usually report the same tag, so try to reuse the last one
+    String status = pgStream.receiveString(len - 5, lastCommandStatus);
+    lastCommandStatus = status;
     // now read and discard the trailing \0
     pgStream.receiveChar(); // Receive(1) would allocate new byte[1], so avoid it
 
@@ -2888,6 +3035,11 @@ public class QueryExecutorImpl extends QueryExecutorBase {
     useBinaryReceiveForOids.addAll(oids);
   }
 
+  @Override
+  public void addBinaryReceiveOid(int oid) {
+    useBinaryReceiveForOids.add(oid);
+  }
+
   @Override
   public boolean useBinaryForSend(int oid) {
     return useBinarySendForOids.contains(oid);
@@ -2907,6 +3059,11 @@ public class QueryExecutorImpl extends QueryExecutorBase {
     return integerDateTimes;
   }
 
+  /**
+   * The tag of the last CommandComplete message, reused when the next one is the same.
+   */
+  private @Nullable String lastCommandStatus;
+
   private final Deque<SimpleQuery> pendingParseQueue = new ArrayDeque<SimpleQuery>();
   private final Deque<Portal> pendingBindQueue = new ArrayDeque<Portal>();
   private final Deque<ExecuteRequest> pendingExecuteQueue = new ArrayDeque<ExecuteRequest>();
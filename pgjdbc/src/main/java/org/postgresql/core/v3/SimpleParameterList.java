@@ -6,16 +6,27 @@
 
 package org.postgresql.core.v3;
 
+import static org.postgresql.util.internal.Nullness.castNonNull;
+
 import org.postgresql.core.Oid;
 import org.postgresql.core.PGStream;
 import org.postgresql.core.ParameterList;
+import org.postgresql.core.TypeInfo;
 import org.postgresql.core.Utils;
 import org.postgresql.geometric.PGbox;
+import org.postgresql.geometric.PGcircle;
+import org.postgresql.geometric.PGline;
+import org.postgresql.geometric.PGlseg;
+import org.postgresql.geometric.PGpath;
 import org.postgresql.geometric.PGpoint;
+import org.postgresql.geometric.PGpolygon;
 import org.postgresql.jdbc.UUIDArrayAssistant;
 import org.postgresql.util.ByteConverter;
 import org.postgresql.util.ByteStreamWriter;
 import org.postgresql.util.GT;
+import org.postgresql.util.PGBinaryObject;
+import org.postgresql.util.PGInterval;
+import org.postgresql.util.PGobject;
 import org.postgresql.util.PSQLException;
 import org.postgresql.util.PSQLState;
 import org.postgresql.util.StreamWrapper;
@@ -24,11 +35,14 @@ import org.checkerframework.checker.index.qual.NonNegative;
 import org.checkerframework.checker.index.qual.Positive;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.sql.SQLException;
 import java.util.Arrays;
+import java.util.List;
 
 /**
  * Parameter list for a single-statement V3 query.
@@ -47,7 +61,7 @@ class SimpleParameterList implements V3ParameterList {
   SimpleParameterList(int paramCount, @Nullable TypeTransferModeRegistry transferModeRegistry) {
     this.paramValues = new Object[paramCount];
     this.paramTypes = new int[paramCount];
-    this.encoded = new byte[paramCount][];
+    this.primitives = new long[paramCount];
     this.flags = new byte[paramCount];
     this.transferModeRegistry = transferModeRegistry;
   }
@@ -74,7 +88,6 @@ class SimpleParameterList implements V3ParameterList {
 
     --index;
 
-    encoded[index] = null;
     paramValues[index] = value;
     flags[index] = (byte) (direction(index) | IN | binary);
 
@@ -120,9 +133,39 @@ class SimpleParameterList implements V3ParameterList {
   }
 
   public void setIntParameter(@Positive int index, int value) throws SQLException {
-    byte[] data = new byte[4];
-    ByteConverter.int4(data, 0, value);
-    bind(index, data, Oid.INT4, BINARY);
+    setPrimitiveParameter(index, value, Oid.INT4);
+  }
+
+  @Override
+  public void setPrimitiveParameter(@Positive int index, long value, int oid)
+      throws SQLException {
+    if (primitiveLength(oid) == 0) {
+      throw new IllegalArgumentException("Not a fixed-width type: " + oid);
+    }
+    bind(index, PRIMITIVE_VALUE, oid, BINARY);
+    primitives[index - 1] = value;
+  }
+
+  /**
+   * Returns the length of the binary values of the types that can be bound with
+   * {@link #setPrimitiveParameter(int, long, int)}.
+   *
+   * @param oid type oid
+   * @return length in bytes, or 0 if the type cannot be bound as a primitive
+   */
+  private static int primitiveLength(int oid) {
+    switch (oid) {
+      case Oid.INT2:
+        return 2;
+      case Oid.INT4:
+      case Oid.FLOAT4:
+        return 4;
+      case Oid.INT8:
+      case Oid.FLOAT8:
+        return 8;
+      default:
+        return 0;
+    }
   }
 
   public void setLiteralParameter(@Positive int index, String value, int oid) throws SQLException {
@@ -137,6 +180,12 @@ class SimpleParameterList implements V3ParameterList {
     bind(index, value, oid, BINARY);
   }
 
+  @Override
+  public void setBinaryParameter(@Positive int index, ByteStreamWriter writer, int oid)
+      throws SQLException {
+    bind(index, writer, oid, BINARY);
+  }
+
   @Override
   public void setBytea(@Positive int index, byte[] data, int offset, @NonNegative int length) throws SQLException {
     bind(index, new StreamWrapper(data, offset, length), Oid.BYTEA, BINARY);
@@ -181,6 +230,8 @@ class SimpleParameterList implements V3ParameterList {
       return "?";
     } else if (paramValue == NULL_OBJECT) {
       return "NULL";
+    } else if (paramValue == PRIMITIVE_VALUE) {
+      return primitiveToString(paramTypes[index], primitives[index]);
     } else if ((flags[index] & BINARY) == BINARY) {
       // handle some of the numeric types
 
@@ -233,6 +284,30 @@ class SimpleParameterList implements V3ParameterList {
           PGbox pgBox = new PGbox();
           pgBox.setByteValue((byte[]) paramValue, 0);
           return "'" + pgBox.toString() + "'::box";
+
+        case Oid.LSEG:
+          return binaryObjectLiteral(new PGlseg(), (byte[]) paramValue);
+
+        case Oid.PATH:
+          return binaryObjectLiteral(new PGpath(), (byte[]) paramValue);
+
+        case Oid.POLYGON:
+          return binaryObjectLiteral(new PGpolygon(), (byte[]) paramValue);
+
+        case Oid.LINE:
+          return binaryObjectLiteral(new PGline(), (byte[]) paramValue);
+
+        case Oid.CIRCLE:
+          return binaryObjectLiteral(new PGcircle(), (byte[]) paramValue);
+
+        case Oid.INTERVAL:
+          PGInterval pgInterval = new PGInterval();
+          try {
+            pgInterval.setByteValue((byte[]) paramValue, 0);
+          } catch (SQLException e) {
+            return "?";
+          }
+          return "'" + pgInterval.getValue() + "'::interval";
       }
       return "?";
     } else {
@@ -277,6 +352,37 @@ class SimpleParameterList implements V3ParameterList {
     }
   }
 
+  private static String primitiveToString(int oid, long value) {
+    switch (oid) {
+      case Oid.FLOAT4:
+        float f = Float.intBitsToFloat((int) value);
+        if (Float.isNaN(f)) {
+          return "'NaN'::real";
+        }
+        return Float.toString(f);
+
+      case Oid.FLOAT8:
+        double d = Double.longBitsToDouble(value);
+        if (Double.isNaN(d)) {
+          return "'NaN'::double precision";
+        }
+        return Double.toString(d);
+
+      default:
+        return Long.toString(value);
+    }
+  }
+
+  private static <T extends PGobject & PGBinaryObject> String binaryObjectLiteral(T obj,
+      byte[] value) {
+    try {
+      obj.setByteValue(value, 0);
+    } catch (SQLException e) {
+      return "?";
+    }
+    return "'" + obj.getValue() + "'::" + obj.getType();
+  }
+
   @Override
   public void checkAllParametersSet() throws SQLException {
     for (int i = 0; i < paramTypes.length; ++i) {
@@ -371,6 +477,11 @@ class SimpleParameterList implements V3ParameterList {
       throw new IllegalArgumentException("can't getV3Length() on a null parameter");
     }
 
+    // Fixed-width binary value?
+    if (value == PRIMITIVE_VALUE) {
+      return primitiveLength(paramTypes[index]);
+    }
+
     // Directly encoded?
     if (value instanceof byte[]) {
       return ((byte[]) value).length;
@@ -386,14 +497,8 @@ class SimpleParameterList implements V3ParameterList {
       return ((ByteStreamWriter) value).getLength();
     }
 
-    // Already encoded?
-    byte[] encoded = this.encoded[index];
-    if (encoded == null) {
-      // Encode value and compute actual length using UTF-8.
-      this.encoded[index] = encoded = value.toString().getBytes(StandardCharsets.UTF_8);
-    }
-
-    return encoded.length;
+    // String, measured without encoding it.
+    return PGStream.utf8Length(value.toString());
   }
 
   void writeV3Value(@Positive int index, PGStream pgStream) throws IOException {
@@ -405,6 +510,23 @@ class SimpleParameterList implements V3ParameterList {
       throw new IllegalArgumentException("can't writeV3Value() on a null parameter");
     }
 
+    // Fixed-width binary value?
+    if (paramValue == PRIMITIVE_VALUE) {
+      long value = primitives[index];
+      switch (primitiveLength(paramTypes[index])) {
+        case 2:
+          pgStream.sendInteger2((short) value);
+          break;
+        case 4:
+          pgStream.sendInteger4((int) value);
+          break;
+        default:
+          pgStream.sendInteger8(value);
+          break;
+      }
+      return;
+    }
+
     // Directly encoded?
     if (paramValue instanceof byte[]) {
       pgStream.send((byte[]) paramValue);
@@ -423,11 +545,8 @@ class SimpleParameterList implements V3ParameterList {
       return;
     }
 
-    // Encoded string.
-    if (encoded[index] == null) {
-      encoded[index] = ((String) paramValue).getBytes(StandardCharsets.UTF_8);
-    }
-    pgStream.send(encoded[index]);
+    // String, encoded straight into the output stream.
+    pgStream.sendUTF8(paramValue.toString());
   }
 
   public ParameterList copy() {
@@ -435,6 +554,7 @@ class SimpleParameterList implements V3ParameterList {
     System.arraycopy(paramValues, 0, newCopy.paramValues, 0, paramValues.length);
     System.arraycopy(paramTypes, 0, newCopy.paramTypes, 0, paramTypes.length);
     System.arraycopy(flags, 0, newCopy.flags, 0, flags.length);
+    System.arraycopy(primitives, 0, newCopy.primitives, 0, primitives.length);
     newCopy.pos = pos;
     return newCopy;
   }
@@ -442,7 +562,6 @@ class SimpleParameterList implements V3ParameterList {
   public void clear() {
     Arrays.fill(paramValues, null);
     Arrays.fill(paramTypes, 0);
-    Arrays.fill(encoded, null);
     Arrays.fill(flags, (byte) 0);
     pos = 0;
   }
@@ -452,7 +571,23 @@ class SimpleParameterList implements V3ParameterList {
   }
 
   public @Nullable Object[] getValues() {
-    return paramValues;
+    @Nullable Object[] values = paramValues.clone();
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] == PRIMITIVE_VALUE) {
+        // hand out the binary encoding, as for values bound with setBinaryParameter
+        long value = primitives[i];
+        byte[] data = new byte[primitiveLength(paramTypes[i])];
+        if (data.length == 2) {
+          ByteConverter.int2(data, 0, (short) value);
+        } else if (data.length == 4) {
+          ByteConverter.int4(data, 0, (int) value);
+        } else {
+          ByteConverter.int8(data, 0, value);
+        }
+        values[i] = data;
+      }
+    }
+    return values;
   }
 
   public int[] getParamTypes() {
@@ -463,10 +598,6 @@ class SimpleParameterList implements V3ParameterList {
     return flags;
   }
 
-  public byte[] @Nullable [] getEncoding() {
-    return encoded;
-  }
-
   @Override
   public void appendAll(ParameterList list) throws SQLException {
     if (list instanceof org.postgresql.core.v3.SimpleParameterList ) {
@@ -480,14 +611,241 @@ class SimpleParameterList implements V3ParameterList {
               (pos + inParamCount), paramValues.length),
               PSQLState.INVALID_PARAMETER_VALUE);
       }
-      System.arraycopy(spl.getValues(), 0, this.paramValues, pos, inParamCount);
+      System.arraycopy(spl.paramValues, 0, this.paramValues, pos, inParamCount);
       System.arraycopy(spl.getParamTypes(), 0, this.paramTypes, pos, inParamCount);
       System.arraycopy(spl.getFlags(), 0, this.flags, pos, inParamCount);
-      System.arraycopy(spl.getEncoding(), 0, this.encoded, pos, inParamCount);
+      System.arraycopy(spl.primitives, 0, this.primitives, pos, inParamCount);
       pos += inParamCount;
     }
   }
 
+  @Override
+  public boolean isCopyBinaryCompatible(int[] columnTypes) {
+    if (columnTypes.length != paramValues.length) {
+      return false;
+    }
+    for (int i = 0; i < paramValues.length; i++) {
+      if (!isCopyBinaryCompatible(i, columnTypes[i])) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Checks whether a value has a binary form in the type of its column. Binary values must have
+   * the column type already, integers are widened or narrowed if they fit, and only text and
+   * boolean literals have a binary form that is derived from the text.
+   */
+  private boolean isCopyBinaryCompatible(int index, int columnType) {
+    Object value = paramValues[index];
+    if (value == NULL_OBJECT) {
+      return true;
+    }
+    if (value == null) {
+      return false;
+    }
+    int type = paramTypes[index];
+    if (value == PRIMITIVE_VALUE) {
+      long primitive = primitives[index];
+      boolean integer = type == Oid.INT2 || type == Oid.INT4 || type == Oid.INT8;
+      switch (columnType) {
+        case Oid.INT2:
+          return integer && primitive == (short) primitive;
+        case Oid.INT4:
+          return integer && primitive == (int) primitive;
+        case Oid.INT8:
+          return integer;
+        case Oid.FLOAT4:
+          return type == Oid.FLOAT4;
+        case Oid.FLOAT8:
+          return type == Oid.FLOAT4 || type == Oid.FLOAT8;
+        default:
+          return false;
+      }
+    }
+    if ((flags[index] & BINARY) != 0) {
+      return type == columnType
+          && (value instanceof byte[]
+          || value instanceof StreamWrapper && ((StreamWrapper) value).getBytes() != null);
+    }
+    if (!(value instanceof String)) {
+      return false;
+    }
+    switch (columnType) {
+      case Oid.TEXT:
+      case Oid.VARCHAR:
+      case Oid.BPCHAR:
+        return type == Oid.UNSPECIFIED || type == Oid.TEXT || type == Oid.VARCHAR
+            || type == columnType;
+      case Oid.BOOL:
+        return type == Oid.BOOL
+            && ("TRUE".equalsIgnoreCase((String) value) || "FALSE".equalsIgnoreCase((String) value));
+      default:
+        return false;
+    }
+  }
+
+  @Override
+  public void writeCopyBinaryRow(int[] columnTypes, OutputStream out) throws IOException {
+    byte[] buf = new byte[12];
+    ByteConverter.int2(buf, 0, paramValues.length);
+    out.write(buf, 0, 2);
+    for (int i = 0; i < paramValues.length; i++) {
+      if (!isCopyBinaryCompatible(i, columnTypes[i])) {
+        throw new IllegalArgumentException(
+            "Parameter " + (i + 1) + " cannot be sent as a binary value of type " + columnTypes[i]);
+      }
+      writeBinaryField(i, columnTypes[i], out, buf);
+    }
+  }
+
+  /**
+   * Writes the length and the binary form of a value, as fields of a binary COPY row and elements
+   * of a binary array are laid out.
+   */
+  private void writeBinaryField(int i, int targetType, OutputStream out, byte[] buf)
+      throws IOException {
+    Object value = castNonNull(paramValues[i]);
+    if (value == NULL_OBJECT) {
+      ByteConverter.int4(buf, 0, -1);
+      out.write(buf, 0, 4);
+    } else if (value == PRIMITIVE_VALUE) {
+      long primitive = primitives[i];
+      int length = primitiveLength(targetType);
+      if (paramTypes[i] == Oid.FLOAT4 && targetType == Oid.FLOAT8) {
+        primitive = Double.doubleToRawLongBits(Float.intBitsToFloat((int) primitive));
+      }
+      ByteConverter.int4(buf, 0, length);
+      if (length == 2) {
+        ByteConverter.int2(buf, 4, (short) primitive);
+      } else if (length == 4) {
+        ByteConverter.int4(buf, 4, (int) primitive);
+      } else {
+        ByteConverter.int8(buf, 4, primitive);
+      }
+      out.write(buf, 0, 4 + length);
+    } else if (value instanceof byte[]) {
+      byte[] bytes = (byte[]) value;
+      ByteConverter.int4(buf, 0, bytes.length);
+      out.write(buf, 0, 4);
+      out.write(bytes);
+    } else if (value instanceof StreamWrapper) {
+      StreamWrapper wrapper = (StreamWrapper) value;
+      ByteConverter.int4(buf, 0, wrapper.getLength());
+      out.write(buf, 0, 4);
+      out.write(castNonNull(wrapper.getBytes()), wrapper.getOffset(), wrapper.getLength());
+    } else if (targetType == Oid.BOOL) {
+      ByteConverter.int4(buf, 0, 1);
+      ByteConverter.bool(buf, 4, "TRUE".equalsIgnoreCase((String) value));
+      out.write(buf, 0, 5);
+    } else {
+      byte[] bytes = ((String) value).getBytes(StandardCharsets.UTF_8);
+      ByteConverter.int4(buf, 0, bytes.length);
+      out.write(buf, 0, 4);
+      out.write(bytes);
+    }
+  }
+
+  @Override
+  public boolean setBatchArrayParameter(@Positive int index,
+      List<? extends @Nullable ParameterList> rows, @Positive int column, TypeInfo typeInfo)
+      throws SQLException {
+    int i = column - 1;
+    int elementType = Oid.UNSPECIFIED;
+    int nullType = Oid.UNSPECIFIED;
+    boolean hasNull = false;
+    boolean binary = true;
+    boolean text = true;
+    for (ParameterList row : rows) {
+      if (!(row instanceof SimpleParameterList)
+          || i >= ((SimpleParameterList) row).paramValues.length) {
+        return false;
+      }
+      SimpleParameterList list = (SimpleParameterList) row;
+      Object value = list.paramValues[i];
+      int type = list.paramTypes[i];
+      if (value == null) {
+        return false;
+      }
+      if (value == NULL_OBJECT) {
+        hasNull = true;
+        if (nullType == Oid.UNSPECIFIED) {
+          nullType = type;
+        }
+        continue;
+      }
+      // The array needs one element type, and the server would infer it from the query otherwise
+      if (type == Oid.UNSPECIFIED || elementType != Oid.UNSPECIFIED && type != elementType) {
+        return false;
+      }
+      elementType = type;
+      binary = binary && list.isCopyBinaryCompatible(i, type);
+      text = text && value instanceof String && (list.flags[i] & BINARY) == 0;
+    }
+    if (elementType == Oid.UNSPECIFIED) {
+      elementType = nullType;
+    }
+    String elementTypeName =
+        elementType == Oid.UNSPECIFIED ? null : typeInfo.getPGType(elementType);
+    int arrayType =
+        elementTypeName == null ? Oid.UNSPECIFIED : typeInfo.getPGArrayType(elementTypeName);
+    if (arrayType == Oid.UNSPECIFIED) {
+      return false;
+    }
+
+    if (binary) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream(20 + 12 * rows.size());
+      byte[] buf = new byte[20];
+      ByteConverter.int4(buf, 0, 1);
+      ByteConverter.int4(buf, 4, hasNull ? 1 : 0);
+      ByteConverter.int4(buf, 8, elementType);
+      ByteConverter.int4(buf, 12, rows.size());
+      ByteConverter.int4(buf, 16, 1);
+      try {
+        out.write(buf);
+        for (ParameterList row : rows) {
+          ((SimpleParameterList) castNonNull(row)).writeBinaryField(i, elementType, out, buf);
+        }
+      } catch (IOException e) {
+        // this IO exception is from writing to baos, which will never throw an
+        // IOException
+        throw new java.lang.AssertionError(e);
+      }
+      bind(index, out.toByteArray(), arrayType, BINARY);
+      return true;
+    }
+    if (!text) {
+      return false;
+    }
+    char delimiter = typeInfo.getArrayDelimiter(arrayType);
+    StringBuilder sb = new StringBuilder();
+    sb.append('{');
+    for (ParameterList row : rows) {
+      if (sb.length() > 1) {
+        sb.append(delimiter);
+      }
+      Object value = ((SimpleParameterList) castNonNull(row)).paramValues[i];
+      if (value == NULL_OBJECT) {
+        sb.append("NULL");
+        continue;
+      }
+      String element = (String) castNonNull(value);
+      sb.append('"');
+      for (int k = 0; k < element.length(); k++) {
+        char c = element.charAt(k);
+        if (c == '"' || c == '\\') {
+          sb.append('\\');
+        }
+        sb.append(c);
+      }
+      sb.append('"');
+    }
+    sb.append('}');
+    bind(index, sb.toString(), arrayType, TEXT);
+    return true;
+  }
+
   /**
    * Useful implementation of toString.
    * @return String representation of the list values
@@ -508,7 +866,11 @@ class SimpleParameterList implements V3ParameterList {
   private final @Nullable Object[] paramValues;
   private final int[] paramTypes;
   private final byte[] flags;
-  private final byte[] @Nullable [] encoded;
+  /**
+   * Values bound with {@link #setPrimitiveParameter(int, long, int)}, which are marked with
+   * {@link #PRIMITIVE_VALUE} in {@code paramValues}.
+   */
+  private final long[] primitives;
   private final @Nullable TypeTransferModeRegistry transferModeRegistry;
 
   /**
@@ -517,5 +879,10 @@ class SimpleParameterList implements V3ParameterList {
    */
   private static final Object NULL_OBJECT = new Object();
 
+  /**
+   * Marker object for a value that is stored in {@code primitives}.
+   */
+  private static final Object PRIMITIVE_VALUE = new Object();
+
   private int pos = 0;
 }
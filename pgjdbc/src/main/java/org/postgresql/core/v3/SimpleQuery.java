@@ -317,6 +317,27 @@ class SimpleQuery implements Query {
     return 1;
   }
 
+  /**
+   * Returns the pending execute queue entry for an execution of this query that does not use a
+   * named portal. The entries are immutable, so they are created once per query and mode rather
+   * than once per execution.
+   *
+   * @param asSimple true if the query is executed with the simple query protocol
+   * @return the execute request
+   */
+  ExecuteRequest getExecuteRequest(boolean asSimple) {
+    ExecuteRequest request = asSimple ? simpleExecuteRequest : executeRequest;
+    if (request == null) {
+      request = new ExecuteRequest(this, null, asSimple);
+      if (asSimple) {
+        simpleExecuteRequest = request;
+      } else {
+        executeRequest = request;
+      }
+    }
+    return request;
+  }
+
   NativeQuery getNativeQuery() {
     return nativeQuery;
   }
@@ -367,6 +388,8 @@ class SimpleQuery implements Query {
   private short deallocateEpoch;
 
   private @Nullable Integer cachedMaxResultRowSize;
+  private @Nullable ExecuteRequest executeRequest;
+  private @Nullable ExecuteRequest simpleExecuteRequest;
 
   static final SimpleParameterList NO_PARAMETERS = new SimpleParameterList(0, null);
 }
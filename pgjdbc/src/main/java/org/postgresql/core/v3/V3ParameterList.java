@@ -53,10 +53,4 @@ interface V3ParameterList extends ParameterList {
    * @return an array of bytes used to store flags.
    */
   byte @Nullable [] getFlags();
-
-  /**
-   * Return the encoding for each parameter.
-   * @return nested byte array of bytes with encoding information.
-   */
-  byte @Nullable [] @Nullable [] getEncoding();
 }
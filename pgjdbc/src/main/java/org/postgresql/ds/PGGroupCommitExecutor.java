@@ -0,0 +1,451 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.ds;
+
+import static org.postgresql.util.internal.Nullness.castNonNull;
+
+import org.postgresql.core.BaseConnection;
+import org.postgresql.core.TransactionState;
+import org.postgresql.util.GT;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.PSQLState;
+import org.postgresql.util.ServerErrorMessage;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.sql.DataSource;
+
+/**
+ * Runs concurrent executions of the same statement as one batch in one transaction, so that many
+ * threads each inserting a single row share one round trip and one commit:
+ *
+ * <pre>
+ * PGGroupCommitExecutor executor = new PGGroupCommitExecutor(dataSource);
+ * executor.setWindowMicros(200);
+ * // called by many threads at once
+ * executor.executeUpdate("INSERT INTO audit(at, event) VALUES (?, ?)", now, event);
+ * </pre>
+ *
+ * <p>The first thread to execute a statement waits for the window, collecting the executions of
+ * the same SQL text by other threads, and then executes all of them as a batch and commits. Every
+ * thread blocks until its execution is committed and returns its own update count. The batch is
+ * executed like any other batch of the connection, so with {@code reWriteBatchedInserts} it becomes
+ * a multi-row INSERT, and with {@code batchInsertMode=copy} a COPY. A rewritten batch may report
+ * {@link java.sql.Statement#SUCCESS_NO_INFO} instead of the update count.</p>
+ *
+ * <p>If the batch fails, its transaction is rolled back and each execution of the group is
+ * executed again in a transaction of its own, so that only the executions that fail by themselves
+ * throw, each with its own error. The statements should therefore not depend on running in a
+ * separate transaction, as is the case for plain INSERTs. If only the commit fails, whether the
+ * group was committed is unknown, so the executions are not retried and every one of them throws
+ * the error of the commit.</p>
+ *
+ * <p>With a data source, each group is executed on a connection obtained for it, and groups of
+ * different statements run concurrently. With a connection, the groups are executed one at a time
+ * on it; the connection must not be used by the application while the executor uses it. In both
+ * cases the connection must not be in a transaction, which the executor would otherwise commit
+ * along with the group; its auto-commit mode is restored afterwards.</p>
+ */
+public class PGGroupCommitExecutor {
+  private static final long DEFAULT_WINDOW_MICROS = 500;
+  private static final int DEFAULT_MAX_GROUP_SIZE = 1000;
+
+  private final @Nullable DataSource dataSource;
+  private final @Nullable Connection connection;
+  private final ReentrantLock lock = new ReentrantLock();
+  /**
+   * Groups still collecting executions, by SQL text.
+   */
+  private final Map<String, Group> openGroups = new HashMap<String, Group>();
+  private volatile long windowNanos = TimeUnit.MICROSECONDS.toNanos(DEFAULT_WINDOW_MICROS);
+  private volatile int maxGroupSize = DEFAULT_MAX_GROUP_SIZE;
+
+  /**
+   * Executes each group on a connection obtained from the given data source. The connection is
+   * closed once the group is committed.
+   *
+   * @param dataSource data source for the connections
+   */
+  public PGGroupCommitExecutor(DataSource dataSource) {
+    this.dataSource = dataSource;
+    this.connection = null;
+  }
+
+  /**
+   * Executes the groups on the given connection, which is left open.
+   *
+   * @param connection connection used by this executor only
+   */
+  public PGGroupCommitExecutor(Connection connection) {
+    this.dataSource = null;
+    this.connection = connection;
+  }
+
+  /**
+   * Sets how long the first execution of a group waits for others. The group keeps collecting
+   * executions while it waits for a connection after the window. The default is 500 microseconds.
+   *
+   * @param windowMicros window in microseconds, 0 to collect only the executions that arrive
+   *     while the group waits for a connection
+   */
+  public void setWindowMicros(long windowMicros) {
+    if (windowMicros < 0) {
+      throw new IllegalArgumentException(
+          GT.tr("The window must not be negative, but was {0}.", windowMicros));
+    }
+    this.windowNanos = TimeUnit.MICROSECONDS.toNanos(windowMicros);
+  }
+
+  /**
+   * Sets the number of executions after which a group is executed without waiting for the end of
+   * the window. The default is 1000.
+   *
+   * @param maxGroupSize maximum number of executions in a group
+   */
+  public void setMaxGroupSize(int maxGroupSize) {
+    if (maxGroupSize < 1) {
+      throw new IllegalArgumentException(
+          GT.tr("The group size must be at least 1, but was {0}.", maxGroupSize));
+    }
+    this.maxGroupSize = maxGroupSize;
+  }
+
+  /**
+   * Executes the statement along with the concurrent executions of the same SQL text, and returns
+   * once it is committed. If the thread is interrupted while waiting, the statement is still
+   * executed and the interrupt status is set again on return.
+   *
+   * @param sql        statement to execute, typically a single-row INSERT
+   * @param parameters values of the parameters, set with {@link PreparedStatement#setObject(int,
+   *                   Object)}
+   * @return the update count of the statement
+   * @throws SQLException if the statement fails, or no connection can be obtained
+   */
+  public long executeUpdate(String sql, @Nullable Object... parameters) throws SQLException {
+    Execution execution = new Execution(parameters);
+    Group group;
+    boolean first;
+    lock.lock();
+    try {
+      group = openGroups.get(sql);
+      first = group == null;
+      if (group == null) {
+        group = new Group(sql, lock.newCondition());
+        openGroups.put(sql, group);
+      }
+      group.executions.add(execution);
+      if (group.executions.size() >= maxGroupSize) {
+        close(group);
+      }
+    } finally {
+      lock.unlock();
+    }
+
+    if (first) {
+      boolean interrupted = awaitWindow(group);
+      execute(group);
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    } else {
+      awaitDone(group);
+    }
+    return execution.getUpdateCount();
+  }
+
+  /**
+   * Stops collecting executions for the group. Called with the lock held.
+   */
+  private void close(Group group) {
+    if (!group.closed) {
+      group.closed = true;
+      openGroups.remove(group.sql);
+      group.changed.signalAll();
+    }
+  }
+
+  /**
+   * Waits for the window to end or the group to be full.
+   *
+   * @return true if the thread was interrupted while waiting
+   */
+  private boolean awaitWindow(Group group) {
+    boolean interrupted = false;
+    lock.lock();
+    try {
+      long remaining = windowNanos;
+      while (!group.closed && remaining > 0) {
+        try {
+          remaining = group.changed.awaitNanos(remaining);
+        } catch (InterruptedException e) {
+          // execute the group at once, the caller's thread is wanted elsewhere
+          interrupted = true;
+          break;
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+    return interrupted;
+  }
+
+  private void awaitDone(Group group) {
+    boolean interrupted = false;
+    lock.lock();
+    try {
+      while (!group.done) {
+        try {
+          group.changed.await();
+        } catch (InterruptedException e) {
+          // the execution cannot be withdrawn from the group, so wait for its outcome
+          interrupted = true;
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void execute(Group group) {
+    @Nullable SQLException failure = null;
+    try {
+      if (dataSource != null) {
+        Connection connection = dataSource.getConnection();
+        try {
+          closeGroup(group);
+          execute(connection, group);
+        } finally {
+          connection.close();
+        }
+      } else {
+        Connection connection = castNonNull(this.connection);
+        synchronized (connection) {
+          closeGroup(group);
+          execute(connection, group);
+        }
+      }
+    } catch (SQLException e) {
+      failure = e;
+    } catch (RuntimeException e) {
+      failure = new PSQLException(GT.tr("Executing the group failed."),
+          PSQLState.UNEXPECTED_ERROR, e);
+    } finally {
+      lock.lock();
+      try {
+        close(group);
+        if (failure != null) {
+          group.fail(failure);
+        }
+        group.done = true;
+        group.changed.signalAll();
+      } finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  private void closeGroup(Group group) {
+    lock.lock();
+    try {
+      close(group);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private static void execute(Connection connection, Group group) throws SQLException {
+    boolean autoCommit = connection.getAutoCommit();
+    if (!autoCommit && isInTransaction(connection)) {
+      throw new PSQLException(
+          GT.tr("Group commit requires a connection that is not in a transaction."),
+          PSQLState.OBJECT_NOT_IN_STATE);
+    }
+    try {
+      boolean batched = false;
+      if (group.executions.size() > 1) {
+        connection.setAutoCommit(false);
+        batched = executeBatch(connection, group);
+      }
+      if (!batched) {
+        connection.setAutoCommit(true);
+        executeEach(connection, group);
+      }
+    } catch (SQLException e) {
+      try {
+        connection.setAutoCommit(autoCommit);
+      } catch (SQLException restoreError) {
+        e.setNextException(restoreError);
+      }
+      throw e;
+    }
+    // every execution has its outcome, which a failure to restore the mode does not change
+    connection.setAutoCommit(autoCommit);
+  }
+
+  /**
+   * Tells whether a connection in manual commit mode has a transaction in progress. A connection
+   * whose state cannot be known is assumed to have one.
+   */
+  private static boolean isInTransaction(Connection connection) throws SQLException {
+    if (!connection.isWrapperFor(BaseConnection.class)) {
+      return true;
+    }
+    return connection.unwrap(BaseConnection.class).getTransactionState()
+        != TransactionState.IDLE;
+  }
+
+  /**
+   * Executes the group as one batch and commits it. If the commit fails, every execution gets
+   * its error, since the batch may or may not be committed.
+   *
+   * @return false if the batch failed and was rolled back, so each execution must be executed on
+   *     its own
+   */
+  private static boolean executeBatch(Connection connection, Group group) {
+    List<Execution> executions = group.executions;
+    long[] updateCounts;
+    try {
+      PreparedStatement ps = connection.prepareStatement(group.sql);
+      try {
+        for (Execution execution : executions) {
+          execution.bind(ps);
+          ps.addBatch();
+        }
+        updateCounts = ps.executeLargeBatch();
+      } finally {
+        ps.close();
+      }
+    } catch (SQLException e) {
+      try {
+        connection.rollback();
+      } catch (SQLException rollbackError) {
+        // the connection is broken, which each execution learns on its own
+      }
+      return false;
+    }
+    try {
+      connection.commit();
+    } catch (SQLException e) {
+      for (Execution execution : executions) {
+        execution.error = e;
+      }
+      return true;
+    }
+    for (int i = 0; i < executions.size(); i++) {
+      executions.get(i).updateCount = updateCounts[i];
+    }
+    return true;
+  }
+
+  /**
+   * Executes each execution of the group in a transaction of its own.
+   */
+  private static void executeEach(Connection connection, Group group) throws SQLException {
+    PreparedStatement ps = connection.prepareStatement(group.sql);
+    try {
+      for (Execution execution : group.executions) {
+        try {
+          execution.bind(ps);
+          execution.updateCount = ps.executeLargeUpdate();
+        } catch (SQLException e) {
+          execution.error = e;
+        }
+      }
+    } finally {
+      ps.close();
+    }
+  }
+
+  /**
+   * Executions of one statement that are committed together.
+   */
+  private static class Group {
+    final String sql;
+    /**
+     * Signalled when the group is closed, and when it is done.
+     */
+    final Condition changed;
+    final List<Execution> executions = new ArrayList<Execution>();
+    boolean closed;
+    boolean done;
+
+    Group(String sql, Condition changed) {
+      this.sql = sql;
+      this.changed = changed;
+    }
+
+    void fail(SQLException error) {
+      for (Execution execution : executions) {
+        if (execution.updateCount == null && execution.error == null) {
+          execution.error = error;
+        }
+      }
+    }
+  }
+
+  private static class Execution {
+    final @Nullable Object[] parameters;
+    @Nullable Long updateCount;
+    @Nullable SQLException error;
+
+    Execution(@Nullable Object[] parameters) {
+      this.parameters = parameters;
+    }
+
+    void bind(PreparedStatement ps) throws SQLException {
+      ps.clearParameters();
+      for (int i = 0; i < parameters.length; i++) {
+        ps.setObject(i + 1, parameters[i]);
+      }
+    }
+
+    long getUpdateCount() throws SQLException {
+      SQLException error = this.error;
+      if (error != null) {
+        throw forCaller(error);
+      }
+      return castNonNull(updateCount);
+    }
+
+    /**
+     * Returns a new exception with the message and SQL state of the error, and the error as its
+     * cause, since executions failed by the commit or the group share one error.
+     */
+    private static SQLException forCaller(SQLException error) {
+      @Nullable ServerErrorMessage serverError = error instanceof PSQLException
+          ? ((PSQLException) error).getServerErrorMessage() : null;
+      PSQLException exception;
+      if (serverError != null) {
+        exception = new PSQLException(serverError);
+        exception.initCause(error);
+      } else {
+        @Nullable PSQLState state = null;
+        for (PSQLState candidate : PSQLState.values()) {
+          if (candidate.getState().equals(error.getSQLState())) {
+            state = candidate;
+            break;
+          }
+        }
+        exception = new PSQLException(error.getMessage(), state, error);
+      }
+      return exception;
+    }
+  }
+}
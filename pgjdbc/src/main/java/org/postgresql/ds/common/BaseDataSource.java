@@ -458,6 +458,38 @@ public abstract class BaseDataSource implements CommonDataSource, Referenceable
     PGProperty.PREPARED_STATEMENT_CACHE_SIZE_MIB.set(properties, cacheSize);
   }
 
+  /**
+   * @return directory of the temporary files of spooled column values
+   * @see PGProperty#LARGE_VALUE_SPOOL_DIRECTORY
+   */
+  public @Nullable String getLargeValueSpoolDirectory() {
+    return PGProperty.LARGE_VALUE_SPOOL_DIRECTORY.get(properties);
+  }
+
+  /**
+   * @param directory directory of the temporary files of spooled column values
+   * @see PGProperty#LARGE_VALUE_SPOOL_DIRECTORY
+   */
+  public void setLargeValueSpoolDirectory(@Nullable String directory) {
+    PGProperty.LARGE_VALUE_SPOOL_DIRECTORY.set(properties, directory);
+  }
+
+  /**
+   * @return size in bytes above which column values are spooled to a temporary file
+   * @see PGProperty#LARGE_VALUE_SPOOL_THRESHOLD
+   */
+  public int getLargeValueSpoolThreshold() {
+    return PGProperty.LARGE_VALUE_SPOOL_THRESHOLD.getIntNoCheck(properties);
+  }
+
+  /**
+   * @param threshold size in bytes above which column values are spooled to a temporary file
+   * @see PGProperty#LARGE_VALUE_SPOOL_THRESHOLD
+   */
+  public void setLargeValueSpoolThreshold(int threshold) {
+    PGProperty.LARGE_VALUE_SPOOL_THRESHOLD.set(properties, threshold);
+  }
+
   /**
    * @return database metadata cache fields size (number of fields cached per connection)
    * @see PGProperty#DATABASE_METADATA_CACHE_FIELDS
@@ -1526,6 +1558,70 @@ public abstract class BaseDataSource implements CommonDataSource, Referenceable
     PGProperty.REWRITE_BATCHED_INSERTS.set(properties, reWrite);
   }
 
+  /**
+   * @return boolean indicating property is enabled or not.
+   * @see PGProperty#REWRITE_BATCHED_UPDATES
+   */
+  public boolean getReWriteBatchedUpdates() {
+    return PGProperty.REWRITE_BATCHED_UPDATES.getBoolean(properties);
+  }
+
+  /**
+   * @param reWrite boolean value to set the property in the properties collection
+   * @see PGProperty#REWRITE_BATCHED_UPDATES
+   */
+  public void setReWriteBatchedUpdates(boolean reWrite) {
+    PGProperty.REWRITE_BATCHED_UPDATES.set(properties, reWrite);
+  }
+
+  /**
+   * @return number of batch entries after which addBatch executes the batch
+   * @see PGProperty#BATCH_CHUNK_SIZE
+   */
+  public int getBatchChunkSize() {
+    return PGProperty.BATCH_CHUNK_SIZE.getIntNoCheck(properties);
+  }
+
+  /**
+   * @param batchChunkSize number of batch entries after which addBatch executes the batch
+   * @see PGProperty#BATCH_CHUNK_SIZE
+   */
+  public void setBatchChunkSize(int batchChunkSize) {
+    PGProperty.BATCH_CHUNK_SIZE.set(properties, batchChunkSize);
+  }
+
+  /**
+   * @return maximum number of batch entries sent ahead of their results
+   * @see PGProperty#BATCH_WINDOW_SIZE
+   */
+  public int getBatchWindowSize() {
+    return PGProperty.BATCH_WINDOW_SIZE.getIntNoCheck(properties);
+  }
+
+  /**
+   * @param batchWindowSize maximum number of batch entries sent ahead of their results
+   * @see PGProperty#BATCH_WINDOW_SIZE
+   */
+  public void setBatchWindowSize(int batchWindowSize) {
+    PGProperty.BATCH_WINDOW_SIZE.set(properties, batchWindowSize);
+  }
+
+  /**
+   * @return 'default' or 'copy'
+   * @see PGProperty#BATCH_INSERT_MODE
+   */
+  public String getBatchInsertMode() {
+    return castNonNull(PGProperty.BATCH_INSERT_MODE.get(properties));
+  }
+
+  /**
+   * @param batchInsertMode how batched INSERT statements are executed
+   * @see PGProperty#BATCH_INSERT_MODE
+   */
+  public void setBatchInsertMode(@Nullable String batchInsertMode) {
+    PGProperty.BATCH_INSERT_MODE.set(properties, batchInsertMode);
+  }
+
   /**
    * @return boolean indicating property is enabled or not.
    * @see PGProperty#HIDE_UNPRIVILEGED_OBJECTS
@@ -1704,4 +1800,8 @@ public abstract class BaseDataSource implements CommonDataSource, Referenceable
   public boolean isReWriteBatchedInserts() {
     return getReWriteBatchedInserts();
   }
+
+  public boolean isReWriteBatchedUpdates() {
+    return getReWriteBatchedUpdates();
+  }
 }
@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.geometric;
+
+import org.postgresql.util.ByteConverter;
+import org.postgresql.util.GT;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.PSQLState;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Reads and writes the coordinates of the geometric types. The text forms are scanned in place
+ * for numbers, so no intermediate substrings or lists are built for the enclosing parentheses,
+ * and the binary forms are read as consecutive float8 pairs.
+ */
+final class CoordinateParser {
+
+  private CoordinateParser() {
+  }
+
+  private static boolean isSeparator(char c) {
+    switch (c) {
+      case '(':
+      case ')':
+      case '[':
+      case ']':
+      case '<':
+      case '>':
+      case '{':
+      case '}':
+      case ',':
+        return true;
+      default:
+        return Character.isWhitespace(c);
+    }
+  }
+
+  /**
+   * Parses all the numbers of a geometric value in text form, ignoring the delimiters.
+   *
+   * @param s value in PostgreSQL's syntax
+   * @param type name of the type, for error messages
+   * @return the numbers in the order they appear
+   * @throws PSQLException if one of the numbers cannot be parsed
+   */
+  static double[] parse(String s, @Nullable String type) throws PSQLException {
+    double[] values = new double[8];
+    int n = 0;
+    int len = s.length();
+    int i = 0;
+    while (i < len) {
+      if (isSeparator(s.charAt(i))) {
+        i++;
+        continue;
+      }
+      int start = i;
+      while (i < len && !isSeparator(s.charAt(i))) {
+        i++;
+      }
+      if (n == values.length) {
+        values = Arrays.copyOf(values, n * 2);
+      }
+      try {
+        values[n++] = Double.parseDouble(s.substring(start, i));
+      } catch (NumberFormatException e) {
+        throw conversionFailed(type, s, e);
+      }
+    }
+    return n == values.length ? values : Arrays.copyOf(values, n);
+  }
+
+  /**
+   * Parses a geometric value that consists of exactly {@code count} numbers.
+   *
+   * @param s value in PostgreSQL's syntax
+   * @param count expected number of numbers
+   * @param type name of the type, for error messages
+   * @return the numbers in the order they appear
+   * @throws PSQLException if the value does not consist of {@code count} numbers
+   */
+  static double[] parse(String s, int count, @Nullable String type) throws PSQLException {
+    double[] values = parse(s, type);
+    if (values.length != count) {
+      throw conversionFailed(type, s, null);
+    }
+    return values;
+  }
+
+  /**
+   * Parses a list of points, such as the points of a path or polygon.
+   *
+   * @param s value in PostgreSQL's syntax
+   * @param type name of the type, for error messages
+   * @return the points
+   * @throws PSQLException if the value is not a list of x,y pairs
+   */
+  static PGpoint[] parsePoints(String s, @Nullable String type) throws PSQLException {
+    double[] values = parse(s, type);
+    if (values.length % 2 != 0) {
+      throw conversionFailed(type, s, null);
+    }
+    PGpoint[] points = new PGpoint[values.length / 2];
+    for (int i = 0; i < points.length; i++) {
+      points[i] = new PGpoint(values[2 * i], values[2 * i + 1]);
+    }
+    return points;
+  }
+
+  static PSQLException conversionFailed(@Nullable String type, String s,
+      @Nullable Throwable cause) {
+    return new PSQLException(GT.tr("Conversion to type {0} failed: {1}.", type, s),
+        PSQLState.DATA_TYPE_MISMATCH, cause);
+  }
+
+  /**
+   * Reads {@code npts} points stored as float8 pairs.
+   *
+   * @param b binary value
+   * @param offset offset of the first point
+   * @param npts number of points, as sent by the server
+   * @param type name of the type, for error messages
+   * @return the points
+   * @throws PSQLException if the value is shorter than the number of points requires
+   */
+  static PGpoint[] readPoints(byte[] b, int offset, int npts, @Nullable String type)
+      throws PSQLException {
+    if (npts < 0 || npts > (b.length - offset) / 16) {
+      throw new PSQLException(GT.tr("Invalid binary {0} value.", type), PSQLState.DATA_ERROR);
+    }
+    PGpoint[] points = new PGpoint[npts];
+    for (int i = 0; i < npts; i++) {
+      int pos = offset + 16 * i;
+      points[i] = new PGpoint(ByteConverter.float8(b, pos), ByteConverter.float8(b, pos + 8));
+    }
+    return points;
+  }
+
+  /**
+   * Writes points as float8 pairs.
+   *
+   * @param b target array
+   * @param offset offset of the first point
+   * @param points the points, {@code null} for none
+   */
+  static void writePoints(byte[] b, int offset, PGpoint @Nullable [] points) {
+    if (points == null) {
+      return;
+    }
+    for (int i = 0; i < points.length; i++) {
+      points[i].toBytes(b, offset + 16 * i);
+    }
+  }
+
+  /**
+   * Returns the coordinates of the points as {@code x0, y0, x1, y1, ...}.
+   *
+   * @param points the points, {@code null} for none
+   * @return the coordinates
+   */
+  static double[] toCoordinates(PGpoint @Nullable [] points) {
+    if (points == null) {
+      return new double[0];
+    }
+    double[] coordinates = new double[points.length * 2];
+    for (int i = 0; i < points.length; i++) {
+      coordinates[2 * i] = points[i].x;
+      coordinates[2 * i + 1] = points[i].y;
+    }
+    return coordinates;
+  }
+}
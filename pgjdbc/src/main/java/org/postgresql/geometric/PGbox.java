@@ -5,12 +5,8 @@
 
 package org.postgresql.geometric;
 
-import org.postgresql.util.GT;
 import org.postgresql.util.PGBinaryObject;
 import org.postgresql.util.PGobject;
-import org.postgresql.util.PGtokenizer;
-import org.postgresql.util.PSQLException;
-import org.postgresql.util.PSQLState;
 
 import org.checkerframework.checker.nullness.qual.Nullable;
 
@@ -74,15 +70,9 @@ public class PGbox extends PGobject implements PGBinaryObject, Serializable, Clo
    */
   @Override
   public void setValue(String value) throws SQLException {
-    PGtokenizer t = new PGtokenizer(value, ',');
-    if (t.getSize() != 2) {
-      throw new PSQLException(
-          GT.tr("Conversion to type {0} failed: {1}.", type, value),
-          PSQLState.DATA_TYPE_MISMATCH);
-    }
-
-    point[0] = new PGpoint(t.getToken(0));
-    point[1] = new PGpoint(t.getToken(1));
+    double[] values = CoordinateParser.parse(value, 4, type);
+    point[0] = new PGpoint(values[0], values[1]);
+    point[1] = new PGpoint(values[2], values[3]);
   }
 
   /**
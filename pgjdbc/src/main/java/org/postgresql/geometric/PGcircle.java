@@ -5,11 +5,9 @@
 
 package org.postgresql.geometric;
 
-import org.postgresql.util.GT;
+import org.postgresql.util.ByteConverter;
+import org.postgresql.util.PGBinaryObject;
 import org.postgresql.util.PGobject;
-import org.postgresql.util.PGtokenizer;
-import org.postgresql.util.PSQLException;
-import org.postgresql.util.PSQLState;
 
 import org.checkerframework.checker.nullness.qual.Nullable;
 
@@ -19,7 +17,7 @@ import java.sql.SQLException;
 /**
  * This represents org.postgresql's circle datatype, consisting of a point and a radius.
  */
-public class PGcircle extends PGobject implements Serializable, Cloneable {
+public class PGcircle extends PGobject implements PGBinaryObject, Serializable, Cloneable {
   /**
    * This is the center point.
    */
@@ -72,19 +70,19 @@ public class PGcircle extends PGobject implements Serializable, Cloneable {
    */
   @Override
   public void setValue(String s) throws SQLException {
-    PGtokenizer t = new PGtokenizer(PGtokenizer.removeAngle(s), ',');
-    if (t.getSize() != 2) {
-      throw new PSQLException(GT.tr("Conversion to type {0} failed: {1}.", type, s),
-          PSQLState.DATA_TYPE_MISMATCH);
-    }
+    double[] values = CoordinateParser.parse(s, 3, type);
+    center = new PGpoint(values[0], values[1]);
+    radius = values[2];
+  }
 
-    try {
-      center = new PGpoint(t.getToken(0));
-      radius = Double.parseDouble(t.getToken(1));
-    } catch (NumberFormatException e) {
-      throw new PSQLException(GT.tr("Conversion to type {0} failed: {1}.", type, s),
-          PSQLState.DATA_TYPE_MISMATCH, e);
-    }
+  /**
+   * @param b Definition of the circle in PostgreSQL's binary syntax
+   */
+  public void setByteValue(byte[] b, int offset) {
+    PGpoint center = new PGpoint();
+    center.setByteValue(b, offset);
+    this.center = center;
+    radius = ByteConverter.float8(b, offset + 16);
   }
 
   /**
@@ -122,4 +120,19 @@ public class PGcircle extends PGobject implements Serializable, Cloneable {
   public String getValue() {
     return "<" + center + "," + radius + ">";
   }
+
+  public int lengthInBytes() {
+    return 24;
+  }
+
+  /**
+   * Populate the byte array with PGcircle in the binary syntax expected by org.postgresql.
+   */
+  public void toBytes(byte[] b, int offset) {
+    PGpoint center = this.center;
+    if (center != null) {
+      center.toBytes(b, offset);
+    }
+    ByteConverter.float8(b, offset + 16, radius);
+  }
 }
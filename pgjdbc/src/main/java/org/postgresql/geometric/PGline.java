@@ -5,11 +5,9 @@
 
 package org.postgresql.geometric;
 
-import org.postgresql.util.GT;
+import org.postgresql.util.ByteConverter;
+import org.postgresql.util.PGBinaryObject;
 import org.postgresql.util.PGobject;
-import org.postgresql.util.PGtokenizer;
-import org.postgresql.util.PSQLException;
-import org.postgresql.util.PSQLState;
 
 import org.checkerframework.checker.nullness.qual.Nullable;
 
@@ -19,7 +17,7 @@ import java.sql.SQLException;
 /**
  * This implements a line represented by the linear equation Ax + By + C = 0.
  **/
-public class PGline extends PGobject implements Serializable, Cloneable {
+public class PGline extends PGobject implements PGBinaryObject, Serializable, Cloneable {
 
   /**
    * Coefficient of x.
@@ -104,29 +102,29 @@ public class PGline extends PGobject implements Serializable, Cloneable {
    */
   @Override
   public void setValue(String s) throws SQLException {
-    if (s.trim().startsWith("{")) {
-      PGtokenizer t = new PGtokenizer(PGtokenizer.removeCurlyBrace(s), ',');
-      if (t.getSize() != 3) {
-        throw new PSQLException(GT.tr("Conversion to type {0} failed: {1}.", type, s),
-            PSQLState.DATA_TYPE_MISMATCH);
-      }
-      a = Double.parseDouble(t.getToken(0));
-      b = Double.parseDouble(t.getToken(1));
-      c = Double.parseDouble(t.getToken(2));
-    } else if (s.trim().startsWith("[")) {
-      PGtokenizer t = new PGtokenizer(PGtokenizer.removeBox(s), ',');
-      if (t.getSize() != 2) {
-        throw new PSQLException(GT.tr("Conversion to type {0} failed: {1}.", type, s),
-            PSQLState.DATA_TYPE_MISMATCH);
-      }
-      PGpoint point1 = new PGpoint(t.getToken(0));
-      PGpoint point2 = new PGpoint(t.getToken(1));
-      a = point2.x - point1.x;
-      b = point2.y - point1.y;
-      c = point1.y;
+    String trimmed = s.trim();
+    if (trimmed.startsWith("{")) {
+      double[] values = CoordinateParser.parse(trimmed, 3, type);
+      a = values[0];
+      b = values[1];
+      c = values[2];
+    } else if (trimmed.startsWith("[")) {
+      double[] values = CoordinateParser.parse(trimmed, 4, type);
+      a = values[2] - values[0];
+      b = values[3] - values[1];
+      c = values[1];
     }
   }
 
+  /**
+   * @param bytes Definition of the line in PostgreSQL's binary syntax
+   */
+  public void setByteValue(byte[] bytes, int offset) {
+    a = ByteConverter.float8(bytes, offset);
+    b = ByteConverter.float8(bytes, offset + 8);
+    c = ByteConverter.float8(bytes, offset + 16);
+  }
+
   /**
    * @param obj Object to compare with
    * @return true if the two lines are identical
@@ -168,6 +166,19 @@ public class PGline extends PGobject implements Serializable, Cloneable {
     return "{" + a + "," + b + "," + c + "}";
   }
 
+  public int lengthInBytes() {
+    return 24;
+  }
+
+  /**
+   * Populate the byte array with PGline in the binary syntax expected by org.postgresql.
+   */
+  public void toBytes(byte[] bytes, int offset) {
+    ByteConverter.float8(bytes, offset, a);
+    ByteConverter.float8(bytes, offset + 8, b);
+    ByteConverter.float8(bytes, offset + 16, c);
+  }
+
   @Override
   public Object clone() throws CloneNotSupportedException {
     // squid:S2157 "Cloneables" should implement "clone
@@ -5,11 +5,8 @@
 
 package org.postgresql.geometric;
 
-import org.postgresql.util.GT;
+import org.postgresql.util.PGBinaryObject;
 import org.postgresql.util.PGobject;
-import org.postgresql.util.PGtokenizer;
-import org.postgresql.util.PSQLException;
-import org.postgresql.util.PSQLState;
 
 import org.checkerframework.checker.nullness.qual.Nullable;
 
@@ -19,7 +16,7 @@ import java.sql.SQLException;
 /**
  * This implements a lseg (line segment) consisting of two points.
  */
-public class PGlseg extends PGobject implements Serializable, Cloneable {
+public class PGlseg extends PGobject implements PGBinaryObject, Serializable, Cloneable {
   /**
    * These are the two points.
    */
@@ -68,14 +65,19 @@ public class PGlseg extends PGobject implements Serializable, Cloneable {
    */
   @Override
   public void setValue(String s) throws SQLException {
-    PGtokenizer t = new PGtokenizer(PGtokenizer.removeBox(s), ',');
-    if (t.getSize() != 2) {
-      throw new PSQLException(GT.tr("Conversion to type {0} failed: {1}.", type, s),
-          PSQLState.DATA_TYPE_MISMATCH);
-    }
+    double[] values = CoordinateParser.parse(s, 4, type);
+    point[0] = new PGpoint(values[0], values[1]);
+    point[1] = new PGpoint(values[2], values[3]);
+  }
 
-    point[0] = new PGpoint(t.getToken(0));
-    point[1] = new PGpoint(t.getToken(1));
+  /**
+   * @param b Definition of the line segment in PostgreSQL's binary syntax
+   */
+  public void setByteValue(byte[] b, int offset) {
+    point[0] = new PGpoint();
+    point[0].setByteValue(b, offset);
+    point[1] = new PGpoint();
+    point[1].setByteValue(b, offset + 16);
   }
 
   /**
@@ -114,4 +116,16 @@ public class PGlseg extends PGobject implements Serializable, Cloneable {
   public String getValue() {
     return "[" + point[0] + "," + point[1] + "]";
   }
+
+  public int lengthInBytes() {
+    return 32;
+  }
+
+  /**
+   * Populate the byte array with PGlseg in the binary syntax expected by org.postgresql.
+   */
+  public void toBytes(byte[] b, int offset) {
+    point[0].toBytes(b, offset);
+    point[1].toBytes(b, offset + 16);
+  }
 }
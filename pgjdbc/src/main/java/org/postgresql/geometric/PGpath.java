@@ -5,9 +5,10 @@
 
 package org.postgresql.geometric;
 
+import org.postgresql.util.ByteConverter;
 import org.postgresql.util.GT;
+import org.postgresql.util.PGBinaryObject;
 import org.postgresql.util.PGobject;
-import org.postgresql.util.PGtokenizer;
 import org.postgresql.util.PSQLException;
 import org.postgresql.util.PSQLState;
 
@@ -19,7 +20,7 @@ import java.sql.SQLException;
 /**
  * This implements a path (a multiple segmented line, which may be closed).
  */
-public class PGpath extends PGobject implements Serializable, Cloneable {
+public class PGpath extends PGobject implements PGBinaryObject, Serializable, Cloneable {
   /**
    * True if the path is open, false if closed.
    */
@@ -65,22 +66,23 @@ public class PGpath extends PGobject implements Serializable, Cloneable {
     // First test to see if were open
     if (s.startsWith("[") && s.endsWith("]")) {
       open = true;
-      s = PGtokenizer.removeBox(s);
     } else if (s.startsWith("(") && s.endsWith(")")) {
       open = false;
-      s = PGtokenizer.removePara(s);
     } else {
       throw new PSQLException(GT.tr("Cannot tell if path is open or closed: {0}.", s),
           PSQLState.DATA_TYPE_MISMATCH);
     }
+    points = CoordinateParser.parsePoints(s, type);
+  }
 
-    PGtokenizer t = new PGtokenizer(s, ',');
-    int npoints = t.getSize();
-    PGpoint[] points = new PGpoint[npoints];
-    this.points = points;
-    for (int p = 0; p < npoints; p++) {
-      points[p] = new PGpoint(t.getToken(p));
-    }
+  /**
+   * @param b Definition of the path in PostgreSQL's binary syntax: a closed flag, the number of
+   *        points and the points
+   * @throws SQLException if the number of points does not match the length of the value
+   */
+  public void setByteValue(byte[] b, int offset) throws SQLException {
+    open = b[offset] == 0;
+    points = CoordinateParser.readPoints(b, offset + 5, ByteConverter.int4(b, offset + 1), type);
   }
 
   /**
@@ -160,6 +162,31 @@ public class PGpath extends PGobject implements Serializable, Cloneable {
     return b.toString();
   }
 
+  public int lengthInBytes() {
+    PGpoint[] points = this.points;
+    return 5 + (points == null ? 0 : 16 * points.length);
+  }
+
+  /**
+   * Populate the byte array with PGpath in the binary syntax expected by org.postgresql.
+   */
+  public void toBytes(byte[] b, int offset) {
+    PGpoint[] points = this.points;
+    b[offset] = (byte) (open ? 0 : 1);
+    ByteConverter.int4(b, offset + 1, points == null ? 0 : points.length);
+    CoordinateParser.writePoints(b, offset + 5, points);
+  }
+
+  /**
+   * Returns the coordinates of the points as a flat array {@code x0, y0, x1, y1, ...}, which is
+   * more compact to keep around than the points for large paths.
+   *
+   * @return the coordinates of the points
+   */
+  public double[] getCoordinates() {
+    return CoordinateParser.toCoordinates(points);
+  }
+
   public boolean isOpen() {
     return open;
   }
@@ -6,12 +6,8 @@
 package org.postgresql.geometric;
 
 import org.postgresql.util.ByteConverter;
-import org.postgresql.util.GT;
 import org.postgresql.util.PGBinaryObject;
 import org.postgresql.util.PGobject;
-import org.postgresql.util.PGtokenizer;
-import org.postgresql.util.PSQLException;
-import org.postgresql.util.PSQLState;
 
 import org.checkerframework.checker.nullness.qual.Nullable;
 
@@ -71,14 +67,9 @@ public class PGpoint extends PGobject implements PGBinaryObject, Serializable, C
    */
   @Override
   public void setValue(String s) throws SQLException {
-    PGtokenizer t = new PGtokenizer(PGtokenizer.removePara(s), ',');
-    try {
-      x = Double.parseDouble(t.getToken(0));
-      y = Double.parseDouble(t.getToken(1));
-    } catch (NumberFormatException e) {
-      throw new PSQLException(GT.tr("Conversion to type {0} failed: {1}.", type, s),
-          PSQLState.DATA_TYPE_MISMATCH, e);
-    }
+    double[] values = CoordinateParser.parse(s, 2, type);
+    x = values[0];
+    y = values[1];
   }
 
   /**
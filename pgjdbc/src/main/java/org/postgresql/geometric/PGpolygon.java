@@ -5,8 +5,9 @@
 
 package org.postgresql.geometric;
 
+import org.postgresql.util.ByteConverter;
+import org.postgresql.util.PGBinaryObject;
 import org.postgresql.util.PGobject;
-import org.postgresql.util.PGtokenizer;
 
 import org.checkerframework.checker.nullness.qual.Nullable;
 
@@ -16,7 +17,7 @@ import java.sql.SQLException;
 /**
  * This implements the polygon datatype within PostgreSQL.
  */
-public class PGpolygon extends PGobject implements Serializable, Cloneable {
+public class PGpolygon extends PGobject implements PGBinaryObject, Serializable, Cloneable {
   /**
    * The points defining the polygon.
    */
@@ -54,13 +55,16 @@ public class PGpolygon extends PGobject implements Serializable, Cloneable {
    * @throws SQLException on conversion failure
    */
   public void setValue(String s) throws SQLException {
-    PGtokenizer t = new PGtokenizer(PGtokenizer.removePara(s), ',');
-    int npoints = t.getSize();
-    PGpoint[] points = new PGpoint[npoints];
-    this.points = points;
-    for (int p = 0; p < npoints; p++) {
-      points[p] = new PGpoint(t.getToken(p));
-    }
+    points = CoordinateParser.parsePoints(s, type);
+  }
+
+  /**
+   * @param b Definition of the polygon in PostgreSQL's binary syntax: the number of points and
+   *        the points
+   * @throws SQLException if the number of points does not match the length of the value
+   */
+  public void setByteValue(byte[] b, int offset) throws SQLException {
+    points = CoordinateParser.readPoints(b, offset + 4, ByteConverter.int4(b, offset), type);
   }
 
   /**
@@ -137,4 +141,28 @@ public class PGpolygon extends PGobject implements Serializable, Cloneable {
     b.append(")");
     return b.toString();
   }
+
+  public int lengthInBytes() {
+    PGpoint[] points = this.points;
+    return 4 + (points == null ? 0 : 16 * points.length);
+  }
+
+  /**
+   * Populate the byte array with PGpolygon in the binary syntax expected by org.postgresql.
+   */
+  public void toBytes(byte[] b, int offset) {
+    PGpoint[] points = this.points;
+    ByteConverter.int4(b, offset, points == null ? 0 : points.length);
+    CoordinateParser.writePoints(b, offset + 4, points);
+  }
+
+  /**
+   * Returns the coordinates of the points as a flat array {@code x0, y0, x1, y1, ...}, which is
+   * more compact to keep around than the points for large polygons.
+   *
+   * @return the coordinates of the points
+   */
+  public double[] getCoordinates() {
+    return CoordinateParser.toCoordinates(points);
+  }
 }
@@ -6,11 +6,17 @@
 package org.postgresql.jdbc;
 
 import org.postgresql.core.BaseConnection;
+import org.postgresql.core.BaseStatement;
+import org.postgresql.core.CodecRegistry;
+import org.postgresql.core.CompositeType;
 import org.postgresql.core.Oid;
 import org.postgresql.core.Parser;
 import org.postgresql.jdbc2.ArrayAssistant;
 import org.postgresql.jdbc2.ArrayAssistantRegistry;
 import org.postgresql.util.GT;
+import org.postgresql.util.PGCodec;
+import org.postgresql.util.PGMultirange;
+import org.postgresql.util.PGRange;
 import org.postgresql.util.PGbytea;
 import org.postgresql.util.PSQLException;
 import org.postgresql.util.PSQLState;
@@ -27,6 +33,7 @@ import java.nio.ByteOrder;
 import java.nio.charset.StandardCharsets;
 import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Types;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -447,6 +454,114 @@ final class ArrayDecoding {
     }
   }
 
+  private static final class CodecObjectArrayDecoder extends AbstractObjectArrayDecoder<Object[]> {
+
+    private final PGCodec<?> codec;
+
+    CodecObjectArrayDecoder(PGCodec<?> codec) {
+      super(codec.getJavaType());
+      this.codec = codec;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean supportBinary() {
+      return codec.supportsBinary();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    Object parseValue(int length, ByteBuffer bytes, BaseConnection connection) throws SQLException {
+      assert bytes.hasArray();
+      final Object val = codec.decodeBinary(bytes.array(), bytes.arrayOffset() + bytes.position(), length);
+      bytes.position(bytes.position() + length);
+      return val;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    Object parseValue(String stringVal, BaseConnection connection) throws SQLException {
+      return codec.decodeText(stringVal);
+    }
+  }
+
+  private static final class RangeObjectArrayDecoder extends AbstractObjectArrayDecoder<Object[]> {
+
+    private final int oid;
+
+    RangeObjectArrayDecoder(int oid) {
+      super(RangeDecoding.getSubtype(oid) != Oid.UNSPECIFIED ? PGRange.class : PGMultirange.class);
+      this.oid = oid;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    Object parseValue(int length, ByteBuffer bytes, BaseConnection connection) throws SQLException {
+      assert bytes.hasArray();
+      final int offset = bytes.arrayOffset() + bytes.position();
+      final int subtype = RangeDecoding.getSubtype(oid);
+      final Object val = subtype != Oid.UNSPECIFIED
+          ? RangeDecoding.readBinary(connection, subtype, bytes.array(), offset, length)
+          : RangeDecoding.readBinaryMultirange(connection,
+              RangeDecoding.getSubtype(RangeDecoding.getMultirangeRange(oid)), bytes.array(), offset);
+      bytes.position(bytes.position() + length);
+      return val;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    Object parseValue(String stringVal, BaseConnection connection) throws SQLException {
+      return RangeDecoding.decodeText(connection, oid, stringVal);
+    }
+  }
+
+  private static final class CompositeObjectArrayDecoder extends AbstractObjectArrayDecoder<Object[]> {
+
+    private final CompositeType type;
+    private @Nullable BaseStatement statement;
+
+    CompositeObjectArrayDecoder(CompositeType type) {
+      super(type.getJavaClass());
+      this.type = type;
+    }
+
+    private BaseStatement getStatement(BaseConnection connection) throws SQLException {
+      BaseStatement statement = this.statement;
+      if (statement == null) {
+        this.statement = statement = (BaseStatement) connection.createStatement();
+      }
+      return statement;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    Object parseValue(int length, ByteBuffer bytes, BaseConnection connection) throws SQLException {
+      final byte[] copy = new byte[length];
+      bytes.get(copy);
+      return CompositeDecoding.decodeBinary(connection, getStatement(connection), type, copy, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    Object parseValue(String stringVal, BaseConnection connection) throws SQLException {
+      return CompositeDecoding.decodeText(connection, getStatement(connection), type, stringVal, null);
+    }
+  }
+
   @SuppressWarnings("unchecked")
   private static <A extends @NonNull Object> ArrayDecoder<A> getDecoder(int oid, BaseConnection connection) throws SQLException {
     final Integer key = oid;
@@ -456,12 +571,27 @@ final class ArrayDecoding {
       return decoder;
     }
 
+    final CodecRegistry.Entry codec = connection.getCodecRegistry().forOid(oid);
+    if (codec != null && codec.getArrayOid() != Oid.UNSPECIFIED) {
+      return (ArrayDecoder<A>) new CodecObjectArrayDecoder(codec.getCodec());
+    }
+
+    if (RangeDecoding.isRange(oid)) {
+      return (ArrayDecoder<A>) new RangeObjectArrayDecoder(oid);
+    }
+
     final ArrayAssistant assistant = ArrayAssistantRegistry.getAssistant(oid);
 
     if (assistant != null) {
       return new ArrayAssistantObjectArrayDecoder(assistant);
     }
 
+    final CompositeType compositeType = connection.getTypeInfo().getSQLType(oid) == Types.STRUCT
+        ? connection.getTypeInfo().getCompositeType(oid) : null;
+    if (compositeType != null && compositeType.isRegistered()) {
+      return (ArrayDecoder<A>) new CompositeObjectArrayDecoder(compositeType);
+    }
+
     final String typeName = connection.getTypeInfo().getPGType(oid);
     if (typeName == null) {
       throw org.postgresql.Driver.notImplemented(PgArray.class, "readArray(data,oid)");
@@ -6,6 +6,7 @@
 package org.postgresql.jdbc;
 
 import org.postgresql.core.BaseConnection;
+import org.postgresql.core.CodecRegistry;
 import org.postgresql.core.Encoding;
 import org.postgresql.core.Oid;
 import org.postgresql.util.ByteConverter;
@@ -1407,4 +1408,127 @@ final class ArrayEncoding {
     }
 
   }
+
+  /**
+   * Creates the binary representation of an array of values handled by a
+   * {@link org.postgresql.util.PGCodec}. Nested arrays are encoded as additional dimensions and
+   * must be rectangular.
+   *
+   * @param codec
+   *          The codec of the element type.
+   * @param array
+   *          The array to encode, may contain {@code null} elements.
+   * @return The binary representation of <i>array</i>.
+   * @throws SQLException
+   *           If an element cannot be encoded or the array is not rectangular.
+   */
+  static byte[] toCodecBinaryRepresentation(CodecRegistry.Entry codec, Object[] array)
+      throws SQLException {
+    final int[] dimensions = codecArrayDimensions(array);
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream(1024);
+    final byte[] buffer = new byte[4];
+    try {
+      ByteConverter.int4(buffer, 0, dimensions.length);
+      baos.write(buffer);
+      // nulls flag, the server works it out from the elements itself
+      ByteConverter.int4(buffer, 0, 1);
+      baos.write(buffer);
+      ByteConverter.int4(buffer, 0, codec.getOid());
+      baos.write(buffer);
+      for (int dimension : dimensions) {
+        ByteConverter.int4(buffer, 0, dimension);
+        baos.write(buffer);
+        // postgresql uses 1 base by default
+        ByteConverter.int4(buffer, 0, 1);
+        baos.write(buffer);
+      }
+      writeCodecElements(codec, buffer, baos, array, dimensions, 0);
+    } catch (IOException e) {
+      // this IO exception is from writing to baos, which will never throw an
+      // IOException
+      throw new java.lang.AssertionError(e);
+    }
+    return baos.toByteArray();
+  }
+
+  private static void writeCodecElements(CodecRegistry.Entry codec, byte[] buffer,
+      ByteArrayOutputStream baos, Object[] array, int[] dimensions, int depth)
+      throws IOException, SQLException {
+    if (array.length != dimensions[depth]) {
+      throw new PSQLException(GT.tr("Multi-dimensional arrays must have sub-arrays of matching length."),
+          PSQLState.INVALID_PARAMETER_VALUE);
+    }
+    for (Object element : array) {
+      if (depth < dimensions.length - 1) {
+        writeCodecElements(codec, buffer, baos, (Object[]) element, dimensions, depth + 1);
+      } else if (element == null) {
+        ByteConverter.int4(buffer, 0, -1);
+        baos.write(buffer);
+      } else {
+        final byte[] bytes = codec.encodeBinary(element);
+        ByteConverter.int4(buffer, 0, bytes.length);
+        baos.write(buffer);
+        baos.write(bytes);
+      }
+    }
+  }
+
+  /**
+   * Creates the {@code String} representation of an array of values handled by a
+   * {@link org.postgresql.util.PGCodec}.
+   *
+   * @param codec
+   *          The codec of the element type.
+   * @param delim
+   *          The character to use to delimit between elements.
+   * @param array
+   *          The array to represent, may contain {@code null} elements.
+   * @return {@code String} representation of the <i>array</i>.
+   * @throws SQLException
+   *           If an element cannot be encoded.
+   */
+  static String toCodecArrayString(CodecRegistry.Entry codec, char delim, Object[] array)
+      throws SQLException {
+    final StringBuilder sb = new StringBuilder(1024);
+    appendCodecArray(codec, sb, delim, array, codecArrayDimensions(array).length);
+    return sb.toString();
+  }
+
+  private static void appendCodecArray(CodecRegistry.Entry codec, StringBuilder sb, char delim,
+      Object[] array, int depth) throws SQLException {
+    sb.append('{');
+    for (int i = 0; i < array.length; ++i) {
+      if (i > 0) {
+        sb.append(delim);
+      }
+      if (depth > 1) {
+        appendCodecArray(codec, sb, delim, (Object[]) array[i], depth - 1);
+      } else if (array[i] == null) {
+        sb.append("NULL");
+      } else {
+        PgArray.escapeArrayElement(sb, codec.encodeText(array[i]));
+      }
+    }
+    sb.append('}');
+  }
+
+  /**
+   * Determines the dimensions of a (possibly nested) array of codec values from the lengths of
+   * its first elements.
+   */
+  private static int[] codecArrayDimensions(Object[] array) {
+    int count = 1;
+    for (Class<?> c = array.getClass().getComponentType(); c.isArray(); c = c.getComponentType()) {
+      ++count;
+    }
+    final int[] dimensions = new int[count];
+    Object[] current = array;
+    for (int i = 0; i < count; ++i) {
+      dimensions[i] = current.length;
+      if (i < count - 1) {
+        current = current.length > 0 ? (Object[]) current[0] : new Object[0];
+      }
+    }
+    return dimensions;
+  }
 }
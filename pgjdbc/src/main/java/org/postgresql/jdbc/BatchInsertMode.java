@@ -0,0 +1,38 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.jdbc;
+
+/**
+ * <p>Specifies how {@code executeBatch} sends a batched INSERT: 'default' means one execution per
+ * batch entry (or multi-values blocks with reWriteBatchedInserts), and 'copy' means to stream the
+ * rows through {@code COPY ... FROM STDIN (FORMAT binary)} when the statement and the bound values
+ * allow it.</p>
+ *
+ * @see org.postgresql.PGProperty#BATCH_INSERT_MODE
+ */
+public enum BatchInsertMode {
+  DEFAULT("default"),
+  COPY("copy");
+
+  private final String value;
+
+  BatchInsertMode(String value) {
+    this.value = value;
+  }
+
+  public static BatchInsertMode of(String mode) {
+    for (BatchInsertMode batchInsertMode : values()) {
+      if (batchInsertMode.value.equals(mode)) {
+        return batchInsertMode;
+      }
+    }
+    return DEFAULT;
+  }
+
+  public String value() {
+    return value;
+  }
+}
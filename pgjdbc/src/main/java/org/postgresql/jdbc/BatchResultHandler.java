@@ -169,6 +169,25 @@ public class BatchResultHandler extends ResultHandlerBase {
     super.handleError(newError);
   }
 
+  /**
+   * Creates the exception for a batch that was sent as a single statement and failed, so that no
+   * batch entry took effect.
+   *
+   * @param sql the statement that was sent
+   * @param updateCounts the update counts, one per batch entry, to fill
+   * @param e the failure
+   * @return the exception to throw from {@code executeBatch}
+   */
+  static BatchUpdateException allEntriesFailed(String sql, long[] updateCounts, SQLException e) {
+    Arrays.fill(updateCounts, Statement.EXECUTE_FAILED);
+    BatchUpdateException batchException = new BatchUpdateException(
+        GT.tr("Batch entry {0} {1} was aborted: {2}  Call getNextException to see other errors in the batch.",
+            0, sql, e.getMessage()),
+        e.getSQLState(), 0, updateCounts, e);
+    batchException.setNextException(e);
+    return batchException;
+  }
+
   @Override
   public void handleCompletion() throws SQLException {
     updateGeneratedKeys();
@@ -0,0 +1,343 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.jdbc;
+
+import org.postgresql.core.BaseConnection;
+import org.postgresql.core.BaseStatement;
+import org.postgresql.core.CompositeType;
+import org.postgresql.core.Field;
+import org.postgresql.core.Oid;
+import org.postgresql.core.Tuple;
+import org.postgresql.core.TypeInfo;
+import org.postgresql.util.ByteConverter;
+import org.postgresql.util.GT;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.PSQLState;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Struct;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Decodes values of composite types into {@link Struct}, {@code Object[]} or the class registered
+ * with {@link org.postgresql.PGConnection#addCompositeType(String, Class)}.
+ *
+ * <p>The binary format is a count of attributes followed by the oid, length and value of each
+ * attribute. The text format is the one of {@code record_out}: a parenthesised, comma separated
+ * list where empty attributes are NULL. Either way the attributes are exposed as a single row
+ * result set, so they are converted by the same code as column values.</p>
+ */
+final class CompositeDecoding {
+
+  private CompositeDecoding() {
+  }
+
+  /**
+   * Returns true if the binary format of the type is its text in the connection encoding, so
+   * attributes of the type can be decoded as text.
+   *
+   * @param typeInfo type information of the connection
+   * @param oid oid of the attribute type
+   * @return true if the type is text-like
+   * @throws SQLException if the type lookup fails
+   */
+  static boolean isTextLike(TypeInfo typeInfo, int oid) throws SQLException {
+    switch (oid) {
+      case Oid.TEXT:
+      case Oid.VARCHAR:
+      case Oid.BPCHAR:
+      case Oid.NAME:
+      case Oid.CHAR:
+      case Oid.JSON:
+        return true;
+      default:
+        // enums and domains over text
+        return typeInfo.getSQLType(oid) == Types.VARCHAR;
+    }
+  }
+
+  /**
+   * Returns true if all attributes of the type can be decoded from the binary format.
+   *
+   * @param connection the connection
+   * @param type the composite type
+   * @return true if values of the type can be received in binary
+   * @throws SQLException if the type lookup fails
+   */
+  static boolean supportsBinary(BaseConnection connection, CompositeType type)
+      throws SQLException {
+    TypeInfo typeInfo = connection.getTypeInfo();
+    for (int i = 0; i < type.getAttributeCount(); i++) {
+      int oid = type.getAttributeOid(i);
+      if (!connection.getQueryExecutor().useBinaryForReceive(oid) && !isTextLike(typeInfo, oid)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Decodes a value received in binary format.
+   *
+   * @param connection the connection the value was received on
+   * @param statement statement used to create the result set over the attributes
+   * @param type the composite type, or null for anonymous records
+   * @param bytes the binary value
+   * @param target the class to decode to, or null for the class registered for the type
+   * @return the decoded value
+   * @throws SQLException if the value cannot be decoded
+   */
+  static Object decodeBinary(BaseConnection connection, BaseStatement statement,
+      @Nullable CompositeType type, byte[] bytes, @Nullable Class<?> target) throws SQLException {
+    return toJava(type, readBinary(connection, statement, type, bytes), target);
+  }
+
+  /**
+   * Decodes a value received in text format.
+   *
+   * @param connection the connection the value was received on
+   * @param statement statement used to create the result set over the attributes
+   * @param type the composite type, or null for anonymous records
+   * @param literal the text value
+   * @param target the class to decode to, or null for the class registered for the type
+   * @return the decoded value
+   * @throws SQLException if the value cannot be decoded
+   */
+  static Object decodeText(BaseConnection connection, BaseStatement statement,
+      @Nullable CompositeType type, String literal, @Nullable Class<?> target)
+      throws SQLException {
+    return toJava(type, readText(connection, statement, type, literal), target);
+  }
+
+  /**
+   * Converts a value received in binary format to its text representation.
+   *
+   * @param connection the connection the value was received on
+   * @param statement statement used to create the result set over the attributes
+   * @param type the composite type, or null for anonymous records
+   * @param bytes the binary value
+   * @return the value as formatted by {@code record_out}
+   * @throws SQLException if the value cannot be decoded
+   */
+  static String binaryToText(BaseConnection connection, BaseStatement statement,
+      @Nullable CompositeType type, byte[] bytes) throws SQLException {
+    ResultSet rs = readBinary(connection, statement, type, bytes);
+    int count = rs.getMetaData().getColumnCount();
+    StringBuilder sb = new StringBuilder();
+    sb.append('(');
+    for (int i = 1; i <= count; i++) {
+      if (i > 1) {
+        sb.append(',');
+      }
+      String value = rs.getString(i);
+      if (value != null) {
+        appendQuoted(sb, value);
+      }
+    }
+    return sb.append(')').toString();
+  }
+
+  private static void appendQuoted(StringBuilder sb, String value) {
+    boolean quote = value.isEmpty();
+    for (int i = 0; i < value.length() && !quote; i++) {
+      char c = value.charAt(i);
+      quote = c == '"' || c == '\\' || c == '(' || c == ')' || c == ','
+          || Character.isWhitespace(c);
+    }
+    if (!quote) {
+      sb.append(value);
+      return;
+    }
+    sb.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '"' || c == '\\') {
+        sb.append(c);
+      }
+      sb.append(c);
+    }
+    sb.append('"');
+  }
+
+  private static ResultSet readBinary(BaseConnection connection, BaseStatement statement,
+      @Nullable CompositeType type, byte[] bytes) throws SQLException {
+    TypeInfo typeInfo = connection.getTypeInfo();
+    int count = ByteConverter.int4(bytes, 0);
+    checkAttributeCount(type, count);
+    Field[] fields = new Field[count];
+    byte[][] values = new byte[count][];
+    int pos = 4;
+    for (int i = 0; i < count; i++) {
+      int oid = ByteConverter.int4(bytes, pos);
+      int length = ByteConverter.int4(bytes, pos + 4);
+      pos += 8;
+      fields[i] = new Field(attributeName(type, i), oid);
+      fields[i].setFormat(isTextLike(typeInfo, oid) ? Field.TEXT_FORMAT : Field.BINARY_FORMAT);
+      if (length >= 0) {
+        values[i] = Arrays.copyOfRange(bytes, pos, pos + length);
+        pos += length;
+      }
+    }
+    return toResultSet(statement, fields, values);
+  }
+
+  private static ResultSet readText(BaseConnection connection, BaseStatement statement,
+      @Nullable CompositeType type, String literal) throws SQLException {
+    List<@Nullable String> attributes = parse(literal);
+    if (type != null && type.getAttributeCount() == 0 && attributes.size() == 1
+        && attributes.get(0) == null) {
+      attributes = Collections.emptyList();
+    }
+    int count = attributes.size();
+    checkAttributeCount(type, count);
+    Field[] fields = new Field[count];
+    byte[][] values = new byte[count][];
+    for (int i = 0; i < count; i++) {
+      // attributes of anonymous records have no known type
+      fields[i] = new Field(attributeName(type, i), type == null ? Oid.TEXT : type.getAttributeOid(i));
+      fields[i].setFormat(Field.TEXT_FORMAT);
+      String value = attributes.get(i);
+      if (value != null) {
+        values[i] = connection.encodeString(value);
+      }
+    }
+    return toResultSet(statement, fields, values);
+  }
+
+  private static ResultSet toResultSet(BaseStatement statement, Field[] fields,
+      byte[] @Nullable [] values) throws SQLException {
+    ResultSet rs = statement.createDriverResultSet(fields,
+        Collections.singletonList(new Tuple(values)));
+    rs.next();
+    return rs;
+  }
+
+  private static String attributeName(@Nullable CompositeType type, int index) {
+    return type == null ? "f" + (index + 1) : type.getAttributeName(index);
+  }
+
+  private static void checkAttributeCount(@Nullable CompositeType type, int count)
+      throws SQLException {
+    if (type != null && type.getAttributeCount() != count) {
+      throw new PSQLException(
+          GT.tr("Expected {0} attributes for type {1}, got {2}. Was the type altered?",
+              type.getAttributeCount(), type.getName(), count),
+          PSQLState.DATA_ERROR);
+    }
+  }
+
+  private static Object toJava(@Nullable CompositeType type, ResultSet rs,
+      @Nullable Class<?> target) throws SQLException {
+    if (target == null) {
+      target = type == null ? Struct.class : type.getJavaClass();
+    }
+    int count = rs.getMetaData().getColumnCount();
+    if (target == Struct.class || target == Object[].class) {
+      @Nullable Object[] attributes = new Object[count];
+      for (int i = 0; i < count; i++) {
+        attributes[i] = rs.getObject(i + 1);
+      }
+      if (target == Object[].class) {
+        return attributes;
+      }
+      return new PgStruct(type == null ? "record" : type.getName(), attributes);
+    }
+    Class<?>[] parameterTypes = type == null ? null : type.getParameterTypes();
+    if (type == null || parameterTypes == null || target != type.getJavaClass()) {
+      throw new PSQLException(GT.tr("conversion to {0} from {1} not supported", target,
+          type == null ? "record" : type.getName()), PSQLState.INVALID_PARAMETER_VALUE);
+    }
+    @Nullable Object[] arguments = new Object[count];
+    for (int i = 0; i < count; i++) {
+      Class<?> parameterType = parameterTypes[i];
+      arguments[i] = parameterType == Object.class
+          ? rs.getObject(i + 1)
+          : rs.getObject(i + 1, box(parameterType));
+    }
+    return type.newInstance(arguments);
+  }
+
+  private static Class<?> box(Class<?> type) {
+    if (!type.isPrimitive()) {
+      return type;
+    }
+    if (type == int.class) {
+      return Integer.class;
+    } else if (type == long.class) {
+      return Long.class;
+    } else if (type == boolean.class) {
+      return Boolean.class;
+    } else if (type == double.class) {
+      return Double.class;
+    } else if (type == float.class) {
+      return Float.class;
+    } else if (type == short.class) {
+      return Short.class;
+    } else if (type == byte.class) {
+      return Byte.class;
+    }
+    return Character.class;
+  }
+
+  /**
+   * Splits the text representation of a composite value into its attributes.
+   *
+   * @param literal value as formatted by {@code record_out}
+   * @return the attributes, null for NULL attributes
+   * @throws SQLException if the value is malformed
+   */
+  static List<@Nullable String> parse(String literal) throws SQLException {
+    int end = literal.length() - 1;
+    if (end < 1 || literal.charAt(0) != '(' || literal.charAt(end) != ')') {
+      throw new PSQLException(GT.tr("Malformed composite value: {0}", literal),
+          PSQLState.DATA_ERROR);
+    }
+    List<@Nullable String> attributes = new ArrayList<@Nullable String>();
+    StringBuilder sb = new StringBuilder();
+    int i = 1;
+    while (true) {
+      sb.setLength(0);
+      boolean quoted = false;
+      boolean inQuotes = false;
+      while (i < end) {
+        char c = literal.charAt(i);
+        if (c == '"') {
+          if (inQuotes && i + 1 < end && literal.charAt(i + 1) == '"') {
+            sb.append('"');
+            i += 2;
+            continue;
+          }
+          inQuotes = !inQuotes;
+          quoted = true;
+        } else if (c == '\\' && i + 1 < end) {
+          sb.append(literal.charAt(++i));
+        } else if (c == ',' && !inQuotes) {
+          break;
+        } else {
+          sb.append(c);
+        }
+        i++;
+      }
+      if (inQuotes) {
+        throw new PSQLException(GT.tr("Malformed composite value: {0}", literal),
+            PSQLState.DATA_ERROR);
+      }
+      attributes.add(quoted || sb.length() > 0 ? sb.toString() : null);
+      if (i >= end) {
+        return attributes;
+      }
+      // skip the comma
+      i++;
+    }
+  }
+}
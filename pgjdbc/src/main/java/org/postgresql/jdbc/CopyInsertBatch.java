@@ -0,0 +1,422 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.jdbc;
+
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.postgresql.core.BaseConnection;
+import org.postgresql.core.NativeQuery;
+import org.postgresql.core.ParameterList;
+import org.postgresql.core.Parser;
+import org.postgresql.core.Query;
+import org.postgresql.core.QueryExecutor;
+import org.postgresql.core.ResultHandlerBase;
+import org.postgresql.core.ServerVersion;
+import org.postgresql.core.SqlCommand;
+import org.postgresql.core.SqlCommandType;
+import org.postgresql.util.GT;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.PSQLState;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.io.IOException;
+import java.sql.BatchUpdateException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Executes a batch of a single-row {@code INSERT INTO t(c1, c2) VALUES ($1, $2)} as
+ * {@code COPY t(c1, c2) FROM STDIN (FORMAT binary)}, see
+ * {@link org.postgresql.PGProperty#BATCH_INSERT_MODE}.
+ *
+ * <p>Binary COPY does not apply assignment casts, so the types of the target columns are looked up
+ * once, by describing the INSERT with parameters of unspecified type, and each batch entry must
+ * have a binary form in those types (see {@link ParameterList#isCopyBinaryCompatible(int[])}).
+ * Otherwise the batch is executed as usual.</p>
+ *
+ * <p>COPY ignores rules and does not support views, foreign tables or row-level security, so the
+ * target is checked in the catalog at the same time, and the batch is executed as usual unless it
+ * is a plain or partitioned table without INSERT rules.</p>
+ */
+final class CopyInsertBatch {
+  /**
+   * Signature, flags and header extension length of the binary COPY format.
+   */
+  private static final byte[] HEADER = {
+      'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xff, '\r', '\n', 0,
+      0, 0, 0, 0,
+      0, 0, 0, 0,
+  };
+
+  /**
+   * Field count of -1 that ends the data.
+   */
+  private static final byte[] TRAILER = {(byte) 0xff, (byte) 0xff};
+
+  private final String insertSql;
+  private final int[] bindPositions;
+  private final String target;
+  private final String copySql;
+  private int @Nullable [] columnTypes;
+  private boolean copyTarget;
+
+  private CopyInsertBatch(String insertSql, int[] bindPositions, String target, String copySql) {
+    this.insertSql = insertSql;
+    this.bindPositions = bindPositions;
+    this.target = target;
+    this.copySql = copySql;
+  }
+
+  String getCopySql() {
+    return copySql;
+  }
+
+  /**
+   * Returns the COPY equivalent of a query if it is a single INSERT of one row whose values are
+   * the parameters, in order, and nothing else: no RETURNING, ON CONFLICT, OVERRIDING, DEFAULT or
+   * expressions.
+   *
+   * @param query the query of the prepared statement
+   * @return the COPY equivalent, or {@code null} if the query has another shape
+   */
+  static @Nullable CopyInsertBatch of(Query query) {
+    SqlCommand command = query.getSqlCommand();
+    if (query.getSubqueries() != null || command == null
+        || command.getType() != SqlCommandType.INSERT || command.isReturningKeywordPresent()) {
+      return null;
+    }
+    return parse(query.getNativeSql());
+  }
+
+  /**
+   * Parses {@code INSERT INTO name (column, ...) VALUES ($1, ...)}.
+   *
+   * @param nativeSql the INSERT with numbered parameters
+   * @return the COPY equivalent, or {@code null} if the statement has another shape
+   */
+  static @Nullable CopyInsertBatch parse(String nativeSql) {
+    Scanner s = new Scanner(nativeSql);
+    if (!s.keyword("insert") || !s.keyword("into") || !s.name()) {
+      return null;
+    }
+    int targetStart = s.tokenStart;
+    while (s.symbol('.')) {
+      if (!s.name()) {
+        return null;
+      }
+    }
+    int targetEnd = s.tokenEnd;
+    // COPY without a column list expects a value for every column of the table
+    if (!s.symbol('(')) {
+      return null;
+    }
+    int columnsStart = s.tokenStart;
+    int columnCount = 0;
+    do {
+      if (!s.name()) {
+        return null;
+      }
+      columnCount++;
+    } while (s.symbol(','));
+    if (!s.symbol(')')) {
+      return null;
+    }
+    int columnsEnd = s.tokenEnd;
+    if (!s.keyword("values") || !s.symbol('(')) {
+      return null;
+    }
+    List<Integer> bindPositions = new ArrayList<Integer>();
+    do {
+      if (!s.bind(bindPositions.size() + 1)) {
+        return null;
+      }
+      bindPositions.add(s.tokenStart);
+    } while (s.symbol(','));
+    if (!s.symbol(')')) {
+      return null;
+    }
+    while (s.symbol(';')) {
+      // trailing semicolons are allowed
+    }
+    if (!s.atEnd() || columnCount != bindPositions.size()) {
+      return null;
+    }
+
+    StringBuilder copySql = new StringBuilder("COPY ");
+    copySql.append(nativeSql, targetStart, targetEnd).append(' ');
+    copySql.append(nativeSql, columnsStart, columnsEnd);
+    copySql.append(" FROM STDIN (FORMAT binary)");
+    int[] positions = new int[bindPositions.size()];
+    for (int i = 0; i < positions.length; i++) {
+      positions[i] = bindPositions.get(i);
+    }
+    return new CopyInsertBatch(nativeSql, positions,
+        nativeSql.substring(targetStart, targetEnd), copySql.toString());
+  }
+
+  /**
+   * Returns the types of the target columns. The INSERT is described with parameters of
+   * unspecified type on first use, so the server resolves each one to its column's type, and
+   * whether COPY can insert into the target is looked up along with it.
+   */
+  private int[] getColumnTypes(BaseConnection connection) throws SQLException {
+    int[] columnTypes = this.columnTypes;
+    if (columnTypes == null) {
+      QueryExecutor executor = connection.getQueryExecutor();
+      Query query = executor.wrap(Collections.singletonList(
+          new NativeQuery(insertSql, bindPositions, false,
+              SqlCommand.createStatementTypeInfo(SqlCommandType.INSERT))));
+      ParameterList params = query.createParameterList();
+      executor.execute(query, params, new ResultHandlerBase(), 0, 0,
+          QueryExecutor.QUERY_ONESHOT | QueryExecutor.QUERY_DESCRIBE_ONLY
+              | QueryExecutor.QUERY_SUPPRESS_BEGIN);
+      columnTypes = params.getTypeOIDs();
+      copyTarget = isCopyTarget(connection, target);
+      this.columnTypes = columnTypes;
+    }
+    return columnTypes;
+  }
+
+  /**
+   * Checks that the target is a table COPY inserts into the same way as INSERT: not a view, which
+   * may have INSTEAD OF triggers, nor a foreign table, and without INSERT rules or row-level
+   * security.
+   */
+  private static boolean isCopyTarget(BaseConnection connection, String target)
+      throws SQLException {
+    String sql = "SELECT c.relkind IN ('r', 'p')"
+        + (connection.haveMinimumServerVersion(ServerVersion.v9_5)
+            ? " AND NOT c.relrowsecurity" : "")
+        + " AND NOT EXISTS (SELECT 1 FROM pg_catalog.pg_rewrite r"
+        + " WHERE r.ev_class = c.oid AND r.ev_type = '3')"
+        + " FROM pg_catalog.pg_class c WHERE c.oid = ?::pg_catalog.regclass";
+    PreparedStatement ps = connection.prepareStatement(sql);
+    try {
+      ps.setString(1, target);
+      ResultSet rs = ps.executeQuery();
+      return rs.next() && rs.getBoolean(1);
+    } finally {
+      ps.close();
+    }
+  }
+
+  /**
+   * Forgets the column types and target check, for instance because the table was altered.
+   */
+  private void invalidate() {
+    columnTypes = null;
+  }
+
+  /**
+   * Checks whether every batch entry can be sent as a row of the binary COPY.
+   *
+   * @param connection the connection of the statement
+   * @param rows the batch entries
+   * @return true if the batch can be executed with {@link #execute(BaseConnection, List)}
+   * @throws BatchUpdateException if the target columns cannot be described
+   */
+  boolean accepts(BaseConnection connection, List<@Nullable ParameterList> rows)
+      throws SQLException {
+    int[] columnTypes;
+    try {
+      columnTypes = getColumnTypes(connection);
+    } catch (SQLException e) {
+      throw batchFailed(null, insertSql, new long[rows.size()], e);
+    }
+    if (!copyTarget) {
+      return false;
+    }
+    for (ParameterList row : rows) {
+      if (row == null || !row.isCopyBinaryCompatible(columnTypes)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Sends the batch entries through COPY. The rows are inserted all or none, so on failure every
+   * update count is {@link Statement#EXECUTE_FAILED}. If the server rejects the COPY before any
+   * row is sent, the batch can still be executed as usual, unless that failure aborted the
+   * transaction of the connection.
+   *
+   * @param connection the connection of the statement
+   * @param rows the batch entries, accepted by {@link #accepts(BaseConnection, List)}
+   * @return one update count per batch entry, or {@code null} if the COPY was rejected and the
+   *     batch should be executed as usual
+   * @throws BatchUpdateException if the COPY fails
+   */
+  long @Nullable [] execute(BaseConnection connection, List<@Nullable ParameterList> rows)
+      throws SQLException {
+    int[] columnTypes = getColumnTypes(connection);
+    long[] updateCounts = new long[rows.size()];
+    CopyIn copyIn = null;
+    try {
+      try {
+        copyIn = connection.getCopyAPI().copyIn(copySql);
+      } catch (SQLException e) {
+        invalidate();
+        if (connection.getAutoCommit()) {
+          return null;
+        }
+        throw e;
+      }
+      PGCopyOutputStream out = new PGCopyOutputStream(copyIn);
+      out.write(HEADER);
+      for (ParameterList row : rows) {
+        if (row != null) {
+          row.writeCopyBinaryRow(columnTypes, out);
+        }
+      }
+      out.write(TRAILER);
+      long inserted = out.endCopy();
+      // Rows skipped by a BEFORE trigger are not counted, and we cannot tell which ones they were
+      Arrays.fill(updateCounts, inserted == rows.size() ? 1 : Statement.SUCCESS_NO_INFO);
+      return updateCounts;
+    } catch (SQLException e) {
+      invalidate();
+      throw batchFailed(copyIn, copySql, updateCounts, e);
+    } catch (IOException e) {
+      invalidate();
+      Throwable cause = e.getCause();
+      throw batchFailed(copyIn, copySql, updateCounts, cause instanceof SQLException
+          ? (SQLException) cause
+          : new PSQLException(GT.tr("An I/O error occurred while sending to the backend."),
+              PSQLState.CONNECTION_FAILURE, e));
+    }
+  }
+
+  private static BatchUpdateException batchFailed(@Nullable CopyIn copyIn, String sql,
+      long[] updateCounts, SQLException e) {
+    if (copyIn != null && copyIn.isActive()) {
+      try {
+        copyIn.cancelCopy();
+      } catch (SQLException cancelFailure) {
+        e.setNextException(cancelFailure);
+      }
+    }
+    return BatchResultHandler.allEntriesFailed(sql, updateCounts, e);
+  }
+
+  /**
+   * Splits the native SQL into the few tokens an INSERT of this shape consists of, skipping
+   * whitespace and comments.
+   */
+  private static final class Scanner {
+    private final char[] sql;
+    private int pos;
+    int tokenStart;
+    int tokenEnd;
+
+    Scanner(String sql) {
+      this.sql = sql.toCharArray();
+    }
+
+    private void skipSpace() {
+      while (pos < sql.length) {
+        char c = sql[pos];
+        int end = pos;
+        if (c == '-') {
+          end = Parser.parseLineComment(sql, pos);
+        } else if (c == '/') {
+          end = Parser.parseBlockComment(sql, pos);
+        } else if (!Character.isWhitespace(c)) {
+          return;
+        }
+        if (end == pos && !Character.isWhitespace(c)) {
+          return;
+        }
+        pos = Math.min(end + 1, sql.length);
+      }
+    }
+
+    boolean atEnd() {
+      skipSpace();
+      return pos == sql.length;
+    }
+
+    private int identifierEnd() {
+      skipSpace();
+      if (pos == sql.length || !Parser.isIdentifierStartChar(sql[pos])) {
+        return -1;
+      }
+      int end = pos + 1;
+      while (end < sql.length && Parser.isIdentifierContChar(sql[end])) {
+        end++;
+      }
+      return end;
+    }
+
+    private void advance(int end) {
+      tokenStart = pos;
+      tokenEnd = end;
+      pos = end;
+    }
+
+    boolean keyword(String keyword) {
+      int end = identifierEnd();
+      if (end - pos != keyword.length()
+          || !new String(sql, pos, end - pos).equalsIgnoreCase(keyword)) {
+        return false;
+      }
+      advance(end);
+      return true;
+    }
+
+    /**
+     * Consumes a plain or quoted identifier.
+     */
+    boolean name() {
+      int end = identifierEnd();
+      if (end == -1) {
+        if (pos == sql.length || sql[pos] != '"') {
+          return false;
+        }
+        end = Parser.parseDoubleQuotes(sql, pos);
+        while (end + 1 < sql.length && sql[end + 1] == '"') {
+          end = Parser.parseDoubleQuotes(sql, end + 1);
+        }
+        if (end >= sql.length) {
+          return false;
+        }
+        end++;
+      }
+      advance(end);
+      return true;
+    }
+
+    boolean symbol(char symbol) {
+      skipSpace();
+      if (pos == sql.length || sql[pos] != symbol) {
+        return false;
+      }
+      advance(pos + 1);
+      return true;
+    }
+
+    /**
+     * Consumes the numbered parameter {@code $index}.
+     */
+    boolean bind(int index) {
+      skipSpace();
+      String name = NativeQuery.bindName(index);
+      int end = pos + name.length();
+      if (end > sql.length || !new String(sql, pos, name.length()).equals(name)
+          || end < sql.length && Character.isDigit(sql[end])) {
+        return false;
+      }
+      advance(end);
+      return true;
+    }
+  }
+}
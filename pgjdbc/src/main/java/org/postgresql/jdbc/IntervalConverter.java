@@ -0,0 +1,344 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.jdbc;
+
+import org.postgresql.util.ByteConverter;
+import org.postgresql.util.GT;
+import org.postgresql.util.PGInterval;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.PSQLState;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.time.Duration;
+import java.time.Period;
+
+/**
+ * Converts {@code interval} values between the binary format (int64 microseconds, int32 days,
+ * int32 months), {@link PGInterval}, {@link Duration} and {@link Period}.
+ */
+final class IntervalConverter {
+
+  private static final long MICROS_IN_SECOND = 1000000L;
+  private static final long MICROS_IN_MINUTE = 60L * MICROS_IN_SECOND;
+  private static final long MICROS_IN_HOUR = 60L * MICROS_IN_MINUTE;
+
+  private IntervalConverter() {
+  }
+
+  /**
+   * Formats a binary interval the way the server does with {@code IntervalStyle = postgres}, for
+   * example {@code 1 year 2 mons -3 days +04:05:06.5}.
+   *
+   * @param bytes binary interval
+   * @return the interval as text
+   */
+  static String toText(byte[] bytes) {
+    return toText(bytes, null);
+  }
+
+  /**
+   * Formats a binary interval the way the server does with the given {@code IntervalStyle}, so
+   * that a binary value reads the same as a text one. Styles the driver does not know are
+   * formatted as {@code postgres}.
+   *
+   * @param bytes binary interval
+   * @param intervalStyle the {@code IntervalStyle} of the session, or {@code null} if unknown
+   * @return the interval as text
+   */
+  static String toText(byte[] bytes, @Nullable String intervalStyle) {
+    long micros = ByteConverter.int8(bytes, 0);
+    int days = ByteConverter.int4(bytes, 8);
+    int months = ByteConverter.int4(bytes, 12);
+    // the server splits each part with the sign of its whole
+    int years = months / 12;
+    int mons = months % 12;
+    long hours = micros / MICROS_IN_HOUR;
+    int mins = (int) (micros % MICROS_IN_HOUR / MICROS_IN_MINUTE);
+    int secs = (int) (micros % MICROS_IN_MINUTE / MICROS_IN_SECOND);
+    int fraction = (int) (micros % MICROS_IN_SECOND);
+
+    StringBuilder sb = new StringBuilder(32);
+    if ("iso_8601".equals(intervalStyle)) {
+      if (months == 0 && days == 0 && micros == 0) {
+        return "PT0S";
+      }
+      sb.append('P');
+      appendIsoPart(sb, years, 'Y');
+      appendIsoPart(sb, mons, 'M');
+      appendIsoPart(sb, days, 'D');
+      if (micros != 0) {
+        sb.append('T');
+      }
+      appendIsoPart(sb, hours, 'H');
+      appendIsoPart(sb, mins, 'M');
+      if (secs != 0 || fraction != 0) {
+        if (micros < 0) {
+          sb.append('-');
+        }
+        appendSeconds(sb, secs, fraction, false);
+        sb.append('S');
+      }
+    } else if ("sql_standard".equals(intervalStyle)) {
+      boolean negative = months < 0 || days < 0 || micros < 0;
+      boolean positive = months > 0 || days > 0 || micros > 0;
+      if (!negative && !positive) {
+        return "0";
+      }
+      if (negative && positive || months != 0 && (days != 0 || micros != 0)) {
+        // not an SQL standard interval, so every part gets its sign
+        sb.append(months < 0 ? '-' : '+').append(Math.abs(years)).append('-')
+            .append(Math.abs(mons)).append(' ')
+            .append(days < 0 ? '-' : '+').append(Math.abs((long) days)).append(' ')
+            .append(micros < 0 ? '-' : '+');
+      } else {
+        if (negative) {
+          sb.append('-');
+        }
+        if (months != 0) {
+          return sb.append(Math.abs(years)).append('-').append(Math.abs(mons)).toString();
+        }
+        if (days != 0) {
+          sb.append(Math.abs((long) days)).append(' ');
+        }
+      }
+      sb.append(Math.abs(hours)).append(':');
+      appendTwoDigits(sb, Math.abs(mins));
+      sb.append(':');
+      appendSeconds(sb, secs, fraction, true);
+    } else if ("postgres_verbose".equals(intervalStyle)) {
+      sb.append('@');
+      long[] values = {years, mons, days, hours, mins};
+      String[] units = {"year", "mon", "day", "hour", "min"};
+      boolean zero = true;
+      boolean ago = false;
+      for (int i = 0; i < values.length; i++) {
+        long value = values[i];
+        if (value == 0) {
+          continue;
+        }
+        // the first part decides whether the interval is "ago", the others are relative to it
+        if (zero) {
+          ago = value < 0;
+          value = Math.abs(value);
+        } else if (ago) {
+          value = -value;
+        }
+        sb.append(' ').append(value).append(' ').append(units[i]);
+        if (value != 1) {
+          sb.append('s');
+        }
+        zero = false;
+      }
+      if (secs != 0 || fraction != 0) {
+        sb.append(' ');
+        if (micros < 0) {
+          if (zero) {
+            ago = true;
+          } else if (!ago) {
+            sb.append('-');
+          }
+        } else if (ago) {
+          sb.append('-');
+        }
+        appendSeconds(sb, secs, fraction, false);
+        sb.append(" sec");
+        if (Math.abs(secs) != 1 || fraction != 0) {
+          sb.append('s');
+        }
+        zero = false;
+      }
+      if (zero) {
+        sb.append(" 0");
+      }
+      if (ago) {
+        sb.append(" ago");
+      }
+    } else {
+      int before = appendPart(sb, years, "year", 0);
+      before = appendPart(sb, mons, "mon", before);
+      before = appendPart(sb, days, "day", before);
+      if (sb.length() == 0 || micros != 0) {
+        if (sb.length() > 0) {
+          sb.append(' ');
+        }
+        if (micros < 0) {
+          sb.append('-');
+        } else if (before < 0) {
+          sb.append('+');
+        }
+        long abs = Math.abs(hours);
+        if (abs < 10) {
+          sb.append('0');
+        }
+        sb.append(abs).append(':');
+        appendTwoDigits(sb, Math.abs(mins));
+        sb.append(':');
+        appendSeconds(sb, secs, fraction, true);
+      }
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Appends a date part of the interval, returning the sign of the last part written.
+   */
+  private static int appendPart(StringBuilder sb, int value, String unit, int before) {
+    if (value == 0) {
+      return before;
+    }
+    if (sb.length() > 0) {
+      sb.append(' ');
+    }
+    if (before < 0 && value > 0) {
+      sb.append('+');
+    }
+    sb.append(value).append(' ').append(unit);
+    if (value != 1) {
+      sb.append('s');
+    }
+    return value;
+  }
+
+  private static void appendIsoPart(StringBuilder sb, long value, char unit) {
+    if (value != 0) {
+      sb.append(value).append(unit);
+    }
+  }
+
+  /**
+   * Appends the absolute seconds, and their fraction without trailing zeros.
+   */
+  private static void appendSeconds(StringBuilder sb, int secs, int fraction, boolean twoDigits) {
+    if (twoDigits) {
+      appendTwoDigits(sb, Math.abs(secs));
+    } else {
+      sb.append(Math.abs(secs));
+    }
+    fraction = Math.abs(fraction);
+    if (fraction != 0) {
+      sb.append('.');
+      int digits = 6;
+      while (fraction % 10 == 0) {
+        fraction /= 10;
+        digits--;
+      }
+      String value = Integer.toString(fraction);
+      for (int i = value.length(); i < digits; i++) {
+        sb.append('0');
+      }
+      sb.append(value);
+    }
+  }
+
+  private static void appendTwoDigits(StringBuilder sb, int value) {
+    if (value < 10) {
+      sb.append('0');
+    }
+    sb.append(value);
+  }
+
+  /**
+   * Converts a binary interval to a {@link Duration}, counting days as 24 hours.
+   *
+   * @param bytes binary interval
+   * @return the duration
+   * @throws PSQLException if the interval has months or years
+   */
+  static Duration toDuration(byte[] bytes) throws PSQLException {
+    long micros = ByteConverter.int8(bytes, 0);
+    int days = ByteConverter.int4(bytes, 8);
+    int months = ByteConverter.int4(bytes, 12);
+    if (months != 0) {
+      throw cannotConvert(toText(bytes), Duration.class);
+    }
+    return Duration.ofDays(days).plusSeconds(micros / MICROS_IN_SECOND)
+        .plusNanos(micros % MICROS_IN_SECOND * 1000L);
+  }
+
+  /**
+   * Converts an interval to a {@link Duration}, counting days as 24 hours.
+   *
+   * @param interval the interval
+   * @return the duration
+   * @throws PSQLException if the interval has months or years
+   */
+  static Duration toDuration(PGInterval interval) throws PSQLException {
+    if (interval.getYears() != 0 || interval.getMonths() != 0) {
+      throw cannotConvert(interval.getValue(), Duration.class);
+    }
+    long micros = (((interval.getDays() * 24L + interval.getHours()) * 60L
+        + interval.getMinutes()) * 60L + interval.getWholeSeconds()) * MICROS_IN_SECOND
+        + interval.getMicroSeconds();
+    return Duration.ofSeconds(micros / MICROS_IN_SECOND, micros % MICROS_IN_SECOND * 1000L);
+  }
+
+  /**
+   * Converts a binary interval to a {@link Period}.
+   *
+   * @param bytes binary interval
+   * @return the period
+   * @throws PSQLException if the interval has a time part
+   */
+  static Period toPeriod(byte[] bytes) throws PSQLException {
+    long micros = ByteConverter.int8(bytes, 0);
+    int days = ByteConverter.int4(bytes, 8);
+    int months = ByteConverter.int4(bytes, 12);
+    if (micros != 0) {
+      throw cannotConvert(toText(bytes), Period.class);
+    }
+    return Period.of(months / 12, months % 12, days);
+  }
+
+  /**
+   * Converts an interval to a {@link Period}.
+   *
+   * @param interval the interval
+   * @return the period
+   * @throws PSQLException if the interval has a time part
+   */
+  static Period toPeriod(PGInterval interval) throws PSQLException {
+    if (interval.getHours() != 0 || interval.getMinutes() != 0
+        || interval.getWholeSeconds() != 0 || interval.getMicroSeconds() != 0) {
+      throw cannotConvert(interval.getValue(), Period.class);
+    }
+    return Period.of(interval.getYears(), interval.getMonths(), interval.getDays());
+  }
+
+  /**
+   * Encodes a duration as a binary interval with only the time part set, truncating to
+   * microseconds.
+   *
+   * @param duration the duration
+   * @return binary interval
+   */
+  static byte[] toBinary(Duration duration) {
+    byte[] bytes = new byte[16];
+    long micros = Math.addExact(Math.multiplyExact(duration.getSeconds(), MICROS_IN_SECOND),
+        duration.getNano() / 1000);
+    ByteConverter.int8(bytes, 0, micros);
+    return bytes;
+  }
+
+  /**
+   * Encodes a period as a binary interval.
+   *
+   * @param period the period
+   * @return binary interval
+   */
+  static byte[] toBinary(Period period) {
+    byte[] bytes = new byte[16];
+    ByteConverter.int4(bytes, 8, period.getDays());
+    ByteConverter.int4(bytes, 12, Math.toIntExact(period.toTotalMonths()));
+    return bytes;
+  }
+
+  private static PSQLException cannotConvert(String value, Class<?> type) {
+    return new PSQLException(
+        GT.tr("Cannot convert the interval {0} to {1}", value, type.getName()),
+        PSQLState.DATA_TYPE_MISMATCH);
+  }
+}
@@ -14,6 +14,8 @@ import org.postgresql.copy.CopyManager;
 import org.postgresql.core.BaseConnection;
 import org.postgresql.core.BaseStatement;
 import org.postgresql.core.CachedQuery;
+import org.postgresql.core.CodecRegistry;
+import org.postgresql.core.CompositeType;
 import org.postgresql.core.ConnectionFactory;
 import org.postgresql.core.Encoding;
 import org.postgresql.core.Oid;
@@ -35,6 +37,8 @@ import org.postgresql.util.GT;
 import org.postgresql.util.HostSpec;
 import org.postgresql.util.LruCache;
 import org.postgresql.util.PGBinaryObject;
+import org.postgresql.util.PGMultirange;
+import org.postgresql.util.PGRange;
 import org.postgresql.util.PGobject;
 import org.postgresql.util.PSQLException;
 import org.postgresql.util.PSQLState;
@@ -121,6 +125,9 @@ public class PgConnection implements BaseConnection {
 
   private final TypeInfo typeCache;
 
+  // Codecs found through ServiceLoader, resolved against the types of this database
+  private final CodecRegistry codecRegistry;
+
   private boolean disableColumnSanitiser = false;
 
   // Default statement prepare threshold.
@@ -161,6 +168,8 @@ public class PgConnection implements BaseConnection {
    */
   private final boolean replicationConnection;
 
+  private final boolean binaryTransfer;
+
   private final LruCache<FieldMetadata.Key, FieldMetadata> fieldMetadataCache;
 
   private final @Nullable String xmlFactoryFactoryClass;
@@ -237,6 +246,7 @@ public class PgConnection implements BaseConnection {
 
     this.hideUnprivilegedObjects = PGProperty.HIDE_UNPRIVILEGED_OBJECTS.getBoolean(info);
 
+    binaryTransfer = PGProperty.BINARY_TRANSFER.getBoolean(info);
     Set<Integer> binaryOids = getBinaryOids(info);
 
     // split for receive and send for better control
@@ -250,6 +260,21 @@ public class PgConnection implements BaseConnection {
      */
     useBinarySendForOids.remove(Oid.DATE);
 
+    // binary intervals are only decoded in the int64 microseconds format
+    if (!queryExecutor.getIntegerDateTimes()) {
+      useBinarySendForOids.remove(Oid.INTERVAL);
+      useBinaryReceiveForOids.remove(Oid.INTERVAL);
+    }
+
+    /*
+     * line_recv does not reject A = B = 0 the way line_in does, so lines are sent as text. Servers
+     * before 9.4 cannot send lines in binary either.
+     */
+    useBinarySendForOids.remove(Oid.LINE);
+    if (!haveMinimumServerVersion(ServerVersion.v9_4)) {
+      useBinaryReceiveForOids.remove(Oid.LINE);
+    }
+
     queryExecutor.setBinaryReceiveOids(useBinaryReceiveForOids);
     queryExecutor.setBinarySendOids(useBinarySendForOids);
 
@@ -293,6 +318,7 @@ public class PgConnection implements BaseConnection {
     // Initialize object handling
     typeCache = createTypeInfo(this, unknownLength);
     initObjectTypes(info);
+    codecRegistry = initCodecs(info, useBinarySendForOids, useBinaryReceiveForOids);
 
     if (PGProperty.LOG_UNCLOSED_CONNECTIONS.getBoolean(info)) {
       openStackTrace = new Throwable("Connection was created at this point:");
@@ -303,6 +329,34 @@ public class PgConnection implements BaseConnection {
       typeCache.addCoreType("uuid", Oid.UUID, Types.OTHER, "java.util.UUID", Oid.UUID_ARRAY);
       typeCache.addCoreType("xml", Oid.XML, Types.SQLXML, "java.sql.SQLXML", Oid.XML_ARRAY);
     }
+    if (haveMinimumServerVersion(ServerVersion.v9_2)) {
+      typeCache.addCoreType("int4range", Oid.INT4RANGE, Types.OTHER, PGRange.class.getName(),
+          Oid.INT4RANGE_ARRAY);
+      typeCache.addCoreType("int8range", Oid.INT8RANGE, Types.OTHER, PGRange.class.getName(),
+          Oid.INT8RANGE_ARRAY);
+      typeCache.addCoreType("numrange", Oid.NUMRANGE, Types.OTHER, PGRange.class.getName(),
+          Oid.NUMRANGE_ARRAY);
+      typeCache.addCoreType("daterange", Oid.DATERANGE, Types.OTHER, PGRange.class.getName(),
+          Oid.DATERANGE_ARRAY);
+      typeCache.addCoreType("tsrange", Oid.TSRANGE, Types.OTHER, PGRange.class.getName(),
+          Oid.TSRANGE_ARRAY);
+      typeCache.addCoreType("tstzrange", Oid.TSTZRANGE, Types.OTHER, PGRange.class.getName(),
+          Oid.TSTZRANGE_ARRAY);
+    }
+    if (haveMinimumServerVersion(ServerVersion.v14)) {
+      typeCache.addCoreType("int4multirange", Oid.INT4MULTIRANGE, Types.OTHER,
+          PGMultirange.class.getName(), Oid.INT4MULTIRANGE_ARRAY);
+      typeCache.addCoreType("int8multirange", Oid.INT8MULTIRANGE, Types.OTHER,
+          PGMultirange.class.getName(), Oid.INT8MULTIRANGE_ARRAY);
+      typeCache.addCoreType("nummultirange", Oid.NUMMULTIRANGE, Types.OTHER,
+          PGMultirange.class.getName(), Oid.NUMMULTIRANGE_ARRAY);
+      typeCache.addCoreType("datemultirange", Oid.DATEMULTIRANGE, Types.OTHER,
+          PGMultirange.class.getName(), Oid.DATEMULTIRANGE_ARRAY);
+      typeCache.addCoreType("tsmultirange", Oid.TSMULTIRANGE, Types.OTHER,
+          PGMultirange.class.getName(), Oid.TSMULTIRANGE_ARRAY);
+      typeCache.addCoreType("tstzmultirange", Oid.TSTZMULTIRANGE, Types.OTHER,
+          PGMultirange.class.getName(), Oid.TSTZMULTIRANGE_ARRAY);
+    }
 
     this.clientInfo = new Properties();
     if (haveMinimumServerVersion(ServerVersion.v9_0)) {
@@ -349,6 +403,7 @@ public class PgConnection implements BaseConnection {
         Oid.TIMETZ,
         Oid.TIMESTAMP,
         Oid.TIMESTAMPTZ,
+        Oid.INTERVAL,
         Oid.BYTEA_ARRAY,
         Oid.INT2_ARRAY,
         Oid.INT4_ARRAY,
@@ -358,8 +413,33 @@ public class PgConnection implements BaseConnection {
         Oid.FLOAT8_ARRAY,
         Oid.VARCHAR_ARRAY,
         Oid.TEXT_ARRAY,
+        Oid.XML,
         Oid.POINT,
         Oid.BOX,
+        Oid.INT4RANGE,
+        Oid.INT4RANGE_ARRAY,
+        Oid.INT8RANGE,
+        Oid.INT8RANGE_ARRAY,
+        Oid.NUMRANGE,
+        Oid.NUMRANGE_ARRAY,
+        Oid.DATERANGE,
+        Oid.DATERANGE_ARRAY,
+        Oid.TSRANGE,
+        Oid.TSRANGE_ARRAY,
+        Oid.TSTZRANGE,
+        Oid.TSTZRANGE_ARRAY,
+        Oid.INT4MULTIRANGE,
+        Oid.INT4MULTIRANGE_ARRAY,
+        Oid.INT8MULTIRANGE,
+        Oid.INT8MULTIRANGE_ARRAY,
+        Oid.NUMMULTIRANGE,
+        Oid.NUMMULTIRANGE_ARRAY,
+        Oid.DATEMULTIRANGE,
+        Oid.DATEMULTIRANGE_ARRAY,
+        Oid.TSMULTIRANGE,
+        Oid.TSMULTIRANGE_ARRAY,
+        Oid.TSTZMULTIRANGE,
+        Oid.TSTZMULTIRANGE_ARRAY,
         Oid.UUID));
   }
 
@@ -676,6 +756,11 @@ public class PgConnection implements BaseConnection {
     return typeCache;
   }
 
+  @Override
+  public CodecRegistry getCodecRegistry() {
+    return codecRegistry;
+  }
+
   @Override
   public void addDataType(String type, String name) {
     try {
@@ -691,6 +776,19 @@ public class PgConnection implements BaseConnection {
     typeCache.addDataType(type, klass);
   }
 
+  @Override
+  public void addCompositeType(String type, Class<?> klass) throws SQLException {
+    checkClosed();
+    CompositeType compositeType = typeCache.addCompositeType(type, klass);
+    if (binaryTransfer && CompositeDecoding.supportsBinary(this, compositeType)) {
+      queryExecutor.addBinaryReceiveOid(compositeType.getOid());
+      int arrayOid = typeCache.getPGArrayType(compositeType.getName());
+      if (arrayOid != Oid.UNSPECIFIED) {
+        queryExecutor.addBinaryReceiveOid(arrayOid);
+      }
+    }
+  }
+
   // This initialises the objectTypes hash map
   private void initObjectTypes(Properties info) throws SQLException {
     // Add in the types that come packaged with the driver.
@@ -727,6 +825,36 @@ public class PgConnection implements BaseConnection {
     }
   }
 
+  /**
+   * Resolves the codecs registered through {@link java.util.ServiceLoader} and enables binary
+   * transfer for their types.
+   */
+  private CodecRegistry initCodecs(Properties info, Set<Integer> useBinarySendForOids,
+      Set<Integer> useBinaryReceiveForOids) throws SQLException {
+    if (PGProperty.REPLICATION.get(info) != null) {
+      // replication connections can't run the type lookup queries
+      return CodecRegistry.empty();
+    }
+    CodecRegistry codecs = CodecRegistry.create(typeCache);
+    if (codecs.isEmpty() || !PGProperty.BINARY_TRANSFER.getBoolean(info)) {
+      return codecs;
+    }
+    Set<Integer> binaryOids = codecs.getBinaryOids();
+    String disabled = PGProperty.BINARY_TRANSFER_DISABLE.get(info);
+    if (disabled != null) {
+      binaryOids.removeAll(getOidSet(disabled));
+    }
+    if (!binaryOids.isEmpty()) {
+      useBinarySendForOids.addAll(binaryOids);
+      useBinaryReceiveForOids.addAll(binaryOids);
+      queryExecutor.setBinaryReceiveOids(useBinaryReceiveForOids);
+      queryExecutor.setBinarySendOids(useBinarySendForOids);
+      LOGGER.log(Level.FINEST, "    types using binary transfer through codecs = {0}",
+          oidsToString(binaryOids));
+    }
+    return codecs;
+  }
+
   /**
    * <B>Note:</B> even though {@code Statement} is automatically closed when it is garbage
    * collected, it is better to close it explicitly to lower resource consumption.
@@ -1394,6 +1522,21 @@ public class PgConnection implements BaseConnection {
     return makeArray(oid, arrayString);
   }
 
+  @Override
+  public byte[] encodeArrayBinary(Object elements, int arrayOid) throws SQLException {
+    final ArrayEncoding.ArrayEncoder<Object> arraySupport = ArrayEncoding.getArrayEncoder(elements);
+    if (arrayOid == Oid.UNSPECIFIED) {
+      arrayOid = arraySupport.getDefaultArrayTypeOid();
+    }
+    if (!arraySupport.supportBinaryRepresentation(arrayOid)) {
+      throw new PSQLException(
+          GT.tr("Binary encoding of {0} as array type {1} is not supported.",
+              elements.getClass().getName(), arrayOid),
+          PSQLState.INVALID_PARAMETER_TYPE);
+    }
+    return arraySupport.toBinaryRepresentation(this, elements, arrayOid);
+  }
+
   @Override
   public Array createArrayOf(String typeName, @Nullable Object @Nullable [] elements)
       throws SQLException {
@@ -10,6 +10,7 @@ import static org.postgresql.util.internal.Nullness.castNonNull;
 import org.postgresql.Driver;
 import org.postgresql.core.BaseConnection;
 import org.postgresql.core.CachedQuery;
+import org.postgresql.core.CodecRegistry;
 import org.postgresql.core.Oid;
 import org.postgresql.core.ParameterList;
 import org.postgresql.core.Query;
@@ -24,6 +25,8 @@ import org.postgresql.util.ByteStreamWriter;
 import org.postgresql.util.GT;
 import org.postgresql.util.HStoreConverter;
 import org.postgresql.util.PGBinaryObject;
+import org.postgresql.util.PGMultirange;
+import org.postgresql.util.PGRange;
 import org.postgresql.util.PGTime;
 import org.postgresql.util.PGTimestamp;
 import org.postgresql.util.PGobject;
@@ -78,6 +81,18 @@ class PgPreparedStatement extends PgStatement implements PreparedStatement {
 
   private @Nullable TimeZone defaultTimeZone;
 
+  /**
+   * COPY equivalent of the statement for {@code batchInsertMode=copy}, set on the first batch.
+   */
+  private @Nullable CopyInsertBatch copyInsertBatch;
+  private boolean copyInsertBatchParsed;
+
+  /**
+   * Rewritten statement for {@code reWriteBatchedUpdates}, set on the first batch.
+   */
+  private @Nullable UnnestBatch unnestBatch;
+  private boolean unnestBatchParsed;
+
   PgPreparedStatement(PgConnection connection, String sql, int rsType, int rsConcurrency,
       int rsHoldability) throws SQLException {
     this(connection, connection.borrowQuery(sql), rsType, rsConcurrency, rsHoldability);
@@ -279,9 +294,7 @@ class PgPreparedStatement extends PgStatement implements PreparedStatement {
   public void setShort(@Positive int parameterIndex, short x) throws SQLException {
     checkClosed();
     if (connection.binaryTransferSend(Oid.INT2)) {
-      byte[] val = new byte[2];
-      ByteConverter.int2(val, 0, x);
-      bindBytes(parameterIndex, val, Oid.INT2);
+      preparedParameters.setPrimitiveParameter(parameterIndex, x, Oid.INT2);
       return;
     }
     bindLiteral(parameterIndex, Integer.toString(x), Oid.INT2);
@@ -290,9 +303,7 @@ class PgPreparedStatement extends PgStatement implements PreparedStatement {
   public void setInt(@Positive int parameterIndex, int x) throws SQLException {
     checkClosed();
     if (connection.binaryTransferSend(Oid.INT4)) {
-      byte[] val = new byte[4];
-      ByteConverter.int4(val, 0, x);
-      bindBytes(parameterIndex, val, Oid.INT4);
+      preparedParameters.setPrimitiveParameter(parameterIndex, x, Oid.INT4);
       return;
     }
     bindLiteral(parameterIndex, Integer.toString(x), Oid.INT4);
@@ -301,9 +312,7 @@ class PgPreparedStatement extends PgStatement implements PreparedStatement {
   public void setLong(@Positive int parameterIndex, long x) throws SQLException {
     checkClosed();
     if (connection.binaryTransferSend(Oid.INT8)) {
-      byte[] val = new byte[8];
-      ByteConverter.int8(val, 0, x);
-      bindBytes(parameterIndex, val, Oid.INT8);
+      preparedParameters.setPrimitiveParameter(parameterIndex, x, Oid.INT8);
       return;
     }
     bindLiteral(parameterIndex, Long.toString(x), Oid.INT8);
@@ -312,9 +321,7 @@ class PgPreparedStatement extends PgStatement implements PreparedStatement {
   public void setFloat(@Positive int parameterIndex, float x) throws SQLException {
     checkClosed();
     if (connection.binaryTransferSend(Oid.FLOAT4)) {
-      byte[] val = new byte[4];
-      ByteConverter.float4(val, 0, x);
-      bindBytes(parameterIndex, val, Oid.FLOAT4);
+      preparedParameters.setPrimitiveParameter(parameterIndex, Float.floatToRawIntBits(x), Oid.FLOAT4);
       return;
     }
     bindLiteral(parameterIndex, Float.toString(x), Oid.FLOAT8);
@@ -323,9 +330,7 @@ class PgPreparedStatement extends PgStatement implements PreparedStatement {
   public void setDouble(@Positive int parameterIndex, double x) throws SQLException {
     checkClosed();
     if (connection.binaryTransferSend(Oid.FLOAT8)) {
-      byte[] val = new byte[8];
-      ByteConverter.float8(val, 0, x);
-      bindBytes(parameterIndex, val, Oid.FLOAT8);
+      preparedParameters.setPrimitiveParameter(parameterIndex, Double.doubleToRawLongBits(x), Oid.FLOAT8);
       return;
     }
     bindLiteral(parameterIndex, Double.toString(x), Oid.FLOAT8);
@@ -492,11 +497,25 @@ class PgPreparedStatement extends PgStatement implements PreparedStatement {
       byte[] data = new byte[binObj.lengthInBytes()];
       binObj.toBytes(data, 0);
       bindBytes(parameterIndex, data, oid);
+    } else if (oid == Oid.JSONB && x.getValue() != null && connection.binaryTransferSend(oid)) {
+      bindBytes(parameterIndex, encodeJsonb(castNonNull(x.getValue())), oid);
     } else {
       setString(parameterIndex, x.getValue(), oid);
     }
   }
 
+  /**
+   * Encodes a document in the binary jsonb format: a version byte followed by the text in the
+   * client encoding.
+   */
+  private byte[] encodeJsonb(String value) throws SQLException {
+    byte[] text = connection.encodeString(value);
+    byte[] data = new byte[text.length + 1];
+    data[0] = 1;
+    System.arraycopy(text, 0, data, 1, text.length);
+    return data;
+  }
+
   private void setMap(@Positive int parameterIndex, Map<?, ?> x) throws SQLException {
     int oid = connection.getTypeInfo().getPGType("hstore");
     if (oid == Oid.UNSPECIFIED) {
@@ -504,8 +523,8 @@ class PgPreparedStatement extends PgStatement implements PreparedStatement {
           PSQLState.INVALID_PARAMETER_TYPE);
     }
     if (connection.binaryTransferSend(oid)) {
-      byte[] data = HStoreConverter.toBytes(x, connection.getEncoding());
-      bindBytes(parameterIndex, data, oid);
+      preparedParameters.setBinaryParameter(parameterIndex,
+          HStoreConverter.toByteStreamWriter(x, connection.getEncoding()), oid);
     } else {
       setString(parameterIndex, HStoreConverter.toString(x), oid);
     }
@@ -725,6 +744,118 @@ class PgPreparedStatement extends PgStatement implements PreparedStatement {
     }
   }
 
+  /**
+   * Binds values and arrays of values handled by a {@link org.postgresql.util.PGCodec}. Codecs are
+   * only consulted for classes the driver has no conversion of its own for, so that a codec for a
+   * supertype such as {@code Object} does not take over the built-in types.
+   *
+   * @return false if there is no codec for the class of the value
+   */
+  private boolean setCodecObject(@Positive int parameterIndex, Object x) throws SQLException {
+    CodecRegistry codecs = connection.getCodecRegistry();
+    if (codecs.isEmpty()) {
+      return false;
+    }
+    CodecRegistry.Entry codec = codecs.forClass(x.getClass());
+    if (codec != null) {
+      setCodecValue(parameterIndex, codec, x);
+      return true;
+    }
+    if (x instanceof Object[]) {
+      codec = getArrayCodec(x.getClass());
+      if (codec != null) {
+        setCodecArray(parameterIndex, codec, (Object[]) x);
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private void setCodecValue(@Positive int parameterIndex, CodecRegistry.Entry codec, Object x)
+      throws SQLException {
+    int oid = codec.getOid();
+    if (codec.getCodec().supportsBinary() && connection.binaryTransferSend(oid)
+        && connection.getPreferQueryMode() != PreferQueryMode.SIMPLE) {
+      bindBytes(parameterIndex, codec.encodeBinary(x), oid);
+    } else {
+      bindString(parameterIndex, codec.encodeText(x), oid);
+    }
+  }
+
+  /**
+   * Finds the codec for the elements of a (possibly nested) array class, if the codec supports
+   * arrays.
+   */
+  private CodecRegistry.@Nullable Entry getArrayCodec(Class<?> arrayClass) {
+    Class<?> elementClass = castNonNull(arrayClass.getComponentType());
+    while (elementClass.isArray()) {
+      elementClass = castNonNull(elementClass.getComponentType());
+    }
+    CodecRegistry.Entry codec = connection.getCodecRegistry().forClass(elementClass);
+    return codec != null && codec.getArrayOid() != Oid.UNSPECIFIED ? codec : null;
+  }
+
+  private void setCodecArray(@Positive int parameterIndex, CodecRegistry.Entry codec, Object[] x)
+      throws SQLException {
+    int arrayOid = codec.getArrayOid();
+    if (codec.getCodec().supportsBinary() && connection.binaryTransferSend(arrayOid)
+        && connection.getPreferQueryMode() != PreferQueryMode.SIMPLE) {
+      bindBytes(parameterIndex, ArrayEncoding.toCodecBinaryRepresentation(codec, x), arrayOid);
+    } else {
+      char delim = connection.getTypeInfo().getArrayDelimiter(codec.getOid());
+      bindString(parameterIndex, ArrayEncoding.toCodecArrayString(codec, delim, x), arrayOid);
+    }
+  }
+
+  /**
+   * Binds a {@link java.time.Duration} or {@link java.time.Period} as {@code interval}. The text
+   * form is the ISO 8601 representation of the value, which the server accepts as input.
+   */
+  private void setInterval(@Positive int parameterIndex, Object x) throws SQLException {
+    if (connection.binaryTransferSend(Oid.INTERVAL)) {
+      bindBytes(parameterIndex, x instanceof java.time.Duration
+          ? IntervalConverter.toBinary((java.time.Duration) x)
+          : IntervalConverter.toBinary((java.time.Period) x), Oid.INTERVAL);
+    } else {
+      bindString(parameterIndex, x.toString(), Oid.INTERVAL);
+    }
+  }
+
+  private boolean useBinaryForRange(int oid) {
+    return oid != Oid.UNSPECIFIED && connection.binaryTransferSend(oid)
+        && connection.getPreferQueryMode() != PreferQueryMode.SIMPLE
+        && connection.getQueryExecutor().getIntegerDateTimes();
+  }
+
+  private void setRange(@Positive int parameterIndex, PGRange<?> x) throws SQLException {
+    int oid = RangeEncoding.getRangeOid(x);
+    if (useBinaryForRange(oid)) {
+      bindBytes(parameterIndex, RangeEncoding.toBinary(x, oid), oid);
+    } else {
+      bindString(parameterIndex, x.toString(), oid);
+    }
+  }
+
+  private void setMultirange(@Positive int parameterIndex, PGMultirange<?> x)
+      throws SQLException {
+    int oid = RangeEncoding.getMultirangeOid(x);
+    if (useBinaryForRange(oid)) {
+      bindBytes(parameterIndex, RangeEncoding.toBinary(x, oid), oid);
+    } else {
+      bindString(parameterIndex, x.toString(), oid);
+    }
+  }
+
+  private void setRangeArray(@Positive int parameterIndex, PGRange<?>[] x) throws SQLException {
+    int rangeOid = RangeEncoding.getElementRangeOid(x);
+    int oid = RangeEncoding.getArrayOid(rangeOid);
+    if (useBinaryForRange(oid)) {
+      bindBytes(parameterIndex, RangeEncoding.toBinaryArray(x, rangeOid), oid);
+    } else {
+      bindString(parameterIndex, RangeEncoding.toArrayString(x), oid);
+    }
+  }
+
   private static String asString(final Clob in) throws SQLException {
     return in.getSubString(1, (int) in.length());
   }
@@ -933,76 +1064,133 @@ class PgPreparedStatement extends PgStatement implements PreparedStatement {
     checkClosed();
     if (x == null) {
       setNull(parameterIndex, Types.OTHER);
-    } else if (x instanceof UUID && connection.haveMinimumServerVersion(ServerVersion.v8_3)) {
-      setUuid(parameterIndex, (UUID) x);
-    } else if (x instanceof SQLXML) {
-      setSQLXML(parameterIndex, (SQLXML) x);
-    } else if (x instanceof String) {
-      setString(parameterIndex, (String) x);
-    } else if (x instanceof BigDecimal) {
-      setBigDecimal(parameterIndex, (BigDecimal) x);
-    } else if (x instanceof Short) {
-      setShort(parameterIndex, (Short) x);
-    } else if (x instanceof Integer) {
-      setInt(parameterIndex, (Integer) x);
-    } else if (x instanceof Long) {
-      setLong(parameterIndex, (Long) x);
-    } else if (x instanceof Float) {
-      setFloat(parameterIndex, (Float) x);
-    } else if (x instanceof Double) {
-      setDouble(parameterIndex, (Double) x);
-    } else if (x instanceof byte[]) {
-      setBytes(parameterIndex, (byte[]) x);
-    } else if (x instanceof ByteStreamWriter) {
-      setByteStreamWriter(parameterIndex, (ByteStreamWriter) x);
-    } else if (x instanceof java.sql.Date) {
-      setDate(parameterIndex, (java.sql.Date) x);
-    } else if (x instanceof Time) {
-      setTime(parameterIndex, (Time) x);
-    } else if (x instanceof Timestamp) {
-      setTimestamp(parameterIndex, (Timestamp) x);
-    } else if (x instanceof Boolean) {
-      setBoolean(parameterIndex, (Boolean) x);
-    } else if (x instanceof Byte) {
-      setByte(parameterIndex, (Byte) x);
-    } else if (x instanceof Blob) {
-      setBlob(parameterIndex, (Blob) x);
-    } else if (x instanceof Clob) {
-      setClob(parameterIndex, (Clob) x);
-    } else if (x instanceof Array) {
-      setArray(parameterIndex, (Array) x);
-    } else if (x instanceof PGobject) {
-      setPGobject(parameterIndex, (PGobject) x);
-    } else if (x instanceof Character) {
-      setString(parameterIndex, ((Character) x).toString());
-    } else if (x instanceof java.time.LocalDate) {
-      setDate(parameterIndex, (java.time.LocalDate) x);
-    } else if (x instanceof java.time.LocalTime) {
-      setTime(parameterIndex, (java.time.LocalTime) x);
-    } else if (x instanceof java.time.LocalDateTime) {
-      setTimestamp(parameterIndex, (java.time.LocalDateTime) x);
-    } else if (x instanceof java.time.OffsetDateTime) {
-      setTimestamp(parameterIndex, (java.time.OffsetDateTime) x);
-    } else if (x instanceof Map) {
-      setMap(parameterIndex, (Map<?, ?>) x);
-    } else if (x instanceof Number) {
-      setNumber(parameterIndex, (Number) x);
-    } else if (x.getClass().isArray()) {
-      try {
-        setObjectArray(parameterIndex, x);
-      } catch (Exception e) {
-        throw new PSQLException(
-            GT.tr("Cannot cast an instance of {0} to type {1}", x.getClass().getName(), "Types.ARRAY"),
-            PSQLState.INVALID_PARAMETER_TYPE, e);
-      }
-    } else {
-      // Can't infer a type.
-      throw new PSQLException(GT.tr(
-          "Can''t infer the SQL type to use for an instance of {0}. Use setObject() with an explicit Types value to specify the type to use.",
-          x.getClass().getName()), PSQLState.INVALID_PARAMETER_TYPE);
+      return;
+    }
+    switch (TypeDispatch.binderFor(x.getClass())) {
+      case UUID:
+        if (!connection.haveMinimumServerVersion(ServerVersion.v8_3)) {
+          throw cannotInferType(x);
+        }
+        setUuid(parameterIndex, (UUID) x);
+        break;
+      case SQLXML:
+        setSQLXML(parameterIndex, (SQLXML) x);
+        break;
+      case STRING:
+        setString(parameterIndex, (String) x);
+        break;
+      case BIG_DECIMAL:
+        setBigDecimal(parameterIndex, (BigDecimal) x);
+        break;
+      case SHORT:
+        setShort(parameterIndex, (Short) x);
+        break;
+      case INTEGER:
+        setInt(parameterIndex, (Integer) x);
+        break;
+      case LONG:
+        setLong(parameterIndex, (Long) x);
+        break;
+      case FLOAT:
+        setFloat(parameterIndex, (Float) x);
+        break;
+      case DOUBLE:
+        setDouble(parameterIndex, (Double) x);
+        break;
+      case BYTES:
+        setBytes(parameterIndex, (byte[]) x);
+        break;
+      case BYTE_STREAM_WRITER:
+        setByteStreamWriter(parameterIndex, (ByteStreamWriter) x);
+        break;
+      case DATE:
+        setDate(parameterIndex, (java.sql.Date) x);
+        break;
+      case TIME:
+        setTime(parameterIndex, (Time) x);
+        break;
+      case TIMESTAMP:
+        setTimestamp(parameterIndex, (Timestamp) x);
+        break;
+      case BOOLEAN:
+        setBoolean(parameterIndex, (Boolean) x);
+        break;
+      case BYTE:
+        setByte(parameterIndex, (Byte) x);
+        break;
+      case BLOB:
+        setBlob(parameterIndex, (Blob) x);
+        break;
+      case CLOB:
+        setClob(parameterIndex, (Clob) x);
+        break;
+      case ARRAY:
+        setArray(parameterIndex, (Array) x);
+        break;
+      case PG_OBJECT:
+        setPGobject(parameterIndex, (PGobject) x);
+        break;
+      case RANGE:
+        setRange(parameterIndex, (PGRange<?>) x);
+        break;
+      case MULTIRANGE:
+        setMultirange(parameterIndex, (PGMultirange<?>) x);
+        break;
+      case RANGE_ARRAY:
+        setRangeArray(parameterIndex, (PGRange<?>[]) x);
+        break;
+      case CHARACTER:
+        setString(parameterIndex, ((Character) x).toString());
+        break;
+      case LOCAL_DATE:
+        setDate(parameterIndex, (java.time.LocalDate) x);
+        break;
+      case LOCAL_TIME:
+        setTime(parameterIndex, (java.time.LocalTime) x);
+        break;
+      case LOCAL_DATE_TIME:
+        setTimestamp(parameterIndex, (java.time.LocalDateTime) x);
+        break;
+      case OFFSET_DATE_TIME:
+        setTimestamp(parameterIndex, (java.time.OffsetDateTime) x);
+        break;
+      case DURATION:
+      case PERIOD:
+        setInterval(parameterIndex, x);
+        break;
+      case MAP:
+        setMap(parameterIndex, (Map<?, ?>) x);
+        break;
+      case NUMBER:
+        if (!setCodecObject(parameterIndex, x)) {
+          setNumber(parameterIndex, (Number) x);
+        }
+        break;
+      case OBJECT_ARRAY:
+        if (setCodecObject(parameterIndex, x)) {
+          break;
+        }
+        try {
+          setObjectArray(parameterIndex, x);
+        } catch (Exception e) {
+          throw new PSQLException(
+              GT.tr("Cannot cast an instance of {0} to type {1}", x.getClass().getName(), "Types.ARRAY"),
+              PSQLState.INVALID_PARAMETER_TYPE, e);
+        }
+        break;
+      default:
+        if (!setCodecObject(parameterIndex, x)) {
+          throw cannotInferType(x);
+        }
     }
   }
 
+  private static PSQLException cannotInferType(Object x) {
+    return new PSQLException(GT.tr(
+        "Can''t infer the SQL type to use for an instance of {0}. Use setObject() with an explicit Types value to specify the type to use.",
+        x.getClass().getName()), PSQLState.INVALID_PARAMETER_TYPE);
+  }
+
   /**
    * Returns the SQL statement with the current template values substituted.
    *
@@ -1081,6 +1269,13 @@ class PgPreparedStatement extends PgStatement implements PreparedStatement {
     if (!(query instanceof BatchedQuery) || batchStatements.isEmpty()) {
       batchStatements.add(query);
     }
+    if (isBatchChunkFull()) {
+      if (mPrepareThreshold > 0) {
+        // Each chunk executes the statement many times, as in executeBatch
+        this.preparedQuery.increaseExecuteCount(mPrepareThreshold);
+      }
+      executeBatchChunk();
+    }
   }
 
   public @Nullable ResultSetMetaData getMetaData() throws SQLException {
@@ -1632,6 +1827,103 @@ class PgPreparedStatement extends PgStatement implements PreparedStatement {
     }
   }
 
+  @Override
+  protected long @Nullable [] executeBatchRewritten() throws SQLException {
+    ArrayList<@Nullable ParameterList> batchParameters = this.batchParameters;
+    if (batchParameters == null || batchParameters.size() < 2 || wantsGeneratedKeysAlways
+        || connection.getPreferQueryMode() == PreferQueryMode.SIMPLE) {
+      return null;
+    }
+    QueryExecutor executor = connection.getQueryExecutor();
+    long[] updateCounts = null;
+    if (executor.getBatchInsertMode() == BatchInsertMode.COPY
+        && connection.haveMinimumServerVersion(ServerVersion.v9_0)) {
+      updateCounts = executeBatchAsCopy(batchParameters);
+    }
+    if (updateCounts == null && executor.isReWriteBatchedUpdatesEnabled()
+        && connection.haveMinimumServerVersion(ServerVersion.v9_4)) {
+      updateCounts = executeBatchAsUnnest(batchParameters);
+    }
+    return updateCounts;
+  }
+
+  private long @Nullable [] executeBatchAsCopy(ArrayList<@Nullable ParameterList> batchParameters)
+      throws SQLException {
+    if (!copyInsertBatchParsed) {
+      copyInsertBatch = CopyInsertBatch.of(preparedQuery.query);
+      copyInsertBatchParsed = true;
+    }
+    CopyInsertBatch copyInsertBatch = this.copyInsertBatch;
+    if (copyInsertBatch == null) {
+      return null;
+    }
+
+    ArrayList<@Nullable ParameterList> rows = new ArrayList<@Nullable ParameterList>(batchParameters);
+    startTimer();
+    try {
+      boolean accepted;
+      try {
+        accepted = copyInsertBatch.accepts(connection, rows);
+      } catch (SQLException e) {
+        // The target columns cannot be described, the batch would fail the same way
+        clearBatchEntries();
+        throw e;
+      }
+      if (!accepted) {
+        return null;
+      }
+      long[] updateCounts;
+      try {
+        updateCounts = copyInsertBatch.execute(connection, rows);
+      } catch (SQLException e) {
+        clearBatchEntries();
+        throw e;
+      }
+      if (updateCounts != null) {
+        clearBatchEntries();
+      }
+      return updateCounts;
+    } finally {
+      killTimerTask();
+    }
+  }
+
+  private long @Nullable [] executeBatchAsUnnest(
+      ArrayList<@Nullable ParameterList> batchParameters) throws SQLException {
+    if (!unnestBatchParsed) {
+      unnestBatch = UnnestBatch.of(preparedQuery.query, connection.getStandardConformingStrings());
+      unnestBatchParsed = true;
+    }
+    UnnestBatch unnestBatch = this.unnestBatch;
+    if (unnestBatch == null) {
+      return null;
+    }
+
+    int batchSize = batchParameters.size();
+    ParameterList params;
+    try {
+      params = unnestBatch.bind(connection, batchParameters);
+    } catch (SQLException e) {
+      // The array types cannot be looked up, the batch would fail the same way
+      clearBatchEntries();
+      throw e;
+    }
+    if (params == null) {
+      return null;
+    }
+    clearBatchEntries();
+    int flags = QueryExecutor.QUERY_ONESHOT | QueryExecutor.QUERY_NO_BINARY_TRANSFER;
+    if (connection.getAutoCommit()) {
+      flags |= QueryExecutor.QUERY_SUPPRESS_BEGIN;
+    }
+    startTimer();
+    try {
+      return unnestBatch.execute(connection, params, batchSize, flags);
+    } finally {
+      killTimerTask();
+    }
+  }
+
   private Calendar getDefaultCalendar() {
     TimestampUtils timestampUtils = connection.getTimestampUtils();
     if (timestampUtils.hasFastDefaultTimeZone()) {
@@ -7,16 +7,20 @@ package org.postgresql.jdbc;
 
 import static org.postgresql.util.internal.Nullness.castNonNull;
 
+import org.postgresql.PGResultSet;
 import org.postgresql.PGResultSetMetaData;
 import org.postgresql.PGStatement;
 import org.postgresql.core.BaseConnection;
 import org.postgresql.core.BaseStatement;
+import org.postgresql.core.CodecRegistry;
+import org.postgresql.core.CompositeType;
 import org.postgresql.core.Encoding;
 import org.postgresql.core.Field;
 import org.postgresql.core.Oid;
 import org.postgresql.core.Query;
 import org.postgresql.core.ResultCursor;
 import org.postgresql.core.ResultHandlerBase;
+import org.postgresql.core.SpooledValue;
 import org.postgresql.core.Tuple;
 import org.postgresql.core.TypeInfo;
 import org.postgresql.core.Utils;
@@ -24,6 +28,9 @@ import org.postgresql.util.ByteConverter;
 import org.postgresql.util.GT;
 import org.postgresql.util.HStoreConverter;
 import org.postgresql.util.JdbcBlackHole;
+import org.postgresql.util.PGInterval;
+import org.postgresql.util.PGMultirange;
+import org.postgresql.util.PGRange;
 import org.postgresql.util.PGbytea;
 import org.postgresql.util.PGobject;
 import org.postgresql.util.PGtokenizer;
@@ -50,6 +57,7 @@ import java.math.BigInteger;
 import java.math.RoundingMode;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
 import java.sql.Array;
 import java.sql.Blob;
@@ -65,6 +73,7 @@ import java.sql.SQLException;
 import java.sql.SQLWarning;
 import java.sql.SQLXML;
 import java.sql.Statement;
+import java.sql.Struct;
 import java.sql.Time;
 import java.sql.Timestamp;
 import java.sql.Types;
@@ -82,7 +91,12 @@ import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
-public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultSet {
+public class PgResultSet implements ResultSet, PGResultSet, org.postgresql.PGRefCursorResultSet {
+
+  /**
+   * Format version of the binary jsonb representation, see {@code jsonb_send}.
+   */
+  private static final byte JSONB_BINARY_VERSION = 1;
 
   // needed for updateable result set support
   private boolean updateable = false;
@@ -110,6 +124,11 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
   protected int currentRow = -1; // Index into 'rows' of our currrent row (0-based)
   protected int rowOffset; // Offset of row 0 in the actual resultset
   protected @Nullable Tuple thisRow; // copy of the current result row
+  /**
+   * Copy of the updated row made by {@link #updateRow()} that {@link #thisRow} points to. It holds
+   * its own references to spooled values, so it is released once the current row changes.
+   */
+  private @Nullable Tuple updatedRow;
   protected @Nullable SQLWarning warnings = null; // The warning chain
   /**
    * True if the last obtained column value was SQL NULL as specified by {@link #wasNull}. The value
@@ -366,6 +385,7 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
     }
 
     onInsertRow = false;
+    releaseUpdatedRow();
     thisRow = null;
     rowBuffer = null;
   }
@@ -379,6 +399,7 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
     }
 
     onInsertRow = false;
+    releaseUpdatedRow();
     thisRow = null;
     rowBuffer = null;
   }
@@ -457,6 +478,18 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
   }
 
   public java.io.@Nullable Reader getCharacterStream(int i) throws SQLException {
+    SpooledValue spooled = getSpooledValue(i);
+    if (spooled != null && maxFieldSize == 0
+        && (!isBinary(i) || getSQLType(i) == Types.VARCHAR)) {
+      // read large text values straight from the temporary file
+      InputStream in = openSpooled(spooled);
+      try {
+        return connection.getEncoding().getDecodingReader(in);
+      } catch (IOException e) {
+        throw new PSQLException(GT.tr("Unable to read a spooled column value."),
+            PSQLState.IO_ERROR, e);
+      }
+    }
     String value = getString(i);
     if (value == null) {
       return null;
@@ -932,6 +965,7 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
 
     if (currentRow - 1 < 0) {
       currentRow = -1;
+      releaseUpdatedRow();
       thisRow = null;
       rowBuffer = null;
       return false;
@@ -1041,7 +1075,7 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
 
     deleteStatement.executeUpdate();
 
-    rows.remove(currentRow);
+    rows.remove(currentRow).release();
     currentRow--;
     moveToCurrentRow();
   }
@@ -1116,6 +1150,7 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
 
     // we should now reflect the current data in thisRow
     // that way getXXX will get the newly inserted data
+    releaseUpdatedRow();
     thisRow = rowBuffer;
 
     // need to clear this in case of another insert
@@ -1128,6 +1163,7 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
     castNonNull(rows, "rows");
 
     if (currentRow < 0 || currentRow >= rows.size()) {
+      releaseUpdatedRow();
       thisRow = null;
       rowBuffer = null;
     } else {
@@ -1389,6 +1425,7 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
       }
 
       castNonNull(rows).set(currentRow, castNonNull(rowBuffer));
+      releaseUpdatedRow();
       thisRow = rowBuffer;
 
       connection.getLogger().log(Level.FINE, "done updates");
@@ -1479,8 +1516,9 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
     updateRowBuffer(null, rowBuffer, updateValues);
 
     connection.getLogger().log(Level.FINE, "copying data");
-    thisRow = rowBuffer.readOnlyCopy();
-    rows.set(currentRow, rowBuffer);
+    releaseUpdatedRow();
+    thisRow = updatedRow = rowBuffer.readOnlyCopy();
+    rows.set(currentRow, rowBuffer).release();
 
     connection.getLogger().log(Level.FINE, "done updates");
     updateValues.clear();
@@ -2022,6 +2060,7 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
       ResultCursor cursor = this.cursor;
       if (cursor == null || (maxRows > 0 && rowOffset + rows.size() >= maxRows)) {
         currentRow = rows.size();
+        releaseUpdatedRow();
         thisRow = null;
         rowBuffer = null;
         return false; // End of the resultset.
@@ -2029,6 +2068,7 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
 
       // Ask for some more data.
       rowOffset += rows.size(); // We are discarding some data.
+      releaseRows(rows);
 
       int fetchRows = fetchSize;
       int adaptiveFetchRows = connection.getQueryExecutor()
@@ -2056,6 +2096,7 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
 
       // Test the new rows array.
       if (rows == null || rows.isEmpty()) {
+        releaseUpdatedRow();
         thisRow = null;
         rowBuffer = null;
         return false;
@@ -2083,8 +2124,10 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
   fixes issue #684
    */
   protected void closeInternally() throws SQLException {
-    // release resources held (memory for tuples)
+    // release resources held (memory for tuples, spooled values)
+    releaseRows(rows);
     rows = null;
+    releaseUpdatedRow();
     JdbcBlackHole.close(deleteStatement);
     deleteStatement = null;
     if (cursor != null) {
@@ -2107,9 +2150,33 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
       return null;
     }
 
-    // varchar in binary is same as text, other binary fields are converted to their text format
-    if (isBinary(columnIndex) && getSQLType(columnIndex) != Types.VARCHAR) {
+    int jsonOffset = getJsonOffset(columnIndex, value);
+    if (jsonOffset >= 0) {
+      return trimString(columnIndex, decodeString(value, jsonOffset, value.length - jsonOffset));
+    }
+
+    // varchar and xml in binary are same as text, other binary fields are converted to their text
+    // format
+    if (isBinary(columnIndex) && getSQLType(columnIndex) != Types.VARCHAR
+        && fields[columnIndex - 1].getOID() != Oid.XML) {
       Field field = fields[columnIndex - 1];
+      CodecRegistry.Entry codec = connection.getCodecRegistry().forOid(field.getOID());
+      if (codec != null) {
+        Object obj = codec.decode(value, 0, value.length, true, connection.getEncoding());
+        return trimString(columnIndex, codec.encodeText(obj));
+      }
+      if (isComposite(columnIndex)) {
+        return trimString(columnIndex, CompositeDecoding.binaryToText(connection, statement,
+            getCompositeType(columnIndex), value));
+      }
+      if (RangeDecoding.isRange(field.getOID())) {
+        return trimString(columnIndex, RangeDecoding.toText(connection, field.getOID(),
+            RangeDecoding.decodeBinary(connection, field.getOID(), value)));
+      }
+      if (field.getOID() == Oid.INTERVAL) {
+        return trimString(columnIndex, IntervalConverter.toText(value,
+            connection.getParameterStatus("IntervalStyle")));
+      }
       Object obj = internalGetObject(columnIndex, field);
       if (obj == null) {
         // internalGetObject() knows jdbc-types and some extra like hstore. It does not know of
@@ -2132,9 +2199,13 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
       return trimString(columnIndex, obj.toString());
     }
 
+    return trimString(columnIndex, decodeString(value, 0, value.length));
+  }
+
+  private String decodeString(byte[] value, int offset, int length) throws SQLException {
     Encoding encoding = connection.getEncoding();
     try {
-      return trimString(columnIndex, encoding.decode(value));
+      return encoding.decode(value, offset, length);
     } catch (IOException ioe) {
       throw new PSQLException(
           GT.tr(
@@ -2143,6 +2214,65 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
     }
   }
 
+  /**
+   * Returns the offset of the textual document within the raw value of a {@code json} or
+   * {@code jsonb} column. Binary {@code jsonb} values are prefixed with a format version byte,
+   * everything else is plain text.
+   *
+   * @param columnIndex the first column is 1, the second is 2, ...
+   * @param value raw column value
+   * @return offset of the document, or -1 if the column is not of a json type
+   * @throws SQLException if binary jsonb uses an unsupported format version
+   */
+  private int getJsonOffset(@Positive int columnIndex, byte[] value) throws SQLException {
+    int oid = fields[columnIndex - 1].getOID();
+    if (oid == Oid.JSON) {
+      return 0;
+    }
+    if (oid != Oid.JSONB) {
+      return -1;
+    }
+    if (!isBinary(columnIndex)) {
+      return 0;
+    }
+    if (value.length == 0 || value[0] != JSONB_BINARY_VERSION) {
+      throw new PSQLException(
+          GT.tr("Unsupported binary jsonb format version: {0}",
+              value.length == 0 ? "<empty>" : value[0]),
+          PSQLState.DATA_ERROR);
+    }
+    return 1;
+  }
+
+  @Override
+  public @Nullable InputStream getJsonStream(@Positive int columnIndex) throws SQLException {
+    connection.getLogger().log(Level.FINEST, "  getJsonStream columnIndex: {0}", columnIndex);
+    SpooledValue spooled = getSpooledValue(columnIndex);
+    if (spooled != null) {
+      int oid = fields[columnIndex - 1].getOID();
+      if (oid == Oid.JSON || oid == Oid.JSONB && !isBinary(columnIndex)) {
+        return openSpooled(spooled);
+      }
+    }
+    byte[] value = getRawValue(columnIndex);
+    if (value == null) {
+      return null;
+    }
+    int offset = getJsonOffset(columnIndex, value);
+    if (offset < 0) {
+      throw new PSQLException(
+          GT.tr("Cannot convert the column of type {0} to requested type {1}.",
+              getPGType(columnIndex), "json"),
+          PSQLState.DATA_TYPE_MISMATCH);
+    }
+    return new ByteArrayInputStream(value, offset, value.length - offset);
+  }
+
+  @Override
+  public @Nullable InputStream getJsonStream(String columnLabel) throws SQLException {
+    return getJsonStream(findColumn(columnLabel));
+  }
+
   /**
    * <p>Retrieves the value of the designated column in the current row of this <code>ResultSet</code>
    * object as a <code>boolean</code> in the Java programming language.</p>
@@ -2672,6 +2802,20 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
   @Pure
   public @Nullable InputStream getBinaryStream(@Positive int columnIndex) throws SQLException {
     connection.getLogger().log(Level.FINEST, "  getBinaryStream columnIndex: {0}", columnIndex);
+    SpooledValue spooled = getSpooledValue(columnIndex);
+    if (spooled != null) {
+      if (isBinary(columnIndex)) {
+        return openSpooled(spooled);
+      }
+      if (fields[columnIndex - 1].getOID() == Oid.BYTEA && maxFieldSize == 0) {
+        try {
+          return PGbytea.toInputStream(openSpooled(spooled));
+        } catch (IOException e) {
+          throw new PSQLException(GT.tr("Unable to read a spooled column value."),
+              PSQLState.IO_ERROR, e);
+        }
+      }
+    }
     byte[] value = getRawValue(columnIndex);
     if (value == null) {
       return null;
@@ -2681,8 +2825,15 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
     // As the spec/javadoc for this method indicate this is to be used for
     // large binary values (i.e. LONGVARBINARY) PG doesn't have a separate
     // long binary datatype, but with toast the bytea datatype is capable of
-    // handling very large values. Thus the implementation ends up calling
-    // getBytes() since there is no current way to stream the value from the server
+    // handling very large values. There is no current way to stream the value from
+    // the server, so the stream reads from the row data. Hex encoded bytea is decoded
+    // as the stream is read, which avoids allocating the decoded value up front.
+    if (isBinary(columnIndex)) {
+      return new ByteArrayInputStream(value);
+    }
+    if (fields[columnIndex - 1].getOID() == Oid.BYTEA && maxFieldSize == 0) {
+      return PGbytea.toInputStream(value);
+    }
     byte[] b = getBytes(columnIndex);
     if (b != null) {
       return new ByteArrayInputStream(b);
@@ -2690,6 +2841,24 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
     return null;
   }
 
+  @Override
+  public @Nullable ByteBuffer getByteBuffer(@Positive int columnIndex) throws SQLException {
+    connection.getLogger().log(Level.FINEST, "  getByteBuffer columnIndex: {0}", columnIndex);
+    byte[] value = getRawValue(columnIndex);
+    if (value == null) {
+      return null;
+    }
+    if (isBinary(columnIndex)) {
+      return ByteBuffer.wrap(value).asReadOnlyBuffer();
+    }
+    return ByteBuffer.wrap(castNonNull(getBytes(columnIndex))).asReadOnlyBuffer();
+  }
+
+  @Override
+  public @Nullable ByteBuffer getByteBuffer(String columnLabel) throws SQLException {
+    return getByteBuffer(findColumn(columnLabel));
+  }
+
   @Pure
   public @Nullable String getString(String columnName) throws SQLException {
     return getString(findColumn(columnName));
@@ -2813,18 +2982,97 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
       return null;
     }
 
+    CodecRegistry.Entry codec = connection.getCodecRegistry().forOid(field.getOID());
+    if (codec != null) {
+      return codec.decode(value, 0, value.length, isBinary(columnIndex), connection.getEncoding());
+    }
+
+    if (isComposite(columnIndex)) {
+      CompositeType compositeType = getCompositeType(columnIndex);
+      if (isBinary(columnIndex) || compositeType != null && compositeType.isRegistered()) {
+        return getComposite(columnIndex, compositeType, value, null);
+      }
+    }
+
+    if (RangeDecoding.isRange(field.getOID()) && isBinary(columnIndex)) {
+      // a PGobject as in text mode; getObject(int, PGRange.class) decodes the range
+      return connection.getObject(getPGType(columnIndex), castNonNull(getString(columnIndex)),
+          null);
+    }
+
     Object result = internalGetObject(columnIndex, field);
     if (result != null) {
       return result;
     }
 
-    if (isBinary(columnIndex)) {
+    if (isBinary(columnIndex) && getJsonOffset(columnIndex, value) < 0) {
       return connection.getObject(getPGType(columnIndex), null, value);
     }
     String stringValue = castNonNull(getString(columnIndex));
     return connection.getObject(getPGType(columnIndex), stringValue, null);
   }
 
+  private boolean isComposite(@Positive int columnIndex) throws SQLException {
+    return fields[columnIndex - 1].getOID() == Oid.RECORD
+        || getSQLType(columnIndex) == Types.STRUCT;
+  }
+
+  /**
+   * Resolves the conversion {@link #getObject(int, Class)} applies to a column. The result is
+   * kept on the field, so repeated reads of a column as the same class skip the lookups.
+   */
+  private TypeDispatch.Reader getReader(@Positive int columnIndex, Class<?> type)
+      throws SQLException {
+    Field field = fields[columnIndex - 1];
+    Object cached = field.getReaderCache();
+    if (cached instanceof TypeDispatch.CachedReader
+        && ((TypeDispatch.CachedReader) cached).type == type) {
+      return ((TypeDispatch.CachedReader) cached).reader;
+    }
+    int oid = field.getOID();
+    TypeDispatch.Reader reader;
+    CodecRegistry.Entry codec = connection.getCodecRegistry().forOid(oid);
+    if (codec != null && type.isAssignableFrom(codec.getJavaType())) {
+      reader = TypeDispatch.Reader.CODEC;
+    } else if ((type == PGRange.class || type == PGMultirange.class)
+        && RangeDecoding.isRange(oid)) {
+      reader = TypeDispatch.Reader.RANGE;
+    } else if ((type == java.time.Duration.class || type == java.time.Period.class)
+        && oid == Oid.INTERVAL) {
+      reader = TypeDispatch.Reader.INTERVAL;
+    } else if (isComposite(columnIndex) && isCompositeClass(columnIndex, type)) {
+      reader = TypeDispatch.Reader.COMPOSITE;
+    } else {
+      reader = TypeDispatch.readerFor(type);
+    }
+    if (reader != TypeDispatch.Reader.UNSUPPORTED) {
+      // unsupported classes are not cached: a composite type may be registered later
+      field.setReaderCache(new TypeDispatch.CachedReader(type, reader));
+    }
+    return reader;
+  }
+
+  private boolean isCompositeClass(@Positive int columnIndex, Class<?> type) throws SQLException {
+    if (type == Struct.class || type == Object[].class) {
+      return true;
+    }
+    CompositeType compositeType = getCompositeType(columnIndex);
+    return compositeType != null && type == compositeType.getJavaClass();
+  }
+
+  private @Nullable CompositeType getCompositeType(@Positive int columnIndex) throws SQLException {
+    return connection.getTypeInfo().getCompositeType(fields[columnIndex - 1].getOID());
+  }
+
+  private Object getComposite(@Positive int columnIndex, @Nullable CompositeType compositeType,
+      byte[] value, @Nullable Class<?> type) throws SQLException {
+    if (isBinary(columnIndex)) {
+      return CompositeDecoding.decodeBinary(connection, statement, compositeType, value, type);
+    }
+    return CompositeDecoding.decodeText(connection, statement, compositeType,
+        decodeString(value, 0, value.length), type);
+  }
+
   public @Nullable Object getObject(String columnName) throws SQLException {
     return getObject(findColumn(columnName));
   }
@@ -3030,11 +3278,76 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
           PSQLState.INVALID_CURSOR_STATE);
     }
     checkColumnIndex(column);
-    byte[] bytes = thisRow.get(column - 1);
+    byte[] bytes;
+    try {
+      bytes = thisRow.load(column - 1);
+    } catch (IOException e) {
+      throw new PSQLException(GT.tr("Unable to read a spooled column value."),
+          PSQLState.IO_ERROR, e);
+    }
     wasNullFlag = bytes == null;
     return bytes;
   }
 
+  /**
+   * Returns the value of the given column if it was spooled to a temporary file and has not been
+   * loaded into memory yet. Performs the same checks as {@link #getRawValue(int)}.
+   *
+   * @param column The column number to check. Range starts from 1.
+   * @return spooled value or null if the value is in memory or is SQL NULL
+   * @throws SQLException If state or column is invalid.
+   * @see org.postgresql.PGProperty#LARGE_VALUE_SPOOL_THRESHOLD
+   */
+  private @Nullable SpooledValue getSpooledValue(@Positive int column) throws SQLException {
+    checkClosed();
+    if (thisRow == null) {
+      throw new PSQLException(
+          GT.tr("ResultSet not positioned properly, perhaps you need to call next."),
+          PSQLState.INVALID_CURSOR_STATE);
+    }
+    checkColumnIndex(column);
+    if (thisRow.get(column - 1) != null) {
+      return null;
+    }
+    SpooledValue value = thisRow.getSpooled(column - 1);
+    if (value != null) {
+      wasNullFlag = false;
+    }
+    return value;
+  }
+
+  private InputStream openSpooled(SpooledValue value) throws SQLException {
+    try {
+      return value.getInputStream();
+    } catch (IOException e) {
+      throw new PSQLException(GT.tr("Unable to read a spooled column value."),
+          PSQLState.IO_ERROR, e);
+    }
+  }
+
+  /**
+   * Releases the copy made by {@link #updateRow()}, before {@link #thisRow} moves on.
+   */
+  private void releaseUpdatedRow() {
+    Tuple updatedRow = this.updatedRow;
+    if (updatedRow != null) {
+      this.updatedRow = null;
+      updatedRow.release();
+    }
+  }
+
+  /**
+   * Deletes the temporary files of spooled values held by the given rows.
+   */
+  private static void releaseRows(@Nullable List<Tuple> rows) {
+    if (rows == null) {
+      return;
+    }
+    for (Tuple row : rows) {
+      row.release();
+    }
+  }
+
   /**
    * Returns true if the value of the given column is in binary format.
    *
@@ -3200,6 +3513,7 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
 
   @RequiresNonNull("rows")
   private void initRowBuffer() {
+    releaseUpdatedRow();
     thisRow = castNonNull(rows, "rows").get(currentRow);
     // We only need a copy of the current row if we're going to
     // modify it via an updatable resultset.
@@ -3445,251 +3759,285 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
     updateArray(findColumn(columnName), x);
   }
 
+  /**
+   * Returns an {@code interval} column as {@link java.time.Duration} or {@link java.time.Period},
+   * decoding binary values without going through {@link PGInterval}.
+   */
+  private @Nullable Object getInterval(@Positive int columnIndex, Class<?> type)
+      throws SQLException {
+    byte[] value = getRawValue(columnIndex);
+    if (value == null) {
+      return null;
+    }
+    if (isBinary(columnIndex)) {
+      return type == java.time.Duration.class
+          ? IntervalConverter.toDuration(value)
+          : IntervalConverter.toPeriod(value);
+    }
+    PGInterval interval = new PGInterval(castNonNull(getString(columnIndex)));
+    return type == java.time.Duration.class
+        ? IntervalConverter.toDuration(interval)
+        : IntervalConverter.toPeriod(interval);
+  }
+
   public <T> @Nullable T getObject(@Positive int columnIndex, Class<T> type) throws SQLException {
     if (type == null) {
       throw new SQLException("type is null");
     }
     int sqlType = getSQLType(columnIndex);
-    if (type == BigDecimal.class) {
-      if (sqlType == Types.NUMERIC || sqlType == Types.DECIMAL) {
-        return type.cast(getBigDecimal(columnIndex));
-      } else {
-        throw new PSQLException(GT.tr("conversion to {0} from {1} not supported", type, getPGType(columnIndex)),
-                PSQLState.INVALID_PARAMETER_VALUE);
-      }
-    } else if (type == String.class) {
-      if (sqlType == Types.CHAR || sqlType == Types.VARCHAR) {
-        return type.cast(getString(columnIndex));
-      } else {
-        throw new PSQLException(GT.tr("conversion to {0} from {1} not supported", type, getPGType(columnIndex)),
-                PSQLState.INVALID_PARAMETER_VALUE);
-      }
-    } else if (type == Boolean.class) {
-      if (sqlType == Types.BOOLEAN || sqlType == Types.BIT) {
-        boolean booleanValue = getBoolean(columnIndex);
-        if (wasNull()) {
+    switch (getReader(columnIndex, type)) {
+      case CODEC:
+      case RANGE:
+        return type.cast(getObject(columnIndex));
+      case INTERVAL:
+        return type.cast(getInterval(columnIndex, type));
+      case COMPOSITE: {
+        byte[] value = getRawValue(columnIndex);
+        if (value == null) {
           return null;
         }
-        return type.cast(booleanValue);
-      } else {
-        throw new PSQLException(GT.tr("conversion to {0} from {1} not supported", type, getPGType(columnIndex)),
-                PSQLState.INVALID_PARAMETER_VALUE);
+        return type.cast(getComposite(columnIndex, getCompositeType(columnIndex), value, type));
       }
-    } else if (type == Short.class) {
-      if (sqlType == Types.SMALLINT) {
-        short shortValue = getShort(columnIndex);
-        if (wasNull()) {
-          return null;
+      case BIG_DECIMAL:
+        if (sqlType == Types.NUMERIC || sqlType == Types.DECIMAL) {
+          return type.cast(getBigDecimal(columnIndex));
+        } else {
+          throw new PSQLException(GT.tr("conversion to {0} from {1} not supported", type, getPGType(columnIndex)),
+                  PSQLState.INVALID_PARAMETER_VALUE);
         }
-        return type.cast(shortValue);
-      } else {
-        throw new PSQLException(GT.tr("conversion to {0} from {1} not supported", type, getPGType(columnIndex)),
-                PSQLState.INVALID_PARAMETER_VALUE);
-      }
-    } else if (type == Integer.class) {
-      if (sqlType == Types.INTEGER || sqlType == Types.SMALLINT) {
-        int intValue = getInt(columnIndex);
-        if (wasNull()) {
-          return null;
+      case STRING:
+        if (sqlType == Types.CHAR || sqlType == Types.VARCHAR) {
+          return type.cast(getString(columnIndex));
+        } else {
+          throw new PSQLException(GT.tr("conversion to {0} from {1} not supported", type, getPGType(columnIndex)),
+                  PSQLState.INVALID_PARAMETER_VALUE);
         }
-        return type.cast(intValue);
-      } else {
-        throw new PSQLException(GT.tr("conversion to {0} from {1} not supported", type, getPGType(columnIndex)),
-                PSQLState.INVALID_PARAMETER_VALUE);
-      }
-    } else if (type == Long.class) {
-      if (sqlType == Types.BIGINT) {
-        long longValue = getLong(columnIndex);
-        if (wasNull()) {
-          return null;
+      case BOOLEAN:
+        if (sqlType == Types.BOOLEAN || sqlType == Types.BIT) {
+          boolean booleanValue = getBoolean(columnIndex);
+          if (wasNull()) {
+            return null;
+          }
+          return type.cast(booleanValue);
+        } else {
+          throw new PSQLException(GT.tr("conversion to {0} from {1} not supported", type, getPGType(columnIndex)),
+                  PSQLState.INVALID_PARAMETER_VALUE);
         }
-        return type.cast(longValue);
-      } else {
-        throw new PSQLException(GT.tr("conversion to {0} from {1} not supported", type, getPGType(columnIndex)),
-                PSQLState.INVALID_PARAMETER_VALUE);
-      }
-    } else if (type == BigInteger.class) {
-      if (sqlType == Types.BIGINT) {
-        long longValue = getLong(columnIndex);
-        if (wasNull()) {
-          return null;
+      case SHORT:
+        if (sqlType == Types.SMALLINT) {
+          short shortValue = getShort(columnIndex);
+          if (wasNull()) {
+            return null;
+          }
+          return type.cast(shortValue);
+        } else {
+          throw new PSQLException(GT.tr("conversion to {0} from {1} not supported", type, getPGType(columnIndex)),
+                  PSQLState.INVALID_PARAMETER_VALUE);
         }
-        return type.cast(BigInteger.valueOf(longValue));
-      } else {
-        throw new PSQLException(GT.tr("conversion to {0} from {1} not supported", type, getPGType(columnIndex)),
-                PSQLState.INVALID_PARAMETER_VALUE);
-      }
-    } else if (type == Float.class) {
-      if (sqlType == Types.REAL) {
-        float floatValue = getFloat(columnIndex);
-        if (wasNull()) {
-          return null;
+      case INTEGER:
+        if (sqlType == Types.INTEGER || sqlType == Types.SMALLINT) {
+          int intValue = getInt(columnIndex);
+          if (wasNull()) {
+            return null;
+          }
+          return type.cast(intValue);
+        } else {
+          throw new PSQLException(GT.tr("conversion to {0} from {1} not supported", type, getPGType(columnIndex)),
+                  PSQLState.INVALID_PARAMETER_VALUE);
         }
-        return type.cast(floatValue);
-      } else {
-        throw new PSQLException(GT.tr("conversion to {0} from {1} not supported", type, getPGType(columnIndex)),
-                PSQLState.INVALID_PARAMETER_VALUE);
-      }
-    } else if (type == Double.class) {
-      if (sqlType == Types.FLOAT || sqlType == Types.DOUBLE) {
-        double doubleValue = getDouble(columnIndex);
-        if (wasNull()) {
-          return null;
+      case LONG:
+        if (sqlType == Types.BIGINT) {
+          long longValue = getLong(columnIndex);
+          if (wasNull()) {
+            return null;
+          }
+          return type.cast(longValue);
+        } else {
+          throw new PSQLException(GT.tr("conversion to {0} from {1} not supported", type, getPGType(columnIndex)),
+                  PSQLState.INVALID_PARAMETER_VALUE);
         }
-        return type.cast(doubleValue);
-      } else {
-        throw new PSQLException(GT.tr("conversion to {0} from {1} not supported", type, getPGType(columnIndex)),
-                PSQLState.INVALID_PARAMETER_VALUE);
-      }
-    } else if (type == Date.class) {
-      if (sqlType == Types.DATE) {
-        return type.cast(getDate(columnIndex));
-      } else {
-        throw new PSQLException(GT.tr("conversion to {0} from {1} not supported", type, getPGType(columnIndex)),
-                PSQLState.INVALID_PARAMETER_VALUE);
-      }
-    } else if (type == Time.class) {
-      if (sqlType == Types.TIME) {
-        return type.cast(getTime(columnIndex));
-      } else {
-        throw new PSQLException(GT.tr("conversion to {0} from {1} not supported", type, getPGType(columnIndex)),
-                PSQLState.INVALID_PARAMETER_VALUE);
-      }
-    } else if (type == Timestamp.class) {
-      if (sqlType == Types.TIMESTAMP
-              || sqlType == Types.TIMESTAMP_WITH_TIMEZONE
-      ) {
-        return type.cast(getTimestamp(columnIndex));
-      } else {
-        throw new PSQLException(GT.tr("conversion to {0} from {1} not supported", type, getPGType(columnIndex)),
-                PSQLState.INVALID_PARAMETER_VALUE);
-      }
-    } else if (type == Calendar.class) {
-      if (sqlType == Types.TIMESTAMP
-              || sqlType == Types.TIMESTAMP_WITH_TIMEZONE
-      ) {
-        Timestamp timestampValue = getTimestamp(columnIndex);
-        if (timestampValue == null) {
-          return null;
+      case BIG_INTEGER:
+        if (sqlType == Types.BIGINT) {
+          long longValue = getLong(columnIndex);
+          if (wasNull()) {
+            return null;
+          }
+          return type.cast(BigInteger.valueOf(longValue));
+        } else {
+          throw new PSQLException(GT.tr("conversion to {0} from {1} not supported", type, getPGType(columnIndex)),
+                  PSQLState.INVALID_PARAMETER_VALUE);
         }
-        Calendar calendar = Calendar.getInstance(getDefaultCalendar().getTimeZone());
-        calendar.setTimeInMillis(timestampValue.getTime());
-        return type.cast(calendar);
-      } else {
-        throw new PSQLException(GT.tr("conversion to {0} from {1} not supported", type, getPGType(columnIndex)),
-                PSQLState.INVALID_PARAMETER_VALUE);
-      }
-    } else if (type == Blob.class) {
-      if (sqlType == Types.BLOB || sqlType == Types.BINARY || sqlType == Types.BIGINT) {
-        return type.cast(getBlob(columnIndex));
-      } else {
-        throw new PSQLException(GT.tr("conversion to {0} from {1} not supported", type, getPGType(columnIndex)),
-                PSQLState.INVALID_PARAMETER_VALUE);
-      }
-    } else if (type == Clob.class) {
-      if (sqlType == Types.CLOB || sqlType == Types.BIGINT) {
-        return type.cast(getClob(columnIndex));
-      } else {
-        throw new PSQLException(GT.tr("conversion to {0} from {1} not supported", type, getPGType(columnIndex)),
-                PSQLState.INVALID_PARAMETER_VALUE);
-      }
-    } else if (type == java.util.Date.class) {
-      if (sqlType == Types.TIMESTAMP) {
-        Timestamp timestamp = getTimestamp(columnIndex);
-        if (timestamp == null) {
-          return null;
+      case FLOAT:
+        if (sqlType == Types.REAL) {
+          float floatValue = getFloat(columnIndex);
+          if (wasNull()) {
+            return null;
+          }
+          return type.cast(floatValue);
+        } else {
+          throw new PSQLException(GT.tr("conversion to {0} from {1} not supported", type, getPGType(columnIndex)),
+                  PSQLState.INVALID_PARAMETER_VALUE);
         }
-        return type.cast(new java.util.Date(timestamp.getTime()));
-      } else {
-        throw new PSQLException(GT.tr("conversion to {0} from {1} not supported", type, getPGType(columnIndex)),
-                PSQLState.INVALID_PARAMETER_VALUE);
-      }
-    } else if (type == Array.class) {
-      if (sqlType == Types.ARRAY) {
-        return type.cast(getArray(columnIndex));
-      } else {
-        throw new PSQLException(GT.tr("conversion to {0} from {1} not supported", type, getPGType(columnIndex)),
-                PSQLState.INVALID_PARAMETER_VALUE);
-      }
-    } else if (type == SQLXML.class) {
-      if (sqlType == Types.SQLXML) {
-        return type.cast(getSQLXML(columnIndex));
-      } else {
-        throw new PSQLException(GT.tr("conversion to {0} from {1} not supported", type, getPGType(columnIndex)),
-                PSQLState.INVALID_PARAMETER_VALUE);
-      }
-    } else if (type == UUID.class) {
-      return type.cast(getObject(columnIndex));
-    } else if (type == InetAddress.class) {
-      String inetText = getString(columnIndex);
-      if (inetText == null) {
-        return null;
-      }
-      int slash = inetText.indexOf("/");
-      try {
-        return type.cast(InetAddress.getByName(slash < 0 ? inetText : inetText.substring(0, slash)));
-      } catch (UnknownHostException ex) {
-        throw new PSQLException(GT.tr("Invalid Inet data."), PSQLState.INVALID_PARAMETER_VALUE, ex);
-      }
-      // JSR-310 support
-    } else if (type == java.time.LocalDate.class) {
-      if (sqlType == Types.DATE) {
-        Date dateValue = getDate(columnIndex);
-        if (dateValue == null) {
-          return null;
+      case DOUBLE:
+        if (sqlType == Types.FLOAT || sqlType == Types.DOUBLE) {
+          double doubleValue = getDouble(columnIndex);
+          if (wasNull()) {
+            return null;
+          }
+          return type.cast(doubleValue);
+        } else {
+          throw new PSQLException(GT.tr("conversion to {0} from {1} not supported", type, getPGType(columnIndex)),
+                  PSQLState.INVALID_PARAMETER_VALUE);
+        }
+      case DATE:
+        if (sqlType == Types.DATE) {
+          return type.cast(getDate(columnIndex));
+        } else {
+          throw new PSQLException(GT.tr("conversion to {0} from {1} not supported", type, getPGType(columnIndex)),
+                  PSQLState.INVALID_PARAMETER_VALUE);
         }
-        long time = dateValue.getTime();
-        if (time == PGStatement.DATE_POSITIVE_INFINITY) {
-          return type.cast(java.time.LocalDate.MAX);
+      case TIME:
+        if (sqlType == Types.TIME) {
+          return type.cast(getTime(columnIndex));
+        } else {
+          throw new PSQLException(GT.tr("conversion to {0} from {1} not supported", type, getPGType(columnIndex)),
+                  PSQLState.INVALID_PARAMETER_VALUE);
         }
-        if (time == PGStatement.DATE_NEGATIVE_INFINITY) {
-          return type.cast(java.time.LocalDate.MIN);
+      case TIMESTAMP:
+        if (sqlType == Types.TIMESTAMP
+                || sqlType == Types.TIMESTAMP_WITH_TIMEZONE
+        ) {
+          return type.cast(getTimestamp(columnIndex));
+        } else {
+          throw new PSQLException(GT.tr("conversion to {0} from {1} not supported", type, getPGType(columnIndex)),
+                  PSQLState.INVALID_PARAMETER_VALUE);
         }
-        return type.cast(dateValue.toLocalDate());
-      } else if (sqlType == Types.TIMESTAMP) {
-        java.time.LocalDateTime localDateTimeValue = getLocalDateTime(columnIndex);
-        if (localDateTimeValue == null) {
+      case CALENDAR:
+        if (sqlType == Types.TIMESTAMP
+                || sqlType == Types.TIMESTAMP_WITH_TIMEZONE
+        ) {
+          Timestamp timestampValue = getTimestamp(columnIndex);
+          if (timestampValue == null) {
+            return null;
+          }
+          Calendar calendar = Calendar.getInstance(getDefaultCalendar().getTimeZone());
+          calendar.setTimeInMillis(timestampValue.getTime());
+          return type.cast(calendar);
+        } else {
+          throw new PSQLException(GT.tr("conversion to {0} from {1} not supported", type, getPGType(columnIndex)),
+                  PSQLState.INVALID_PARAMETER_VALUE);
+        }
+      case BLOB:
+        if (sqlType == Types.BLOB || sqlType == Types.BINARY || sqlType == Types.BIGINT) {
+          return type.cast(getBlob(columnIndex));
+        } else {
+          throw new PSQLException(GT.tr("conversion to {0} from {1} not supported", type, getPGType(columnIndex)),
+                  PSQLState.INVALID_PARAMETER_VALUE);
+        }
+      case CLOB:
+        if (sqlType == Types.CLOB || sqlType == Types.BIGINT) {
+          return type.cast(getClob(columnIndex));
+        } else {
+          throw new PSQLException(GT.tr("conversion to {0} from {1} not supported", type, getPGType(columnIndex)),
+                  PSQLState.INVALID_PARAMETER_VALUE);
+        }
+      case UTIL_DATE:
+        if (sqlType == Types.TIMESTAMP) {
+          Timestamp timestamp = getTimestamp(columnIndex);
+          if (timestamp == null) {
+            return null;
+          }
+          return type.cast(new java.util.Date(timestamp.getTime()));
+        } else {
+          throw new PSQLException(GT.tr("conversion to {0} from {1} not supported", type, getPGType(columnIndex)),
+                  PSQLState.INVALID_PARAMETER_VALUE);
+        }
+      case ARRAY:
+        if (sqlType == Types.ARRAY) {
+          return type.cast(getArray(columnIndex));
+        } else {
+          throw new PSQLException(GT.tr("conversion to {0} from {1} not supported", type, getPGType(columnIndex)),
+                  PSQLState.INVALID_PARAMETER_VALUE);
+        }
+      case SQLXML:
+        if (sqlType == Types.SQLXML) {
+          return type.cast(getSQLXML(columnIndex));
+        } else {
+          throw new PSQLException(GT.tr("conversion to {0} from {1} not supported", type, getPGType(columnIndex)),
+                  PSQLState.INVALID_PARAMETER_VALUE);
+        }
+      case UUID:
+        return type.cast(getObject(columnIndex));
+      case INET_ADDRESS:
+        String inetText = getString(columnIndex);
+        if (inetText == null) {
           return null;
         }
-        return type.cast(localDateTimeValue.toLocalDate());
-      } else {
-        throw new PSQLException(GT.tr("conversion to {0} from {1} not supported", type, getPGType(columnIndex)),
-                PSQLState.INVALID_PARAMETER_VALUE);
-      }
-    } else if (type == java.time.LocalTime.class) {
-      if (sqlType == Types.TIME) {
-        return type.cast(getLocalTime(columnIndex));
-      } else {
-        throw new PSQLException(GT.tr("conversion to {0} from {1} not supported", type, getPGType(columnIndex)),
-                PSQLState.INVALID_PARAMETER_VALUE);
-      }
-    } else if (type == java.time.LocalDateTime.class) {
-      if (sqlType == Types.TIMESTAMP) {
-        return type.cast(getLocalDateTime(columnIndex));
-      } else {
-        throw new PSQLException(GT.tr("conversion to {0} from {1} not supported", type, getPGType(columnIndex)),
-                PSQLState.INVALID_PARAMETER_VALUE);
-      }
-    } else if (type == java.time.OffsetDateTime.class) {
-      if (sqlType == Types.TIMESTAMP_WITH_TIMEZONE || sqlType == Types.TIMESTAMP) {
-        java.time.OffsetDateTime offsetDateTime = getOffsetDateTime(columnIndex);
-        return type.cast(offsetDateTime);
-      } else {
-        throw new PSQLException(GT.tr("conversion to {0} from {1} not supported", type, getPGType(columnIndex)),
-                PSQLState.INVALID_PARAMETER_VALUE);
-      }
-    } else if (PGobject.class.isAssignableFrom(type)) {
-      Object object;
-      if (isBinary(columnIndex)) {
-        byte[] byteValue = castNonNull(thisRow, "thisRow").get(columnIndex - 1);
-        object = connection.getObject(getPGType(columnIndex), null, byteValue);
-      } else {
-        object = connection.getObject(getPGType(columnIndex), getString(columnIndex), null);
-      }
-      return type.cast(object);
+        int slash = inetText.indexOf("/");
+        try {
+          return type.cast(InetAddress.getByName(slash < 0 ? inetText : inetText.substring(0, slash)));
+        } catch (UnknownHostException ex) {
+          throw new PSQLException(GT.tr("Invalid Inet data."), PSQLState.INVALID_PARAMETER_VALUE, ex);
+        }
+      case LOCAL_DATE:
+        if (sqlType == Types.DATE) {
+          Date dateValue = getDate(columnIndex);
+          if (dateValue == null) {
+            return null;
+          }
+          long time = dateValue.getTime();
+          if (time == PGStatement.DATE_POSITIVE_INFINITY) {
+            return type.cast(java.time.LocalDate.MAX);
+          }
+          if (time == PGStatement.DATE_NEGATIVE_INFINITY) {
+            return type.cast(java.time.LocalDate.MIN);
+          }
+          return type.cast(dateValue.toLocalDate());
+        } else if (sqlType == Types.TIMESTAMP) {
+          java.time.LocalDateTime localDateTimeValue = getLocalDateTime(columnIndex);
+          if (localDateTimeValue == null) {
+            return null;
+          }
+          return type.cast(localDateTimeValue.toLocalDate());
+        } else {
+          throw new PSQLException(GT.tr("conversion to {0} from {1} not supported", type, getPGType(columnIndex)),
+                  PSQLState.INVALID_PARAMETER_VALUE);
+        }
+      case LOCAL_TIME:
+        if (sqlType == Types.TIME) {
+          return type.cast(getLocalTime(columnIndex));
+        } else {
+          throw new PSQLException(GT.tr("conversion to {0} from {1} not supported", type, getPGType(columnIndex)),
+                  PSQLState.INVALID_PARAMETER_VALUE);
+        }
+      case LOCAL_DATE_TIME:
+        if (sqlType == Types.TIMESTAMP) {
+          return type.cast(getLocalDateTime(columnIndex));
+        } else {
+          throw new PSQLException(GT.tr("conversion to {0} from {1} not supported", type, getPGType(columnIndex)),
+                  PSQLState.INVALID_PARAMETER_VALUE);
+        }
+      case OFFSET_DATE_TIME:
+        if (sqlType == Types.TIMESTAMP_WITH_TIMEZONE || sqlType == Types.TIMESTAMP) {
+          java.time.OffsetDateTime offsetDateTime = getOffsetDateTime(columnIndex);
+          return type.cast(offsetDateTime);
+        } else {
+          throw new PSQLException(GT.tr("conversion to {0} from {1} not supported", type, getPGType(columnIndex)),
+                  PSQLState.INVALID_PARAMETER_VALUE);
+        }
+      case PG_OBJECT:
+        Object object;
+        if (isBinary(columnIndex)) {
+          byte[] byteValue = getRawValue(columnIndex);
+          object = connection.getObject(getPGType(columnIndex), null, byteValue);
+        } else {
+          object = connection.getObject(getPGType(columnIndex), getString(columnIndex), null);
+        }
+        return type.cast(object);
+      default:
+          throw new PSQLException(GT.tr("conversion to {0} from {1} not supported", type, getPGType(columnIndex)),
+              PSQLState.INVALID_PARAMETER_VALUE);
     }
-    throw new PSQLException(GT.tr("conversion to {0} from {1} not supported", type, getPGType(columnIndex)),
-            PSQLState.INVALID_PARAMETER_VALUE);
   }
 
   public <T> @Nullable T getObject(String columnLabel, Class<T> type) throws SQLException {
@@ -3828,12 +4176,16 @@ public class PgResultSet implements ResultSet, org.postgresql.PGRefCursorResultS
   @Pure
   public @Nullable SQLXML getSQLXML(@Positive int columnIndex) throws SQLException {
     connection.getLogger().log(Level.FINEST, "  getSQLXML columnIndex: {0}", columnIndex);
-    String data = getString(columnIndex);
-    if (data == null) {
+    byte[] value = getRawValue(columnIndex);
+    if (value == null) {
       return null;
     }
 
-    return new PgSQLXML(connection, data);
+    if (fields[columnIndex - 1].getOID() == Oid.XML) {
+      // xml is sent in the connection encoding in both formats, so parse the received bytes
+      return new PgSQLXML(connection, value);
+    }
+    return new PgSQLXML(connection, castNonNull(getString(columnIndex)));
   }
 
   public @Nullable SQLXML getSQLXML(String columnName) throws SQLException {
@@ -5,6 +5,8 @@
 
 package org.postgresql.jdbc;
 
+import static org.postgresql.util.internal.Nullness.castNonNull;
+
 import org.postgresql.core.BaseConnection;
 import org.postgresql.util.GT;
 import org.postgresql.util.PSQLException;
@@ -54,6 +56,8 @@ public class PgSQLXML implements SQLXML {
 
   private final BaseConnection conn;
   private @Nullable String data; // The actual data contained.
+  // The data as received, in the connection encoding. When set, data is decoded on first use.
+  private byte @Nullable [] bytes;
   private boolean initialized; // Has someone assigned the data for this object?
   private boolean active; // Is anyone in the process of loading data into us?
   private boolean freed;
@@ -70,6 +74,18 @@ public class PgSQLXML implements SQLXML {
     this(conn, data, true);
   }
 
+  /**
+   * Creates an initialized object over a column value as received from the server, which is
+   * decoded only if it is read as a String. Sources and streams read the bytes directly.
+   *
+   * @param conn the connection the value was received on
+   * @param bytes the value in the connection encoding, which must not be modified afterwards
+   */
+  PgSQLXML(BaseConnection conn, byte[] bytes) {
+    this(conn, null, true);
+    this.bytes = bytes;
+  }
+
   private PgSQLXML(BaseConnection conn, @Nullable String data, boolean initialized) {
     this.conn = conn;
     this.data = data;
@@ -89,6 +105,23 @@ public class PgSQLXML implements SQLXML {
   public synchronized void free() {
     freed = true;
     data = null;
+    bytes = null;
+  }
+
+  /**
+   * Decodes the received bytes, if any, into {@link #data}.
+   */
+  private void decodeBytes() throws SQLException {
+    byte[] bytes = this.bytes;
+    if (bytes == null || data != null) {
+      return;
+    }
+    try {
+      data = conn.getEncoding().decode(bytes);
+    } catch (IOException ioe) {
+      throw new PSQLException(GT.tr("Failed to convert binary xml data to encoding: {0}.",
+          conn.getEncoding().name()), PSQLState.DATA_ERROR, ioe);
+    }
   }
 
   @Override
@@ -96,6 +129,10 @@ public class PgSQLXML implements SQLXML {
     checkFreed();
     ensureInitialized();
 
+    byte[] bytes = this.bytes;
+    if (bytes != null) {
+      return new ByteArrayInputStream(bytes);
+    }
     if (data == null) {
       return null;
     }
@@ -116,6 +153,10 @@ public class PgSQLXML implements SQLXML {
     checkFreed();
     ensureInitialized();
 
+    byte[] bytes = this.bytes;
+    if (bytes != null && data == null) {
+      return newReader(bytes);
+    }
     if (data == null) {
       return null;
     }
@@ -123,6 +164,30 @@ public class PgSQLXML implements SQLXML {
     return new StringReader(data);
   }
 
+  private Reader newReader(byte[] bytes) throws SQLException {
+    try {
+      return conn.getEncoding().getDecodingReader(new ByteArrayInputStream(bytes));
+    } catch (IOException ioe) {
+      throw new PSQLException(GT.tr("Failed to convert binary xml data to encoding: {0}.",
+          conn.getEncoding().name()), PSQLState.DATA_ERROR, ioe);
+    }
+  }
+
+  /**
+   * Creates the input for a parser. Received bytes are passed as a byte stream with the
+   * connection encoding, which overrides the encoding declaration of the document, so the
+   * parser decodes them without an intermediate String.
+   */
+  private InputSource newInputSource() throws SQLException {
+    byte[] bytes = this.bytes;
+    if (bytes != null) {
+      InputSource input = new InputSource(new ByteArrayInputStream(bytes));
+      input.setEncoding(conn.getEncoding().name());
+      return input;
+    }
+    return new InputSource(new StringReader(castNonNull(data)));
+  }
+
   // We must implement this unsafely because that's what the
   // interface requires. Because it says we're returning T
   // which is unknown, none of the return values can satisfy it
@@ -135,27 +200,31 @@ public class PgSQLXML implements SQLXML {
     checkFreed();
     ensureInitialized();
 
+    byte[] bytes = this.bytes;
     String data = this.data;
-    if (data == null) {
+    if (bytes == null && data == null) {
       return null;
     }
 
     try {
       if (sourceClass == null || DOMSource.class.equals(sourceClass)) {
         DocumentBuilder builder = getXmlFactoryFactory().newDocumentBuilder();
-        InputSource input = new InputSource(new StringReader(data));
-        DOMSource domSource = new DOMSource(builder.parse(input));
+        DOMSource domSource = new DOMSource(builder.parse(newInputSource()));
         //noinspection unchecked
         return (T) domSource;
       } else if (SAXSource.class.equals(sourceClass)) {
         XMLReader reader = getXmlFactoryFactory().createXMLReader();
-        InputSource is = new InputSource(new StringReader(data));
-        return sourceClass.cast(new SAXSource(reader, is));
+        return sourceClass.cast(new SAXSource(reader, newInputSource()));
       } else if (StreamSource.class.equals(sourceClass)) {
-        return sourceClass.cast(new StreamSource(new StringReader(data)));
+        // StreamSource has no way to pass the encoding of a byte stream
+        Reader reader = bytes != null ? newReader(bytes) : new StringReader(castNonNull(data));
+        return sourceClass.cast(new StreamSource(reader));
       } else if (StAXSource.class.equals(sourceClass)) {
         XMLInputFactory xif = getXmlFactoryFactory().newXMLInputFactory();
-        XMLStreamReader xsr = xif.createXMLStreamReader(new StringReader(data));
+        XMLStreamReader xsr = bytes != null
+            ? xif.createXMLStreamReader(new ByteArrayInputStream(bytes),
+                conn.getEncoding().name())
+            : xif.createXMLStreamReader(new StringReader(castNonNull(data)));
         return sourceClass.cast(new StAXSource(xsr));
       }
     } catch (Exception e) {
@@ -170,6 +239,7 @@ public class PgSQLXML implements SQLXML {
   public synchronized @Nullable String getString() throws SQLException {
     checkFreed();
     ensureInitialized();
+    decodeBytes();
     return data;
   }
 
@@ -28,12 +28,14 @@ import org.checkerframework.checker.lock.qual.GuardedBy;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.checkerframework.checker.nullness.qual.RequiresNonNull;
 
+import java.sql.BatchUpdateException;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.SQLWarning;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.TimerTask;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
@@ -52,6 +54,12 @@ public class PgStatement implements Statement, BaseStatement {
 
   protected @Nullable ArrayList<Query> batchStatements = null;
   protected @Nullable ArrayList<@Nullable ParameterList> batchParameters = null;
+  /**
+   * Update counts of the batch entries already executed by {@code addBatch}, see
+   * {@link org.postgresql.PGProperty#BATCH_CHUNK_SIZE}.
+   */
+  private long @Nullable [] executedUpdateCounts = null;
+  private int executedEntries;
   protected final int resultsettype; // the resultset type to return (ResultSet.TYPE_xxx)
   protected final int concurrency; // is it updateable or not? (ResultSet.CONCUR_xxx)
   private final int rsHoldability;
@@ -141,6 +149,11 @@ public class PgStatement implements Statement, BaseStatement {
    */
   protected @Nullable ResultWrapper generatedKeys = null;
 
+  /**
+   * Result handler of the last execution, kept for the next one.
+   */
+  private @Nullable StatementResultHandler reusableHandler;
+
   protected int mPrepareThreshold; // Reuse threshold to enable use of PREPARE
 
   protected int maxFieldSize = 0;
@@ -232,6 +245,12 @@ public class PgStatement implements Statement, BaseStatement {
       PgStatement.this.addWarning(warning);
     }
 
+    @Override
+    protected void reset() {
+      super.reset();
+      results = null;
+      lastResult = null;
+    }
   }
 
   @Override
@@ -467,7 +486,14 @@ public class PgStatement implements Statement, BaseStatement {
       }
     }
 
-    StatementResultHandler handler = new StatementResultHandler();
+    // Take the handler of the previous execution, so a statement that is executed repeatedly
+    // does not allocate one each time.
+    StatementResultHandler handler = reusableHandler;
+    if (handler == null) {
+      handler = new StatementResultHandler();
+    } else {
+      reusableHandler = null;
+    }
     synchronized (this) {
       result = null;
     }
@@ -483,6 +509,8 @@ public class PgStatement implements Statement, BaseStatement {
 
       ResultWrapper currentResult = handler.getResults();
       result = firstUnclosedResult = currentResult;
+      handler.reset();
+      reusableHandler = handler;
 
       if (wantsGeneratedKeysOnce || wantsGeneratedKeysAlways) {
         generatedKeys = currentResult;
@@ -744,10 +772,23 @@ public class PgStatement implements Statement, BaseStatement {
     CachedQuery cachedQuery = connection.createQuery(sql, replaceProcessingEnabled, shouldUseParameterized);
     batchStatements.add(cachedQuery.query);
     batchParameters.add(null);
+    if (isBatchChunkFull()) {
+      executeBatchChunk();
+    }
   }
 
   @Override
   public void clearBatch() throws SQLException {
+    clearBatchEntries();
+    executedUpdateCounts = null;
+    executedEntries = 0;
+  }
+
+  /**
+   * Discards the batch entries that are not executed yet, but keeps the update counts of the
+   * entries executed by {@code addBatch}.
+   */
+  protected void clearBatchEntries() {
     if (batchStatements != null) {
       batchStatements.clear();
     }
@@ -756,6 +797,92 @@ public class PgStatement implements Statement, BaseStatement {
     }
   }
 
+  /**
+   * Returns whether the batch holds as many entries as the batch chunk size, so that
+   * {@code addBatch} should execute them. Batches returning generated keys are not split.
+   *
+   * @return true if the batch should be executed
+   */
+  protected boolean isBatchChunkFull() {
+    int chunkSize = connection.getQueryExecutor().getBatchChunkSize();
+    ArrayList<@Nullable ParameterList> batchParameters = this.batchParameters;
+    return chunkSize > 0 && !wantsGeneratedKeysAlways && batchParameters != null
+        && batchParameters.size() >= chunkSize;
+  }
+
+  /**
+   * Executes the batch entries added so far and keeps their update counts for
+   * {@code executeBatch}. Unlike an execution, it leaves the result sets and warnings of the
+   * statement alone: a chunk returns neither results nor generated keys.
+   *
+   * @throws SQLException if a batch entry fails, after which the batch is cleared
+   */
+  protected void executeBatchChunk() throws SQLException {
+    long[] updateCounts = executeBatchEntries();
+    long[] executed = executedUpdateCounts;
+    int length = executedEntries + updateCounts.length;
+    if (executed == null) {
+      executed = new long[Math.max(length, 16)];
+    } else if (length > executed.length) {
+      executed = Arrays.copyOf(executed, Math.max(length, executed.length * 2));
+    }
+    System.arraycopy(updateCounts, 0, executed, executedEntries, updateCounts.length);
+    executedUpdateCounts = executed;
+    executedEntries = length;
+  }
+
+  /**
+   * Executes the batch entries not executed yet. After a failure, the update counts of the
+   * entries executed by {@code addBatch} are added to the exception and the batch is cleared.
+   */
+  @RequiresNonNull({"batchStatements", "batchParameters"})
+  private long[] executeBatchEntries() throws SQLException {
+    try {
+      long[] rewrittenUpdateCounts = executeBatchRewritten();
+      if (rewrittenUpdateCounts != null) {
+        return rewrittenUpdateCounts;
+      }
+      return internalExecuteBatch().getLargeUpdateCount();
+    } catch (BatchUpdateException e) {
+      long[] executed = executedUpdateCounts;
+      int executedEntries = this.executedEntries;
+      clearBatch();
+      if (executed == null) {
+        throw e;
+      }
+      long[] updateCounts = concatUpdateCounts(executed, executedEntries, e.getLargeUpdateCounts());
+      BatchUpdateException batchException = new BatchUpdateException(e.getMessage(),
+          e.getSQLState(), e.getErrorCode(), updateCounts, e.getCause());
+      batchException.setNextException(e.getNextException());
+      throw batchException;
+    } catch (SQLException e) {
+      clearBatch();
+      throw e;
+    }
+  }
+
+  private static long[] concatUpdateCounts(long[] executed, int executedEntries,
+      long[] updateCounts) {
+    long[] result = Arrays.copyOf(executed, executedEntries + updateCounts.length);
+    System.arraycopy(updateCounts, 0, result, executedEntries, updateCounts.length);
+    return result;
+  }
+
+  /**
+   * Executes the batch entries not executed yet and returns the update counts of the whole
+   * batch, including the entries executed by {@code addBatch}.
+   */
+  private long[] executeChunkedBatch() throws SQLException {
+    long[] updateCounts = new long[0];
+    if (batchStatements != null && !batchStatements.isEmpty() && batchParameters != null) {
+      updateCounts = executeBatchEntries();
+    }
+    long[] executed = castNonNull(executedUpdateCounts);
+    updateCounts = concatUpdateCounts(executed, executedEntries, updateCounts);
+    clearBatch();
+    return updateCounts;
+  }
+
   protected BatchResultHandler createBatchHandler(Query[] queries,
       @Nullable ParameterList[] parameterLists) {
     return new BatchResultHandler(this, queries, parameterLists,
@@ -889,13 +1016,38 @@ public class PgStatement implements Statement, BaseStatement {
     checkClosed();
     closeForNextExecution();
 
-    if (batchStatements == null || batchStatements.isEmpty() || batchParameters == null) {
+    long[] largeUpdateCounts;
+    if (executedUpdateCounts != null) {
+      largeUpdateCounts = executeChunkedBatch();
+    } else if (batchStatements == null || batchStatements.isEmpty() || batchParameters == null) {
       return new int[0];
+    } else {
+      largeUpdateCounts = executeBatchRewritten();
+    }
+    if (largeUpdateCounts != null) {
+      int[] updateCounts = new int[largeUpdateCounts.length];
+      for (int i = 0; i < updateCounts.length; i++) {
+        updateCounts[i] = (int) largeUpdateCounts[i];
+      }
+      return updateCounts;
     }
 
     return internalExecuteBatch().getUpdateCount();
   }
 
+  /**
+   * Executes the batch as a single COPY or statement instead of one query per batch entry, if
+   * the statement and the batched values allow it.
+   *
+   * @return the update counts, or {@code null} if the batch must be executed as usual
+   * @throws SQLException if the COPY or statement fails
+   * @see org.postgresql.PGProperty#BATCH_INSERT_MODE
+   * @see org.postgresql.PGProperty#REWRITE_BATCHED_UPDATES
+   */
+  protected long @Nullable [] executeBatchRewritten() throws SQLException {
+    return null;
+  }
+
   public void cancel() throws SQLException {
     if (statementState == StatementCancelState.IDLE) {
       return;
@@ -954,7 +1106,7 @@ public class PgStatement implements Statement, BaseStatement {
     fetchSize = rows;
   }
 
-  private void startTimer() {
+  void startTimer() {
     /*
      * there shouldn't be any previous timer active, but better safe than sorry.
      */
@@ -1005,7 +1157,7 @@ public class PgStatement implements Statement, BaseStatement {
     return true;
   }
 
-  private void killTimerTask() {
+  void killTimerTask() {
     boolean timerTaskIsClear = cleanupTimer();
     // The order is important here: in case we need to wait for the cancel task, the state must be
     // kept StatementCancelState.IN_QUERY, so cancelTask would be able to cancel the query.
@@ -1067,10 +1219,18 @@ public class PgStatement implements Statement, BaseStatement {
     checkClosed();
     closeForNextExecution();
 
+    if (executedUpdateCounts != null) {
+      return executeChunkedBatch();
+    }
     if (batchStatements == null || batchStatements.isEmpty() || batchParameters == null) {
       return new long[0];
     }
 
+    long[] rewrittenUpdateCounts = executeBatchRewritten();
+    if (rewrittenUpdateCounts != null) {
+      return rewrittenUpdateCounts;
+    }
+
     return internalExecuteBatch().getLargeUpdateCount();
   }
 
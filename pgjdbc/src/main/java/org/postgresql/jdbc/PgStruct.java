@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.jdbc;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.Struct;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * A value of a composite type, with its attributes converted as by
+ * {@link java.sql.ResultSet#getObject(int)}.
+ */
+public class PgStruct implements Struct {
+  private final String typeName;
+  private final @Nullable Object[] attributes;
+
+  public PgStruct(String typeName, @Nullable Object[] attributes) {
+    this.typeName = typeName;
+    this.attributes = attributes;
+  }
+
+  @Override
+  public String getSQLTypeName() throws SQLException {
+    return typeName;
+  }
+
+  @Override
+  public @Nullable Object[] getAttributes() throws SQLException {
+    return attributes.clone();
+  }
+
+  @Override
+  public @Nullable Object[] getAttributes(Map<String, Class<?>> map) throws SQLException {
+    if (map.isEmpty()) {
+      return getAttributes();
+    }
+    throw new SQLFeatureNotSupportedException();
+  }
+
+  @Override
+  public String toString() {
+    return typeName + Arrays.toString(attributes);
+  }
+}
@@ -0,0 +1,367 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.jdbc;
+
+import org.postgresql.core.BaseConnection;
+import org.postgresql.core.Oid;
+import org.postgresql.util.ByteConverter;
+import org.postgresql.util.GT;
+import org.postgresql.util.PGMultirange;
+import org.postgresql.util.PGRange;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.PSQLState;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Decodes the built-in range and multirange types into {@link PGRange} and {@link PGMultirange}.
+ *
+ * <p>The binary format of a range is a flags byte, followed by the length and value of each bound
+ * that is present. A multirange is a count of ranges, each prefixed with its length. Bounds are
+ * decoded by the same conversions the result set uses for columns of the subtype.</p>
+ */
+final class RangeDecoding {
+
+  static final int RANGE_EMPTY = 0x01;
+  static final int RANGE_LB_INC = 0x02;
+  static final int RANGE_UB_INC = 0x04;
+  static final int RANGE_LB_INF = 0x08;
+  static final int RANGE_UB_INF = 0x10;
+
+  private RangeDecoding() {
+  }
+
+  /**
+   * Returns the subtype of a built-in range type.
+   *
+   * @param oid oid of the range type
+   * @return oid of the subtype, or {@link Oid#UNSPECIFIED} if the type is not a built-in range
+   */
+  static int getSubtype(int oid) {
+    switch (oid) {
+      case Oid.INT4RANGE:
+        return Oid.INT4;
+      case Oid.INT8RANGE:
+        return Oid.INT8;
+      case Oid.NUMRANGE:
+        return Oid.NUMERIC;
+      case Oid.DATERANGE:
+        return Oid.DATE;
+      case Oid.TSRANGE:
+        return Oid.TIMESTAMP;
+      case Oid.TSTZRANGE:
+        return Oid.TIMESTAMPTZ;
+      default:
+        return Oid.UNSPECIFIED;
+    }
+  }
+
+  /**
+   * Returns the range type of a built-in multirange type.
+   *
+   * @param oid oid of the multirange type
+   * @return oid of the range type, or {@link Oid#UNSPECIFIED} if the type is not a built-in
+   *     multirange
+   */
+  static int getMultirangeRange(int oid) {
+    switch (oid) {
+      case Oid.INT4MULTIRANGE:
+        return Oid.INT4RANGE;
+      case Oid.INT8MULTIRANGE:
+        return Oid.INT8RANGE;
+      case Oid.NUMMULTIRANGE:
+        return Oid.NUMRANGE;
+      case Oid.DATEMULTIRANGE:
+        return Oid.DATERANGE;
+      case Oid.TSMULTIRANGE:
+        return Oid.TSRANGE;
+      case Oid.TSTZMULTIRANGE:
+        return Oid.TSTZRANGE;
+      default:
+        return Oid.UNSPECIFIED;
+    }
+  }
+
+  /**
+   * Decodes a range or multirange value received in binary format.
+   *
+   * @param connection the connection the value was received on
+   * @param oid oid of the range or multirange type
+   * @param bytes the value
+   * @return a {@link PGRange} or {@link PGMultirange}
+   * @throws SQLException if the value cannot be decoded
+   */
+  static Object decodeBinary(BaseConnection connection, int oid, byte[] bytes)
+      throws SQLException {
+    int subtype = getSubtype(oid);
+    if (subtype != Oid.UNSPECIFIED) {
+      return readBinary(connection, subtype, bytes, 0, bytes.length);
+    }
+    return readBinaryMultirange(connection, getSubtype(getMultirangeRange(oid)), bytes, 0);
+  }
+
+  /**
+   * Decodes a range or multirange value received in text format.
+   *
+   * @param connection the connection the value was received on
+   * @param oid oid of the range or multirange type
+   * @param literal the value
+   * @return a {@link PGRange} or {@link PGMultirange}
+   * @throws SQLException if the value cannot be decoded
+   */
+  static Object decodeText(BaseConnection connection, int oid, String literal)
+      throws SQLException {
+    int subtype = getSubtype(oid);
+    if (subtype != Oid.UNSPECIFIED) {
+      return readText(connection, subtype, literal);
+    }
+    return readTextMultirange(connection, getSubtype(getMultirangeRange(oid)), literal);
+  }
+
+  /**
+   * Formats a range or multirange the way the server does in text mode.
+   *
+   * @param connection the connection
+   * @param oid oid of the range or multirange type
+   * @param value a {@link PGRange} or {@link PGMultirange}
+   * @return the literal
+   */
+  static String toText(BaseConnection connection, int oid, Object value) {
+    int subtype = getSubtype(oid);
+    if (subtype != Oid.UNSPECIFIED) {
+      return toText(connection, subtype, (PGRange<?>) value);
+    }
+    return toText(connection, getSubtype(getMultirangeRange(oid)), (PGMultirange<?>) value);
+  }
+
+  /**
+   * Returns true if the type is a built-in range or multirange type.
+   *
+   * @param oid the type oid
+   * @return true for ranges and multiranges
+   */
+  static boolean isRange(int oid) {
+    return getSubtype(oid) != Oid.UNSPECIFIED || getMultirangeRange(oid) != Oid.UNSPECIFIED;
+  }
+
+  static PGRange<Object> readBinary(BaseConnection connection, int subtype, byte[] bytes,
+      int offset, int length) throws SQLException {
+    int flags = bytes[offset];
+    if ((flags & RANGE_EMPTY) != 0) {
+      return PGRange.empty();
+    }
+    int pos = offset + 1;
+    Object lower = null;
+    if ((flags & RANGE_LB_INF) == 0) {
+      int len = ByteConverter.int4(bytes, pos);
+      lower = decodeBinaryBound(connection, subtype, bytes, pos + 4, len);
+      pos += 4 + len;
+    }
+    Object upper = null;
+    if ((flags & RANGE_UB_INF) == 0) {
+      int len = ByteConverter.int4(bytes, pos);
+      upper = decodeBinaryBound(connection, subtype, bytes, pos + 4, len);
+      pos += 4 + len;
+    }
+    if (pos != offset + length) {
+      throw new PSQLException(GT.tr("Malformed range value"), PSQLState.DATA_ERROR);
+    }
+    return PGRange.of(lower, (flags & RANGE_LB_INC) != 0, upper, (flags & RANGE_UB_INC) != 0);
+  }
+
+  static PGMultirange<Object> readBinaryMultirange(BaseConnection connection, int subtype,
+      byte[] bytes, int offset) throws SQLException {
+    int count = ByteConverter.int4(bytes, offset);
+    int pos = offset + 4;
+    List<PGRange<Object>> ranges = new ArrayList<PGRange<Object>>(count);
+    for (int i = 0; i < count; i++) {
+      int len = ByteConverter.int4(bytes, pos);
+      ranges.add(readBinary(connection, subtype, bytes, pos + 4, len));
+      pos += 4 + len;
+    }
+    return new PGMultirange<Object>(ranges);
+  }
+
+  private static Object decodeBinaryBound(BaseConnection connection, int subtype, byte[] bytes,
+      int offset, int length) throws SQLException {
+    switch (subtype) {
+      case Oid.INT4:
+        return ByteConverter.int4(bytes, offset);
+      case Oid.INT8:
+        return ByteConverter.int8(bytes, offset);
+      case Oid.NUMERIC:
+        return ByteConverter.numeric(bytes, offset, length);
+      case Oid.DATE:
+        return connection.getTimestampUtils().toDateBin(null,
+            Arrays.copyOfRange(bytes, offset, offset + length));
+      default:
+        return connection.getTimestampUtils().toTimestampBin(null,
+            Arrays.copyOfRange(bytes, offset, offset + length), subtype == Oid.TIMESTAMPTZ);
+    }
+  }
+
+  private static Object decodeTextBound(BaseConnection connection, int subtype, String value)
+      throws SQLException {
+    try {
+      switch (subtype) {
+        case Oid.INT4:
+          return Integer.valueOf(value);
+        case Oid.INT8:
+          return Long.valueOf(value);
+        case Oid.NUMERIC:
+          return new BigDecimal(value);
+        case Oid.DATE:
+          return connection.getTimestampUtils().toDate(null, value);
+        default:
+          return connection.getTimestampUtils().toTimestamp(null, value);
+      }
+    } catch (NumberFormatException e) {
+      throw new PSQLException(GT.tr("Bad value for type {0} : {1}", Oid.toString(subtype), value),
+          PSQLState.NUMERIC_VALUE_OUT_OF_RANGE, e);
+    }
+  }
+
+  /**
+   * Parses a range in the format of {@code range_out}.
+   *
+   * @param connection the connection the value was received on
+   * @param subtype oid of the range subtype
+   * @param literal the text value
+   * @return the range
+   * @throws SQLException if the value is malformed
+   */
+  static PGRange<Object> readText(BaseConnection connection, int subtype, String literal)
+      throws SQLException {
+    int[] end = new int[1];
+    PGRange<Object> range = parseRange(connection, subtype, literal, 0, end);
+    if (end[0] != literal.length()) {
+      throw malformed(literal);
+    }
+    return range;
+  }
+
+  static PGMultirange<Object> readTextMultirange(BaseConnection connection, int subtype,
+      String literal) throws SQLException {
+    int length = literal.length();
+    if (length < 2 || literal.charAt(0) != '{' || literal.charAt(length - 1) != '}') {
+      throw malformed(literal);
+    }
+    List<PGRange<Object>> ranges = new ArrayList<PGRange<Object>>();
+    int[] end = new int[]{1};
+    while (end[0] < length - 1) {
+      ranges.add(parseRange(connection, subtype, literal, end[0], end));
+      if (literal.charAt(end[0]) == ',') {
+        end[0]++;
+      }
+    }
+    return new PGMultirange<Object>(ranges);
+  }
+
+  private static PGRange<Object> parseRange(BaseConnection connection, int subtype,
+      String literal, int start, int[] end) throws SQLException {
+    if (literal.regionMatches(true, start, "empty", 0, 5)) {
+      end[0] = start + 5;
+      return PGRange.empty();
+    }
+    if (start >= literal.length()) {
+      throw malformed(literal);
+    }
+    char open = literal.charAt(start);
+    if (open != '[' && open != '(') {
+      throw malformed(literal);
+    }
+    StringBuilder sb = new StringBuilder();
+    int pos = readBound(literal, start + 1, sb);
+    String lower = pos > start + 1 ? sb.toString() : null;
+    if (pos >= literal.length() || literal.charAt(pos) != ',') {
+      throw malformed(literal);
+    }
+    sb.setLength(0);
+    int upperStart = pos + 1;
+    pos = readBound(literal, upperStart, sb);
+    String upper = pos > upperStart ? sb.toString() : null;
+    if (pos >= literal.length()) {
+      throw malformed(literal);
+    }
+    char close = literal.charAt(pos);
+    if (close != ']' && close != ')') {
+      throw malformed(literal);
+    }
+    end[0] = pos + 1;
+    return PGRange.of(
+        lower == null ? null : decodeTextBound(connection, subtype, lower), open == '[',
+        upper == null ? null : decodeTextBound(connection, subtype, upper), close == ']');
+  }
+
+  /**
+   * Reads a possibly quoted bound up to the next unquoted delimiter.
+   *
+   * @return position of the delimiter
+   */
+  private static int readBound(String literal, int pos, StringBuilder sb) {
+    boolean inQuotes = false;
+    while (pos < literal.length()) {
+      char c = literal.charAt(pos);
+      if (c == '"') {
+        if (inQuotes && pos + 1 < literal.length() && literal.charAt(pos + 1) == '"') {
+          sb.append('"');
+          pos++;
+        } else {
+          inQuotes = !inQuotes;
+        }
+      } else if (c == '\\' && pos + 1 < literal.length()) {
+        sb.append(literal.charAt(++pos));
+      } else if (!inQuotes && (c == ',' || c == ')' || c == ']')) {
+        return pos;
+      } else {
+        sb.append(c);
+      }
+      pos++;
+    }
+    return pos;
+  }
+
+  private static PSQLException malformed(String literal) {
+    return new PSQLException(GT.tr("Malformed range value: {0}", literal), PSQLState.DATA_ERROR);
+  }
+
+  static String toText(BaseConnection connection, int subtype, PGRange<?> range) {
+    if (range.isEmpty()) {
+      return range.toString();
+    }
+    Object lower = range.getLower();
+    Object upper = range.getUpper();
+    return PGRange.of(
+        lower == null ? null : boundToText(connection, subtype, lower), range.isLowerInclusive(),
+        upper == null ? null : boundToText(connection, subtype, upper), range.isUpperInclusive())
+        .toString();
+  }
+
+  static String toText(BaseConnection connection, int subtype, PGMultirange<?> multirange) {
+    StringBuilder sb = new StringBuilder();
+    sb.append('{');
+    List<? extends PGRange<?>> ranges = multirange.getRanges();
+    for (int i = 0; i < ranges.size(); i++) {
+      if (i > 0) {
+        sb.append(',');
+      }
+      sb.append(toText(connection, subtype, ranges.get(i)));
+    }
+    return sb.append('}').toString();
+  }
+
+  private static String boundToText(BaseConnection connection, int subtype, Object bound) {
+    if (bound instanceof java.util.Date) {
+      return connection.getTimestampUtils().timeToString((java.util.Date) bound,
+          subtype == Oid.TIMESTAMPTZ);
+    }
+    return bound.toString();
+  }
+}
@@ -0,0 +1,348 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.jdbc;
+
+import org.postgresql.core.Oid;
+import org.postgresql.util.ByteConverter;
+import org.postgresql.util.GT;
+import org.postgresql.util.PGMultirange;
+import org.postgresql.util.PGRange;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.PSQLState;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Encodes {@link PGRange} and {@link PGMultirange} parameters. The range type is inferred from
+ * the Java type of the bounds; ranges whose type cannot be inferred are sent as text and typed by
+ * the server.
+ */
+final class RangeEncoding {
+
+  // seconds between 1970-01-01 and 2000-01-01, the epoch of the binary date/time formats
+  private static final long PG_EPOCH_SECONDS = 946684800L;
+  private static final long PG_EPOCH_DAYS = 10957L;
+
+  private RangeEncoding() {
+  }
+
+  /**
+   * Infers the built-in range type from the bounds of a range.
+   *
+   * @param range the range
+   * @return oid of the range type, or {@link Oid#UNSPECIFIED} if it cannot be inferred
+   */
+  static int getRangeOid(PGRange<?> range) {
+    Object bound = range.getLower();
+    if (bound == null) {
+      bound = range.getUpper();
+    }
+    if (bound instanceof Integer || bound instanceof Short) {
+      return Oid.INT4RANGE;
+    } else if (bound instanceof Long) {
+      return Oid.INT8RANGE;
+    } else if (bound instanceof BigDecimal) {
+      return Oid.NUMRANGE;
+    } else if (bound instanceof LocalDate || bound instanceof java.sql.Date) {
+      return Oid.DATERANGE;
+    } else if (bound instanceof LocalDateTime) {
+      return Oid.TSRANGE;
+    } else if (bound instanceof OffsetDateTime) {
+      return Oid.TSTZRANGE;
+    }
+    // java.sql.Timestamp could be either tsrange or tstzrange
+    return Oid.UNSPECIFIED;
+  }
+
+  /**
+   * Infers the built-in multirange type from the bounds of its ranges.
+   *
+   * @param multirange the multirange
+   * @return oid of the multirange type, or {@link Oid#UNSPECIFIED} if it cannot be inferred
+   */
+  static int getMultirangeOid(PGMultirange<?> multirange) {
+    for (PGRange<?> range : multirange.getRanges()) {
+      int oid = getRangeOid(range);
+      if (oid != Oid.UNSPECIFIED) {
+        return getMultirangeOid(oid);
+      }
+    }
+    return Oid.UNSPECIFIED;
+  }
+
+  private static int getMultirangeOid(int rangeOid) {
+    switch (rangeOid) {
+      case Oid.INT4RANGE:
+        return Oid.INT4MULTIRANGE;
+      case Oid.INT8RANGE:
+        return Oid.INT8MULTIRANGE;
+      case Oid.NUMRANGE:
+        return Oid.NUMMULTIRANGE;
+      case Oid.DATERANGE:
+        return Oid.DATEMULTIRANGE;
+      case Oid.TSRANGE:
+        return Oid.TSMULTIRANGE;
+      default:
+        return Oid.TSTZMULTIRANGE;
+    }
+  }
+
+  /**
+   * Infers the array type of an array of ranges from the bounds of its elements.
+   *
+   * @param ranges the ranges
+   * @return oid of the range type of the elements, or {@link Oid#UNSPECIFIED} if it cannot be
+   *     inferred
+   */
+  static int getElementRangeOid(@Nullable PGRange<?>[] ranges) {
+    for (PGRange<?> range : ranges) {
+      if (range != null) {
+        int oid = getRangeOid(range);
+        if (oid != Oid.UNSPECIFIED) {
+          return oid;
+        }
+      }
+    }
+    return Oid.UNSPECIFIED;
+  }
+
+  static int getArrayOid(int rangeOid) {
+    switch (rangeOid) {
+      case Oid.INT4RANGE:
+        return Oid.INT4RANGE_ARRAY;
+      case Oid.INT8RANGE:
+        return Oid.INT8RANGE_ARRAY;
+      case Oid.NUMRANGE:
+        return Oid.NUMRANGE_ARRAY;
+      case Oid.DATERANGE:
+        return Oid.DATERANGE_ARRAY;
+      case Oid.TSRANGE:
+        return Oid.TSRANGE_ARRAY;
+      case Oid.TSTZRANGE:
+        return Oid.TSTZRANGE_ARRAY;
+      default:
+        return Oid.UNSPECIFIED;
+    }
+  }
+
+  /**
+   * Encodes a range in binary format.
+   *
+   * @param range the range
+   * @param rangeOid oid of the range type, as returned by {@link #getRangeOid(PGRange)}
+   * @return the binary value
+   * @throws SQLException if a bound does not match the range type
+   */
+  static byte[] toBinary(PGRange<?> range, int rangeOid) throws SQLException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream(32);
+    writeRange(out, range, RangeDecoding.getSubtype(rangeOid));
+    return out.toByteArray();
+  }
+
+  /**
+   * Encodes a multirange in binary format.
+   *
+   * @param multirange the multirange
+   * @param multirangeOid oid of the multirange type
+   * @return the binary value
+   * @throws SQLException if a bound does not match the range type
+   */
+  static byte[] toBinary(PGMultirange<?> multirange, int multirangeOid) throws SQLException {
+    int subtype = RangeDecoding.getSubtype(RangeDecoding.getMultirangeRange(multirangeOid));
+    List<? extends PGRange<?>> ranges = multirange.getRanges();
+    ByteArrayOutputStream out = new ByteArrayOutputStream(16 + 32 * ranges.size());
+    writeInt(out, ranges.size());
+    ByteArrayOutputStream element = new ByteArrayOutputStream(32);
+    for (PGRange<?> range : ranges) {
+      element.reset();
+      writeRange(element, range, subtype);
+      writeInt(out, element.size());
+      out.write(element.toByteArray(), 0, element.size());
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Encodes a one dimensional array of ranges in binary format.
+   *
+   * @param ranges the ranges, possibly containing nulls
+   * @param rangeOid oid of the range type of the elements
+   * @return the binary value
+   * @throws SQLException if a bound does not match the range type
+   */
+  static byte[] toBinaryArray(@Nullable PGRange<?>[] ranges, int rangeOid) throws SQLException {
+    int subtype = RangeDecoding.getSubtype(rangeOid);
+    boolean hasNulls = false;
+    for (PGRange<?> range : ranges) {
+      hasNulls |= range == null;
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream(20 + 36 * ranges.length);
+    writeInt(out, ranges.length == 0 ? 0 : 1);
+    writeInt(out, hasNulls ? 1 : 0);
+    writeInt(out, rangeOid);
+    if (ranges.length > 0) {
+      writeInt(out, ranges.length);
+      writeInt(out, 1);
+    }
+    ByteArrayOutputStream element = new ByteArrayOutputStream(32);
+    for (PGRange<?> range : ranges) {
+      if (range == null) {
+        writeInt(out, -1);
+        continue;
+      }
+      element.reset();
+      writeRange(element, range, subtype);
+      writeInt(out, element.size());
+      out.write(element.toByteArray(), 0, element.size());
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Formats a one dimensional array of ranges as an array literal.
+   *
+   * @param ranges the ranges, possibly containing nulls
+   * @return the array literal
+   */
+  static String toArrayString(@Nullable PGRange<?>[] ranges) {
+    StringBuilder sb = new StringBuilder();
+    sb.append('{');
+    for (int i = 0; i < ranges.length; i++) {
+      if (i > 0) {
+        sb.append(',');
+      }
+      PGRange<?> range = ranges[i];
+      if (range == null) {
+        sb.append("NULL");
+        continue;
+      }
+      sb.append('"');
+      String literal = range.toString();
+      for (int j = 0; j < literal.length(); j++) {
+        char c = literal.charAt(j);
+        if (c == '"' || c == '\\') {
+          sb.append('\\');
+        }
+        sb.append(c);
+      }
+      sb.append('"');
+    }
+    return sb.append('}').toString();
+  }
+
+  private static void writeRange(ByteArrayOutputStream out, PGRange<?> range, int subtype)
+      throws SQLException {
+    if (range.isEmpty()) {
+      out.write(RangeDecoding.RANGE_EMPTY);
+      return;
+    }
+    Object lower = range.getLower();
+    Object upper = range.getUpper();
+    int flags = 0;
+    if (lower == null) {
+      flags |= RangeDecoding.RANGE_LB_INF;
+    } else if (range.isLowerInclusive()) {
+      flags |= RangeDecoding.RANGE_LB_INC;
+    }
+    if (upper == null) {
+      flags |= RangeDecoding.RANGE_UB_INF;
+    } else if (range.isUpperInclusive()) {
+      flags |= RangeDecoding.RANGE_UB_INC;
+    }
+    out.write(flags);
+    if (lower != null) {
+      writeBound(out, lower, subtype);
+    }
+    if (upper != null) {
+      writeBound(out, upper, subtype);
+    }
+  }
+
+  private static void writeBound(ByteArrayOutputStream out, Object bound, int subtype)
+      throws SQLException {
+    switch (subtype) {
+      case Oid.INT4:
+        if (bound instanceof Integer || bound instanceof Short) {
+          writeInt(out, 4);
+          writeInt(out, ((Number) bound).intValue());
+          return;
+        }
+        break;
+      case Oid.INT8:
+        if (bound instanceof Long) {
+          writeInt(out, 8);
+          writeLong(out, (Long) bound);
+          return;
+        }
+        break;
+      case Oid.NUMERIC:
+        if (bound instanceof BigDecimal) {
+          byte[] bytes = ByteConverter.numeric((BigDecimal) bound);
+          writeInt(out, bytes.length);
+          out.write(bytes, 0, bytes.length);
+          return;
+        }
+        break;
+      case Oid.DATE:
+        LocalDate date = bound instanceof java.sql.Date
+            ? ((java.sql.Date) bound).toLocalDate()
+            : bound instanceof LocalDate ? (LocalDate) bound : null;
+        if (date != null) {
+          writeInt(out, 4);
+          writeInt(out, (int) (date.toEpochDay() - PG_EPOCH_DAYS));
+          return;
+        }
+        break;
+      case Oid.TIMESTAMP:
+        if (bound instanceof LocalDateTime) {
+          LocalDateTime dateTime = (LocalDateTime) bound;
+          writeInt(out, 8);
+          writeLong(out, toMicros(dateTime.toEpochSecond(ZoneOffset.UTC), dateTime.getNano()));
+          return;
+        }
+        break;
+      case Oid.TIMESTAMPTZ:
+        if (bound instanceof OffsetDateTime) {
+          OffsetDateTime dateTime = (OffsetDateTime) bound;
+          writeInt(out, 8);
+          writeLong(out, toMicros(dateTime.toEpochSecond(), dateTime.getNano()));
+          return;
+        }
+        break;
+      default:
+        break;
+    }
+    throw new PSQLException(
+        GT.tr("Cannot cast an instance of {0} to type {1}", bound.getClass().getName(),
+            Oid.toString(subtype)),
+        PSQLState.INVALID_PARAMETER_TYPE);
+  }
+
+  private static long toMicros(long epochSeconds, int nanos) {
+    return (epochSeconds - PG_EPOCH_SECONDS) * 1000000L + nanos / 1000;
+  }
+
+  private static void writeInt(ByteArrayOutputStream out, int value) {
+    byte[] bytes = new byte[4];
+    ByteConverter.int4(bytes, 0, value);
+    out.write(bytes, 0, 4);
+  }
+
+  private static void writeLong(ByteArrayOutputStream out, long value) {
+    byte[] bytes = new byte[8];
+    ByteConverter.int8(bytes, 0, value);
+    out.write(bytes, 0, 8);
+  }
+}
@@ -0,0 +1,209 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.jdbc;
+
+import org.postgresql.util.ByteStreamWriter;
+import org.postgresql.util.PGMultirange;
+import org.postgresql.util.PGRange;
+import org.postgresql.util.PGobject;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.sql.Array;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.Date;
+import java.sql.SQLXML;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Resolves the Java classes handled by {@code setObject(int, Object)} and
+ * {@code getObject(int, Class)} to the conversion that applies to them. Each class is resolved
+ * once per class loader through a {@link ClassValue}, so the statement and the result set switch
+ * on an enum instead of testing the class against every supported type on each call.
+ */
+final class TypeDispatch {
+
+  /**
+   * Conversions of {@code setObject(int, Object)}, in the order in which the value is tested
+   * against the types.
+   */
+  enum Binder {
+    UUID(java.util.UUID.class),
+    SQLXML(java.sql.SQLXML.class),
+    STRING(String.class),
+    BIG_DECIMAL(BigDecimal.class),
+    SHORT(Short.class),
+    INTEGER(Integer.class),
+    LONG(Long.class),
+    FLOAT(Float.class),
+    DOUBLE(Double.class),
+    BYTES(byte[].class),
+    BYTE_STREAM_WRITER(ByteStreamWriter.class),
+    DATE(Date.class),
+    TIME(Time.class),
+    TIMESTAMP(Timestamp.class),
+    BOOLEAN(Boolean.class),
+    BYTE(Byte.class),
+    BLOB(Blob.class),
+    CLOB(Clob.class),
+    ARRAY(Array.class),
+    PG_OBJECT(PGobject.class),
+    RANGE(PGRange.class),
+    MULTIRANGE(PGMultirange.class),
+    RANGE_ARRAY(PGRange[].class),
+    CHARACTER(Character.class),
+    LOCAL_DATE(java.time.LocalDate.class),
+    LOCAL_TIME(java.time.LocalTime.class),
+    LOCAL_DATE_TIME(java.time.LocalDateTime.class),
+    OFFSET_DATE_TIME(java.time.OffsetDateTime.class),
+    DURATION(java.time.Duration.class),
+    PERIOD(java.time.Period.class),
+    MAP(Map.class),
+    NUMBER(Number.class),
+    /**
+     * Any other Java array.
+     */
+    OBJECT_ARRAY(null),
+    UNKNOWN(null);
+
+    private final Class<?> type;
+
+    Binder(Class<?> type) {
+      this.type = type;
+    }
+  }
+
+  /**
+   * Conversions of {@code getObject(int, Class)} that depend on the requested class only. The
+   * result set handles the ones that depend on the column type before consulting these.
+   */
+  enum Reader {
+    BIG_DECIMAL(BigDecimal.class),
+    STRING(String.class),
+    BOOLEAN(Boolean.class),
+    SHORT(Short.class),
+    INTEGER(Integer.class),
+    LONG(Long.class),
+    BIG_INTEGER(BigInteger.class),
+    FLOAT(Float.class),
+    DOUBLE(Double.class),
+    DATE(Date.class),
+    TIME(Time.class),
+    TIMESTAMP(Timestamp.class),
+    CALENDAR(Calendar.class),
+    BLOB(Blob.class),
+    CLOB(Clob.class),
+    UTIL_DATE(java.util.Date.class),
+    ARRAY(Array.class),
+    SQLXML(java.sql.SQLXML.class),
+    UUID(java.util.UUID.class),
+    INET_ADDRESS(InetAddress.class),
+    LOCAL_DATE(java.time.LocalDate.class),
+    LOCAL_TIME(java.time.LocalTime.class),
+    LOCAL_DATE_TIME(java.time.LocalDateTime.class),
+    OFFSET_DATE_TIME(java.time.OffsetDateTime.class),
+    /**
+     * {@link PGobject} and its subclasses.
+     */
+    PG_OBJECT(null),
+    /**
+     * Column types with a {@link org.postgresql.util.PGCodec} for the requested class.
+     */
+    CODEC(null),
+    /**
+     * {@link PGRange} and {@link PGMultirange} for range and multirange columns.
+     */
+    RANGE(null),
+    /**
+     * {@link java.time.Duration} and {@link java.time.Period} for interval columns.
+     */
+    INTERVAL(null),
+    /**
+     * Composite columns read as {@link java.sql.Struct}, {@code Object[]} or a mapped class.
+     */
+    COMPOSITE(null),
+    UNSUPPORTED(null);
+
+    private final Class<?> type;
+
+    Reader(Class<?> type) {
+      this.type = type;
+    }
+  }
+
+  private static final Binder[] BINDERS = Binder.values();
+
+  private static final ClassValue<Binder> BINDER = new ClassValue<Binder>() {
+    @Override
+    protected Binder computeValue(Class<?> type) {
+      for (Binder binder : BINDERS) {
+        if (binder.type != null && binder.type.isAssignableFrom(type)) {
+          return binder;
+        }
+      }
+      return type.isArray() ? Binder.OBJECT_ARRAY : Binder.UNKNOWN;
+    }
+  };
+
+  private static final Reader[] READERS = Reader.values();
+
+  private static final ClassValue<Reader> READER = new ClassValue<Reader>() {
+    @Override
+    protected Reader computeValue(Class<?> type) {
+      for (Reader reader : READERS) {
+        if (reader.type == type) {
+          return reader;
+        }
+      }
+      return PGobject.class.isAssignableFrom(type) ? Reader.PG_OBJECT : Reader.UNSUPPORTED;
+    }
+  };
+
+  private TypeDispatch() {
+  }
+
+  /**
+   * Returns the conversion {@code setObject(int, Object)} uses for values of the given class.
+   *
+   * @param type class of the value
+   * @return the conversion, {@link Binder#UNKNOWN} if there is none
+   */
+  static Binder binderFor(Class<?> type) {
+    return BINDER.get(type);
+  }
+
+  /**
+   * Returns the conversion {@code getObject(int, Class)} uses for the given class, unless the
+   * column type calls for one of the type specific conversions.
+   *
+   * @param type requested class
+   * @return the conversion, {@link Reader#UNSUPPORTED} if there is none
+   */
+  static Reader readerFor(Class<?> type) {
+    return READER.get(type);
+  }
+
+  /**
+   * The conversion last resolved for a column, kept on its {@link org.postgresql.core.Field}.
+   * Fields are shared by the result sets of a statement, so the class and the conversion are
+   * kept together in one immutable object.
+   */
+  static final class CachedReader {
+    final Class<?> type;
+    final Reader reader;
+
+    CachedReader(Class<?> type, Reader reader) {
+      this.type = type;
+      this.reader = reader;
+    }
+  }
+}
@@ -9,6 +9,7 @@ import static org.postgresql.util.internal.Nullness.castNonNull;
 
 import org.postgresql.core.BaseConnection;
 import org.postgresql.core.BaseStatement;
+import org.postgresql.core.CompositeType;
 import org.postgresql.core.Oid;
 import org.postgresql.core.QueryExecutor;
 import org.postgresql.core.ServerVersion;
@@ -24,9 +25,11 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Types;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -60,6 +63,9 @@ public class TypeInfoCache implements TypeInfo {
   // array type oid -> base type array element delimiter
   private Map<Integer, Character> arrayOidToDelimiter;
 
+  // attributes of composite types, null values mark types that are not composite
+  private Map<Integer, @Nullable CompositeType> oidToCompositeType;
+
   private final BaseConnection conn;
   private final int unknownLength;
   private @Nullable PreparedStatement getOidStatementSimple;
@@ -68,6 +74,7 @@ public class TypeInfoCache implements TypeInfo {
   private @Nullable PreparedStatement getNameStatement;
   private @Nullable PreparedStatement getArrayElementOidStatement;
   private @Nullable PreparedStatement getArrayDelimiterStatement;
+  private @Nullable PreparedStatement getCompositeTypeStatement;
   private @Nullable PreparedStatement getTypeInfoStatement;
   private @Nullable PreparedStatement getAllTypeInfoStatement;
 
@@ -102,6 +109,7 @@ public class TypeInfoCache implements TypeInfo {
           Oid.TIMESTAMPTZ_ARRAY},
       {"refcursor", Oid.REF_CURSOR, Types.REF_CURSOR, "java.sql.ResultSet", Oid.REF_CURSOR_ARRAY},
       {"json", Oid.JSON, Types.OTHER, "org.postgresql.util.PGobject", Oid.JSON_ARRAY},
+      {"jsonb", Oid.JSONB, Types.OTHER, "org.postgresql.util.PGobject", Oid.JSONB_ARRAY},
       {"point", Oid.POINT, Types.OTHER, "org.postgresql.geometric.PGpoint", Oid.POINT_ARRAY}
   };
 
@@ -143,6 +151,7 @@ public class TypeInfoCache implements TypeInfo {
     pgNameToPgObject = new HashMap<String, Class<? extends PGobject>>((int) Math.round(types.length * 1.5));
     pgArrayToPgType = new HashMap<Integer, Integer>((int) Math.round(types.length * 1.5));
     arrayOidToDelimiter = new HashMap<Integer, Character>((int) Math.round(types.length * 2.5));
+    oidToCompositeType = new HashMap<Integer, @Nullable CompositeType>();
 
     // needs to be synchronized because the iterator is returned
     // from getPGTypeNamesWithSQLTypes()
@@ -594,6 +603,76 @@ public class TypeInfoCache implements TypeInfo {
     return getArrayDelimiterStatement;
   }
 
+  public synchronized @Nullable CompositeType getCompositeType(int oid) throws SQLException {
+    if (oid == Oid.UNSPECIFIED || oid == Oid.RECORD) {
+      return null;
+    }
+    if (oidToCompositeType.containsKey(oid)) {
+      return oidToCompositeType.get(oid);
+    }
+    Integer sqlType = oidToSQLType.get(oid);
+    if (sqlType != null && sqlType != Types.STRUCT) {
+      return null;
+    }
+
+    PreparedStatement getCompositeTypeStatement = prepareGetCompositeTypeStatement();
+
+    getCompositeTypeStatement.setInt(1, oid);
+
+    // Go through BaseStatement to avoid transaction start.
+    if (!((BaseStatement) getCompositeTypeStatement)
+        .executeWithFlags(QueryExecutor.QUERY_SUPPRESS_BEGIN)) {
+      throw new PSQLException(GT.tr("No results were returned by the query."), PSQLState.NO_DATA);
+    }
+
+    ResultSet rs = castNonNull(getCompositeTypeStatement.getResultSet());
+    String typeName = null;
+    List<String> names = new ArrayList<String>();
+    List<Integer> oids = new ArrayList<Integer>();
+    while (rs.next()) {
+      typeName = rs.getString(1);
+      names.add(castNonNull(rs.getString(2)));
+      oids.add((int) rs.getLong(3));
+    }
+    rs.close();
+
+    CompositeType compositeType = null;
+    if (typeName != null) {
+      int[] attributeOids = new int[oids.size()];
+      for (int i = 0; i < attributeOids.length; i++) {
+        attributeOids[i] = oids.get(i);
+      }
+      compositeType = new CompositeType(typeName, oid, names.toArray(new String[0]), attributeOids);
+    }
+    oidToCompositeType.put(oid, compositeType);
+    return compositeType;
+  }
+
+  private PreparedStatement prepareGetCompositeTypeStatement() throws SQLException {
+    PreparedStatement getCompositeTypeStatement = this.getCompositeTypeStatement;
+    if (getCompositeTypeStatement == null) {
+      String sql;
+      sql = "SELECT t.typname, a.attname, a.atttypid "
+            + "FROM pg_catalog.pg_type t JOIN pg_catalog.pg_attribute a ON a.attrelid = t.typrelid "
+            + "WHERE t.oid = ? AND t.typtype = 'c' AND a.attnum > 0 AND NOT a.attisdropped "
+            + "ORDER BY a.attnum";
+      this.getCompositeTypeStatement = getCompositeTypeStatement = conn.prepareStatement(sql);
+    }
+    return getCompositeTypeStatement;
+  }
+
+  public synchronized CompositeType addCompositeType(String type, Class<?> javaClass)
+      throws SQLException {
+    int oid = getPGType(type);
+    CompositeType compositeType = oid == Oid.UNSPECIFIED ? null : getCompositeType(oid);
+    if (compositeType == null) {
+      throw new PSQLException(GT.tr("{0} is not a composite type.", type),
+          PSQLState.INVALID_PARAMETER_VALUE);
+    }
+    compositeType.setJavaClass(javaClass);
+    return compositeType;
+  }
+
   public synchronized int getPGArrayElement(int oid) throws SQLException {
     if (oid == Oid.UNSPECIFIED) {
       return Oid.UNSPECIFIED;
@@ -0,0 +1,381 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.jdbc;
+
+import static org.postgresql.util.internal.Nullness.castNonNull;
+
+import org.postgresql.core.BaseConnection;
+import org.postgresql.core.Field;
+import org.postgresql.core.NativeQuery;
+import org.postgresql.core.ParameterList;
+import org.postgresql.core.Parser;
+import org.postgresql.core.Query;
+import org.postgresql.core.ResultCursor;
+import org.postgresql.core.ResultHandlerBase;
+import org.postgresql.core.SqlCommand;
+import org.postgresql.core.SqlCommandType;
+import org.postgresql.core.Tuple;
+import org.postgresql.util.ByteConverter;
+import org.postgresql.util.GT;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.PSQLState;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.BatchUpdateException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Executes a batch of an UPDATE or DELETE as a single statement that joins the target table
+ * against the batched values, see {@link org.postgresql.PGProperty#REWRITE_BATCHED_UPDATES}.
+ *
+ * <p>{@code UPDATE t SET a = $1 WHERE id = $2} becomes
+ * {@code UPDATE t SET a = pgjdbc_batch.p1 FROM unnest($1, $2) WITH ORDINALITY AS
+ * pgjdbc_batch(p1, p2, ord) WHERE id = pgjdbc_batch.p2 RETURNING pgjdbc_batch.ord}, and the i-th
+ * parameter is bound to an array of the i-th values of all batch entries
+ * (see {@link ParameterList#setBatchArrayParameter}). The ordinality of each affected row tells
+ * which batch entry it belongs to, so the update count of every entry is known.</p>
+ *
+ * <p>A row that matches several batch entries would be updated or deleted once, for one of the
+ * entries, rather than once per entry. A batch in which several entries bind the same values to
+ * the parameters of the WHERE clause is therefore executed as usual. Entries with different values
+ * that still match the same row, for instance through range conditions, are not detected.</p>
+ */
+final class UnnestBatch {
+  /**
+   * Alias of the unnested values in the rewritten statement.
+   */
+  static final String ALIAS = "pgjdbc_batch";
+
+  private final String sql;
+  private final int[] bindPositions;
+  private final int parameterCount;
+  /**
+   * Indexes of the parameters referenced in the WHERE clause.
+   */
+  private final int[] keyParameters;
+  private final SqlCommandType commandType;
+  private @Nullable Query query;
+
+  private UnnestBatch(String sql, int[] bindPositions, int parameterCount, int[] keyParameters,
+      SqlCommandType commandType) {
+    this.sql = sql;
+    this.bindPositions = bindPositions;
+    this.parameterCount = parameterCount;
+    this.keyParameters = keyParameters;
+    this.commandType = commandType;
+  }
+
+  String getSql() {
+    return sql;
+  }
+
+  /**
+   * Returns the rewritten statement if a query is a single UPDATE or DELETE with a WHERE clause
+   * and no FROM, USING, RETURNING or {@code WHERE CURRENT OF}.
+   *
+   * @param query the query of the prepared statement
+   * @param standardConformingStrings whether backslashes in string literals are plain characters
+   * @return the rewritten statement, or {@code null} if the query has another shape
+   */
+  static @Nullable UnnestBatch of(Query query, boolean standardConformingStrings) {
+    SqlCommand command = query.getSqlCommand();
+    if (query.getSubqueries() != null || command == null || command.isReturningKeywordPresent()
+        || command.getType() != SqlCommandType.UPDATE
+        && command.getType() != SqlCommandType.DELETE) {
+      return null;
+    }
+    return parse(query.getNativeSql(), standardConformingStrings);
+  }
+
+  /**
+   * Parses an UPDATE or DELETE with numbered parameters and rewrites it as a join against the
+   * unnested parameter arrays.
+   *
+   * @param nativeSql the statement with numbered parameters
+   * @param standardConformingStrings whether backslashes in string literals are plain characters
+   * @return the rewritten statement, or {@code null} if the statement has another shape or its
+   *     WHERE clause references no parameter
+   */
+  static @Nullable UnnestBatch parse(String nativeSql, boolean standardConformingStrings) {
+    char[] sql = nativeSql.toCharArray();
+    SqlCommandType commandType = null;
+    // start, end and index of each parameter reference
+    List<int[]> binds = new ArrayList<int[]>();
+    int parameterCount = 0;
+    int depth = 0;
+    int end = sql.length;
+    int where = -1;
+    int words = 0;
+    String previousWord = "";
+    boolean set = false;
+    for (int i = 0; i < sql.length; i++) {
+      char c = sql[i];
+      switch (c) {
+        case '\'':
+          i = Parser.parseSingleQuotes(sql, i, standardConformingStrings);
+          break;
+        case '"':
+          i = Parser.parseDoubleQuotes(sql, i);
+          break;
+        case '-':
+          i = Parser.parseLineComment(sql, i);
+          break;
+        case '/':
+          i = Parser.parseBlockComment(sql, i);
+          break;
+        case '$':
+          if (i + 1 < sql.length && Character.isDigit(sql[i + 1])
+              && (i == 0 || !Parser.isIdentifierContChar(sql[i - 1]))) {
+            int bindEnd = i + 1;
+            while (bindEnd < sql.length && Character.isDigit(sql[bindEnd])) {
+              bindEnd++;
+            }
+            int index = Integer.parseInt(nativeSql.substring(i + 1, bindEnd));
+            binds.add(new int[]{i, bindEnd, index});
+            parameterCount = Math.max(parameterCount, index);
+            i = bindEnd - 1;
+          } else {
+            i = Parser.parseDollarQuotes(sql, i);
+          }
+          break;
+        case '(':
+        case '[':
+          depth++;
+          break;
+        case ')':
+        case ']':
+          depth--;
+          break;
+        case ';':
+          if (depth == 0) {
+            end = i;
+            i = sql.length;
+          }
+          break;
+        default:
+          if (!Parser.isIdentifierStartChar(c)
+              || i > 0 && Parser.isIdentifierContChar(sql[i - 1])) {
+            break;
+          }
+          int wordEnd = i + 1;
+          while (wordEnd < sql.length && Parser.isIdentifierContChar(sql[wordEnd])) {
+            wordEnd++;
+          }
+          if (depth == 0) {
+            String word = nativeSql.substring(i, wordEnd).toLowerCase(Locale.ROOT);
+            words++;
+            if (words == 1) {
+              commandType = "update".equals(word) ? SqlCommandType.UPDATE
+                  : "delete".equals(word) ? SqlCommandType.DELETE : null;
+              if (commandType == null) {
+                return null;
+              }
+            } else if (words == 2 && commandType == SqlCommandType.DELETE) {
+              if (!"from".equals(word)) {
+                return null;
+              }
+            } else if ("returning".equals(word)
+                || "current".equals(word) && "where".equals(previousWord)) {
+              return null;
+            } else if ("where".equals(word)) {
+              if (where != -1) {
+                return null;
+              }
+              where = i;
+            } else if ("set".equals(word)) {
+              set = true;
+            } else if (where == -1 && ("from".equals(word) || "using".equals(word))) {
+              // joins to other tables
+              return null;
+            }
+            previousWord = word;
+          }
+          i = wordEnd - 1;
+          break;
+      }
+    }
+    if (commandType == null || where == -1 || parameterCount == 0
+        || commandType == SqlCommandType.UPDATE && !set) {
+      return null;
+    }
+    boolean[] key = new boolean[parameterCount + 1];
+    int keyCount = 0;
+    for (int[] bind : binds) {
+      if (bind[0] > where && bind[0] < end && !key[bind[2]]) {
+        key[bind[2]] = true;
+        keyCount++;
+      }
+    }
+    if (keyCount == 0) {
+      // every entry would match the same rows
+      return null;
+    }
+    int[] keyParameters = new int[keyCount];
+    for (int p = 1, k = 0; p <= parameterCount; p++) {
+      if (key[p]) {
+        keyParameters[k++] = p;
+      }
+    }
+
+    StringBuilder rewritten = new StringBuilder(nativeSql.length() + 64 + 16 * parameterCount);
+    int[] bindPositions = new int[parameterCount];
+    int pos = 0;
+    boolean joined = false;
+    for (int k = 0; k <= binds.size(); k++) {
+      int[] bind = k < binds.size() ? binds.get(k) : null;
+      if (!joined && (bind == null || bind[0] > where)) {
+        rewritten.append(sql, pos, where - pos);
+        if (where > 0 && !Character.isWhitespace(sql[where - 1])) {
+          rewritten.append(' ');
+        }
+        rewritten.append(commandType == SqlCommandType.UPDATE ? "FROM unnest(" : "USING unnest(");
+        for (int p = 1; p <= parameterCount; p++) {
+          if (p > 1) {
+            rewritten.append(", ");
+          }
+          bindPositions[p - 1] = rewritten.length();
+          rewritten.append(NativeQuery.bindName(p));
+        }
+        rewritten.append(") WITH ORDINALITY AS ").append(ALIAS).append('(');
+        for (int p = 1; p <= parameterCount; p++) {
+          rewritten.append('p').append(p).append(", ");
+        }
+        rewritten.append("ord) ");
+        pos = where;
+        joined = true;
+      }
+      if (bind == null || bind[0] >= end) {
+        break;
+      }
+      rewritten.append(sql, pos, bind[0] - pos);
+      rewritten.append(ALIAS).append(".p").append(bind[2]);
+      pos = bind[1];
+    }
+    rewritten.append(sql, pos, end - pos);
+    rewritten.append(" RETURNING ").append(ALIAS).append(".ord");
+    return new UnnestBatch(rewritten.toString(), bindPositions, parameterCount, keyParameters,
+        commandType);
+  }
+
+  private Query getQuery(BaseConnection connection) {
+    Query query = this.query;
+    if (query == null) {
+      query = connection.getQueryExecutor().wrap(Collections.singletonList(
+          new NativeQuery(sql, bindPositions, false,
+              SqlCommand.createStatementTypeInfo(commandType))));
+      this.query = query;
+    }
+    return query;
+  }
+
+  /**
+   * Binds each column of the batch as an array.
+   *
+   * @param connection the connection of the statement
+   * @param rows the batch entries
+   * @return the parameters of the rewritten statement, or {@code null} if a column cannot be
+   *     bound as an array, or several entries have the same values in the WHERE clause, and the
+   *     batch must be executed as usual
+   * @throws SQLException if the array types cannot be looked up
+   */
+  @Nullable ParameterList bind(BaseConnection connection, List<@Nullable ParameterList> rows)
+      throws SQLException {
+    if (hasDuplicateKeys(rows)) {
+      return null;
+    }
+    ParameterList params = getQuery(connection).createParameterList();
+    for (int p = 1; p <= parameterCount; p++) {
+      if (!params.setBatchArrayParameter(p, rows, p, connection.getTypeInfo())) {
+        return null;
+      }
+    }
+    return params;
+  }
+
+  /**
+   * Checks whether several entries bind the same values to the parameters of the WHERE clause.
+   * Values are compared by their literal form, so equal values bound with different types may be
+   * reported as duplicates, which only costs the rewrite.
+   */
+  private boolean hasDuplicateKeys(List<@Nullable ParameterList> rows) {
+    Set<List<String>> keys = new HashSet<List<String>>();
+    for (@Nullable ParameterList row : rows) {
+      List<String> key = new ArrayList<String>(keyParameters.length);
+      for (int p : keyParameters) {
+        key.add(castNonNull(row).toString(p, true));
+      }
+      if (!keys.add(key)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Executes the rewritten statement. It succeeds or fails as a whole, so on failure every
+   * update count is {@link java.sql.Statement#EXECUTE_FAILED}.
+   *
+   * @param connection the connection of the statement
+   * @param params the parameters from {@link #bind(BaseConnection, List)}
+   * @param batchSize the number of batch entries
+   * @param flags the execution flags
+   * @return one update count per batch entry
+   * @throws BatchUpdateException if the statement fails
+   */
+  long[] execute(BaseConnection connection, ParameterList params, int batchSize, int flags)
+      throws SQLException {
+    Query query = getQuery(connection);
+    long[] updateCounts = new long[batchSize];
+    try {
+      connection.getQueryExecutor().execute(query, params, new OrdinalityHandler(updateCounts),
+          0, 0, flags);
+    } catch (SQLException e) {
+      throw BatchResultHandler.allEntriesFailed(sql, updateCounts, e);
+    }
+    return updateCounts;
+  }
+
+  /**
+   * Counts the returned ordinalities into the update counts of the batch entries.
+   */
+  private static final class OrdinalityHandler extends ResultHandlerBase {
+    private final long[] updateCounts;
+
+    OrdinalityHandler(long[] updateCounts) {
+      this.updateCounts = updateCounts;
+    }
+
+    @Override
+    public void handleResultRows(Query fromQuery, Field[] fields, List<Tuple> tuples,
+        @Nullable ResultCursor cursor) {
+      boolean binary = fields.length > 0 && fields[0].getFormat() == Field.BINARY_FORMAT;
+      for (Tuple tuple : tuples) {
+        byte[] value = tuple.get(0);
+        if (value == null) {
+          continue;
+        }
+        long ordinality = binary
+            ? ByteConverter.int8(value, 0)
+            : Long.parseLong(new String(value, StandardCharsets.US_ASCII));
+        if (ordinality < 1 || ordinality > updateCounts.length) {
+          handleError(new PSQLException(
+              GT.tr("Unexpected batch entry {0} in the result of a rewritten batch.", ordinality),
+              PSQLState.PROTOCOL_VIOLATION));
+          return;
+        }
+        updateCounts[(int) ordinality - 1]++;
+      }
+    }
+  }
+}
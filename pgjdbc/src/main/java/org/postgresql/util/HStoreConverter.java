@@ -11,42 +11,26 @@ import org.checkerframework.checker.nullness.qual.Nullable;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.sql.SQLException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 
 public class HStoreConverter {
+  /**
+   * Returns a map over a binary hstore value. Keys and values are decoded when they are first
+   * accessed, and lookups by key do not decode the other keys. The map can be modified; the first
+   * modification decodes all pairs.
+   *
+   * @param b binary hstore value, which must not be modified afterwards
+   * @param encoding encoding of the keys and values
+   * @return the map
+   * @throws SQLException if the value is not a valid binary hstore value
+   */
   public static Map<String, @Nullable String> fromBytes(byte[] b, Encoding encoding)
       throws SQLException {
-    Map<String, @Nullable String> m = new HashMap<String, @Nullable String>();
-    int pos = 0;
-    int numElements = ByteConverter.int4(b, pos);
-    pos += 4;
-    try {
-      for (int i = 0; i < numElements; ++i) {
-        int keyLen = ByteConverter.int4(b, pos);
-        pos += 4;
-        String key = encoding.decode(b, pos, keyLen);
-        pos += keyLen;
-        int valLen = ByteConverter.int4(b, pos);
-        pos += 4;
-        String val;
-        if (valLen == -1) {
-          val = null;
-        } else {
-          val = encoding.decode(b, pos, valLen);
-          pos += valLen;
-        }
-        m.put(key, val);
-      }
-    } catch (IOException ioe) {
-      throw new PSQLException(
-          GT.tr(
-              "Invalid character data was found.  This is most likely caused by stored data containing characters that are invalid for the character set the database was created in.  The most common example of this is storing 8bit data in a SQL_ASCII database."),
-          PSQLState.DATA_ERROR, ioe);
-    }
-    return m;
+    return HStoreMap.of(b, encoding);
   }
 
   public static byte[] toBytes(Map<?, ?> m, Encoding encoding) throws SQLException {
@@ -85,6 +69,20 @@ public class HStoreConverter {
     return baos.toByteArray();
   }
 
+  /**
+   * Returns a writer that sends a map in the binary hstore format directly to the connection,
+   * without assembling the whole value in memory first.
+   *
+   * @param m the map
+   * @param encoding encoding of the keys and values
+   * @return writer for the binary value
+   * @throws SQLException if a key is null or cannot be encoded
+   */
+  public static ByteStreamWriter toByteStreamWriter(Map<?, ?> m, Encoding encoding)
+      throws SQLException {
+    return new HStoreWriter(m, encoding);
+  }
+
   public static String toString(Map<?, ?> map) {
     if (map.isEmpty()) {
       return "";
@@ -158,4 +156,65 @@ public class HStoreConverter {
     }
     return pos;
   }
+
+  /**
+   * Encodes the keys and values up front so the length is known, and writes them straight to
+   * the stream when the parameter is sent.
+   */
+  private static final class HStoreWriter implements ByteStreamWriter {
+    private final byte[] @Nullable [] pairs;
+    private final int length;
+
+    HStoreWriter(Map<?, ?> m, Encoding encoding) throws SQLException {
+      byte[][] pairs = new byte[m.size() * 2][];
+      int length = 4;
+      int i = 0;
+      try {
+        for (Entry<?, ?> e : m.entrySet()) {
+          Object mapKey = e.getKey();
+          if (mapKey == null) {
+            throw new PSQLException(GT.tr("hstore key must not be null"),
+                PSQLState.INVALID_PARAMETER_VALUE);
+          }
+          byte[] key = encoding.encode(mapKey.toString());
+          pairs[i++] = key;
+          length += 8 + key.length;
+          Object value = e.getValue();
+          if (value != null) {
+            byte[] val = encoding.encode(value.toString());
+            pairs[i] = val;
+            length += val.length;
+          }
+          i++;
+        }
+      } catch (IOException ioe) {
+        throw new PSQLException(
+            GT.tr(
+                "Invalid character data was found.  This is most likely caused by stored data containing characters that are invalid for the character set the database was created in.  The most common example of this is storing 8bit data in a SQL_ASCII database."),
+            PSQLState.DATA_ERROR, ioe);
+      }
+      this.pairs = pairs;
+      this.length = length;
+    }
+
+    @Override
+    public int getLength() {
+      return length;
+    }
+
+    @Override
+    public void writeTo(ByteStreamTarget target) throws IOException {
+      OutputStream out = target.getOutputStream();
+      byte[] lenBuf = new byte[4];
+      ByteConverter.int4(lenBuf, 0, pairs.length / 2);
+      out.write(lenBuf);
+      for (byte[] bytes : pairs) {
+        ByteConverter.int4(lenBuf, 0, bytes == null ? -1 : bytes.length);
+        out.write(lenBuf);
+        if (bytes != null) {
+          out.write(bytes);
+        }
+      }
+    }
+  }
 }
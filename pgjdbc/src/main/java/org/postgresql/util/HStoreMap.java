@@ -0,0 +1,355 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.util;
+
+import org.postgresql.core.Encoding;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A map over the binary representation of an hstore value. Only the positions of the pairs are
+ * read up front; keys and values are decoded the first time they are accessed.
+ *
+ * <p>The server sends the pairs sorted by key length and then by key bytes, so lookups by key
+ * encode the key once and binary search the pairs without decoding other keys.</p>
+ *
+ * <p>The first modification copies the pairs into a {@link HashMap} which then backs the map.
+ * Views obtained before that are read only.</p>
+ */
+final class HStoreMap extends AbstractMap<String, @Nullable String> implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  // per pair: key offset, key length, value offset, value length (-1 for NULL)
+  private static final int STRIDE = 4;
+
+  private final byte[] data;
+  private final Encoding encoding;
+  private final int[] index;
+  private final int size;
+  private final boolean sorted;
+  private final @Nullable String[] keys;
+  private final @Nullable String[] values;
+  private @Nullable Map<String, @Nullable String> delegate;
+
+  private HStoreMap(byte[] data, Encoding encoding, int[] index, int size, boolean sorted) {
+    this.data = data;
+    this.encoding = encoding;
+    this.index = index;
+    this.size = size;
+    this.sorted = sorted;
+    this.keys = new String[size];
+    this.values = new String[size];
+  }
+
+  /**
+   * Indexes the pairs of a binary hstore value.
+   *
+   * @param data binary hstore value, which must not be modified afterwards
+   * @param encoding encoding of the keys and values
+   * @return lazy map over the value
+   * @throws PSQLException if the value is truncated
+   */
+  static HStoreMap of(byte[] data, Encoding encoding) throws PSQLException {
+    if (data.length < 4) {
+      throw malformed();
+    }
+    int size = ByteConverter.int4(data, 0);
+    if (size < 0 || size > (data.length - 4) / 8) {
+      throw malformed();
+    }
+    int[] index = new int[size * STRIDE];
+    boolean sorted = true;
+    int pos = 4;
+    for (int i = 0; i < size; i++) {
+      int keyLen = readLength(data, pos);
+      if (keyLen < 0) {
+        throw malformed();
+      }
+      int keyPos = pos + 4;
+      pos = checkRange(data, keyPos, keyLen);
+      int valLen = readLength(data, pos);
+      int valPos = pos + 4;
+      pos = valLen < 0 ? valPos : checkRange(data, valPos, valLen);
+
+      int j = i * STRIDE;
+      index[j] = keyPos;
+      index[j + 1] = keyLen;
+      index[j + 2] = valPos;
+      index[j + 3] = valLen;
+      if (sorted && i > 0) {
+        sorted = compareKey(data, index[j - STRIDE], index[j - STRIDE + 1], data, keyPos, keyLen)
+            < 0;
+      }
+    }
+    return new HStoreMap(data, encoding, index, size, sorted);
+  }
+
+  private static int readLength(byte[] data, int pos) throws PSQLException {
+    if (pos > data.length - 4) {
+      throw malformed();
+    }
+    return ByteConverter.int4(data, pos);
+  }
+
+  private static int checkRange(byte[] data, int pos, int len) throws PSQLException {
+    if (len > data.length - pos) {
+      throw malformed();
+    }
+    return pos + len;
+  }
+
+  private static PSQLException malformed() {
+    return new PSQLException(GT.tr("Invalid binary hstore value."), PSQLState.DATA_ERROR);
+  }
+
+  /**
+   * Compares keys in the order hstore stores them: shorter keys first, then unsigned bytes.
+   */
+  private static int compareKey(byte[] a, int aPos, int aLen, byte[] b, int bPos, int bLen) {
+    if (aLen != bLen) {
+      return aLen < bLen ? -1 : 1;
+    }
+    for (int i = 0; i < aLen; i++) {
+      int x = a[aPos + i] & 0xff;
+      int y = b[bPos + i] & 0xff;
+      if (x != y) {
+        return x < y ? -1 : 1;
+      }
+    }
+    return 0;
+  }
+
+  private String decode(int pos, int len) {
+    try {
+      return encoding.decode(data, pos, len);
+    } catch (IOException ioe) {
+      throw new IllegalStateException(
+          GT.tr(
+              "Invalid character data was found.  This is most likely caused by stored data containing characters that are invalid for the character set the database was created in.  The most common example of this is storing 8bit data in a SQL_ASCII database."),
+          ioe);
+    }
+  }
+
+  private String keyAt(int i) {
+    String key = keys[i];
+    if (key == null) {
+      key = decode(index[i * STRIDE], index[i * STRIDE + 1]);
+      keys[i] = key;
+    }
+    return key;
+  }
+
+  private @Nullable String valueAt(int i) {
+    int len = index[i * STRIDE + 3];
+    if (len < 0) {
+      return null;
+    }
+    String value = values[i];
+    if (value == null) {
+      value = decode(index[i * STRIDE + 2], len);
+      values[i] = value;
+    }
+    return value;
+  }
+
+  private int indexOf(@Nullable Object key) {
+    if (!(key instanceof String)) {
+      return -1;
+    }
+    byte[] encoded;
+    try {
+      encoded = encoding.encode((String) key);
+    } catch (IOException e) {
+      return -1;
+    }
+    if (sorted) {
+      int low = 0;
+      int high = size - 1;
+      while (low <= high) {
+        int mid = (low + high) >>> 1;
+        int cmp = compareKey(data, index[mid * STRIDE], index[mid * STRIDE + 1],
+            encoded, 0, encoded.length);
+        if (cmp < 0) {
+          low = mid + 1;
+        } else if (cmp > 0) {
+          high = mid - 1;
+        } else {
+          return matches(mid, key);
+        }
+      }
+      return -1;
+    }
+    for (int i = 0; i < size; i++) {
+      if (compareKey(data, index[i * STRIDE], index[i * STRIDE + 1], encoded, 0, encoded.length)
+          == 0 && matches(i, key) >= 0) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Guards against encodings that replace characters they cannot represent.
+   */
+  private int matches(int i, Object key) {
+    return keyAt(i).equals(key) ? i : -1;
+  }
+
+  private Map<String, @Nullable String> materialize() {
+    Map<String, @Nullable String> map = delegate;
+    if (map == null) {
+      map = new HashMap<String, @Nullable String>(size * 4 / 3 + 1);
+      for (int i = 0; i < size; i++) {
+        map.put(keyAt(i), valueAt(i));
+      }
+      delegate = map;
+    }
+    return map;
+  }
+
+  @Override
+  public int size() {
+    Map<String, @Nullable String> map = delegate;
+    return map != null ? map.size() : size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  @Override
+  public boolean containsKey(@Nullable Object key) {
+    Map<String, @Nullable String> map = delegate;
+    return map != null ? map.containsKey(key) : indexOf(key) >= 0;
+  }
+
+  @Override
+  public @Nullable String get(@Nullable Object key) {
+    Map<String, @Nullable String> map = delegate;
+    if (map != null) {
+      return map.get(key);
+    }
+    int i = indexOf(key);
+    return i < 0 ? null : valueAt(i);
+  }
+
+  @Override
+  public @Nullable String put(String key, @Nullable String value) {
+    return materialize().put(key, value);
+  }
+
+  @Override
+  public @Nullable String remove(@Nullable Object key) {
+    return materialize().remove(key);
+  }
+
+  @Override
+  public void putAll(Map<? extends String, ? extends @Nullable String> m) {
+    materialize().putAll(m);
+  }
+
+  @Override
+  public void clear() {
+    materialize().clear();
+  }
+
+  @Override
+  public Set<Entry<String, @Nullable String>> entrySet() {
+    Map<String, @Nullable String> map = delegate;
+    if (map != null) {
+      return map.entrySet();
+    }
+    return new AbstractSet<Entry<String, @Nullable String>>() {
+      @Override
+      public Iterator<Entry<String, @Nullable String>> iterator() {
+        return new Iterator<Entry<String, @Nullable String>>() {
+          private int next;
+
+          @Override
+          public boolean hasNext() {
+            return next < size;
+          }
+
+          @Override
+          public Entry<String, @Nullable String> next() {
+            if (next >= size) {
+              throw new NoSuchElementException();
+            }
+            return new PairEntry(next++);
+          }
+        };
+      }
+
+      @Override
+      public int size() {
+        return size;
+      }
+    };
+  }
+
+  /**
+   * Serializes as a plain {@link HashMap}, the type this map replaces.
+   */
+  private Object writeReplace() {
+    return new HashMap<String, @Nullable String>(materialize());
+  }
+
+  private final class PairEntry implements Entry<String, @Nullable String> {
+    private final int i;
+
+    PairEntry(int i) {
+      this.i = i;
+    }
+
+    @Override
+    public String getKey() {
+      return keyAt(i);
+    }
+
+    @Override
+    public @Nullable String getValue() {
+      return valueAt(i);
+    }
+
+    @Override
+    public @Nullable String setValue(@Nullable String value) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean equals(@Nullable Object obj) {
+      if (!(obj instanceof Entry)) {
+        return false;
+      }
+      Entry<?, ?> e = (Entry<?, ?>) obj;
+      String value = getValue();
+      return getKey().equals(e.getKey())
+          && (value == null ? e.getValue() == null : value.equals(e.getValue()));
+    }
+
+    @Override
+    public int hashCode() {
+      String value = getValue();
+      return getKey().hashCode() ^ (value == null ? 0 : value.hashCode());
+    }
+
+    @Override
+    public String toString() {
+      return getKey() + "=" + getValue();
+    }
+  }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.util;
+
+import java.sql.SQLException;
+
+/**
+ * <p>Converts values of a PostgreSQL data type to and from a Java type. Unlike {@link PGobject},
+ * the values are plain Java objects and no wrapper instance is created per value.</p>
+ *
+ * <p>Codecs are discovered with {@link java.util.ServiceLoader}: list the implementation classes
+ * in {@code META-INF/services/org.postgresql.util.PGCodec}. Each connection looks up the type
+ * named by {@link #getTypeName()} when it is opened, and codecs for types that do not exist in
+ * the database are ignored. When {@link #supportsBinary()} is true and binary transfer is enabled,
+ * the driver requests the binary format for the type (and its array type) automatically.</p>
+ *
+ * <p>Once registered, {@link java.sql.ResultSet#getObject(int)} returns values of the type as
+ * instances of {@link #getJavaType()}, and {@link java.sql.PreparedStatement#setObject(int, Object)}
+ * accepts them. When {@link #supportsArrays()} is true, arrays of the type are decoded to arrays
+ * of the Java type by {@link java.sql.Array#getArray()}, and Java arrays of the Java type can be
+ * bound as parameters.</p>
+ *
+ * <p>Implementations must be thread safe and have a public no-argument constructor.</p>
+ *
+ * @param <T> the Java type values are converted to
+ */
+public interface PGCodec<T> {
+
+  /**
+   * The name of the PostgreSQL type handled by this codec. The name can be schema qualified, and
+   * is resolved the same way as the names given to
+   * {@link org.postgresql.PGConnection#addDataType(String, Class)}.
+   *
+   * @return the type name
+   */
+  String getTypeName();
+
+  /**
+   * The Java class values are decoded to. {@code setObject} uses this codec for instances of this
+   * class and its subclasses, unless the driver converts such values itself, as it does for
+   * strings, numbers of the standard types, maps and the other built-in types.
+   *
+   * @return the Java type
+   */
+  Class<T> getJavaType();
+
+  /**
+   * Whether {@link #decodeBinary(byte[], int, int)} and {@link #encodeBinary(Object)} are
+   * implemented. When this returns false the text format is always used.
+   *
+   * @return true if the binary format is supported
+   */
+  boolean supportsBinary();
+
+  /**
+   * Whether arrays of this type should be converted to and from arrays of {@link #getJavaType()}.
+   *
+   * @return true if arrays are supported
+   */
+  boolean supportsArrays();
+
+  /**
+   * Decodes a value from its text representation.
+   *
+   * @param value the text representation, never null
+   * @return the decoded value
+   * @throws SQLException if the value cannot be decoded
+   */
+  T decodeText(String value) throws SQLException;
+
+  /**
+   * Decodes a value from its binary representation.
+   *
+   * @param bytes buffer holding the value, must not be modified or retained
+   * @param offset position of the first byte of the value
+   * @param length number of bytes in the value
+   * @return the decoded value
+   * @throws SQLException if the value cannot be decoded
+   */
+  T decodeBinary(byte[] bytes, int offset, int length) throws SQLException;
+
+  /**
+   * Encodes a value into its text representation.
+   *
+   * @param value the value, never null
+   * @return the text representation
+   * @throws SQLException if the value cannot be encoded
+   */
+  String encodeText(T value) throws SQLException;
+
+  /**
+   * Encodes a value into its binary representation.
+   *
+   * @param value the value, never null
+   * @return the binary representation
+   * @throws SQLException if the value cannot be encoded
+   */
+  byte[] encodeBinary(T value) throws SQLException;
+}
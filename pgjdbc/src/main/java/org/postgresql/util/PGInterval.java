@@ -14,14 +14,15 @@ import java.text.NumberFormat;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.Locale;
-import java.util.StringTokenizer;
 
 /**
  * This implements a class that handles the PostgreSQL interval type.
  */
-public class PGInterval extends PGobject implements Serializable, Cloneable {
+public class PGInterval extends PGobject implements PGBinaryObject, Serializable, Cloneable {
 
   private static final int MICROS_IN_SECOND = 1000000;
+  private static final long MICROS_IN_MINUTE = 60L * MICROS_IN_SECOND;
+  private static final long MICROS_IN_HOUR = 60L * MICROS_IN_MINUTE;
 
   private int years;
   private int months;
@@ -51,64 +52,54 @@ public class PGInterval extends PGobject implements Serializable, Cloneable {
     setValue(value);
   }
 
-  private int lookAhead(String value, int position, String find) {
-    char [] tokens = find.toCharArray();
-    int found = -1;
-
-    for ( int i = 0; i < tokens.length; i++ ) {
-      found = value.indexOf(tokens[i], position);
-      if ( found > 0 ) {
-        return found;
+  /**
+   * Parses the ISO 8601 format with designators, such as {@code P1Y2M3DT4H5M6.5S}. Each field
+   * may carry its own sign.
+   */
+  private void parseISO8601Format(String value) throws SQLException {
+    int years = 0;
+    int months = 0;
+    int days = 0;
+    int hours = 0;
+    int minutes = 0;
+    long micros = 0;
+    boolean time = false;
+
+    int length = value.length();
+    /* skip over the P */
+    int pos = 1;
+    while (pos < length) {
+      if (value.charAt(pos) == 'T') {
+        time = true;
+        pos++;
+        continue;
       }
-    }
-    return found;
-  }
-
-  private void parseISO8601Format(String value) {
-    int number = 0;
-    String dateValue;
-    String timeValue = null;
-
-    int hasTime = value.indexOf('T');
-    if ( hasTime > 0 ) {
-      /* skip over the P */
-      dateValue = value.substring(1,hasTime);
-      timeValue = value.substring(hasTime + 1);
-    } else {
-      /* skip over the P */
-      dateValue = value.substring(1);
-    }
-
-    for ( int i = 0; i < dateValue.length(); i++ ) {
-      int lookAhead = lookAhead(dateValue, i, "YMD");
-      if (lookAhead > 0) {
-        number = Integer.parseInt(dateValue.substring(i, lookAhead));
-        if (dateValue.charAt(lookAhead) == 'Y') {
-          setYears(number);
-        } else if (dateValue.charAt(lookAhead) == 'M') {
-          setMonths(number);
-        } else if (dateValue.charAt(lookAhead) == 'D') {
-          setDays(number);
-        }
-        i = lookAhead;
+      int end = pos;
+      while (end < length && !Character.isLetter(value.charAt(end))) {
+        end++;
       }
-    }
-    if ( timeValue != null ) {
-      for (int i = 0; i < timeValue.length(); i++) {
-        int lookAhead = lookAhead(timeValue, i, "HMS");
-        if (lookAhead > 0) {
-          number = Integer.parseInt(timeValue.substring(i, lookAhead));
-          if (timeValue.charAt(lookAhead) == 'H') {
-            setHours(number);
-          } else if (timeValue.charAt(lookAhead) == 'M') {
-            setMinutes(number);
-          } else if (timeValue.charAt(lookAhead) == 'S') {
-            setSeconds(number);
-          }
-          i = lookAhead;
-        }
+      if (end == length) {
+        throw conversionFailed(null);
+      }
+      char designator = value.charAt(end);
+      if (time && designator == 'S') {
+        micros = parseMicros(value, pos, end);
+      } else if (time && designator == 'H') {
+        hours = parseInt(value, pos, end);
+      } else if (time && designator == 'M') {
+        minutes = parseInt(value, pos, end);
+      } else if (!time && designator == 'Y') {
+        years = parseInt(value, pos, end);
+      } else if (!time && designator == 'M') {
+        months = parseInt(value, pos, end);
+      } else if (!time && designator == 'D') {
+        days = parseInt(value, pos, end);
+      } else {
+        throw conversionFailed(null);
       }
+      pos = end + 1;
     }
+    setFields(years, months, days, hours, minutes, micros);
   }
 
   /**
@@ -152,75 +143,177 @@ public class PGInterval extends PGobject implements Serializable, Cloneable {
     int days = 0;
     int hours = 0;
     int minutes = 0;
-    double seconds = 0;
-
-    try {
-      String valueToken = null;
-
-      value = value.replace('+', ' ').replace('@', ' ');
-      final StringTokenizer st = new StringTokenizer(value);
-      for (int i = 1; st.hasMoreTokens(); i++) {
-        String token = st.nextToken();
-
-        if ((i & 1) == 1) {
-          int endHours = token.indexOf(':');
-          if (endHours == -1) {
-            valueToken = token;
-            continue;
-          }
-
-          // This handles hours, minutes, seconds and microseconds for
-          // ISO intervals
-          int offset = (token.charAt(0) == '-') ? 1 : 0;
-
-          hours = nullSafeIntGet(token.substring(offset + 0, endHours));
-          minutes = nullSafeIntGet(token.substring(endHours + 1, endHours + 3));
-
-          // Pre 7.4 servers do not put second information into the results
-          // unless it is non-zero.
-          int endMinutes = token.indexOf(':', endHours + 1);
-          if (endMinutes != -1) {
-            seconds = nullSafeDoubleGet(token.substring(endMinutes + 1));
-          }
-
-          if (offset == 1) {
-            hours = -hours;
-            minutes = -minutes;
-            seconds = -seconds;
-          }
-
-          valueToken = null;
-        } else {
-          // This handles years, months, days for both, ISO and
-          // Non-ISO intervals. Hours, minutes, seconds and microseconds
-          // are handled for Non-ISO intervals here.
-
-          if (token.startsWith("year")) {
-            years = nullSafeIntGet(valueToken);
-          } else if (token.startsWith("mon")) {
-            months = nullSafeIntGet(valueToken);
-          } else if (token.startsWith("day")) {
-            days = nullSafeIntGet(valueToken);
-          } else if (token.startsWith("hour")) {
-            hours = nullSafeIntGet(valueToken);
-          } else if (token.startsWith("min")) {
-            minutes = nullSafeIntGet(valueToken);
-          } else if (token.startsWith("sec")) {
-            seconds = nullSafeDoubleGet(valueToken);
-          }
+    long micros = 0;
+
+    // The tokens alternate between numbers and units, except for the hh:mm:ss part which
+    // stands on its own. They are parsed in place to avoid substrings.
+    int length = value.length();
+    int valueStart = -1;
+    int valueEnd = -1;
+    int pos = 0;
+    for (int i = 1; ; i++) {
+      while (pos < length && isSeparator(value.charAt(pos))) {
+        pos++;
+      }
+      if (pos == length) {
+        break;
+      }
+      int start = pos;
+      while (pos < length && !isSeparator(value.charAt(pos))) {
+        pos++;
+      }
+
+      if ((i & 1) == 1) {
+        int endHours = value.indexOf(':', start);
+        if (endHours == -1 || endHours >= pos) {
+          valueStart = start;
+          valueEnd = pos;
+          continue;
+        }
+
+        // This handles hours, minutes, seconds and microseconds for
+        // ISO intervals
+        boolean negative = value.charAt(start) == '-';
+
+        hours = parseInt(value, negative ? start + 1 : start, endHours);
+        minutes = parseInt(value, endHours + 1, Math.min(endHours + 3, pos));
+
+        // Pre 7.4 servers do not put second information into the results
+        // unless it is non-zero.
+        int endMinutes = value.indexOf(':', endHours + 1);
+        if (endMinutes != -1 && endMinutes < pos) {
+          micros = parseMicros(value, endMinutes + 1, pos);
+        }
+
+        if (negative) {
+          hours = -hours;
+          minutes = -minutes;
+          micros = -micros;
+        }
+
+        valueStart = -1;
+      } else {
+        // This handles years, months, days for both, ISO and
+        // Non-ISO intervals. Hours, minutes, seconds and microseconds
+        // are handled for Non-ISO intervals here.
+
+        if (value.startsWith("year", start)) {
+          years = parseIntOrZero(value, valueStart, valueEnd);
+        } else if (value.startsWith("mon", start)) {
+          months = parseIntOrZero(value, valueStart, valueEnd);
+        } else if (value.startsWith("day", start)) {
+          days = parseIntOrZero(value, valueStart, valueEnd);
+        } else if (value.startsWith("hour", start)) {
+          hours = parseIntOrZero(value, valueStart, valueEnd);
+        } else if (value.startsWith("min", start)) {
+          minutes = parseIntOrZero(value, valueStart, valueEnd);
+        } else if (value.startsWith("sec", start)) {
+          micros = valueStart == -1 ? 0 : parseMicros(value, valueStart, valueEnd);
         }
       }
-    } catch (NumberFormatException e) {
-      throw new PSQLException(GT.tr("Conversion of interval failed"),
-          PSQLState.NUMERIC_CONSTANT_OUT_OF_RANGE, e);
     }
 
     if (!PostgresFormat && value.endsWith("ago")) {
       // Inverse the leading sign
-      setValue(-years, -months, -days, -hours, -minutes, -seconds);
+      setFields(-years, -months, -days, -hours, -minutes, -micros);
     } else {
-      setValue(years, months, days, hours, minutes, seconds);
+      setFields(years, months, days, hours, minutes, micros);
+    }
+  }
+
+  private static boolean isSeparator(char ch) {
+    return ch == ' ' || ch == '+' || ch == '@' || ch == '\t' || ch == '\n' || ch == '\r'
+        || ch == '\f';
+  }
+
+  private static PSQLException conversionFailed(@Nullable Throwable cause) {
+    return new PSQLException(GT.tr("Conversion of interval failed"),
+        PSQLState.NUMERIC_CONSTANT_OUT_OF_RANGE, cause);
+  }
+
+  /**
+   * Returns the integer in the given part of value, or 0 if there is none.
+   */
+  private static int parseIntOrZero(String value, int start, int end) throws PSQLException {
+    return start == -1 ? 0 : parseInt(value, start, end);
+  }
+
+  private static int parseInt(String value, int start, int end) throws PSQLException {
+    boolean negative = start < end && value.charAt(start) == '-';
+    int pos = negative ? start + 1 : start;
+    if (pos == end) {
+      throw conversionFailed(null);
     }
+    long result = 0;
+    for (; pos < end; pos++) {
+      int digit = value.charAt(pos) - '0';
+      if (digit < 0 || digit > 9) {
+        throw conversionFailed(null);
+      }
+      result = result * 10 + digit;
+      if (result > Integer.MAX_VALUE + 1L) {
+        throw conversionFailed(null);
+      }
+    }
+    result = negative ? -result : result;
+    if (result > Integer.MAX_VALUE) {
+      throw conversionFailed(null);
+    }
+    return (int) result;
+  }
+
+  /**
+   * Parses seconds with an optional fraction into microseconds, rounding to the nearest
+   * microsecond.
+   */
+  private static long parseMicros(String value, int start, int end) throws PSQLException {
+    boolean negative = start < end && value.charAt(start) == '-';
+    int pos = negative ? start + 1 : start;
+    long seconds = 0;
+    long fraction = 0;
+    int fractionDigits = 0;
+    boolean roundUp = false;
+    boolean digits = false;
+    boolean point = false;
+    for (; pos < end; pos++) {
+      char ch = value.charAt(pos);
+      if (ch == '.' && !point) {
+        point = true;
+        continue;
+      }
+      int digit = ch - '0';
+      if (digit < 0 || digit > 9) {
+        // not produced by the server, but accepted by the previous parser
+        try {
+          double d = Double.parseDouble(value.substring(start, end));
+          long whole = (long) d;
+          return whole * MICROS_IN_SECOND + Math.round((d - whole) * MICROS_IN_SECOND);
+        } catch (NumberFormatException e) {
+          throw conversionFailed(e);
+        }
+      }
+      digits = true;
+      if (!point) {
+        seconds = seconds * 10 + digit;
+        if (seconds > Integer.MAX_VALUE) {
+          throw conversionFailed(null);
+        }
+      } else if (fractionDigits < 6) {
+        fraction = fraction * 10 + digit;
+        fractionDigits++;
+      } else if (fractionDigits == 6) {
+        roundUp = digit >= 5;
+        fractionDigits++;
+      }
+    }
+    if (!digits) {
+      throw conversionFailed(null);
+    }
+    for (; fractionDigits < 6; fractionDigits++) {
+      fraction *= 10;
+    }
+    long micros = seconds * MICROS_IN_SECOND + fraction + (roundUp ? 1 : 0);
+    return negative ? -micros : micros;
   }
 
   /**
@@ -242,6 +335,16 @@ public class PGInterval extends PGobject implements Serializable, Cloneable {
     setSeconds(seconds);
   }
 
+  private void setFields(int years, int months, int days, int hours, int minutes, long micros) {
+    this.years = years;
+    this.months = months;
+    this.days = days;
+    this.hours = hours;
+    this.minutes = minutes;
+    this.wholeSeconds = (int) (micros / MICROS_IN_SECOND);
+    this.microSeconds = (int) (micros % MICROS_IN_SECOND);
+  }
+
   /**
    * Returns the stored interval information as a string.
    *
@@ -442,25 +545,41 @@ public class PGInterval extends PGobject implements Serializable, Cloneable {
   }
 
   /**
-   * Returns integer value of value or 0 if value is null.
+   * Sets this interval from the binary format: microseconds, days and months. The months are split
+   * into years and months and the microseconds into hours, minutes and seconds, the way the server
+   * formats intervals as text.
    *
-   * @param value integer as string value
-   * @return integer parsed from string value
-   * @throws NumberFormatException if the string contains invalid chars
+   * @param bytes binary interval
+   * @param offset offset of the value in bytes
+   * @throws SQLException if the hours do not fit into an int
    */
-  private static int nullSafeIntGet(@Nullable String value) throws NumberFormatException {
-    return (value == null) ? 0 : Integer.parseInt(value);
+  @Override
+  public void setByteValue(byte[] bytes, int offset) throws SQLException {
+    long micros = ByteConverter.int8(bytes, offset);
+    int days = ByteConverter.int4(bytes, offset + 8);
+    int months = ByteConverter.int4(bytes, offset + 12);
+
+    long hours = micros / MICROS_IN_HOUR;
+    if (hours > Integer.MAX_VALUE || hours < Integer.MIN_VALUE) {
+      throw conversionFailed(null);
+    }
+    micros -= hours * MICROS_IN_HOUR;
+    int minutes = (int) (micros / MICROS_IN_MINUTE);
+    micros -= minutes * MICROS_IN_MINUTE;
+    setFields(months / 12, months % 12, days, (int) hours, minutes, micros);
   }
 
-  /**
-   * Returns double value of value or 0 if value is null.
-   *
-   * @param value double as string value
-   * @return double parsed from string value
-   * @throws NumberFormatException if the string contains invalid chars
-   */
-  private static double nullSafeDoubleGet(@Nullable String value) throws NumberFormatException {
-    return (value == null) ? 0 : Double.parseDouble(value);
+  @Override
+  public int lengthInBytes() {
+    return 16;
+  }
+
+  @Override
+  public void toBytes(byte[] bytes, int offset) {
+    long micros = ((hours * 60L + minutes) * 60L + wholeSeconds) * MICROS_IN_SECOND + microSeconds;
+    ByteConverter.int8(bytes, offset, micros);
+    ByteConverter.int4(bytes, offset + 8, days);
+    ByteConverter.int4(bytes, offset + 12, years * 12 + months);
   }
 
   /**
@@ -0,0 +1,78 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.util;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A value of a PostgreSQL multirange type such as {@code int4multirange}, available from
+ * PostgreSQL 14, read with {@code ResultSet.getObject(column, PGMultirange.class)}. The bounds of
+ * the ranges have the types described in {@link PGRange}.
+ *
+ * <p>Instances are immutable.</p>
+ *
+ * @param <T> the type of the bounds
+ */
+public final class PGMultirange<T> implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  private final List<PGRange<T>> ranges;
+
+  public PGMultirange(List<PGRange<T>> ranges) {
+    this.ranges = Collections.unmodifiableList(new ArrayList<PGRange<T>>(ranges));
+  }
+
+  @SafeVarargs
+  public static <T> PGMultirange<T> of(PGRange<T>... ranges) {
+    List<PGRange<T>> list = new ArrayList<PGRange<T>>(ranges.length);
+    for (PGRange<T> range : ranges) {
+      list.add(range);
+    }
+    return new PGMultirange<T>(list);
+  }
+
+  /**
+   * The ranges of this multirange, in the order they were received or given.
+   *
+   * @return unmodifiable list of ranges
+   */
+  public List<PGRange<T>> getRanges() {
+    return ranges;
+  }
+
+  @Override
+  public boolean equals(@Nullable Object obj) {
+    return obj instanceof PGMultirange && ranges.equals(((PGMultirange<?>) obj).ranges);
+  }
+
+  @Override
+  public int hashCode() {
+    return ranges.hashCode();
+  }
+
+  /**
+   * Returns the multirange in the text format of PostgreSQL, such as {@code {[1,3),[5,7)}}.
+   *
+   * @return the multirange literal
+   */
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    sb.append('{');
+    for (int i = 0; i < ranges.size(); i++) {
+      if (i > 0) {
+        sb.append(',');
+      }
+      sb.append(ranges.get(i));
+    }
+    return sb.append('}').toString();
+  }
+}
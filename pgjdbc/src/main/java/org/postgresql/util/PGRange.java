@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.util;
+
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+import java.io.Serializable;
+
+/**
+ * <p>A value of a PostgreSQL range type such as {@code int4range} or {@code tstzrange}, read with
+ * {@code ResultSet.getObject(column, PGRange.class)}.</p>
+ *
+ * <p>Bounds have the Java type {@link java.sql.ResultSet#getObject(int)} returns for the range
+ * subtype: {@link Integer} for {@code int4range}, {@link Long} for {@code int8range},
+ * {@link java.math.BigDecimal} for {@code numrange}, {@link java.sql.Date} for {@code daterange},
+ * and {@link java.sql.Timestamp} for {@code tsrange} and {@code tstzrange}. When binding a range,
+ * {@link java.time.LocalDate}, {@link java.time.LocalDateTime} and
+ * {@link java.time.OffsetDateTime} bounds are accepted too. A null bound is infinite.</p>
+ *
+ * <p>Instances are immutable.</p>
+ *
+ * @param <T> the type of the bounds
+ */
+public final class PGRange<T> implements Serializable {
+  private static final long serialVersionUID = 1L;
+
+  private static final PGRange<?> EMPTY = new PGRange<Object>(null, false, null, false, true);
+
+  private final @Nullable T lower;
+  private final @Nullable T upper;
+  private final boolean lowerInclusive;
+  private final boolean upperInclusive;
+  private final boolean empty;
+
+  private PGRange(@Nullable T lower, boolean lowerInclusive, @Nullable T upper,
+      boolean upperInclusive, boolean empty) {
+    this.lower = lower;
+    this.upper = upper;
+    this.lowerInclusive = lowerInclusive && lower != null;
+    this.upperInclusive = upperInclusive && upper != null;
+    this.empty = empty;
+  }
+
+  /**
+   * The empty range.
+   *
+   * @param <T> the type of the bounds
+   * @return the empty range
+   */
+  @SuppressWarnings("unchecked")
+  public static <T> PGRange<T> empty() {
+    return (PGRange<T>) EMPTY;
+  }
+
+  /**
+   * Creates a range. Infinite bounds are never inclusive.
+   *
+   * @param lower the lower bound, or null if the range has no lower bound
+   * @param lowerInclusive whether the lower bound is part of the range
+   * @param upper the upper bound, or null if the range has no upper bound
+   * @param upperInclusive whether the upper bound is part of the range
+   * @param <T> the type of the bounds
+   * @return the range
+   */
+  public static <T> PGRange<T> of(@Nullable T lower, boolean lowerInclusive, @Nullable T upper,
+      boolean upperInclusive) {
+    return new PGRange<T>(lower, lowerInclusive, upper, upperInclusive, false);
+  }
+
+  /**
+   * Creates a range that includes its lower bound and excludes its upper bound, the canonical
+   * form of discrete ranges: {@code [lower,upper)}.
+   *
+   * @param lower the lower bound, or null if the range has no lower bound
+   * @param upper the upper bound, or null if the range has no upper bound
+   * @param <T> the type of the bounds
+   * @return the range
+   */
+  public static <T> PGRange<T> closedOpen(@Nullable T lower, @Nullable T upper) {
+    return of(lower, true, upper, false);
+  }
+
+  public boolean isEmpty() {
+    return empty;
+  }
+
+  public @Nullable T getLower() {
+    return lower;
+  }
+
+  public @Nullable T getUpper() {
+    return upper;
+  }
+
+  public boolean isLowerInclusive() {
+    return lowerInclusive;
+  }
+
+  public boolean isUpperInclusive() {
+    return upperInclusive;
+  }
+
+  public boolean isLowerInfinite() {
+    return !empty && lower == null;
+  }
+
+  public boolean isUpperInfinite() {
+    return !empty && upper == null;
+  }
+
+  @Override
+  public boolean equals(@Nullable Object obj) {
+    if (this == obj) {
+      return true;
+    }
+    if (!(obj instanceof PGRange)) {
+      return false;
+    }
+    PGRange<?> other = (PGRange<?>) obj;
+    return empty == other.empty
+        && lowerInclusive == other.lowerInclusive
+        && upperInclusive == other.upperInclusive
+        && (lower == null ? other.lower == null : lower.equals(other.lower))
+        && (upper == null ? other.upper == null : upper.equals(other.upper));
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = empty ? 1 : 0;
+    hash = 31 * hash + (lowerInclusive ? 1 : 0);
+    hash = 31 * hash + (upperInclusive ? 1 : 0);
+    hash = 31 * hash + (lower == null ? 0 : lower.hashCode());
+    return 31 * hash + (upper == null ? 0 : upper.hashCode());
+  }
+
+  /**
+   * Returns the range in the text format of PostgreSQL, such as {@code [1,10)} or {@code empty}.
+   * Bounds are formatted with {@link String#valueOf(Object)}.
+   *
+   * @return the range literal
+   */
+  @Override
+  public String toString() {
+    if (empty) {
+      return "empty";
+    }
+    StringBuilder sb = new StringBuilder();
+    sb.append(lowerInclusive ? '[' : '(');
+    if (lower != null) {
+      appendBound(sb, String.valueOf(lower));
+    }
+    sb.append(',');
+    if (upper != null) {
+      appendBound(sb, String.valueOf(upper));
+    }
+    return sb.append(upperInclusive ? ']' : ')').toString();
+  }
+
+  // quotes the bound the way range_out does
+  private static void appendBound(StringBuilder sb, String bound) {
+    boolean quote = bound.isEmpty();
+    for (int i = 0; i < bound.length() && !quote; i++) {
+      char c = bound.charAt(i);
+      quote = c == '"' || c == '\\' || c == '(' || c == ')' || c == '[' || c == ']' || c == ','
+          || Character.isWhitespace(c);
+    }
+    if (!quote) {
+      sb.append(bound);
+      return;
+    }
+    sb.append('"');
+    for (int i = 0; i < bound.length(); i++) {
+      char c = bound.charAt(i);
+      if (c == '"' || c == '\\') {
+        sb.append(c);
+      }
+      sb.append(c);
+    }
+    sb.append('"');
+  }
+}
@@ -7,6 +7,10 @@ package org.postgresql.util;
 
 import org.checkerframework.checker.nullness.qual.PolyNull;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.sql.SQLException;
 
 /**
@@ -15,6 +19,21 @@ import java.sql.SQLException;
 public class PGbytea {
   private static final int MAX_3_BUFF_SIZE = 2 * 1024 * 1024;
 
+  /**
+   * Lookup table from an ASCII hex digit to its value.
+   */
+  private static final byte[] HEX_VALUES = new byte[256];
+
+  static {
+    for (int i = 0; i < 10; i++) {
+      HEX_VALUES['0' + i] = (byte) i;
+    }
+    for (int i = 0; i < 6; i++) {
+      HEX_VALUES['a' + i] = (byte) (10 + i);
+      HEX_VALUES['A' + i] = (byte) (10 + i);
+    }
+  }
+
   /*
    * Converts a PG bytea raw value (i.e. the raw binary representation of the bytea data type) into
    * a java byte[]
@@ -36,29 +55,185 @@ public class PGbytea {
 
   private static byte[] toBytesHexEscaped(byte[] s) {
     byte[] output = new byte[(s.length - 2) / 2];
-    for (int i = 0; i < output.length; i++) {
-      byte b1 = gethex(s[2 + i * 2]);
-      byte b2 = gethex(s[2 + i * 2 + 1]);
-      // squid:S3034
-      // Raw byte values should not be used in bitwise operations in combination with shifts
-      output[i] = (byte) ((b1 << 4) | (b2 & 0xff));
-    }
+    decodeHex(s, 2, output, 0, output.length);
     return output;
   }
 
-  private static byte gethex(byte b) {
-    // 0-9 == 48-57
-    if (b <= 57) {
-      return (byte) (b - 48);
+  /**
+   * Decodes hex digit pairs into the given buffer, so callers can decode a hex-escaped bytea
+   * value chunk by chunk without allocating the whole decoded array.
+   *
+   * @param src hex digits (without the leading {@code \x})
+   * @param srcOffset offset of the first hex digit in {@code src}
+   * @param dst buffer that receives the decoded bytes
+   * @param dstOffset offset in {@code dst} for the first decoded byte
+   * @param count number of bytes to decode, consumes {@code 2 * count} hex digits
+   */
+  public static void decodeHex(byte[] src, int srcOffset, byte[] dst, int dstOffset, int count) {
+    final byte[] hexValues = HEX_VALUES;
+    int s = srcOffset;
+    for (int i = dstOffset, end = dstOffset + count; i < end; i++) {
+      int hi = hexValues[src[s++] & 0xff];
+      int lo = hexValues[src[s++] & 0xff];
+      dst[i] = (byte) ((hi << 4) | lo);
+    }
+  }
+
+  /**
+   * Returns a stream over a PG bytea raw value that decodes the value as it is read. For the hex
+   * format no intermediate copy of the decoded value is made.
+   *
+   * @param s the raw bytea value as received from the backend in text format
+   * @return stream of the decoded bytes
+   */
+  public static InputStream toInputStream(byte[] s) {
+    if (s.length < 2 || s[0] != '\\' || s[1] != 'x') {
+      return new ByteArrayInputStream(toBytesOctalEscaped(s));
+    }
+    return new HexDecodingInputStream(s);
+  }
+
+  /**
+   * Returns a stream that decodes the text representation of a bytea value read from another
+   * stream. Hex encoded values are decoded incrementally, the legacy escape format is read into
+   * memory and decoded in one go.
+   *
+   * @param s text representation of the bytea value
+   * @return stream of the decoded bytes
+   * @throws IOException if reading {@code s} fails
+   */
+  public static InputStream toInputStream(InputStream s) throws IOException {
+    int first = s.read();
+    int second = first == -1 ? -1 : s.read();
+    if (first == '\\' && second == 'x') {
+      return new HexDecodingStream(s);
+    }
+    ByteArrayOutputStream escaped = new ByteArrayOutputStream();
+    if (first != -1) {
+      escaped.write(first);
+    }
+    if (second != -1) {
+      escaped.write(second);
+    }
+    byte[] buffer = new byte[8192];
+    int read;
+    while ((read = s.read(buffer)) != -1) {
+      escaped.write(buffer, 0, read);
+    }
+    s.close();
+    return new ByteArrayInputStream(toBytesOctalEscaped(escaped.toByteArray()));
+  }
+
+  /**
+   * Decodes hex-escaped bytea read from another stream, one buffer at a time.
+   */
+  private static class HexDecodingStream extends InputStream {
+    private final InputStream in;
+    private final byte[] hex = new byte[8192];
+    private int pos;
+    private int limit;
+
+    HexDecodingStream(InputStream in) {
+      this.in = in;
+    }
+
+    private boolean fill() throws IOException {
+      if (limit - pos >= 2) {
+        return true;
+      }
+      if (pos < limit) {
+        hex[0] = hex[pos];
+        limit = 1;
+      } else {
+        limit = 0;
+      }
+      pos = 0;
+      while (limit < 2) {
+        int read = in.read(hex, limit, hex.length - limit);
+        if (read == -1) {
+          return false;
+        }
+        limit += read;
+      }
+      return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+      if (!fill()) {
+        return -1;
+      }
+      int b = (HEX_VALUES[hex[pos] & 0xff] << 4) | HEX_VALUES[hex[pos + 1] & 0xff];
+      pos += 2;
+      return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      if (!fill()) {
+        return -1;
+      }
+      int count = Math.min(len, (limit - pos) / 2);
+      decodeHex(hex, pos, b, off, count);
+      pos += 2 * count;
+      return count;
+    }
+
+    @Override
+    public void close() throws IOException {
+      in.close();
+    }
+  }
+
+  /**
+   * Decodes hex-escaped bytea straight into the buffers passed to {@link #read(byte[], int, int)}.
+   */
+  private static class HexDecodingInputStream extends InputStream {
+    private final byte[] hex;
+    private int pos = 2;
+
+    HexDecodingInputStream(byte[] hex) {
+      this.hex = hex;
     }
 
-    // a-f == 97-102
-    if (b >= 97) {
-      return (byte) (b - 97 + 10);
+    @Override
+    public int read() {
+      if (available() == 0) {
+        return -1;
+      }
+      int b = (HEX_VALUES[hex[pos] & 0xff] << 4) | HEX_VALUES[hex[pos + 1] & 0xff];
+      pos += 2;
+      return b;
     }
 
-    // A-F == 65-70
-    return (byte) (b - 65 + 10);
+    @Override
+    public int read(byte[] b, int off, int len) {
+      if (len == 0) {
+        return 0;
+      }
+      int count = Math.min(len, available());
+      if (count == 0) {
+        return -1;
+      }
+      decodeHex(hex, pos, b, off, count);
+      pos += 2 * count;
+      return count;
+    }
+
+    @Override
+    public long skip(long n) {
+      long count = Math.max(0, Math.min(n, available()));
+      pos += (int) (2 * count);
+      return count;
+    }
+
+    @Override
+    public int available() {
+      return (hex.length - pos) / 2;
+    }
   }
 
   private static byte[] toBytesOctalEscaped(byte[] s) {
@@ -0,0 +1,244 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.copy;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.postgresql.util.ByteStreamWriter;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.PSQLState;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.SQLException;
+
+public class PGAsyncCopyOutputStreamTest {
+
+  /**
+   * Records the data sent, optionally failing after a number of writes.
+   */
+  private static class RecordingCopyIn implements CopyIn {
+    final ByteArrayOutputStream sent = new ByteArrayOutputStream();
+    final int failAfter;
+    int writes;
+    int maxWrite;
+    boolean active = true;
+    boolean cancelled;
+    volatile Thread writer;
+
+    RecordingCopyIn(int failAfter) {
+      this.failAfter = failAfter;
+    }
+
+    @Override
+    public synchronized void writeToCopy(byte[] buf, int off, int siz) throws SQLException {
+      writer = Thread.currentThread();
+      if (++writes > failAfter) {
+        throw new PSQLException("connection lost", PSQLState.CONNECTION_FAILURE);
+      }
+      maxWrite = Math.max(maxWrite, siz);
+      sent.write(buf, off, siz);
+    }
+
+    @Override
+    public synchronized void writeToCopy(ByteStreamWriter from) throws SQLException {
+      try {
+        from.writeTo(new ByteStreamWriter.ByteStreamTarget() {
+          @Override
+          public OutputStream getOutputStream() {
+            return sent;
+          }
+        });
+      } catch (IOException e) {
+        throw new AssertionError(e);
+      }
+    }
+
+    @Override
+    public void flushCopy() {
+    }
+
+    @Override
+    public synchronized long endCopy() {
+      active = false;
+      return 42;
+    }
+
+    @Override
+    public int getFieldCount() {
+      return 1;
+    }
+
+    @Override
+    public int getFormat() {
+      return 0;
+    }
+
+    @Override
+    public int getFieldFormat(int field) {
+      return 0;
+    }
+
+    @Override
+    public synchronized boolean isActive() {
+      return active;
+    }
+
+    @Override
+    public synchronized void cancelCopy() {
+      active = false;
+      cancelled = true;
+    }
+
+    @Override
+    public synchronized long getHandledRowCount() {
+      return active ? -1 : 42;
+    }
+  }
+
+  private static byte[] data(int length) {
+    byte[] data = new byte[length];
+    for (int i = 0; i < length; i++) {
+      data[i] = (byte) (i * 31);
+    }
+    return data;
+  }
+
+  @Test
+  public void sendsDataInOrderFromAnotherThread() throws Exception {
+    RecordingCopyIn op = new RecordingCopyIn(Integer.MAX_VALUE);
+    PGAsyncCopyOutputStream out = new PGAsyncCopyOutputStream(op, 16, 3);
+    byte[] data = data(1000);
+    for (int i = 0; i < 500; i++) {
+      out.write(data[i] & 0xff);
+    }
+    out.write(data, 500, 7);
+    out.write(data, 507, 493);
+    assertEquals(42, out.endCopy());
+    assertArrayEquals(data, op.sent.toByteArray());
+    assertTrue("Writes must not exceed the buffer size", op.maxWrite <= 16);
+    assertFalse(Thread.currentThread() == op.writer);
+    out.close();
+  }
+
+  @Test
+  public void flushSendsBufferedData() throws Exception {
+    RecordingCopyIn op = new RecordingCopyIn(Integer.MAX_VALUE);
+    PGAsyncCopyOutputStream out = new PGAsyncCopyOutputStream(op, 16, 2);
+    out.write(data(5));
+    out.flush();
+    assertEquals(5, op.sent.size());
+    out.close();
+    assertFalse(op.isActive());
+    assertFalse(out.isActive());
+  }
+
+  @Test
+  public void errorSurfacesOnNextWrite() throws Exception {
+    RecordingCopyIn op = new RecordingCopyIn(1);
+    PGAsyncCopyOutputStream out = new PGAsyncCopyOutputStream(op, 4, 2);
+    try {
+      for (int i = 0; i < 1000; i++) {
+        out.write(data(3));
+      }
+      fail("The failure of the second write to the connection should be thrown");
+    } catch (IOException e) {
+      assertEquals(PSQLState.CONNECTION_FAILURE.getState(),
+          ((SQLException) e.getCause()).getSQLState());
+    }
+    assertTrue("The COPY should be cancelled", op.cancelled);
+    try {
+      out.write(1);
+      fail("The failure should be thrown again");
+    } catch (IOException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void errorSurfacesOnEndCopy() throws Exception {
+    RecordingCopyIn op = new RecordingCopyIn(0);
+    PGAsyncCopyOutputStream out = new PGAsyncCopyOutputStream(op, 16, 2);
+    out.write(data(5));
+    try {
+      out.endCopy();
+      fail("The failure to send the data should be thrown");
+    } catch (SQLException e) {
+      assertEquals(PSQLState.CONNECTION_FAILURE.getState(), e.getSQLState());
+    }
+    assertTrue("The COPY should be cancelled", op.cancelled);
+  }
+
+  @Test
+  public void cancelDiscardsBufferedData() throws Exception {
+    RecordingCopyIn op = new RecordingCopyIn(Integer.MAX_VALUE);
+    PGAsyncCopyOutputStream out = new PGAsyncCopyOutputStream(op, 16, 2);
+    out.write(data(5));
+    out.cancelCopy();
+    assertTrue(op.cancelled);
+    assertEquals(0, op.sent.size());
+    try {
+      out.writeToCopy(data(1), 0, 1);
+      fail("Writing after cancelling should fail");
+    } catch (SQLException e) {
+      assertEquals(PSQLState.OBJECT_NOT_IN_STATE.getState(), e.getSQLState());
+    }
+    out.close();
+  }
+
+  @Test
+  public void byteStreamWriterKeepsOrder() throws Exception {
+    RecordingCopyIn op = new RecordingCopyIn(Integer.MAX_VALUE);
+    PGAsyncCopyOutputStream out = new PGAsyncCopyOutputStream(op, 16, 2);
+    final byte[] data = data(10);
+    out.write(data, 0, 5);
+    out.writeToCopy(new ByteStreamWriter() {
+      @Override
+      public int getLength() {
+        return 5;
+      }
+
+      @Override
+      public void writeTo(ByteStreamTarget target) throws IOException {
+        target.getOutputStream().write(data, 5, 5);
+      }
+    });
+    out.endCopy();
+    assertArrayEquals(data, op.sent.toByteArray());
+  }
+
+  @Test
+  public void atLeastTwoBuffers() {
+    try {
+      new PGAsyncCopyOutputStream(new RecordingCopyIn(0), 16, 1);
+      fail("One buffer cannot overlap filling and sending");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  @Test
+  public void closedStreamRejectsWrites() throws Exception {
+    RecordingCopyIn op = new RecordingCopyIn(Integer.MAX_VALUE);
+    PGAsyncCopyOutputStream out = new PGAsyncCopyOutputStream(op, 16, 2);
+    out.close();
+    out.close();
+    try {
+      out.write(1);
+      fail("Writing to a closed stream should fail");
+    } catch (IOException e) {
+      assertSame(IOException.class, e.getClass());
+    }
+  }
+}
@@ -50,8 +50,34 @@ public class OidValuesCorrectnessTest extends BaseTest4 {
   private static Map<String, ServerVersion> oidsMinimumVersions = new HashMap<String, ServerVersion>() {{
       put("JSON", ServerVersion.v9_2);
       put("JSON_ARRAY", ServerVersion.v9_2);
+      put("JSONB", ServerVersion.v9_4);
       put("JSONB_ARRAY", ServerVersion.v9_4);
       put("MACADDR8", ServerVersion.v10);
+      put("RECORD_ARRAY", ServerVersion.v8_4);
+      put("INT4RANGE", ServerVersion.v9_2);
+      put("INT4RANGE_ARRAY", ServerVersion.v9_2);
+      put("NUMRANGE", ServerVersion.v9_2);
+      put("NUMRANGE_ARRAY", ServerVersion.v9_2);
+      put("TSRANGE", ServerVersion.v9_2);
+      put("TSRANGE_ARRAY", ServerVersion.v9_2);
+      put("TSTZRANGE", ServerVersion.v9_2);
+      put("TSTZRANGE_ARRAY", ServerVersion.v9_2);
+      put("DATERANGE", ServerVersion.v9_2);
+      put("DATERANGE_ARRAY", ServerVersion.v9_2);
+      put("INT8RANGE", ServerVersion.v9_2);
+      put("INT8RANGE_ARRAY", ServerVersion.v9_2);
+      put("INT4MULTIRANGE", ServerVersion.v14);
+      put("INT4MULTIRANGE_ARRAY", ServerVersion.v14);
+      put("NUMMULTIRANGE", ServerVersion.v14);
+      put("NUMMULTIRANGE_ARRAY", ServerVersion.v14);
+      put("TSMULTIRANGE", ServerVersion.v14);
+      put("TSMULTIRANGE_ARRAY", ServerVersion.v14);
+      put("TSTZMULTIRANGE", ServerVersion.v14);
+      put("TSTZMULTIRANGE_ARRAY", ServerVersion.v14);
+      put("DATEMULTIRANGE", ServerVersion.v14);
+      put("DATEMULTIRANGE_ARRAY", ServerVersion.v14);
+      put("INT8MULTIRANGE", ServerVersion.v14);
+      put("INT8MULTIRANGE_ARRAY", ServerVersion.v14);
     }};
 
   /**
@@ -89,6 +115,19 @@ public class OidValuesCorrectnessTest extends BaseTest4 {
       put("JSON_ARRAY", "_JSON");
       put("REF_CURSOR", "REFCURSOR");
       put("REF_CURSOR_ARRAY", "_REFCURSOR");
+      put("RECORD_ARRAY", "_RECORD");
+      put("INT4RANGE_ARRAY", "_INT4RANGE");
+      put("NUMRANGE_ARRAY", "_NUMRANGE");
+      put("TSRANGE_ARRAY", "_TSRANGE");
+      put("TSTZRANGE_ARRAY", "_TSTZRANGE");
+      put("DATERANGE_ARRAY", "_DATERANGE");
+      put("INT8RANGE_ARRAY", "_INT8RANGE");
+      put("INT4MULTIRANGE_ARRAY", "_INT4MULTIRANGE");
+      put("NUMMULTIRANGE_ARRAY", "_NUMMULTIRANGE");
+      put("TSMULTIRANGE_ARRAY", "_TSMULTIRANGE");
+      put("TSTZMULTIRANGE_ARRAY", "_TSTZMULTIRANGE");
+      put("DATEMULTIRANGE_ARRAY", "_DATEMULTIRANGE");
+      put("INT8MULTIRANGE_ARRAY", "_INT8MULTIRANGE");
     }};
 
   @Parameterized.Parameters(name = "oidName={0}, oidValue={1}")
@@ -0,0 +1,69 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.core;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+
+public class SpooledValueTest {
+  private static SpooledValue spool(byte[] bytes) throws IOException {
+    File file = Files.createTempFile("pgjdbc-value", ".tmp").toFile();
+    OutputStream out = new FileOutputStream(file);
+    try {
+      out.write(bytes);
+    } finally {
+      out.close();
+    }
+    return new SpooledValue(file, bytes.length);
+  }
+
+  @Test
+  public void copyKeepsFileOfReleasedTuple() throws IOException {
+    byte[] bytes = {1, 2, 3};
+    Tuple row = new Tuple(new byte[1][], new SpooledValue[]{spool(bytes)});
+    Tuple copy = row.updateableCopy();
+    row.release();
+    Assert.assertArrayEquals("The copy should still read the value", bytes, copy.load(0));
+    copy.release();
+  }
+
+  @Test
+  public void lastReleaseDeletesFile() throws IOException {
+    SpooledValue value = spool(new byte[]{1});
+    Tuple row = new Tuple(new byte[1][], new SpooledValue[]{value});
+    Tuple copy = row.readOnlyCopy();
+    row.release();
+    value.getInputStream().close();
+    copy.release();
+    try {
+      value.getInputStream().close();
+      Assert.fail("The file should be deleted once every tuple released the value");
+    } catch (IOException expected) {
+      // the file is gone
+    }
+  }
+
+  @Test
+  public void updatingFieldReleasesValue() throws IOException {
+    SpooledValue value = spool(new byte[]{1});
+    Tuple row = new Tuple(new byte[1][], new SpooledValue[]{value});
+    Tuple copy = row.updateableCopy();
+    copy.set(0, new byte[]{2});
+    row.release();
+    try {
+      value.getInputStream().close();
+      Assert.fail("The updated copy should not hold the value");
+    } catch (IOException expected) {
+      // the file is gone
+    }
+  }
+}
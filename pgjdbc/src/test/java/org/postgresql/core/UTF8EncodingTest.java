@@ -5,12 +5,17 @@
 
 package org.postgresql.core;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -43,6 +48,7 @@ public class UTF8EncodingTest {
     strings.add(reallyLongString.delete((16 * 1024) + 5, reallyLongString.capacity() - 1).toString());
     strings.add(reallyLongString.append('\u00DD').toString()); // add high order char to end of mid length string
     strings.add("e\u00E4t \u03A3 \u03C0 \u798F, it is good"); // need to test some multi-byte characters
+    strings.add("replacement \uFFFD char"); // valid U+FFFD must survive the replacement check
 
     for (int i = 1; i < 0xd800; i += STEP) {
       int count = (i + STEP) > 0xd800 ? 0xd800 - i : STEP;
@@ -76,7 +82,8 @@ public class UTF8EncodingTest {
     }
 
     final List<Object[]> data = new ArrayList<Object[]>(strings.size() * 2);
-    for (final Encoding encoding : Arrays.asList(new ByteOptimizedUTF8Encoder(), new CharOptimizedUTF8Encoder())) {
+    for (final Encoding encoding : Arrays.asList(new ByteOptimizedUTF8Encoder(), new CharOptimizedUTF8Encoder(),
+        new IntrinsicUTF8Encoder())) {
       for (String string : strings) {
         data.add(new Object[] { encoding, string });
       }
@@ -89,4 +96,45 @@ public class UTF8EncodingTest {
     final byte[] encoded = encoding.encode(string);
     assertEquals(string, encoding.decode(encoded));
   }
+
+  @Test
+  public void encodeToStream() throws Exception {
+    // unpaired surrogates are sent as '?', like String.getBytes does
+    for (String value : Arrays.asList(string, string + "\ud800x\udc00", "\udbff" + string)) {
+      byte[] expected = value.getBytes(StandardCharsets.UTF_8);
+      ByteArrayOutputStream out = new ByteArrayOutputStream();
+      OptimizedUTF8Encoder.encode(value, out, new byte[13]);
+      assertEquals(expected.length, OptimizedUTF8Encoder.encodedLength(value));
+      assertArrayEquals(expected, out.toByteArray());
+
+      byte[] target = new byte[expected.length + 2];
+      assertEquals(expected.length + 1, OptimizedUTF8Encoder.encode(value, target, 1));
+      assertArrayEquals(expected, Arrays.copyOfRange(target, 1, expected.length + 1));
+    }
+  }
+
+  @Test
+  public void rejectMalformed() throws Exception {
+    byte[][] malformed = {
+        {(byte) 0x80},                                   // continuation byte first
+        {'a', (byte) 0xc3},                              // truncated
+        {(byte) 0xc0, (byte) 0x80},                      // overlong
+        {(byte) 0xed, (byte) 0xa0, (byte) 0x80},         // surrogate
+        {(byte) 0xf4, (byte) 0x90, (byte) 0x80, (byte) 0x80}, // above U+10FFFF
+        {(byte) 0xf8, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80},
+    };
+    for (byte[] bytes : malformed) {
+      // a valid prefix, so the decoders have to find the problem after their ascii checks
+      byte[] value = string.substring(0, Math.min(string.length(), 40))
+          .getBytes(StandardCharsets.UTF_8);
+      byte[] input = Arrays.copyOf(value, value.length + bytes.length);
+      System.arraycopy(bytes, 0, input, value.length, bytes.length);
+      try {
+        encoding.decode(input);
+        fail("malformed input must be rejected: " + Arrays.toString(bytes));
+      } catch (IOException e) {
+        // expected
+      }
+    }
+  }
 }
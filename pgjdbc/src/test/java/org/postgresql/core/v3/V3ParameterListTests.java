@@ -5,12 +5,24 @@
 
 package org.postgresql.core.v3;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.postgresql.core.Oid;
+import org.postgresql.core.ParameterList;
+import org.postgresql.core.TypeInfo;
+import org.postgresql.jdbc.TypeInfoCache;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Test cases to make sure the parameterlist implementation works as expected.
@@ -62,4 +74,124 @@ public class V3ParameterListTests {
         "Expected string representation of values does not match outcome.",
         "<[1 ,2 ,3 ,4 ,5 ,6 ,7 ,8]>", s1SPL.toString());
   }
+
+  @Test
+  public void testPrimitiveParameters() throws SQLException {
+    SimpleParameterList list = new SimpleParameterList(5, transferModeRegistry);
+    list.setPrimitiveParameter(1, (short) -2, Oid.INT2);
+    list.setIntParameter(2, Integer.MIN_VALUE);
+    list.setPrimitiveParameter(3, Long.MAX_VALUE, Oid.INT8);
+    list.setPrimitiveParameter(4, Float.floatToRawIntBits(1.5f), Oid.FLOAT4);
+    list.setPrimitiveParameter(5, Double.doubleToRawLongBits(Double.NaN), Oid.FLOAT8);
+    assertEquals("<[-2 ,-2147483648 ,9223372036854775807 ,1.5 ,'NaN'::double precision]>",
+        list.toString());
+    assertEquals(2, list.getV3Length(1));
+    assertEquals(4, list.getV3Length(2));
+    assertEquals(8, list.getV3Length(3));
+    assertEquals(4, list.getV3Length(4));
+    assertEquals(8, list.getV3Length(5));
+    for (int i = 1; i <= 5; i++) {
+      assertTrue(list.isBinary(i));
+      assertFalse(list.isNull(i));
+    }
+
+    ParameterList copy = list.copy();
+    list.setIntParameter(2, 7);
+    list.setNull(3, Oid.INT8);
+    assertEquals("<[-2 ,7 ,NULL ,1.5 ,'NaN'::double precision]>", list.toString());
+    assertEquals("<[-2 ,-2147483648 ,9223372036854775807 ,1.5 ,'NaN'::double precision]>",
+        copy.toString());
+  }
+
+  @Test
+  public void testPrimitiveParameterValues() throws SQLException {
+    SimpleParameterList list = new SimpleParameterList(4, transferModeRegistry);
+    list.setPrimitiveParameter(1, (short) -2, Oid.INT2);
+    list.setIntParameter(2, 258);
+    list.setPrimitiveParameter(3, 1L, Oid.INT8);
+    list.setStringParameter(4, "x", Oid.VARCHAR);
+    Object[] values = list.getValues();
+    assertArrayEquals(new byte[]{-1, -2}, (byte[]) values[0]);
+    assertArrayEquals(new byte[]{0, 0, 1, 2}, (byte[]) values[1]);
+    assertArrayEquals(new byte[]{0, 0, 0, 0, 0, 0, 0, 1}, (byte[]) values[2]);
+    assertEquals("x", values[3]);
+  }
+
+  @Test
+  public void testCopyBinaryRow() throws SQLException, IOException {
+    SimpleParameterList list = new SimpleParameterList(6, transferModeRegistry);
+    list.setIntParameter(1, -2);
+    list.setPrimitiveParameter(2, Float.floatToRawIntBits(1.5f), Oid.FLOAT4);
+    list.setStringParameter(3, "\u00e9", Oid.VARCHAR);
+    list.setLiteralParameter(4, "TRUE", Oid.BOOL);
+    list.setBinaryParameter(5, new byte[]{7}, Oid.BYTEA);
+    list.setNull(6, Oid.UNSPECIFIED);
+    int[] columnTypes = {Oid.INT8, Oid.FLOAT8, Oid.TEXT, Oid.BOOL, Oid.BYTEA, Oid.DATE};
+    assertTrue(list.isCopyBinaryCompatible(columnTypes));
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    list.writeCopyBinaryRow(columnTypes, out);
+    assertArrayEquals(new byte[]{
+        0, 6,
+        0, 0, 0, 8, -1, -1, -1, -1, -1, -1, -1, -2,
+        0, 0, 0, 8, 0x3f, (byte) 0xf8, 0, 0, 0, 0, 0, 0,
+        0, 0, 0, 2, (byte) 0xc3, (byte) 0xa9,
+        0, 0, 0, 1, 1,
+        0, 0, 0, 1, 7,
+        -1, -1, -1, -1,
+    }, out.toByteArray());
+
+    list.setIntParameter(1, 70000);
+    assertFalse("int4 value out of the int2 range",
+        list.isCopyBinaryCompatible(new int[]{Oid.INT2, Oid.FLOAT8, Oid.TEXT, Oid.BOOL,
+            Oid.BYTEA, Oid.DATE}));
+    list.setStringParameter(3, "2021-01-01", Oid.UNSPECIFIED);
+    assertFalse("text has no binary date form",
+        list.isCopyBinaryCompatible(new int[]{Oid.INT8, Oid.FLOAT8, Oid.DATE, Oid.BOOL,
+            Oid.BYTEA, Oid.DATE}));
+    assertFalse("binary value of another type",
+        list.isCopyBinaryCompatible(new int[]{Oid.INT8, Oid.FLOAT8, Oid.TEXT, Oid.BOOL,
+            Oid.UUID, Oid.DATE}));
+    assertFalse("column count differs", list.isCopyBinaryCompatible(new int[]{Oid.INT8}));
+  }
+
+  @Test
+  public void testBatchArrayParameter() throws SQLException {
+    // core types only, so no connection is needed to look up the array types
+    TypeInfo typeInfo = new TypeInfoCache(null, -1);
+    SimpleParameterList row1 = new SimpleParameterList(2, transferModeRegistry);
+    row1.setIntParameter(1, 1);
+    row1.setStringParameter(2, "a\"b", Oid.NUMERIC);
+    SimpleParameterList row2 = new SimpleParameterList(2, transferModeRegistry);
+    row2.setNull(1, Oid.INT4);
+    row2.setNull(2, Oid.UNSPECIFIED);
+    SimpleParameterList row3 = new SimpleParameterList(2, transferModeRegistry);
+    row3.setIntParameter(1, 3);
+    row3.setStringParameter(2, "1.5", Oid.NUMERIC);
+    List<ParameterList> rows = Arrays.<ParameterList>asList(row1, row2, row3);
+
+    SimpleParameterList arrays = new SimpleParameterList(2, transferModeRegistry);
+    assertTrue(arrays.setBatchArrayParameter(1, rows, 1, typeInfo));
+    assertTrue(arrays.setBatchArrayParameter(2, rows, 2, typeInfo));
+    assertArrayEquals(new int[]{Oid.INT4_ARRAY, Oid.NUMERIC_ARRAY}, arrays.getTypeOIDs());
+    assertTrue(arrays.isBinary(1));
+    assertArrayEquals(new byte[]{
+        0, 0, 0, 1,
+        0, 0, 0, 1,
+        0, 0, 0, 23,
+        0, 0, 0, 3,
+        0, 0, 0, 1,
+        0, 0, 0, 4, 0, 0, 0, 1,
+        -1, -1, -1, -1,
+        0, 0, 0, 4, 0, 0, 0, 3,
+    }, (byte[]) arrays.getValues()[0]);
+    assertFalse(arrays.isBinary(2));
+    assertEquals("{\"a\\\"b\",NULL,\"1.5\"}", arrays.getValues()[1]);
+
+    row3.setLiteralParameter(1, "3", Oid.INT8);
+    assertFalse("values of different types", arrays.setBatchArrayParameter(1, rows, 1, typeInfo));
+    row3.setBinaryParameter(2, new byte[]{1}, Oid.NUMERIC);
+    assertFalse("text and binary values mixed",
+        arrays.setBatchArrayParameter(2, rows, 2, typeInfo));
+  }
 }
@@ -11,6 +11,7 @@ import org.postgresql.PGNotification;
 import org.postgresql.copy.CopyManager;
 import org.postgresql.core.BaseConnection;
 import org.postgresql.core.CachedQuery;
+import org.postgresql.core.CodecRegistry;
 import org.postgresql.core.Encoding;
 import org.postgresql.core.QueryExecutor;
 import org.postgresql.core.ReplicationProtocol;
@@ -325,6 +326,13 @@ public abstract class AbstractArraysTest<A> {
       throw new UnsupportedOperationException();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public byte[] encodeArrayBinary(Object elements, int arrayOid) throws SQLException {
+      throw new UnsupportedOperationException();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -834,6 +842,13 @@ public abstract class AbstractArraysTest<A> {
       throw new UnsupportedOperationException();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    public void addCompositeType(String type, Class<?> klass) throws SQLException {
+      throw new UnsupportedOperationException();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -935,6 +950,11 @@ public abstract class AbstractArraysTest<A> {
       throw new UnsupportedOperationException();
     }
 
+    @Override
+    public CodecRegistry getCodecRegistry() {
+      return CodecRegistry.empty();
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,51 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.jdbc;
+
+import static org.junit.Assert.assertEquals;
+
+import org.postgresql.util.PSQLException;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class CompositeDecodingTest {
+
+  @Test
+  public void parseSimple() throws Exception {
+    assertEquals(Arrays.asList("1", "abc", "2.5"), CompositeDecoding.parse("(1,abc,2.5)"));
+  }
+
+  @Test
+  public void parseNulls() throws Exception {
+    assertEquals(Arrays.asList(null, "x", null), CompositeDecoding.parse("(,x,)"));
+    assertEquals(Collections.singletonList(null), CompositeDecoding.parse("()"));
+  }
+
+  @Test
+  public void parseQuoted() throws Exception {
+    assertEquals(Arrays.asList("", "a,b", "say \"hi\"", "back\\slash", "(x)"),
+        CompositeDecoding.parse("(\"\",\"a,b\",\"say \"\"hi\"\"\",\"back\\\\slash\",\"(x)\")"));
+  }
+
+  @Test
+  public void parseNested() throws Exception {
+    assertEquals(Arrays.asList("1", "(2,\"a b\")"),
+        CompositeDecoding.parse("(1,\"(2,\"\"a b\"\")\")"));
+  }
+
+  @Test(expected = PSQLException.class)
+  public void parseMissingParenthesis() throws Exception {
+    CompositeDecoding.parse("1,2");
+  }
+
+  @Test(expected = PSQLException.class)
+  public void parseUnterminatedQuote() throws Exception {
+    CompositeDecoding.parse("(\"1,2)");
+  }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class CopyInsertBatchTest {
+
+  private static String copySql(String nativeSql) {
+    CopyInsertBatch batch = CopyInsertBatch.parse(nativeSql);
+    assertNotNull(nativeSql, batch);
+    return batch.getCopySql();
+  }
+
+  @Test
+  public void plainInsert() {
+    assertEquals("COPY t (a, b) FROM STDIN (FORMAT binary)",
+        copySql("INSERT INTO t(a, b) VALUES ($1, $2)"));
+    assertEquals("COPY s.t (a) FROM STDIN (FORMAT binary)",
+        copySql("insert into s.t (a) values($1);"));
+    assertEquals("COPY \"My \"\"Table\" (\"Col\", b) FROM STDIN (FORMAT binary)",
+        copySql("insert /* c */ into \"My \"\"Table\" (\"Col\", b) -- c\n values ($1,$2)"));
+  }
+
+  @Test
+  public void otherShapesAreRejected() {
+    String[] sqls = {
+        "INSERT INTO t VALUES ($1, $2)",
+        "INSERT INTO t(a, b) VALUES ($1, $2) RETURNING a",
+        "INSERT INTO t(a, b) VALUES ($1, $2) ON CONFLICT DO NOTHING",
+        "INSERT INTO t(a, b) VALUES ($1, $2), ($3, $4)",
+        "INSERT INTO t(a, b) VALUES ($2, $1)",
+        "INSERT INTO t(a, b) VALUES ($1, $2::int)",
+        "INSERT INTO t(a, b) VALUES ($1, DEFAULT)",
+        "INSERT INTO t(a, b) VALUES ($1, 1)",
+        "INSERT INTO t(a, b) VALUES ($1)",
+        "INSERT INTO t(a[1], b) VALUES ($1, $2)",
+        "INSERT INTO t AS x (a) VALUES ($1)",
+        "INSERT INTO t(a) OVERRIDING SYSTEM VALUE VALUES ($1)",
+        "INSERT INTO t(a) SELECT $1",
+        "INSERT INTO t(a) VALUES ($1); INSERT INTO t(a) VALUES ($2)",
+        "UPDATE t SET a = $1",
+    };
+    for (String sql : sqls) {
+      assertNull(sql, CopyInsertBatch.parse(sql));
+    }
+  }
+}
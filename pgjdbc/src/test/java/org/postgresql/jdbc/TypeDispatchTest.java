@@ -0,0 +1,49 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.jdbc;
+
+import static org.junit.Assert.assertEquals;
+
+import org.postgresql.geometric.PGpoint;
+import org.postgresql.util.PGobject;
+
+import org.junit.Test;
+
+import java.math.BigInteger;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.util.HashMap;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class TypeDispatchTest {
+
+  @Test
+  public void bindersFollowTheOrderOfSetObject() {
+    assertEquals(TypeDispatch.Binder.DATE, TypeDispatch.binderFor(Date.class));
+    assertEquals(TypeDispatch.Binder.TIMESTAMP, TypeDispatch.binderFor(Timestamp.class));
+    assertEquals(TypeDispatch.Binder.UUID, TypeDispatch.binderFor(UUID.class));
+    assertEquals(TypeDispatch.Binder.PG_OBJECT, TypeDispatch.binderFor(PGpoint.class));
+    assertEquals(TypeDispatch.Binder.MAP, TypeDispatch.binderFor(HashMap.class));
+    assertEquals(TypeDispatch.Binder.NUMBER, TypeDispatch.binderFor(BigInteger.class));
+    assertEquals(TypeDispatch.Binder.NUMBER, TypeDispatch.binderFor(AtomicInteger.class));
+    assertEquals(TypeDispatch.Binder.BYTES, TypeDispatch.binderFor(byte[].class));
+    assertEquals(TypeDispatch.Binder.OBJECT_ARRAY, TypeDispatch.binderFor(int[].class));
+    assertEquals(TypeDispatch.Binder.OBJECT_ARRAY, TypeDispatch.binderFor(String[].class));
+    assertEquals(TypeDispatch.Binder.UNKNOWN, TypeDispatch.binderFor(Object.class));
+  }
+
+  @Test
+  public void readersMatchTheRequestedClassExactly() {
+    assertEquals(TypeDispatch.Reader.DATE, TypeDispatch.readerFor(Date.class));
+    assertEquals(TypeDispatch.Reader.UTIL_DATE, TypeDispatch.readerFor(java.util.Date.class));
+    assertEquals(TypeDispatch.Reader.TIMESTAMP, TypeDispatch.readerFor(Timestamp.class));
+    assertEquals(TypeDispatch.Reader.PG_OBJECT, TypeDispatch.readerFor(PGobject.class));
+    assertEquals(TypeDispatch.Reader.PG_OBJECT, TypeDispatch.readerFor(PGpoint.class));
+    assertEquals(TypeDispatch.Reader.UNSUPPORTED, TypeDispatch.readerFor(Number.class));
+    assertEquals(TypeDispatch.Reader.UNSUPPORTED, TypeDispatch.readerFor(Object.class));
+  }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.jdbc;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+
+public class UnnestBatchTest {
+
+  private static String rewrite(String nativeSql) {
+    UnnestBatch batch = UnnestBatch.parse(nativeSql, true);
+    assertNotNull(nativeSql, batch);
+    return batch.getSql();
+  }
+
+  @Test
+  public void update() {
+    assertEquals("UPDATE t SET a = pgjdbc_batch.p1 FROM unnest($1, $2) WITH ORDINALITY AS"
+            + " pgjdbc_batch(p1, p2, ord) WHERE id = pgjdbc_batch.p2 RETURNING pgjdbc_batch.ord",
+        rewrite("UPDATE t SET a = $1 WHERE id = $2"));
+    assertEquals("update t set a = a + pgjdbc_batch.p2, b = '$1' FROM unnest($1, $2)"
+            + " WITH ORDINALITY AS pgjdbc_batch(p1, p2, ord) where id = pgjdbc_batch.p1"
+            + " and c is distinct from pgjdbc_batch.p2 RETURNING pgjdbc_batch.ord",
+        rewrite("update t set a = a + $2, b = '$1' where id = $1 and c is distinct from $2;"));
+    assertEquals("UPDATE t SET a = (SELECT x FROM u WHERE u.id = pgjdbc_batch.p1) FROM unnest($1, $2)"
+            + " WITH ORDINALITY AS pgjdbc_batch(p1, p2, ord) WHERE id = pgjdbc_batch.p2"
+            + " RETURNING pgjdbc_batch.ord",
+        rewrite("UPDATE t SET a = (SELECT x FROM u WHERE u.id = $1) WHERE id = $2"));
+  }
+
+  @Test
+  public void delete() {
+    assertEquals("DELETE FROM t USING unnest($1, $2) WITH ORDINALITY AS pgjdbc_batch(p1, p2, ord)"
+            + " WHERE a = pgjdbc_batch.p1 AND b = pgjdbc_batch.p2 RETURNING pgjdbc_batch.ord",
+        rewrite("DELETE FROM t WHERE a = $1 AND b = $2"));
+    assertEquals("delete /* where */ from t -- where\n USING unnest($1) WITH ORDINALITY AS"
+            + " pgjdbc_batch(p1, ord) where \"where\" = pgjdbc_batch.p1 RETURNING pgjdbc_batch.ord",
+        rewrite("delete /* where */ from t -- where\n where \"where\" = $1"));
+  }
+
+  @Test
+  public void otherShapesAreRejected() {
+    String[] sqls = {
+        "UPDATE t SET a = $1",
+        "UPDATE t SET a = 1 WHERE id = 2",
+        "UPDATE t SET a = $1 WHERE a IS NULL",
+        "UPDATE t SET a = (SELECT x FROM u WHERE u.id = $1) WHERE a IS NULL",
+        "UPDATE t SET a = $1 FROM u WHERE t.id = u.id",
+        "UPDATE t SET a = $1 WHERE id = $2 RETURNING a",
+        "UPDATE t SET a = $1 WHERE CURRENT OF c",
+        "DELETE FROM t",
+        "DELETE FROM t USING u WHERE t.id = u.id AND u.a = $1",
+        "DELETE FROM t WHERE id = $1 RETURNING id",
+        "WITH x AS (SELECT $1 AS id) DELETE FROM t WHERE id IN (SELECT id FROM x)",
+        "INSERT INTO t(a) VALUES ($1)",
+        "SELECT $1",
+    };
+    for (String sql : sqls) {
+      assertNull(sql, UnnestBatch.parse(sql, true));
+    }
+  }
+}
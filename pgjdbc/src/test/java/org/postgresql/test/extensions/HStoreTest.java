@@ -9,8 +9,10 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import org.postgresql.PGProperty;
 import org.postgresql.core.ServerVersion;
 import org.postgresql.jdbc.PreferQueryMode;
+import org.postgresql.test.TestUtil;
 import org.postgresql.test.jdbc2.BaseTest4;
 
 import org.junit.Assume;
@@ -25,6 +27,7 @@ import java.sql.Types;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Properties;
 
 // SELECT 'hstore'::regtype::oid
 // SELECT 'hstore[]'::regtype::oid
@@ -113,4 +116,41 @@ public class HStoreTest extends BaseTest4 {
     assertEquals("\"a\"=>\"t'e\ns\\\"t\"", rs.getString(1));
   }
 
+  @Test
+  public void testHStoreBinary() throws SQLException {
+    Statement stmt = con.createStatement();
+    ResultSet rs = stmt.executeQuery("SELECT 'hstore'::regtype::oid");
+    assertTrue(rs.next());
+    String oid = rs.getString(1);
+    rs.close();
+    stmt.close();
+
+    Properties props = new Properties();
+    PGProperty.BINARY_TRANSFER_ENABLE.set(props, oid);
+    PGProperty.PREPARE_THRESHOLD.set(props, -1);
+    Connection conn = TestUtil.openDB(props);
+    try {
+      Map<String, String> sent = new HashMap<String, String>();
+      for (int i = 0; i < 200; i++) {
+        sent.put("key" + i, i % 10 == 0 ? null : "v\"al\u00e9" + i);
+      }
+      PreparedStatement pstmt = conn.prepareStatement("SELECT ?, ?::text");
+      pstmt.setObject(1, sent);
+      pstmt.setObject(2, sent);
+      rs = pstmt.executeQuery();
+      assertTrue(rs.next());
+      @SuppressWarnings("unchecked")
+      Map<String, String> received = (Map<String, String>) rs.getObject(1);
+      assertEquals(200, received.size());
+      assertEquals("v\"al\u00e91", received.get("key1"));
+      assertTrue(received.containsKey("key10"));
+      assertEquals(null, received.get("key10"));
+      assertEquals(null, received.get("missing"));
+      assertEquals(sent, received);
+      rs.close();
+      pstmt.close();
+    } finally {
+      conn.close();
+    }
+  }
 }
@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.test.jdbc2;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.postgresql.PGProperty;
+import org.postgresql.test.TestUtil;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.sql.BatchUpdateException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Properties;
+
+/**
+ * Batches with {@code batchChunkSize} and {@code batchWindowSize}.
+ */
+@RunWith(Parameterized.class)
+public class BatchChunkTest extends BaseTest4 {
+  private static final int CHUNK_SIZE = 10;
+  private static final int WINDOW_SIZE = 4;
+
+  private final AutoCommit autoCommit;
+
+  public BatchChunkTest(AutoCommit autoCommit, BinaryMode binaryMode) {
+    this.autoCommit = autoCommit;
+    setBinaryMode(binaryMode);
+  }
+
+  @Parameterized.Parameters(name = "{index}: autoCommit={0}, binary={1}")
+  public static Iterable<Object[]> data() {
+    Collection<Object[]> ids = new ArrayList<Object[]>();
+    for (AutoCommit autoCommit : AutoCommit.values()) {
+      for (BinaryMode binaryMode : BinaryMode.values()) {
+        ids.add(new Object[]{autoCommit, binaryMode});
+      }
+    }
+    return ids;
+  }
+
+  @Override
+  protected void updateProperties(Properties props) {
+    super.updateProperties(props);
+    PGProperty.BATCH_CHUNK_SIZE.set(props, CHUNK_SIZE);
+    PGProperty.BATCH_WINDOW_SIZE.set(props, WINDOW_SIZE);
+  }
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    TestUtil.createTable(con, "testbatchchunk", "id int4 primary key, t text");
+    con.setAutoCommit(autoCommit == AutoCommit.YES);
+  }
+
+  @Override
+  public void tearDown() throws SQLException {
+    if (!con.getAutoCommit()) {
+      con.rollback();
+    }
+    TestUtil.dropTable(con, "testbatchchunk");
+    super.tearDown();
+  }
+
+  private static long[] ones(int count) {
+    long[] result = new long[count];
+    Arrays.fill(result, 1);
+    return result;
+  }
+
+  private static void addRow(PreparedStatement ps, int id) throws SQLException {
+    ps.setInt(1, id);
+    ps.setString(2, "row " + id);
+    ps.addBatch();
+  }
+
+  @Test
+  public void chunksAreExecutedByAddBatch() throws SQLException {
+    PreparedStatement ps = con.prepareStatement("INSERT INTO testbatchchunk VALUES (?, ?)");
+    for (int i = 1; i <= 2 * CHUNK_SIZE; i++) {
+      addRow(ps, i);
+    }
+    TestUtil.assertNumberOfRows(con, "testbatchchunk", 2 * CHUNK_SIZE,
+        "Full chunks should be executed by addBatch");
+    for (int i = 2 * CHUNK_SIZE + 1; i <= 25; i++) {
+      addRow(ps, i);
+    }
+    long[] updateCounts = ps.executeLargeBatch();
+    assertArrayEquals(ones(25), updateCounts);
+    TestUtil.assertNumberOfRows(con, "testbatchchunk", 25, "All rows should be inserted");
+
+    // the statement starts a new batch
+    addRow(ps, 26);
+    assertArrayEquals(new int[]{1}, ps.executeBatch());
+    ps.close();
+  }
+
+  @Test
+  public void fullChunksOnly() throws SQLException {
+    PreparedStatement ps = con.prepareStatement("INSERT INTO testbatchchunk VALUES (?, ?)");
+    for (int i = 1; i <= CHUNK_SIZE; i++) {
+      addRow(ps, i);
+    }
+    int[] updateCounts = ps.executeBatch();
+    assertEquals(CHUNK_SIZE, updateCounts.length);
+    TestUtil.assertNumberOfRows(con, "testbatchchunk", CHUNK_SIZE, "All rows should be inserted");
+    ps.close();
+  }
+
+  @Test
+  public void failureInLaterChunkReportsEarlierChunks() throws SQLException {
+    PreparedStatement ps = con.prepareStatement("INSERT INTO testbatchchunk VALUES (?, ?)");
+    for (int i = 1; i <= 15; i++) {
+      // entry 13 duplicates a row of the first chunk
+      addRow(ps, i == 13 ? 3 : i);
+    }
+    try {
+      ps.executeBatch();
+      fail("The duplicate key should fail the batch");
+    } catch (BatchUpdateException e) {
+      long[] updateCounts = e.getLargeUpdateCounts();
+      assertEquals(15, updateCounts.length);
+      assertArrayEquals(ones(CHUNK_SIZE), Arrays.copyOf(updateCounts, CHUNK_SIZE));
+      assertEquals(Statement.EXECUTE_FAILED, updateCounts[12]);
+      assertEquals(15, e.getUpdateCounts().length);
+    }
+    if (!con.getAutoCommit()) {
+      con.rollback();
+    }
+    // the batch is cleared
+    assertEquals(0, ps.executeBatch().length);
+    ps.close();
+  }
+
+  @Test
+  public void failureInWindow() throws SQLException {
+    PreparedStatement ps = con.prepareStatement("INSERT INTO testbatchchunk VALUES (?, ?)");
+    for (int i = 1; i <= CHUNK_SIZE - 1; i++) {
+      // entry 7 duplicates entry 2, after the window was read once
+      addRow(ps, i == 7 ? 2 : i);
+    }
+    try {
+      ps.executeBatch();
+      fail("The duplicate key should fail the batch");
+    } catch (BatchUpdateException e) {
+      long[] updateCounts = e.getLargeUpdateCounts();
+      assertEquals(CHUNK_SIZE - 1, updateCounts.length);
+      for (int i = 6; i < updateCounts.length; i++) {
+        assertEquals("Batch entry " + i, Statement.EXECUTE_FAILED, updateCounts[i]);
+      }
+    }
+    if (!con.getAutoCommit()) {
+      con.rollback();
+    }
+    TestUtil.assertNumberOfRows(con, "testbatchchunk", 0,
+        "The batch is one transaction, so no row should be inserted");
+    ps.close();
+  }
+
+  @Test
+  public void statementBatch() throws SQLException {
+    Statement st = con.createStatement();
+    for (int i = 1; i <= CHUNK_SIZE + 2; i++) {
+      st.addBatch("INSERT INTO testbatchchunk VALUES (" + i + ", 'row')");
+    }
+    st.addBatch("UPDATE testbatchchunk SET t = 'updated'");
+    assertArrayEquals(new long[]{1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, 1, CHUNK_SIZE + 2},
+        st.executeLargeBatch());
+    st.close();
+  }
+
+  @Test
+  public void addBatchKeepsResultSetOpen() throws SQLException {
+    Statement st = con.createStatement();
+    ResultSet rs = st.executeQuery("SELECT 1");
+    for (int i = 1; i <= CHUNK_SIZE; i++) {
+      st.addBatch("INSERT INTO testbatchchunk VALUES (" + i + ", 'row')");
+    }
+    TestUtil.assertNumberOfRows(con, "testbatchchunk", CHUNK_SIZE,
+        "The full chunk should be executed by addBatch");
+    assertFalse("addBatch should not close the result set", rs.isClosed());
+    assertTrue(rs.next());
+    assertEquals(1, rs.getInt(1));
+    st.executeBatch();
+    assertTrue("executeBatch closes the result set", rs.isClosed());
+    st.close();
+  }
+
+  @Test
+  public void clearBatchForgetsExecutedChunks() throws SQLException {
+    PreparedStatement ps = con.prepareStatement("INSERT INTO testbatchchunk VALUES (?, ?)");
+    for (int i = 1; i <= CHUNK_SIZE + 1; i++) {
+      addRow(ps, i);
+    }
+    ps.clearBatch();
+    assertEquals(0, ps.executeBatch().length);
+    TestUtil.assertNumberOfRows(con, "testbatchchunk", CHUNK_SIZE,
+        "The executed chunk should stay inserted");
+    ps.close();
+  }
+}
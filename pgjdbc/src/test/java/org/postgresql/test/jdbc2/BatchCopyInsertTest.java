@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.test.jdbc2;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.postgresql.PGProperty;
+import org.postgresql.core.ServerVersion;
+import org.postgresql.jdbc.PreferQueryMode;
+import org.postgresql.test.TestUtil;
+
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.sql.BatchUpdateException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Properties;
+
+/**
+ * Batched INSERTs with {@code batchInsertMode=copy}.
+ */
+@RunWith(Parameterized.class)
+public class BatchCopyInsertTest extends BaseTest4 {
+  private final AutoCommit autoCommit;
+
+  public BatchCopyInsertTest(AutoCommit autoCommit, BinaryMode binaryMode) {
+    this.autoCommit = autoCommit;
+    setBinaryMode(binaryMode);
+  }
+
+  @Parameterized.Parameters(name = "{index}: autoCommit={0}, binary={1}")
+  public static Iterable<Object[]> data() {
+    Collection<Object[]> ids = new ArrayList<Object[]>();
+    for (AutoCommit autoCommit : AutoCommit.values()) {
+      for (BinaryMode binaryMode : BinaryMode.values()) {
+        ids.add(new Object[]{autoCommit, binaryMode});
+      }
+    }
+    return ids;
+  }
+
+  @Override
+  protected void updateProperties(Properties props) {
+    super.updateProperties(props);
+    PGProperty.BATCH_INSERT_MODE.set(props, "copy");
+  }
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    TestUtil.createTable(con, "testcopybatch",
+        "id int8 primary key, i int4, s int2, d float8, r float4, t text, v varchar(10),"
+            + " c char(3), b bool, by bytea, ts timestamp");
+    con.setAutoCommit(autoCommit == AutoCommit.YES);
+  }
+
+  @Override
+  public void tearDown() throws SQLException {
+    if (!con.getAutoCommit()) {
+      con.rollback();
+    }
+    TestUtil.dropTable(con, "testcopybatch");
+    super.tearDown();
+  }
+
+  private void assumeCopy() throws SQLException {
+    Assume.assumeTrue("COPY is not used in simple protocol execution mode",
+        preferQueryMode != PreferQueryMode.SIMPLE);
+    assumeMinimumServerVersion("COPY (FORMAT binary) requires PostgreSQL 9.0",
+        ServerVersion.v9_0);
+  }
+
+  @Test
+  public void insertsAllTypes() throws SQLException {
+    PreparedStatement ps = con.prepareStatement(
+        "INSERT INTO testcopybatch(id, i, s, d, r, t, v, c, b, by) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+    for (int row = 1; row <= 3; row++) {
+      ps.setInt(1, row);
+      ps.setLong(2, row * 10L);
+      ps.setShort(3, (short) row);
+      ps.setFloat(4, row + 0.5f);
+      ps.setFloat(5, row + 0.25f);
+      ps.setString(6, "text é " + row);
+      ps.setString(7, "v" + row);
+      ps.setString(8, "c" + row);
+      ps.setBoolean(9, row % 2 == 0);
+      if (row == 3) {
+        ps.setNull(10, Types.BINARY);
+      } else {
+        ps.setBytes(10, new byte[]{1, 2, (byte) row});
+      }
+      ps.addBatch();
+    }
+    assertArrayEquals(new int[]{1, 1, 1}, ps.executeBatch());
+    ps.close();
+
+    Statement st = con.createStatement();
+    ResultSet rs = st.executeQuery("SELECT id, i, s, d, r, t, v, c, b, by FROM testcopybatch ORDER BY id");
+    for (int row = 1; row <= 3; row++) {
+      assertTrue(rs.next());
+      assertEquals(row, rs.getLong(1));
+      assertEquals(row * 10, rs.getInt(2));
+      assertEquals(row, rs.getShort(3));
+      assertEquals(row + 0.5, rs.getDouble(4), 0);
+      assertEquals(row + 0.25f, rs.getFloat(5), 0);
+      assertEquals("text é " + row, rs.getString(6));
+      assertEquals("v" + row, rs.getString(7));
+      assertEquals("c" + row + " ", rs.getString(8));
+      assertEquals(row % 2 == 0, rs.getBoolean(9));
+      if (row == 3) {
+        assertEquals(null, rs.getBytes(10));
+      } else {
+        assertArrayEquals(new byte[]{1, 2, (byte) row}, rs.getBytes(10));
+      }
+    }
+    assertFalse(rs.next());
+    rs.close();
+    st.close();
+  }
+
+  @Test
+  public void valuesWithoutBinaryFormFallBack() throws SQLException {
+    PreparedStatement ps = con.prepareStatement(
+        "INSERT INTO testcopybatch(id, ts) VALUES (?, ?)");
+    for (int row = 1; row <= 2; row++) {
+      ps.setInt(1, row);
+      ps.setTimestamp(2, Timestamp.valueOf("2021-01-0" + row + " 10:00:00"));
+      ps.addBatch();
+    }
+    assertArrayEquals(new int[]{1, 1}, ps.executeBatch());
+    ps.close();
+    assertEquals(2, countRows());
+  }
+
+  @Test
+  public void unsupportedShapesFallBack() throws SQLException {
+    assumeMinimumServerVersion("ON CONFLICT requires PostgreSQL 9.5", ServerVersion.v9_5);
+    PreparedStatement ps = con.prepareStatement(
+        "INSERT INTO testcopybatch(id, i) VALUES (?, ?) ON CONFLICT (id) DO UPDATE SET i = excluded.i");
+    for (int row = 1; row <= 3; row++) {
+      ps.setInt(1, 1);
+      ps.setInt(2, row);
+      ps.addBatch();
+    }
+    assertArrayEquals(new int[]{1, 1, 1}, ps.executeBatch());
+    ps.close();
+    assertEquals(1, countRows());
+  }
+
+  @Test
+  public void failureAbortsTheWholeCopy() throws SQLException {
+    assumeCopy();
+    PreparedStatement ps = con.prepareStatement("INSERT INTO testcopybatch(id) VALUES (?)");
+    for (int row : new int[]{1, 2, 1}) {
+      ps.setInt(1, row);
+      ps.addBatch();
+    }
+    try {
+      ps.executeBatch();
+      fail("The duplicate key should fail the batch");
+    } catch (BatchUpdateException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("COPY testcopybatch (id)"));
+      assertArrayEquals(new int[]{Statement.EXECUTE_FAILED, Statement.EXECUTE_FAILED,
+          Statement.EXECUTE_FAILED}, e.getUpdateCounts());
+    }
+    ps.close();
+    if (!con.getAutoCommit()) {
+      con.rollback();
+    }
+    assertEquals(0, countRows());
+  }
+
+  @Test
+  public void viewFallsBack() throws SQLException {
+    assumeMinimumServerVersion("Views are updatable since PostgreSQL 9.3", ServerVersion.v9_3);
+    TestUtil.execute("CREATE TEMP VIEW testcopybatch_view AS SELECT id, i FROM testcopybatch", con);
+    PreparedStatement ps = con.prepareStatement("INSERT INTO testcopybatch_view(id, i) VALUES (?, ?)");
+    for (int row = 1; row <= 3; row++) {
+      ps.setInt(1, row);
+      ps.setInt(2, row);
+      ps.addBatch();
+    }
+    assertArrayEquals(new int[]{1, 1, 1}, ps.executeBatch());
+    ps.close();
+    assertEquals(3, countRows());
+  }
+
+  @Test
+  public void insertRuleFallsBack() throws SQLException {
+    TestUtil.execute("CREATE RULE testcopybatch_skip AS ON INSERT TO testcopybatch"
+        + " WHERE new.i < 0 DO INSTEAD NOTHING", con);
+    PreparedStatement ps = con.prepareStatement("INSERT INTO testcopybatch(id, i) VALUES (?, ?)");
+    for (int row = 1; row <= 3; row++) {
+      ps.setInt(1, row);
+      ps.setInt(2, row == 2 ? -1 : row);
+      ps.addBatch();
+    }
+    ps.executeBatch();
+    ps.close();
+    assertEquals("COPY would ignore the rule", 2, countRows());
+  }
+
+  private int countRows() throws SQLException {
+    Statement st = con.createStatement();
+    ResultSet rs = st.executeQuery("SELECT count(*) FROM testcopybatch");
+    rs.next();
+    int count = rs.getInt(1);
+    rs.close();
+    st.close();
+    return count;
+  }
+}
@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.test.jdbc2;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.postgresql.PGProperty;
+import org.postgresql.core.ServerVersion;
+import org.postgresql.jdbc.PreferQueryMode;
+import org.postgresql.test.TestUtil;
+
+import org.junit.Assume;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.math.BigDecimal;
+import java.sql.BatchUpdateException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Properties;
+
+/**
+ * Batched UPDATEs and DELETEs with {@code reWriteBatchedUpdates=true}.
+ */
+@RunWith(Parameterized.class)
+public class BatchUnnestUpdateTest extends BaseTest4 {
+  private final AutoCommit autoCommit;
+
+  public BatchUnnestUpdateTest(AutoCommit autoCommit, BinaryMode binaryMode) {
+    this.autoCommit = autoCommit;
+    setBinaryMode(binaryMode);
+  }
+
+  @Parameterized.Parameters(name = "{index}: autoCommit={0}, binary={1}")
+  public static Iterable<Object[]> data() {
+    Collection<Object[]> ids = new ArrayList<Object[]>();
+    for (AutoCommit autoCommit : AutoCommit.values()) {
+      for (BinaryMode binaryMode : BinaryMode.values()) {
+        ids.add(new Object[]{autoCommit, binaryMode});
+      }
+    }
+    return ids;
+  }
+
+  @Override
+  protected void updateProperties(Properties props) {
+    super.updateProperties(props);
+    PGProperty.REWRITE_BATCHED_UPDATES.set(props, true);
+  }
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    TestUtil.createTable(con, "testunnestbatch",
+        "id int4 primary key, grp int4, l int8, t text, n numeric, ts timestamp");
+    TestUtil.execute("INSERT INTO testunnestbatch(id, grp) SELECT g, g % 2 FROM generate_series(1, 6) g",
+        con);
+    con.setAutoCommit(autoCommit == AutoCommit.YES);
+  }
+
+  @Override
+  public void tearDown() throws SQLException {
+    if (!con.getAutoCommit()) {
+      con.rollback();
+    }
+    TestUtil.dropTable(con, "testunnestbatch");
+    super.tearDown();
+  }
+
+  private void assumeRewrite() throws SQLException {
+    Assume.assumeTrue("The batch is not rewritten in simple protocol execution mode",
+        preferQueryMode != PreferQueryMode.SIMPLE);
+    assumeMinimumServerVersion("unnest() WITH ORDINALITY requires PostgreSQL 9.4",
+        ServerVersion.v9_4);
+  }
+
+  @Test
+  public void updateCountsPerEntry() throws SQLException {
+    PreparedStatement ps = con.prepareStatement(
+        "UPDATE testunnestbatch SET l = ?, t = ?, n = ? WHERE grp = ? OR id = ?");
+    ps.setLong(1, 10);
+    ps.setString(2, "a \"quoted\" \\ value");
+    ps.setBigDecimal(3, new BigDecimal("1.5"));
+    ps.setInt(4, 0);
+    ps.setInt(5, 0);
+    ps.addBatch();
+    ps.setLong(1, 20);
+    ps.setNull(2, Types.VARCHAR);
+    ps.setNull(3, Types.NUMERIC);
+    ps.setInt(4, 42);
+    ps.setInt(5, 1);
+    ps.addBatch();
+    ps.setLong(1, 30);
+    ps.setString(2, "x");
+    ps.setBigDecimal(3, null);
+    ps.setInt(4, 42);
+    ps.setInt(5, 42);
+    ps.addBatch();
+    assertArrayEquals(new int[]{3, 1, 0}, ps.executeBatch());
+    ps.close();
+
+    Statement st = con.createStatement();
+    ResultSet rs = st.executeQuery("SELECT id, l, t, n FROM testunnestbatch WHERE l IS NOT NULL ORDER BY id");
+    assertTrue(rs.next());
+    assertEquals(1, rs.getInt(1));
+    assertEquals(20, rs.getLong(2));
+    assertEquals(null, rs.getString(3));
+    assertEquals(null, rs.getBigDecimal(4));
+    for (int id = 2; id <= 6; id += 2) {
+      assertTrue(rs.next());
+      assertEquals(id, rs.getInt(1));
+      assertEquals(10, rs.getLong(2));
+      assertEquals("a \"quoted\" \\ value", rs.getString(3));
+      assertEquals(new BigDecimal("1.5"), rs.getBigDecimal(4));
+    }
+    assertFalse(rs.next());
+    rs.close();
+    st.close();
+  }
+
+  @Test
+  public void delete() throws SQLException {
+    PreparedStatement ps = con.prepareStatement("DELETE FROM testunnestbatch WHERE id = ?");
+    for (int id : new int[]{1, 3, 7}) {
+      ps.setInt(1, id);
+      ps.addBatch();
+    }
+    assertArrayEquals(new long[]{1, 1, 0}, ps.executeLargeBatch());
+    ps.close();
+    assertEquals(4, countRows());
+  }
+
+  @Test
+  public void duplicateKeysFallBack() throws SQLException {
+    PreparedStatement ps = con.prepareStatement(
+        "UPDATE testunnestbatch SET l = coalesce(l, 0) + ? WHERE id = ?");
+    for (int i = 0; i < 2; i++) {
+      ps.setLong(1, 1);
+      ps.setInt(2, 1);
+      ps.addBatch();
+    }
+    assertArrayEquals(new int[]{1, 1}, ps.executeBatch());
+    ps.close();
+    assertEquals("The row should be updated once per entry", 1, countRows("id = 1 AND l = 2"));
+  }
+
+  @Test
+  public void valuesWithoutArrayFormFallBack() throws SQLException {
+    PreparedStatement ps = con.prepareStatement("UPDATE testunnestbatch SET ts = ? WHERE id = ?");
+    for (int id = 1; id <= 2; id++) {
+      ps.setTimestamp(1, Timestamp.valueOf("2021-01-0" + id + " 10:00:00"));
+      ps.setInt(2, id);
+      ps.addBatch();
+    }
+    assertArrayEquals(new int[]{1, 1}, ps.executeBatch());
+    ps.close();
+  }
+
+  @Test
+  public void failureFailsEveryEntry() throws SQLException {
+    assumeRewrite();
+    PreparedStatement ps = con.prepareStatement("UPDATE testunnestbatch SET id = ? WHERE id = ?");
+    ps.setInt(1, 10);
+    ps.setInt(2, 1);
+    ps.addBatch();
+    ps.setInt(1, 2);
+    ps.setInt(2, 3);
+    ps.addBatch();
+    try {
+      ps.executeBatch();
+      fail("The duplicate key should fail the batch");
+    } catch (BatchUpdateException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("unnest("));
+      assertArrayEquals(new int[]{Statement.EXECUTE_FAILED, Statement.EXECUTE_FAILED},
+          e.getUpdateCounts());
+    }
+    ps.close();
+    if (!con.getAutoCommit()) {
+      con.rollback();
+    }
+    assertEquals(0, countRows("id = 10"));
+  }
+
+  private int countRows() throws SQLException {
+    return countRows("true");
+  }
+
+  private int countRows(String condition) throws SQLException {
+    Statement st = con.createStatement();
+    ResultSet rs = st.executeQuery("SELECT count(*) FROM testunnestbatch WHERE " + condition);
+    rs.next();
+    int count = rs.getInt(1);
+    rs.close();
+    st.close();
+    return count;
+  }
+}
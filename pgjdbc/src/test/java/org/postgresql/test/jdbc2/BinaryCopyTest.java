@@ -0,0 +1,299 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.test.jdbc2;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGBinaryCopyReader;
+import org.postgresql.copy.PGBinaryCopyWriter;
+import org.postgresql.core.Oid;
+import org.postgresql.core.ServerVersion;
+import org.postgresql.test.TestUtil;
+
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.Collections;
+
+/**
+ * Binary COPY with {@link PGBinaryCopyWriter} and {@link PGBinaryCopyReader}.
+ */
+public class BinaryCopyTest extends BaseTest4 {
+  private static final String COPY_IN =
+      "COPY binarycopy(i, l, t, ts, tstz, ia, ta) FROM STDIN (FORMAT binary)";
+  private static final String COPY_OUT =
+      "COPY binarycopy(i, l, t, ts, tstz, ia, ta) TO STDOUT (FORMAT binary)";
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    assumeMinimumServerVersion("COPY (FORMAT binary) requires PostgreSQL 9.0", ServerVersion.v9_0);
+    TestUtil.createTable(con, "binarycopy",
+        "i int4, l int8, t text, ts timestamp, tstz timestamptz, ia int4[], ta text[]");
+  }
+
+  @Override
+  public void tearDown() throws SQLException {
+    TestUtil.dropTable(con, "binarycopy");
+    super.tearDown();
+  }
+
+  private PGBinaryCopyWriter writer(int bufferSize) throws SQLException {
+    return new PGBinaryCopyWriter(con.unwrap(PGConnection.class), COPY_IN, bufferSize);
+  }
+
+  private PGBinaryCopyReader reader(String sql, int bufferSize) throws SQLException {
+    return new PGBinaryCopyReader(con.unwrap(PGConnection.class), sql, bufferSize);
+  }
+
+  private void insertRows(int count) throws SQLException {
+    TestUtil.execute("INSERT INTO binarycopy(i, l, t) SELECT g, g * 10, g::text"
+        + " FROM generate_series(1, " + count + ") g", con);
+  }
+
+  @Test
+  public void writeRows() throws SQLException {
+    PGBinaryCopyWriter writer = writer(64);
+    String large = String.join("", Collections.nCopies(100, "é€😀"));
+    writer.startRow();
+    writer.writeInt(1);
+    writer.writeLong(Long.MAX_VALUE);
+    writer.writeText("café");
+    writer.writeTimestamp(LocalDateTime.of(2021, 3, 4, 5, 6, 7, 123456789));
+    writer.writeTimestamp(OffsetDateTime.of(1999, 12, 31, 23, 0, 0, 0, ZoneOffset.ofHours(-2)));
+    writer.writeArray(new int[]{1, 2, 3});
+    writer.writeArray(new String[]{"a", null, "c\"d"}, Oid.TEXT_ARRAY);
+    writer.startRow();
+    writer.writeNull();
+    writer.writeLong(-2);
+    writer.writeText(large);
+    writer.writeTimestamp(LocalDateTime.MAX);
+    writer.writeTimestamp(OffsetDateTime.MIN);
+    writer.writeArray(null);
+    writer.writeText(null);
+    assertEquals(2, writer.endCopy());
+
+    Statement st = con.createStatement();
+    ResultSet rs = st.executeQuery("SELECT i, l, t, ts::text, tstz AT TIME ZONE 'UTC', ia, ta,"
+        + " tstz = '-infinity' FROM binarycopy ORDER BY l DESC");
+    assertTrue(rs.next());
+    assertEquals(1, rs.getInt(1));
+    assertEquals(Long.MAX_VALUE, rs.getLong(2));
+    assertEquals("café", rs.getString(3));
+    assertEquals("2021-03-04 05:06:07.123457", rs.getString(4));
+    assertEquals(LocalDateTime.of(2000, 1, 1, 1, 0), rs.getObject(5, LocalDateTime.class));
+    assertArrayEquals(new Integer[]{1, 2, 3}, (Object[]) rs.getArray(6).getArray());
+    assertArrayEquals(new String[]{"a", null, "c\"d"}, (Object[]) rs.getArray(7).getArray());
+    assertTrue(rs.next());
+    assertEquals(0, rs.getInt(1));
+    assertTrue(rs.wasNull());
+    assertEquals(-2, rs.getLong(2));
+    assertEquals(large, rs.getString(3));
+    assertEquals("infinity", rs.getString(4));
+    assertTrue(rs.getBoolean(8));
+    assertNull(rs.getArray(6));
+    assertNull(rs.getString(7));
+    assertFalse(rs.next());
+    rs.close();
+    st.close();
+  }
+
+  @Test
+  public void manyRowsAcrossBuffers() throws SQLException {
+    PGBinaryCopyWriter writer = writer(100);
+    for (int i = 0; i < 1000; i++) {
+      writer.startRow();
+      writer.writeInt(i);
+      writer.writeLong(i * 10L);
+      writer.writeText(Integer.toString(i));
+      for (int j = 0; j < 4; j++) {
+        writer.writeNull();
+      }
+    }
+    assertEquals(1000, writer.endCopy());
+    Statement st = con.createStatement();
+    ResultSet rs = st.executeQuery("SELECT count(*), sum(i), sum(l) FROM binarycopy"
+        + " WHERE t = i::text");
+    assertTrue(rs.next());
+    assertEquals(1000, rs.getInt(1));
+    assertEquals(499500, rs.getLong(2));
+    assertEquals(4995000, rs.getLong(3));
+    rs.close();
+    st.close();
+  }
+
+  @Test
+  public void incompleteRowIsRejected() throws SQLException {
+    PGBinaryCopyWriter writer = writer(1024);
+    writer.startRow();
+    writer.writeInt(1);
+    try {
+      writer.startRow();
+      fail("A row with one of seven fields should be rejected");
+    } catch (SQLException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("1 fields"));
+    }
+    writer.cancelCopy();
+    assertFalse(writer.getCopyIn().isActive());
+    TestUtil.assertNumberOfRows(con, "binarycopy", 0, "No rows should be copied");
+  }
+
+  @Test
+  public void extraFieldIsRejected() throws SQLException {
+    PGBinaryCopyWriter writer = writer(1024);
+    writer.startRow();
+    for (int i = 0; i < 7; i++) {
+      writer.writeNull();
+    }
+    try {
+      writer.writeInt(1);
+      fail("An eighth field should be rejected");
+    } catch (SQLException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("8 fields"));
+    }
+    writer.cancelCopy();
+  }
+
+  @Test
+  public void valueBeforeStartRowIsRejected() throws SQLException {
+    PGBinaryCopyWriter writer = writer(1024);
+    try {
+      writer.writeInt(1);
+      fail("A value before startRow() should be rejected");
+    } catch (SQLException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("startRow"));
+    }
+    writer.cancelCopy();
+  }
+
+  @Test
+  public void textFormatIsRejected() throws SQLException {
+    try {
+      new PGBinaryCopyWriter(con.unwrap(PGConnection.class), "COPY binarycopy FROM STDIN");
+      fail("A text COPY should be rejected");
+    } catch (SQLException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("binary"));
+    }
+    // the connection is usable again
+    TestUtil.assertNumberOfRows(con, "binarycopy", 0, "No rows should be copied");
+  }
+
+  @Test
+  public void readRows() throws SQLException {
+    PGBinaryCopyWriter writer = writer(1024);
+    String large = String.join("", Collections.nCopies(100, "é€😀"));
+    writer.startRow();
+    writer.writeInt(1);
+    writer.writeLong(-10);
+    writer.writeText(large);
+    writer.writeTimestamp(LocalDateTime.of(2021, 3, 4, 5, 6, 7, 123456000));
+    writer.writeTimestamp(OffsetDateTime.of(1969, 12, 31, 23, 0, 0, 1000, ZoneOffset.ofHours(-2)));
+    writer.writeArray(new int[]{1, 2});
+    writer.writeNull();
+    writer.startRow();
+    writer.writeNull();
+    writer.writeNull();
+    writer.writeText("");
+    writer.writeTimestamp(LocalDateTime.MIN);
+    writer.writeTimestamp(OffsetDateTime.MAX);
+    writer.writeNull();
+    writer.writeNull();
+    writer.endCopy();
+
+    // smaller than the long text, so the buffer grows
+    PGBinaryCopyReader reader = reader(COPY_OUT + ";", 64);
+    assertEquals(7, reader.getFieldCount());
+    assertTrue(reader.nextRow());
+    assertEquals(1, reader.getInt(0));
+    assertEquals(-10, reader.getLong(1));
+    assertEquals(large, reader.getString(2));
+    assertEquals(LocalDateTime.of(2021, 3, 4, 5, 6, 7, 123456000), reader.getLocalDateTime(3));
+    assertEquals(OffsetDateTime.of(1970, 1, 1, 1, 0, 0, 1000, ZoneOffset.UTC),
+        reader.getOffsetDateTime(4));
+    assertFalse(reader.isNull(5));
+    assertEquals(20 + 2 * 8, reader.getBytes(5).length);
+    assertTrue(reader.isNull(6));
+    assertNull(reader.getString(6));
+    assertTrue(reader.nextRow());
+    assertTrue(reader.isNull(0));
+    assertEquals(0, reader.getInt(0));
+    assertEquals(0, reader.getLong(1));
+    assertEquals("", reader.getString(2));
+    assertEquals(LocalDateTime.MIN, reader.getLocalDateTime(3));
+    assertEquals(OffsetDateTime.MAX, reader.getOffsetDateTime(4));
+    assertNull(reader.getBytes(5));
+    assertFalse(reader.nextRow());
+    assertFalse(reader.nextRow());
+    assertFalse(reader.getCopyOut().isActive());
+    assertEquals(2, reader.getCopyOut().getHandledRowCount());
+    try {
+      reader.getInt(0);
+      fail("There is no row after the last one");
+    } catch (SQLException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("no current row"));
+    }
+  }
+
+  @Test
+  public void readManyRowsAcrossBuffers() throws SQLException {
+    insertRows(1000);
+    PGBinaryCopyReader reader = reader(COPY_OUT, 100);
+    long sum = 0;
+    int rows = 0;
+    while (reader.nextRow()) {
+      rows++;
+      sum += reader.getInt(0);
+      assertEquals(reader.getInt(0) * 10L, reader.getLong(1));
+      assertEquals(Integer.toString(reader.getInt(0)), reader.getString(2));
+    }
+    assertEquals(1000, rows);
+    assertEquals(500500, sum);
+  }
+
+  @Test
+  public void readOtherTypes() throws SQLException {
+    PGBinaryCopyReader reader = reader("COPY (SELECT true, 2::int2, 1.5::float4, 2.5::float8,"
+        + " 12.345::numeric, 'x'::name) TO STDOUT (FORMAT binary)", 1024);
+    assertTrue(reader.nextRow());
+    assertTrue(reader.getBoolean(0));
+    assertEquals(2, reader.getShort(1));
+    assertEquals(1.5f, reader.getFloat(2), 0);
+    assertEquals(2.5, reader.getDouble(3), 0);
+    assertEquals(new BigDecimal("12.345"), reader.getBigDecimal(4));
+    assertEquals("x", reader.getString(5));
+    try {
+      reader.getLong(0);
+      fail("A bool field should not be read as an int8");
+    } catch (SQLException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("bytes"));
+    }
+    assertFalse(reader.nextRow());
+  }
+
+  @Test
+  public void cancelRead() throws SQLException {
+    insertRows(1000);
+    PGBinaryCopyReader reader = reader(COPY_OUT, 100);
+    assertTrue(reader.nextRow());
+    reader.cancelCopy();
+    assertFalse(reader.getCopyOut().isActive());
+    assertFalse(reader.nextRow());
+    // the connection is usable again
+    TestUtil.assertNumberOfRows(con, "binarycopy", 1000, "The rows should still be there");
+  }
+}
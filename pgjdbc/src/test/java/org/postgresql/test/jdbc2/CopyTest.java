@@ -15,6 +15,7 @@ import org.postgresql.PGConnection;
 import org.postgresql.copy.CopyIn;
 import org.postgresql.copy.CopyManager;
 import org.postgresql.copy.CopyOut;
+import org.postgresql.copy.PGAsyncCopyOutputStream;
 import org.postgresql.copy.PGCopyOutputStream;
 import org.postgresql.core.ServerVersion;
 import org.postgresql.test.TestUtil;
@@ -33,6 +34,9 @@ import java.io.OutputStream;
 import java.io.PrintStream;
 import java.io.StringReader;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -204,6 +208,28 @@ public class CopyTest {
     assertEquals(0, rowCount);
   }
 
+  @Test
+  public void testCopyInFromChannel() throws SQLException, IOException {
+    String sql = "COPY copytest FROM STDIN";
+    copyAPI.copyIn(sql, Channels.newChannel(new ByteArrayInputStream(getData(origData))), 3);
+    int rowCount = getCount();
+    assertEquals(dataRows, rowCount);
+  }
+
+  @Test
+  public void testCopyInFromPath() throws SQLException, IOException {
+    String sql = "COPY copytest FROM STDIN";
+    Path file = Files.createTempFile("copytest", ".txt");
+    try {
+      Files.write(file, getData(origData));
+      assertEquals(dataRows, copyAPI.copyIn(sql, file, 5));
+    } finally {
+      Files.delete(file);
+    }
+    int rowCount = getCount();
+    assertEquals(dataRows, rowCount);
+  }
+
   @Test
   public void testCopyInFromReader() throws SQLException, IOException {
     String sql = "COPY copytest FROM STDIN";
@@ -220,6 +246,33 @@ public class CopyTest {
     assertEquals(dataRows, rowCount);
   }
 
+  @Test
+  public void testCopyInAsync() throws SQLException, IOException {
+    String sql = "COPY copytest FROM STDIN";
+    PGAsyncCopyOutputStream out = new PGAsyncCopyOutputStream(copyAPI.copyIn(sql), 7, 3);
+    for (int i = 0; i < 100; i++) {
+      out.write(getData(origData));
+    }
+    assertEquals(dataRows * 100, out.endCopy());
+    out.close();
+    assertEquals(dataRows * 100, getCount());
+  }
+
+  @Test
+  public void testCopyInAsyncFailure() throws SQLException, IOException {
+    String sql = "COPY copytest FROM STDIN";
+    PGAsyncCopyOutputStream out = new PGAsyncCopyOutputStream(copyAPI.copyIn(sql), 7, 2);
+    out.write("not a number\tx\t1\n".getBytes());
+    try {
+      out.endCopy();
+      fail("The bad row should fail the COPY");
+    } catch (SQLException e) {
+      assertFalse(out.isActive());
+    }
+    out.close();
+    assertEquals(0, getCount());
+  }
+
   /**
    * Tests writing to a COPY ... FROM STDIN using both the standard OutputStream API
    * write(byte[]) and the driver specific write(ByteStreamWriter) API interleaved.
@@ -290,6 +343,38 @@ public class CopyTest {
     assertEquals(dataRows, getCount());
   }
 
+  @Test
+  public void testCopyOutIntoBuffer() throws SQLException, IOException {
+    testCopyInByRow(); // ensure we have some data.
+    String sql = "COPY copytest TO STDOUT";
+    CopyOut cp = copyAPI.copyOut(sql);
+    ByteArrayOutputStream copydata = new ByteArrayOutputStream();
+    // the rest of a message can still be read as an array
+    byte[] buf = new byte[3];
+    int len = cp.readFromCopy(buf, 0, buf.length);
+    assertEquals(3, len);
+    copydata.write(buf, 0, len);
+    copydata.write(cp.readFromCopy());
+    while ((len = cp.readFromCopy(buf, 1, 2)) != -1) {
+      copydata.write(buf, 1, len);
+    }
+    assertFalse(cp.isActive());
+    assertEquals(dataRows, cp.getHandledRowCount());
+    assertEquals(new String(getData(origData)), new String(copydata.toByteArray()));
+  }
+
+  @Test
+  public void testCopyOutIntoBufferCancel() throws SQLException {
+    testCopyInByRow(); // ensure we have some data.
+    CopyOut cp = copyAPI.copyOut("COPY copytest TO STDOUT");
+    byte[] buf = new byte[3];
+    assertEquals(3, cp.readFromCopy(buf, 0, buf.length));
+    cp.cancelCopy();
+    assertFalse(cp.isActive());
+    // the rest of the partially read message does not get in the way
+    assertEquals(dataRows, getCount());
+  }
+
   @Test
   public void testCopyOut() throws SQLException, IOException {
     testCopyInByRow(); // ensure we have some data.
@@ -310,6 +395,15 @@ public class CopyTest {
     }
   }
 
+  @Test
+  public void testCopyOutToChannel() throws SQLException, IOException {
+    testCopyInByRow(); // ensure we have some data.
+    String sql = "COPY copytest TO STDOUT";
+    ByteArrayOutputStream copydata = new ByteArrayOutputStream();
+    assertEquals(dataRows, copyAPI.copyOut(sql, Channels.newChannel(copydata)));
+    assertEquals(new String(getData(origData)), new String(copydata.toByteArray()));
+  }
+
   @Test
   public void testNonCopyOut() throws SQLException, IOException {
     String sql = "SELECT 1";
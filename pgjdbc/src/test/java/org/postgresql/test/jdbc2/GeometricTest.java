@@ -9,6 +9,7 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import org.postgresql.PGProperty;
 import org.postgresql.core.ServerVersion;
 import org.postgresql.geometric.PGbox;
 import org.postgresql.geometric.PGcircle;
@@ -18,13 +19,16 @@ import org.postgresql.geometric.PGpath;
 import org.postgresql.geometric.PGpoint;
 import org.postgresql.geometric.PGpolygon;
 import org.postgresql.test.TestUtil;
+import org.postgresql.util.PGBinaryObject;
 import org.postgresql.util.PGobject;
 import org.postgresql.util.PSQLException;
+import org.postgresql.util.PSQLState;
 
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.Parameterized;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -32,6 +36,7 @@ import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.Properties;
 
 /*
  * Test case for geometric type I/O
@@ -52,6 +57,13 @@ public class GeometricTest extends BaseTest4 {
     return ids;
   }
 
+  @Override
+  protected void updateProperties(Properties props) {
+    super.updateProperties(props);
+    // binary transfer of these types is opt-in
+    PGProperty.BINARY_TRANSFER_ENABLE.set(props, "LSEG,PATH,POLYGON,LINE,CIRCLE");
+  }
+
   public void setUp() throws Exception {
     super.setUp();
     TestUtil.createTable(con, "testgeometric",
@@ -187,4 +199,82 @@ public class GeometricTest extends BaseTest4 {
     checkReadWrite(new PGpoint(1.0, 2.0), "pointval");
   }
 
+  @Test
+  public void testDefaultTransferKeepsServerText() throws Exception {
+    Properties props = new Properties();
+    PGProperty.PREPARE_THRESHOLD.set(props, -1);
+    Connection conn = TestUtil.openDB(props);
+    try {
+      PreparedStatement ps = conn.prepareStatement("SELECT '<(1,2),3>'::circle,"
+          + " '[(1,2),(3,4)]'::lseg, '((0,0),(1,1.5))'::polygon");
+      ResultSet rs = ps.executeQuery();
+      assertTrue(rs.next());
+      assertEquals("<(1,2),3>", rs.getString(1));
+      assertEquals("[(1,2),(3,4)]", rs.getString(2));
+      assertEquals("((0,0),(1,1.5))", rs.getString(3));
+      rs.close();
+      ps.close();
+    } finally {
+      TestUtil.closeDB(conn);
+    }
+  }
+
+  @Test
+  public void testLargePolygon() throws Exception {
+    PGpoint[] points = new PGpoint[2000];
+    for (int i = 0; i < points.length; i++) {
+      double angle = 2 * Math.PI * i / points.length;
+      points[i] = new PGpoint(Math.cos(angle) * 1e3, Math.sin(angle) * 1e-3);
+    }
+    PGpolygon polygon = new PGpolygon(points);
+    checkReadWrite(polygon, "polygonval");
+    checkReadWrite(new PGpath(points, true), "pathval");
+
+    double[] coordinates = polygon.getCoordinates();
+    assertEquals(2 * points.length, coordinates.length);
+    assertEquals(points[1].x, coordinates[2], 0.0);
+    assertEquals(points[1].y, coordinates[3], 0.0);
+  }
+
+  @Test
+  public void testBinaryEncoding() throws Exception {
+    PGpoint[] points = new PGpoint[]{new PGpoint(1.5, -2.0), new PGpoint(3e10, 4e-10)};
+    checkBinary(new PGcircle(1.0, -2.0, 3.5), new PGcircle());
+    checkBinary(new PGline(1.0, -2.0, 0.5), new PGline());
+    checkBinary(new PGlseg(1.0, 2.0, -3.0, 4.0), new PGlseg());
+    checkBinary(new PGpath(points, true), new PGpath());
+    checkBinary(new PGpath(points, false), new PGpath());
+    checkBinary(new PGpolygon(points), new PGpolygon());
+  }
+
+  private static <T extends PGobject & PGBinaryObject> void checkBinary(T obj, T decoded)
+      throws Exception {
+    byte[] bytes = new byte[obj.lengthInBytes() + 3];
+    obj.toBytes(bytes, 3);
+    decoded.setByteValue(bytes, 3);
+    assertEquals(obj, decoded);
+  }
+
+  @Test
+  public void testTextParsing() throws Exception {
+    assertEquals(new PGpolygon(new PGpoint[]{new PGpoint(1, 2e3), new PGpoint(-3.5, 4)}),
+        new PGpolygon(" ( ( 1 , 2e+3 ) , ( -3.5 , 4 ) ) "));
+    assertEquals(new PGcircle(1, 2, 3), new PGcircle("<(1,2),3>"));
+    assertEquals(new PGlseg(1, 2, 3, 4), new PGlseg("[(1,2),(3,4)]"));
+    assertEquals(new PGpoint(Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY),
+        new PGpoint("(Infinity,-Infinity)"));
+    try {
+      new PGpolygon("((1,2),(3))");
+      fail("odd number of coordinates must be rejected");
+    } catch (PSQLException e) {
+      assertEquals(PSQLState.DATA_TYPE_MISMATCH.getState(), e.getSQLState());
+    }
+    try {
+      new PGcircle("<(1,2),x>");
+      fail("invalid radius must be rejected");
+    } catch (PSQLException e) {
+      assertEquals(PSQLState.DATA_TYPE_MISMATCH.getState(), e.getSQLState());
+    }
+  }
+
 }
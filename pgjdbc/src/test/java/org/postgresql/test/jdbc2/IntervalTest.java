@@ -9,7 +9,9 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
+import org.postgresql.PGProperty;
 import org.postgresql.test.TestUtil;
 import org.postgresql.util.PGInterval;
 
@@ -22,10 +24,13 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.time.Duration;
+import java.time.Period;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.GregorianCalendar;
 import java.util.Locale;
+import java.util.Properties;
 
 public class IntervalTest {
   private Connection conn;
@@ -365,6 +370,117 @@ public class IntervalTest {
     assertEquals(1, pgi.getMicroSeconds());
   }
 
+  @Test
+  public void testISO8601FractionalSeconds() throws SQLException {
+    PGInterval pgi = new PGInterval("PT-1.5S");
+    assertEquals(-1, pgi.getWholeSeconds());
+    assertEquals(-500000, pgi.getMicroSeconds());
+  }
+
+  @Test
+  public void testBinaryRoundTrip() throws SQLException {
+    PGInterval orig = new PGInterval("-1 years -2 mons +3 days -04:05:06.789");
+    byte[] bytes = new byte[orig.lengthInBytes()];
+    orig.toBytes(bytes, 0);
+    PGInterval copy = new PGInterval();
+    copy.setByteValue(bytes, 0);
+    assertEquals(orig, copy);
+  }
+
+  @Test
+  public void testInvalidValue() {
+    try {
+      new PGInterval("1 year 2x:00:00");
+      fail("invalid interval must be rejected");
+    } catch (SQLException e) {
+      assertEquals("Conversion of interval failed", e.getMessage());
+    }
+  }
+
+  @Test
+  public void testDurationAndPeriod() throws SQLException {
+    PreparedStatement pstmt = conn.prepareStatement("SELECT ?::interval, ?::interval");
+    pstmt.setObject(1, Duration.ofHours(-36).plusNanos(1500000));
+    pstmt.setObject(2, Period.of(1, 14, -3));
+    ResultSet rs = pstmt.executeQuery();
+    assertTrue(rs.next());
+    assertEquals(Duration.ofHours(-36).plusNanos(1500000), rs.getObject(1, Duration.class));
+    assertEquals(Period.of(2, 2, -3), rs.getObject(2, Period.class));
+    try {
+      rs.getObject(2, Duration.class);
+      fail("an interval with months cannot be a Duration");
+    } catch (SQLException e) {
+      // expected
+    }
+    try {
+      rs.getObject(1, Period.class);
+      fail("an interval with a time part cannot be a Period");
+    } catch (SQLException e) {
+      // expected
+    }
+    rs.close();
+    pstmt.close();
+  }
+
+  @Test
+  public void testBinaryMatchesText() throws SQLException {
+    assertBinaryMatchesText(null);
+  }
+
+  @Test
+  public void testBinaryMatchesTextIso8601() throws SQLException {
+    assertBinaryMatchesText("iso_8601");
+  }
+
+  @Test
+  public void testBinaryMatchesTextSqlStandard() throws SQLException {
+    assertBinaryMatchesText("sql_standard");
+  }
+
+  @Test
+  public void testBinaryMatchesTextPostgresVerbose() throws SQLException {
+    assertBinaryMatchesText("postgres_verbose");
+  }
+
+  /**
+   * Compares binary and text intervals. With another style than the default, only the strings
+   * are compared, as {@link PGInterval} does not parse every style.
+   */
+  private static void assertBinaryMatchesText(String intervalStyle) throws SQLException {
+    String[] values = {"0", "1 year", "2 mons -3 days", "-1 years -2 mons +3 days -04:05:06.789",
+        "-3 days +00:00:00.000001", "123:00:01.5", "1 day -00:00:01", "-178000000 years",
+        "1 sec", "-1.5 sec", "1 year -1 day", "-1 day -04:05:06"};
+    Properties props = new Properties();
+    PGProperty.PREPARE_THRESHOLD.set(props, -1);
+    Connection binary = TestUtil.openDB(props);
+    PGProperty.BINARY_TRANSFER.set(props, false);
+    Connection text = TestUtil.openDB(props);
+    try {
+      if (intervalStyle != null) {
+        TestUtil.execute("SET IntervalStyle = " + intervalStyle, binary);
+        TestUtil.execute("SET IntervalStyle = " + intervalStyle, text);
+      }
+      for (String value : values) {
+        String sql = "SELECT '" + value + "'::interval";
+        PreparedStatement bs = binary.prepareStatement(sql);
+        PreparedStatement ts = text.prepareStatement(sql);
+        ResultSet brs = bs.executeQuery();
+        ResultSet trs = ts.executeQuery();
+        assertTrue(brs.next());
+        assertTrue(trs.next());
+        assertEquals(value, trs.getString(1), brs.getString(1));
+        if (intervalStyle == null) {
+          assertEquals(value, trs.getObject(1), brs.getObject(1));
+        }
+        bs.close();
+        ts.close();
+      }
+    } finally {
+      TestUtil.closeDB(binary);
+      TestUtil.closeDB(text);
+    }
+  }
+
   private java.sql.Date makeDate(int y, int m, int d) {
     return new java.sql.Date(y - 1900, m - 1, d);
   }
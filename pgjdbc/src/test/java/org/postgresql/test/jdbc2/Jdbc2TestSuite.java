@@ -11,6 +11,7 @@ import org.postgresql.core.OidToStringTest;
 import org.postgresql.core.OidValueOfTest;
 import org.postgresql.core.ParserTest;
 import org.postgresql.core.ReturningParserTest;
+import org.postgresql.core.SpooledValueTest;
 import org.postgresql.core.UTF8EncodingTest;
 import org.postgresql.core.v3.V3ParameterListTests;
 import org.postgresql.core.v3.adaptivefetch.AdaptiveFetchCacheTest;
@@ -50,10 +51,14 @@ import org.junit.runners.Suite;
     ArrayTest.class,
     ArraysTest.class,
     ArraysTestSuite.class,
+    BatchChunkTest.class,
+    BatchCopyInsertTest.class,
     BatchedInsertReWriteEnabledTest.class,
     BatchExecuteTest.class,
     BatchFailureTest.class,
+    BatchUnnestUpdateTest.class,
     BigDecimalByteConverterTest.class,
+    BinaryCopyTest.class,
     BitFieldTest.class,
     BlobTest.class,
     BlobTransactionTest.class,
@@ -99,6 +104,8 @@ import org.junit.runners.Suite;
     FixedLengthOutputStreamTest.class,
     ByteStreamWriterTest.class,
     ByteBufferByteStreamWriterTest.class,
+    ParallelCopyExporterTest.class,
+    ParallelCopyLoaderTest.class,
     ParameterStatusTest.class,
     ParserTest.class,
     PGPropertyMaxResultBufferParserTest.class,
@@ -120,6 +127,7 @@ import org.junit.runners.Suite;
     ServerPreparedStmtTest.class,
     ServerVersionParseTest.class,
     ServerVersionTest.class,
+    SpooledValueTest.class,
     StatementTest.class,
     StringTypeUnspecifiedArrayTest.class,
     TestACL.class,
@@ -0,0 +1,175 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.test.jdbc2;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.postgresql.copy.ParallelCopyExporter;
+import org.postgresql.core.BaseConnection;
+import org.postgresql.core.ServerVersion;
+import org.postgresql.ds.PGSimpleDataSource;
+import org.postgresql.test.TestUtil;
+import org.postgresql.test.jdbc2.optional.BaseDataSourceTest;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+public class ParallelCopyExporterTest extends BaseTest4 {
+  private static final int CONNECTIONS = 3;
+  private static final int ROWS = 10000;
+
+  private final List<Connection> connections = new ArrayList<Connection>();
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    assumeMinimumServerVersion("pg_export_snapshot() requires PostgreSQL 9.2", ServerVersion.v9_2);
+    TestUtil.createTable(con, "parallelexport", "i int4, t text");
+    TestUtil.execute("INSERT INTO parallelexport SELECT g, 'row ' || g"
+        + " FROM generate_series(1, " + ROWS + ") g", con);
+    TestUtil.execute("INSERT INTO parallelexport VALUES (NULL, 'no key')", con);
+  }
+
+  @Override
+  public void tearDown() throws SQLException {
+    for (Connection connection : connections) {
+      TestUtil.closeDB(connection);
+    }
+    TestUtil.dropTable(con, "parallelexport");
+    super.tearDown();
+  }
+
+  private BaseConnection openConnection() throws SQLException {
+    Connection connection = TestUtil.openDB();
+    connections.add(connection);
+    return connection.unwrap(BaseConnection.class);
+  }
+
+  private ParallelCopyExporter exporter() throws SQLException {
+    List<BaseConnection> workers = new ArrayList<BaseConnection>();
+    for (int i = 0; i < CONNECTIONS; i++) {
+      workers.add(openConnection());
+    }
+    return new ParallelCopyExporter(openConnection(), workers, "parallelexport");
+  }
+
+  /**
+   * Collects the data of each partition.
+   */
+  private static class Sinks implements ParallelCopyExporter.PartitionSink {
+    final ByteArrayOutputStream[] outs = new ByteArrayOutputStream[CONNECTIONS];
+
+    @Override
+    public synchronized OutputStream open(int partition) {
+      outs[partition] = new ByteArrayOutputStream();
+      return outs[partition];
+    }
+
+    Set<String> lines() {
+      Set<String> lines = new TreeSet<String>();
+      for (ByteArrayOutputStream out : outs) {
+        for (String line : new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n")) {
+          if (!line.isEmpty()) {
+            assertTrue("Each row should be exported once: " + line, lines.add(line));
+          }
+        }
+      }
+      return lines;
+    }
+  }
+
+  private static void assertAllRows(Set<String> lines) {
+    assertEquals(ROWS + 1, lines.size());
+    assertTrue(lines.contains("1\trow 1"));
+    assertTrue(lines.contains(ROWS + "\trow " + ROWS));
+    assertTrue(lines.contains("\\N\tno key"));
+  }
+
+  @Test
+  public void exportByCtid() throws Exception {
+    Sinks sinks = new Sinks();
+    ParallelCopyExporter exporter = exporter();
+    exporter.setBufferSize(100);
+    assertEquals(ROWS + 1, exporter.export(sinks));
+    assertAllRows(sinks.lines());
+    for (Connection connection : connections) {
+      assertTrue("Auto-commit should be restored", connection.getAutoCommit());
+      assertEquals(Connection.TRANSACTION_READ_COMMITTED, connection.getTransactionIsolation());
+    }
+  }
+
+  @Test
+  public void exportByKey() throws Exception {
+    Sinks sinks = new Sinks();
+    ParallelCopyExporter exporter = exporter();
+    exporter.setKeyColumn("i");
+    assertEquals(ROWS + 1, exporter.export(sinks));
+    assertAllRows(sinks.lines());
+    for (ByteArrayOutputStream out : sinks.outs) {
+      assertTrue("Every partition should have rows", out.size() > 0);
+    }
+  }
+
+  @Test
+  public void exportOverDataSource() throws Exception {
+    PGSimpleDataSource ds = new PGSimpleDataSource();
+    BaseDataSourceTest.setupDataSource(ds);
+    Sinks sinks = new Sinks();
+    ParallelCopyExporter exporter = new ParallelCopyExporter(ds, "parallelexport", CONNECTIONS);
+    exporter.setColumns("i, upper(t)");
+    exporter.setCopyOptions("(FORMAT csv)");
+    assertEquals(ROWS + 1, exporter.export(sinks));
+    Set<String> lines = sinks.lines();
+    assertEquals(ROWS + 1, lines.size());
+    assertTrue(lines.contains("7,ROW 7"));
+  }
+
+  @Test
+  public void exportMergedRows() throws Exception {
+    final Set<String> lines = new TreeSet<String>();
+    long rows = exporter().exportRows(new ParallelCopyExporter.RowHandler() {
+      @Override
+      public void handleRow(byte[] row) {
+        String line = new String(row, StandardCharsets.UTF_8);
+        assertTrue(line.endsWith("\n"));
+        lines.add(line.substring(0, line.length() - 1));
+      }
+    });
+    assertEquals(ROWS + 1, rows);
+    assertAllRows(lines);
+  }
+
+  @Test
+  public void handlerFailureAbortsExport() throws Exception {
+    try {
+      exporter().exportRows(new ParallelCopyExporter.RowHandler() {
+        @Override
+        public void handleRow(byte[] row) throws IOException {
+          throw new IOException("full");
+        }
+      });
+      fail("The failure of the handler should be thrown");
+    } catch (IOException e) {
+      assertEquals("full", e.getMessage());
+    }
+    // the connections are usable again
+    for (Connection connection : connections) {
+      TestUtil.assertNumberOfRows(connection, "parallelexport", ROWS + 1, "The rows are there");
+    }
+  }
+}
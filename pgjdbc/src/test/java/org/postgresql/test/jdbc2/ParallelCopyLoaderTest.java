@@ -0,0 +1,204 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.test.jdbc2;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+import org.postgresql.copy.ParallelCopyLoader;
+import org.postgresql.core.BaseConnection;
+import org.postgresql.core.ServerVersion;
+import org.postgresql.ds.PGSimpleDataSource;
+import org.postgresql.test.TestUtil;
+import org.postgresql.test.jdbc2.optional.BaseDataSourceTest;
+import org.postgresql.util.ByteConverter;
+
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class ParallelCopyLoaderTest extends BaseTest4 {
+  private static final int CONNECTIONS = 3;
+  private static final String COPY = "COPY parallelcopy(i, t) FROM STDIN";
+
+  private final List<Connection> connections = new ArrayList<Connection>();
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    TestUtil.createTable(con, "parallelcopy", "i int4 primary key, t text");
+  }
+
+  @Override
+  public void tearDown() throws SQLException {
+    for (Connection connection : connections) {
+      TestUtil.closeDB(connection);
+    }
+    TestUtil.dropTable(con, "parallelcopy");
+    super.tearDown();
+  }
+
+  private List<BaseConnection> openConnections() throws SQLException {
+    List<BaseConnection> result = new ArrayList<BaseConnection>();
+    for (int i = 0; i < CONNECTIONS; i++) {
+      Connection connection = TestUtil.openDB();
+      connections.add(connection);
+      result.add(connection.unwrap(BaseConnection.class));
+    }
+    return result;
+  }
+
+  private static List<byte[]> textRows(int count) {
+    List<byte[]> rows = new ArrayList<byte[]>();
+    for (int i = 0; i < count; i++) {
+      rows.add((i + "\trow " + i + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+    return rows;
+  }
+
+  private void assertRows(int count) throws SQLException {
+    Statement st = con.createStatement();
+    ResultSet rs = st.executeQuery("SELECT count(*), sum(i) FROM parallelcopy"
+        + " WHERE t = 'row ' || i");
+    assertTrue(rs.next());
+    assertEquals(count, rs.getInt(1));
+    assertEquals((long) count * (count - 1) / 2, rs.getLong(2));
+    rs.close();
+    st.close();
+  }
+
+  private boolean isPreparedTransactionEnabled() throws SQLException {
+    Statement st = con.createStatement();
+    ResultSet rs = st.executeQuery("SHOW max_prepared_transactions");
+    rs.next();
+    boolean enabled = rs.getInt(1) >= CONNECTIONS;
+    rs.close();
+    st.close();
+    return enabled;
+  }
+
+  @Test
+  public void loadOverConnections() throws SQLException {
+    ParallelCopyLoader loader = new ParallelCopyLoader(openConnections(), COPY);
+    loader.setBufferSize(100);
+    assertEquals(10000, loader.load(textRows(10000).iterator()));
+    assertRows(10000);
+    for (Connection connection : connections) {
+      assertTrue("Given connections are left open", !connection.isClosed());
+    }
+  }
+
+  @Test
+  public void loadOverDataSource() throws SQLException {
+    PGSimpleDataSource ds = new PGSimpleDataSource();
+    BaseDataSourceTest.setupDataSource(ds);
+    ParallelCopyLoader loader = new ParallelCopyLoader(ds, COPY, CONNECTIONS);
+    assertEquals(1000, loader.load(textRows(1000).iterator()));
+    assertRows(1000);
+  }
+
+  @Test
+  public void customPartitioner() throws SQLException {
+    ParallelCopyLoader loader = new ParallelCopyLoader(openConnections(),
+        "COPY parallelcopy(i, t) FROM STDIN (FORMAT csv)");
+    loader.setPartitioner(new ParallelCopyLoader.Partitioner() {
+      @Override
+      public int partition(byte[] row, long rowNumber, int partitions) {
+        return rowNumber < 10 ? 0 : partitions - 1;
+      }
+    });
+    List<byte[]> rows = new ArrayList<byte[]>();
+    for (int i = 0; i < 20; i++) {
+      rows.add((i + ",row " + i + "\n").getBytes(StandardCharsets.UTF_8));
+    }
+    assertEquals(20, loader.load(rows.iterator()));
+    assertRows(20);
+  }
+
+  @Test
+  public void loadBinaryRows() throws SQLException {
+    assumeMinimumServerVersion("COPY (FORMAT binary) requires PostgreSQL 9.0", ServerVersion.v9_0);
+    List<byte[]> rows = new ArrayList<byte[]>();
+    for (int i = 0; i < 100; i++) {
+      byte[] text = ("row " + i).getBytes(StandardCharsets.UTF_8);
+      byte[] row = new byte[2 + 4 + 4 + 4 + text.length];
+      ByteConverter.int2(row, 0, 2);
+      ByteConverter.int4(row, 2, 4);
+      ByteConverter.int4(row, 6, i);
+      ByteConverter.int4(row, 10, text.length);
+      System.arraycopy(text, 0, row, 14, text.length);
+      rows.add(row);
+    }
+    ParallelCopyLoader loader = new ParallelCopyLoader(openConnections(),
+        "COPY parallelcopy(i, t) FROM STDIN (FORMAT binary)");
+    assertEquals(100, loader.load(rows.iterator()));
+    assertRows(100);
+  }
+
+  @Test
+  public void invalidPartitionIsRejected() throws SQLException {
+    ParallelCopyLoader loader = new ParallelCopyLoader(openConnections(), COPY);
+    loader.setPartitioner(new ParallelCopyLoader.Partitioner() {
+      @Override
+      public int partition(byte[] row, long rowNumber, int partitions) {
+        return partitions;
+      }
+    });
+    try {
+      loader.load(textRows(1).iterator());
+      fail("A partition out of range should be rejected");
+    } catch (SQLException e) {
+      assertTrue(e.getMessage(), e.getMessage().contains("partitions"));
+    }
+    // the connections are usable again
+    for (Connection connection : connections) {
+      TestUtil.assertNumberOfRows(connection, "parallelcopy", 0, "No rows should be copied");
+    }
+  }
+
+  @Test
+  public void twoPhaseCommit() throws SQLException {
+    assumeTrue(isPreparedTransactionEnabled());
+    ParallelCopyLoader loader = new ParallelCopyLoader(openConnections(), COPY);
+    loader.setTwoPhaseCommit(true);
+    assertEquals(1000, loader.load(textRows(1000).iterator()));
+    assertRows(1000);
+    for (Connection connection : connections) {
+      assertTrue("Auto-commit should be restored", connection.getAutoCommit());
+    }
+    TestUtil.assertNumberOfRows(con, "pg_prepared_xacts", 0, "No transaction should be left");
+  }
+
+  @Test
+  public void twoPhaseCommitRollsBackAllConnections() throws SQLException {
+    assumeTrue(isPreparedTransactionEnabled());
+    ParallelCopyLoader loader = new ParallelCopyLoader(openConnections(), COPY);
+    loader.setTwoPhaseCommit(true);
+    List<byte[]> rows = textRows(1000);
+    // row 1000 goes to the same connection as row 1, so the duplicate key fails it at once
+    rows.add(Arrays.copyOf(rows.get(1), rows.get(1).length));
+    try {
+      loader.load(rows.iterator());
+      fail("The duplicate key should fail the load");
+    } catch (SQLException e) {
+      assertEquals("23505", e.getSQLState());
+    }
+    assertRows(0);
+    TestUtil.assertNumberOfRows(con, "pg_prepared_xacts", 0, "No transaction should be left");
+    for (Connection connection : connections) {
+      assertTrue("Auto-commit should be restored", connection.getAutoCommit());
+    }
+  }
+}
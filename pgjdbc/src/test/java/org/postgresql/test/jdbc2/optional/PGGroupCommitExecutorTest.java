@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.test.jdbc2.optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.postgresql.ds.PGGroupCommitExecutor;
+import org.postgresql.ds.PGSimpleDataSource;
+import org.postgresql.test.TestUtil;
+import org.postgresql.test.jdbc2.BaseTest4;
+import org.postgresql.util.PSQLState;
+
+import org.junit.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+public class PGGroupCommitExecutorTest extends BaseTest4 {
+  private static final int THREADS = 20;
+  private static final String INSERT = "INSERT INTO groupcommit(id, t) VALUES (?, ?)";
+
+  private Connection executorConnection;
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    executorConnection = TestUtil.openDB();
+    TestUtil.createTable(con, "groupcommit", "id int4 primary key, t text");
+  }
+
+  @Override
+  public void tearDown() throws SQLException {
+    TestUtil.closeDB(executorConnection);
+    TestUtil.dropTable(con, "groupcommit");
+    super.tearDown();
+  }
+
+  /**
+   * Inserts the rows with ids 1 to {@link #THREADS} from as many threads at once, and returns the
+   * update count or the SQL state of each.
+   */
+  private static List<Object> insertConcurrently(final PGGroupCommitExecutor executor)
+      throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+    try {
+      final CountDownLatch start = new CountDownLatch(1);
+      List<Future<Object>> futures = new ArrayList<Future<Object>>();
+      for (int i = 1; i <= THREADS; i++) {
+        final int id = i;
+        futures.add(pool.submit(new Callable<Object>() {
+          @Override
+          public Object call() throws Exception {
+            start.await();
+            try {
+              return executor.executeUpdate(INSERT, id, "row " + id);
+            } catch (SQLException e) {
+              return e.getSQLState();
+            }
+          }
+        }));
+      }
+      start.countDown();
+      List<Object> results = new ArrayList<Object>();
+      for (Future<Object> future : futures) {
+        results.add(future.get());
+      }
+      return results;
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  private int countTransactions() throws SQLException {
+    Statement st = con.createStatement();
+    ResultSet rs = st.executeQuery("SELECT count(DISTINCT xmin::text) FROM groupcommit");
+    rs.next();
+    int transactions = rs.getInt(1);
+    rs.close();
+    st.close();
+    return transactions;
+  }
+
+  @Test
+  public void concurrentInsertsShareTransaction() throws Exception {
+    PGSimpleDataSource ds = new PGSimpleDataSource();
+    BaseDataSourceTest.setupDataSource(ds);
+    PGGroupCommitExecutor executor = new PGGroupCommitExecutor(ds);
+    executor.setWindowMicros(200000);
+    for (Object result : insertConcurrently(executor)) {
+      assertEquals(1L, result);
+    }
+    TestUtil.assertNumberOfRows(con, "groupcommit", THREADS, "Every row should be inserted");
+    int transactions = countTransactions();
+    assertTrue("The rows should be committed in fewer transactions than rows, got "
+        + transactions, transactions < THREADS);
+  }
+
+  @Test
+  public void failingExecutionGetsItsOwnError() throws Exception {
+    TestUtil.execute("INSERT INTO groupcommit VALUES (5, 'existing')", con);
+    PGGroupCommitExecutor executor = new PGGroupCommitExecutor(executorConnection);
+    executor.setWindowMicros(200000);
+    List<Object> results = insertConcurrently(executor);
+    for (int i = 0; i < THREADS; i++) {
+      assertEquals("Row " + (i + 1), i == 4 ? "23505" : (Object) 1L, results.get(i));
+    }
+    TestUtil.assertNumberOfRows(con, "groupcommit", THREADS, "The other rows should be inserted");
+  }
+
+  @Test
+  public void failedCommitIsNotRetried() throws Exception {
+    TestUtil.execute("CREATE FUNCTION groupcommit_check() RETURNS trigger AS"
+        + " 'BEGIN IF new.id = 5 THEN RAISE EXCEPTION ''row 5''; END IF; RETURN NULL; END;'"
+        + " LANGUAGE plpgsql", con);
+    try {
+      TestUtil.execute("CREATE CONSTRAINT TRIGGER groupcommit_check AFTER INSERT ON groupcommit"
+          + " DEFERRABLE INITIALLY DEFERRED FOR EACH ROW EXECUTE PROCEDURE groupcommit_check()",
+          con);
+      PGGroupCommitExecutor executor = new PGGroupCommitExecutor(executorConnection);
+      // one group of every execution
+      executor.setWindowMicros(10000000);
+      executor.setMaxGroupSize(THREADS);
+      for (Object result : insertConcurrently(executor)) {
+        assertEquals("P0001", result);
+      }
+      TestUtil.assertNumberOfRows(con, "groupcommit", 0,
+          "The executions of a failed commit should not be executed again");
+    } finally {
+      TestUtil.execute("DROP FUNCTION groupcommit_check() CASCADE", con);
+    }
+  }
+
+  @Test
+  public void connectionInTransactionIsRejected() throws Exception {
+    executorConnection.setAutoCommit(false);
+    TestUtil.execute("INSERT INTO groupcommit VALUES (100, 'uncommitted')", executorConnection);
+    PGGroupCommitExecutor executor = new PGGroupCommitExecutor(executorConnection);
+    try {
+      executor.executeUpdate(INSERT, 1, "row 1");
+      fail("A connection in a transaction should be rejected");
+    } catch (SQLException e) {
+      assertEquals(PSQLState.OBJECT_NOT_IN_STATE.getState(), e.getSQLState());
+    }
+    executorConnection.rollback();
+    TestUtil.assertNumberOfRows(con, "groupcommit", 0,
+        "The transaction of the connection should not be committed");
+  }
+
+  @Test
+  public void maxGroupSize() throws Exception {
+    PGGroupCommitExecutor executor = new PGGroupCommitExecutor(executorConnection);
+    executor.setWindowMicros(0);
+    executor.setMaxGroupSize(1);
+    for (Object result : insertConcurrently(executor)) {
+      assertEquals(1L, result);
+    }
+    assertEquals("Every row should be committed on its own", THREADS, countTransactions());
+  }
+}
@@ -5,6 +5,7 @@
 
 package org.postgresql.test.jdbc4;
 
+import org.postgresql.PGResultSet;
 import org.postgresql.test.SlowTests;
 import org.postgresql.test.TestUtil;
 import org.postgresql.test.jdbc2.BaseTest4;
@@ -14,6 +15,9 @@ import org.junit.Test;
 import org.junit.experimental.categories.Category;
 
 import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.ByteBuffer;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
@@ -71,6 +75,13 @@ public class BinaryStreamTest extends BaseTest4 {
         rs.next();
         byte[] actualData = rs.getBytes(1);
         Assert.assertArrayEquals("Sent and received data are not the same", data, actualData);
+        Assert.assertArrayEquals("getBinaryStream does not match getBytes", data,
+            readFully(rs.getBinaryStream(1)));
+        ByteBuffer buffer = rs.unwrap(PGResultSet.class).getByteBuffer(1);
+        Assert.assertTrue("getByteBuffer must return a read-only view", buffer.isReadOnly());
+        byte[] bufferData = new byte[buffer.remaining()];
+        buffer.get(bufferData);
+        Assert.assertArrayEquals("getByteBuffer does not match getBytes", data, bufferData);
       } finally {
         rs.close();
       }
@@ -86,6 +97,16 @@ public class BinaryStreamTest extends BaseTest4 {
     }
   }
 
+  private static byte[] readFully(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buf = new byte[1000];
+    int n;
+    while ((n = in.read(buf)) != -1) {
+      out.write(buf, 0, n);
+    }
+    return out.toByteArray();
+  }
+
   private byte[] getTestData(int size) {
     testData.rewind();
     byte[] data = new byte[size];
@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.test.jdbc4;
+
+import org.postgresql.PGStatement;
+import org.postgresql.core.BaseConnection;
+import org.postgresql.core.Oid;
+import org.postgresql.test.TestUtil;
+import org.postgresql.test.jdbc2.BaseTest4;
+import org.postgresql.util.PGCodec;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.PSQLState;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Properties;
+
+@RunWith(Parameterized.class)
+public class CodecTest extends BaseTest4 {
+
+  public enum Mood {
+    SAD, OK, HAPPY
+  }
+
+  /**
+   * Maps the {@code codectest_mood} enum to {@link Mood}. The binary format of enums is the label.
+   */
+  public static class MoodCodec implements PGCodec<Mood> {
+    @Override
+    public String getTypeName() {
+      return "codectest_mood";
+    }
+
+    @Override
+    public Class<Mood> getJavaType() {
+      return Mood.class;
+    }
+
+    @Override
+    public boolean supportsBinary() {
+      return true;
+    }
+
+    @Override
+    public boolean supportsArrays() {
+      return true;
+    }
+
+    @Override
+    public Mood decodeText(String value) throws SQLException {
+      try {
+        return Mood.valueOf(value.toUpperCase());
+      } catch (IllegalArgumentException e) {
+        throw new PSQLException("Unknown mood " + value, PSQLState.DATA_ERROR, e);
+      }
+    }
+
+    @Override
+    public Mood decodeBinary(byte[] bytes, int offset, int length) throws SQLException {
+      return decodeText(new String(bytes, offset, length, StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public String encodeText(Mood value) {
+      return value.name().toLowerCase();
+    }
+
+    @Override
+    public byte[] encodeBinary(Mood value) {
+      return encodeText(value).getBytes(StandardCharsets.UTF_8);
+    }
+  }
+
+  private Connection codecCon;
+
+  public CodecTest(BinaryMode binaryMode) {
+    setBinaryMode(binaryMode);
+  }
+
+  @Parameterized.Parameters(name = "binary = {0}")
+  public static Iterable<Object[]> data() {
+    Collection<Object[]> ids = new ArrayList<Object[]>();
+    for (BinaryMode binaryMode : BinaryMode.values()) {
+      ids.add(new Object[]{binaryMode});
+    }
+    return ids;
+  }
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    Statement stmt = con.createStatement();
+    stmt.execute("DROP TYPE IF EXISTS codectest_mood CASCADE");
+    stmt.execute("CREATE TYPE codectest_mood AS ENUM ('sad', 'ok', 'happy')");
+    stmt.close();
+    TestUtil.createTable(con, "codectest", "id int, mood codectest_mood, moods codectest_mood[]");
+
+    // codecs are discovered through the context class loader when the connection is opened
+    File services = new File(TestUtil.getFile("target"), "codectest");
+    File descriptor = new File(services, "META-INF/services/" + PGCodec.class.getName());
+    descriptor.getParentFile().mkdirs();
+    OutputStream out = new FileOutputStream(descriptor);
+    out.write((MoodCodec.class.getName() + "\n").getBytes(StandardCharsets.UTF_8));
+    out.close();
+
+    Thread thread = Thread.currentThread();
+    ClassLoader contextLoader = thread.getContextClassLoader();
+    thread.setContextClassLoader(
+        new URLClassLoader(new URL[]{services.toURI().toURL()}, CodecTest.class.getClassLoader()));
+    try {
+      Properties props = new Properties();
+      updateProperties(props);
+      codecCon = TestUtil.openDB(props);
+    } finally {
+      thread.setContextClassLoader(contextLoader);
+    }
+  }
+
+  @Override
+  public void tearDown() throws SQLException {
+    TestUtil.closeDB(codecCon);
+    TestUtil.dropTable(con, "codectest");
+    Statement stmt = con.createStatement();
+    stmt.execute("DROP TYPE IF EXISTS codectest_mood");
+    stmt.close();
+    super.tearDown();
+  }
+
+  @Test
+  public void roundTrip() throws SQLException {
+    PreparedStatement ps = codecCon.prepareStatement("INSERT INTO codectest VALUES (?, ?, ?)");
+    ps.setInt(1, 1);
+    ps.setObject(2, Mood.HAPPY);
+    ps.setObject(3, new Mood[]{Mood.SAD, null, Mood.OK});
+    ps.executeUpdate();
+    ps.close();
+
+    ps = codecCon.prepareStatement("SELECT mood, moods FROM codectest WHERE id = 1");
+    for (int i = 0; i < 2; i++) {
+      ResultSet rs = ps.executeQuery();
+      Assert.assertTrue(rs.next());
+      Assert.assertEquals(Mood.HAPPY, rs.getObject(1));
+      Assert.assertEquals(Mood.HAPPY, rs.getObject(1, Mood.class));
+      Assert.assertEquals("happy", rs.getString(1));
+      Array array = rs.getArray(2);
+      Assert.assertArrayEquals(new Mood[]{Mood.SAD, null, Mood.OK}, (Mood[]) array.getArray());
+      rs.close();
+    }
+    ps.close();
+  }
+
+  @Test
+  public void binaryTransferEnabled() throws SQLException {
+    PreparedStatement ps = codecCon.prepareStatement("SELECT 'ok'::codectest_mood");
+    ps.unwrap(PGStatement.class).setPrepareThreshold(-1);
+    ResultSet rs = ps.executeQuery();
+    Assert.assertTrue(rs.next());
+    Assert.assertEquals(Mood.OK, rs.getObject(1));
+    rs.close();
+    ps.close();
+
+    BaseConnection baseConnection = codecCon.unwrap(BaseConnection.class);
+    int oid = baseConnection.getTypeInfo().getPGType("codectest_mood");
+    Assert.assertNotEquals(Oid.UNSPECIFIED, oid);
+    Assert.assertTrue(baseConnection.binaryTransferSend(oid));
+  }
+
+  @Test
+  public void connectionWithoutCodecs() throws SQLException {
+    Statement stmt = con.createStatement();
+    ResultSet rs = stmt.executeQuery("SELECT 'sad'::codectest_mood");
+    Assert.assertTrue(rs.next());
+    Assert.assertEquals("sad", rs.getString(1));
+    Assert.assertFalse(rs.getObject(1) instanceof Mood);
+    rs.close();
+    stmt.close();
+  }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.test.jdbc4;
+
+import org.postgresql.PGConnection;
+import org.postgresql.core.BaseConnection;
+import org.postgresql.test.TestUtil;
+import org.postgresql.test.jdbc2.BaseTest4;
+import org.postgresql.util.PGobject;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Struct;
+import java.util.ArrayList;
+import java.util.Collection;
+
+@RunWith(Parameterized.class)
+public class CompositeTypeTest extends BaseTest4 {
+
+  public static class Item {
+    final int id;
+    final String name;
+    final Double price;
+
+    public Item(int id, String name, Double price) {
+      this.id = id;
+      this.name = name;
+      this.price = price;
+    }
+  }
+
+  public CompositeTypeTest(BinaryMode binaryMode) {
+    setBinaryMode(binaryMode);
+  }
+
+  @Parameterized.Parameters(name = "binary = {0}")
+  public static Iterable<Object[]> data() {
+    Collection<Object[]> ids = new ArrayList<Object[]>();
+    for (BinaryMode binaryMode : BinaryMode.values()) {
+      ids.add(new Object[]{binaryMode});
+    }
+    return ids;
+  }
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    TestUtil.createCompositeType(con, "compositetest_item", "id int, name text, price float8");
+    TestUtil.createTable(con, "compositetest", "item compositetest_item, items compositetest_item[]");
+    Statement stmt = con.createStatement();
+    stmt.executeUpdate("INSERT INTO compositetest VALUES "
+        + "(ROW(1, 'a \"quoted\", name', 2.5), ARRAY[ROW(2, 'b', null)::compositetest_item, null])");
+    stmt.close();
+  }
+
+  @Override
+  public void tearDown() throws SQLException {
+    TestUtil.dropTable(con, "compositetest");
+    TestUtil.dropType(con, "compositetest_item");
+    super.tearDown();
+  }
+
+  @Test
+  public void unregisteredCompositeIsPGobject() throws SQLException {
+    Statement stmt = con.createStatement();
+    ResultSet rs = stmt.executeQuery("SELECT item FROM compositetest");
+    Assert.assertTrue(rs.next());
+    Assert.assertTrue(rs.getObject(1) instanceof PGobject);
+    Assert.assertEquals("(1,\"a \"\"quoted\"\", name\",2.5)", rs.getString(1));
+
+    Struct struct = rs.getObject(1, Struct.class);
+    Assert.assertEquals("compositetest_item", struct.getSQLTypeName());
+    Assert.assertArrayEquals(new Object[]{1, "a \"quoted\", name", 2.5}, struct.getAttributes());
+    rs.close();
+    stmt.close();
+  }
+
+  @Test
+  public void registeredClass() throws SQLException {
+    con.unwrap(PGConnection.class).addCompositeType("compositetest_item", Item.class);
+    PreparedStatement ps = con.prepareStatement("SELECT item, items FROM compositetest");
+    for (int i = 0; i < 3; i++) {
+      ResultSet rs = ps.executeQuery();
+      Assert.assertTrue(rs.next());
+      Item item = (Item) rs.getObject(1);
+      Assert.assertEquals(1, item.id);
+      Assert.assertEquals("a \"quoted\", name", item.name);
+      Assert.assertEquals(2.5, item.price, 0);
+      Assert.assertEquals("(1,\"a \"\"quoted\"\", name\",2.5)", rs.getString(1));
+
+      Object[] items = (Object[]) rs.getArray(2).getArray();
+      Assert.assertTrue(items instanceof Item[]);
+      Assert.assertEquals(2, items.length);
+      Assert.assertEquals("b", ((Item) items[0]).name);
+      Assert.assertNull(((Item) items[0]).price);
+      Assert.assertNull(items[1]);
+      rs.close();
+    }
+    ps.close();
+
+    int oid = con.unwrap(BaseConnection.class).getTypeInfo().getPGType("compositetest_item");
+    Assert.assertTrue(con.unwrap(BaseConnection.class).getQueryExecutor().useBinaryForReceive(oid));
+  }
+
+  @Test
+  public void registeredStruct() throws SQLException {
+    con.unwrap(PGConnection.class).addCompositeType("compositetest_item", Struct.class);
+    Statement stmt = con.createStatement();
+    ResultSet rs = stmt.executeQuery("SELECT items FROM compositetest");
+    Assert.assertTrue(rs.next());
+    Object[] items = (Object[]) rs.getArray(1).getArray();
+    Assert.assertArrayEquals(new Object[]{2, "b", null}, ((Struct) items[0]).getAttributes());
+    rs.close();
+    stmt.close();
+  }
+
+  @Test
+  public void anonymousRecord() throws SQLException {
+    Statement stmt = con.createStatement();
+    ResultSet rs = stmt.executeQuery("SELECT ROW(1, 'x y', NULL)");
+    Assert.assertTrue(rs.next());
+    Assert.assertArrayEquals(new Object[]{"1", "x y", null}, rs.getObject(1, Object[].class));
+    rs.close();
+    stmt.close();
+  }
+
+  @Test(expected = SQLException.class)
+  public void registerNonComposite() throws SQLException {
+    con.unwrap(PGConnection.class).addCompositeType("int4", Item.class);
+  }
+
+  @Test(expected = SQLException.class)
+  public void registerClassWithoutConstructor() throws SQLException {
+    con.unwrap(PGConnection.class).addCompositeType("compositetest_item", String.class);
+  }
+}
@@ -19,13 +19,17 @@ import org.junit.runners.Suite;
     BlobTest.class,
     CharacterStreamTest.class,
     ClientInfoTest.class,
+    CodecTest.class,
+    CompositeTypeTest.class,
     ConnectionValidTimeoutTest.class,
     DatabaseMetaDataHideUnprivilegedObjectsTest.class,
     DatabaseMetaDataTest.class,
     IsValidTest.class,
     JsonbTest.class,
+    LargeValueSpoolTest.class,
     LogTest.class,
     PGCopyInputStreamTest.class,
+    RangeTest.class,
     UUIDTest.class,
     WrapperTest.class,
     XmlTest.class,
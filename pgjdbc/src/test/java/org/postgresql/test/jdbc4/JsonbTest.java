@@ -6,19 +6,29 @@
 package org.postgresql.test.jdbc4;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 
+import org.postgresql.PGProperty;
+import org.postgresql.PGResultSet;
 import org.postgresql.core.ServerVersion;
 import org.postgresql.test.TestUtil;
+import org.postgresql.util.PGobject;
 import org.postgresql.test.jdbc2.BaseTest4;
 
 import org.junit.Assume;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Properties;
 
 public class JsonbTest extends BaseTest4 {
 
@@ -60,4 +70,51 @@ public class JsonbTest extends BaseTest4 {
     rs.close();
     stmt.close();
   }
+
+  @Test
+  public void testJsonbStream() throws SQLException, IOException {
+    Statement stmt = con.createStatement();
+    ResultSet rs = stmt.executeQuery("SELECT detail, NULL::jsonb FROM jsonbtest ORDER BY detail");
+    assertTrue(rs.next());
+    PGResultSet pgrs = rs.unwrap(PGResultSet.class);
+    assertEquals(rs.getString(1), readFully(pgrs.getJsonStream(1)));
+    assertNull(pgrs.getJsonStream(2));
+    rs.close();
+    stmt.close();
+  }
+
+  @Test
+  public void testJsonbBinaryTransfer() throws SQLException, IOException {
+    Properties props = new Properties();
+    PGProperty.BINARY_TRANSFER_ENABLE.set(props, "JSONB");
+    PGProperty.PREPARE_THRESHOLD.set(props, -1);
+    Connection binCon = TestUtil.openDB(props);
+    try {
+      PGobject json = new PGobject();
+      json.setType("jsonb");
+      json.setValue("{\"d\": [1, \"x\"]}");
+
+      PreparedStatement ps = binCon.prepareStatement("SELECT ?::jsonb");
+      ps.setObject(1, json);
+      ResultSet rs = ps.executeQuery();
+      assertTrue(rs.next());
+      assertEquals(json.getValue(), rs.getString(1));
+      assertEquals(json, rs.getObject(1));
+      assertEquals(json.getValue(), readFully(rs.unwrap(PGResultSet.class).getJsonStream(1)));
+      rs.close();
+      ps.close();
+    } finally {
+      TestUtil.closeDB(binCon);
+    }
+  }
+
+  private static String readFully(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buf = new byte[64];
+    int n;
+    while ((n = in.read(buf)) > 0) {
+      out.write(buf, 0, n);
+    }
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
 }
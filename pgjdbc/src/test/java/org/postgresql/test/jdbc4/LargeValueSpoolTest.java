@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.test.jdbc4;
+
+import org.postgresql.PGProperty;
+import org.postgresql.PGResultSet;
+import org.postgresql.test.TestUtil;
+import org.postgresql.test.jdbc2.BaseTest4;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Properties;
+import java.util.Random;
+
+@RunWith(Parameterized.class)
+public class LargeValueSpoolTest extends BaseTest4 {
+
+  private static final int THRESHOLD = 1024;
+
+  private byte[] bytes;
+  private String text;
+  private File spoolDirectory;
+
+  public LargeValueSpoolTest(BinaryMode binaryMode) {
+    setBinaryMode(binaryMode);
+  }
+
+  @Parameterized.Parameters(name = "binary = {0}")
+  public static Iterable<Object[]> data() {
+    Collection<Object[]> ids = new ArrayList<Object[]>();
+    for (BinaryMode binaryMode : BinaryMode.values()) {
+      ids.add(new Object[]{binaryMode});
+    }
+    return ids;
+  }
+
+  @Override
+  protected void updateProperties(Properties props) {
+    super.updateProperties(props);
+    PGProperty.LARGE_VALUE_SPOOL_THRESHOLD.set(props, THRESHOLD);
+    PGProperty.DEFAULT_ROW_FETCH_SIZE.set(props, 1);
+    try {
+      spoolDirectory = Files.createTempDirectory("pgjdbc-spool").toFile();
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    PGProperty.LARGE_VALUE_SPOOL_DIRECTORY.set(props, spoolDirectory.getAbsolutePath());
+  }
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    assumeByteaSupported();
+    TestUtil.createTable(con, "spooltest", "id int, img bytea, txt text, doc json");
+
+    bytes = new byte[100 * 1024];
+    new Random(31459).nextBytes(bytes);
+    StringBuilder sb = new StringBuilder();
+    while (sb.length() < 50 * 1024) {
+      sb.append("\u00e9t\u00e9 \u65e5\u672c ");
+    }
+    text = sb.toString();
+
+    PreparedStatement ps = con.prepareStatement("INSERT INTO spooltest VALUES (?, ?, ?, ?::json)");
+    for (int i = 0; i < 3; i++) {
+      ps.setInt(1, i);
+      ps.setBytes(2, bytes);
+      ps.setString(3, text);
+      ps.setString(4, "{\"text\": \"" + text + "\"}");
+      ps.executeUpdate();
+    }
+    ps.close();
+  }
+
+  @Override
+  public void tearDown() throws SQLException {
+    TestUtil.dropTable(con, "spooltest");
+    super.tearDown();
+    if (spoolDirectory != null) {
+      spoolDirectory.delete();
+    }
+  }
+
+  @Test
+  public void streams() throws Exception {
+    con.setAutoCommit(false);
+    PreparedStatement ps = con.prepareStatement("SELECT id, img, txt, doc FROM spooltest ORDER BY id");
+    ResultSet rs = ps.executeQuery();
+    int rows = 0;
+    while (rs.next()) {
+      Assert.assertEquals(rows, rs.getInt(1));
+      Assert.assertArrayEquals(bytes, readFully(rs.getBinaryStream(2)));
+      Assert.assertFalse(rs.wasNull());
+      Assert.assertEquals(text, readFully(rs.getCharacterStream(3)));
+      Assert.assertEquals("{\"text\": \"" + text + "\"}",
+          new String(readFully(rs.unwrap(PGResultSet.class).getJsonStream(4)), StandardCharsets.UTF_8));
+      rows++;
+    }
+    Assert.assertEquals(3, rows);
+    rs.close();
+    ps.close();
+    con.setAutoCommit(true);
+  }
+
+  @Test
+  public void loadOnDemand() throws Exception {
+    PreparedStatement ps = con.prepareStatement("SELECT img, txt, null::bytea FROM spooltest");
+    ResultSet rs = ps.executeQuery();
+    Assert.assertTrue(rs.next());
+    Assert.assertArrayEquals(bytes, rs.getBytes(1));
+    Assert.assertArrayEquals(bytes, readFully(rs.getBinaryStream(1)));
+    Assert.assertEquals(text, rs.getString(2));
+    Assert.assertNull(rs.getBinaryStream(3));
+    Assert.assertTrue(rs.wasNull());
+    rs.close();
+    ps.close();
+  }
+
+  @Test
+  public void filesAreOwnerOnlyAndDeletedOnClose() throws Exception {
+    PreparedStatement ps = con.prepareStatement("SELECT img FROM spooltest");
+    ResultSet rs = ps.executeQuery();
+    Assert.assertTrue(rs.next());
+    File[] files = spoolDirectory.listFiles();
+    Assert.assertNotNull(files);
+    Assert.assertTrue("Values should be spooled to the configured directory", files.length > 0);
+    if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+      Assert.assertEquals(PosixFilePermissions.fromString("rw-------"),
+          Files.getPosixFilePermissions(files[0].toPath()));
+    }
+    rs.close();
+    ps.close();
+    Assert.assertEquals("The files should be deleted with the result set",
+        0, spoolDirectory.list().length);
+  }
+
+  @Test
+  public void updatedRowsDeleteFilesOnClose() throws Exception {
+    TestUtil.execute("ALTER TABLE spooltest ADD PRIMARY KEY (id)", con);
+    Statement st = con.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE,
+        ResultSet.CONCUR_UPDATABLE);
+    ResultSet rs = st.executeQuery("SELECT id, img, txt FROM spooltest ORDER BY id");
+    for (int i = 0; i < 2; i++) {
+      Assert.assertTrue(rs.next());
+      rs.updateString(3, "updated");
+      rs.updateRow();
+      Assert.assertArrayEquals(bytes, rs.getBytes(2));
+      Assert.assertEquals("updated", rs.getString(3));
+    }
+    rs.close();
+    st.close();
+    Assert.assertEquals("The files of updated rows should be deleted with the result set",
+        0, spoolDirectory.list().length);
+  }
+
+  private static byte[] readFully(InputStream in) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buf = new byte[4096];
+    int n;
+    while ((n = in.read(buf)) != -1) {
+      out.write(buf, 0, n);
+    }
+    in.close();
+    return out.toByteArray();
+  }
+
+  private static String readFully(Reader in) throws IOException {
+    StringBuilder sb = new StringBuilder();
+    char[] buf = new char[4096];
+    int n;
+    while ((n = in.read(buf)) != -1) {
+      sb.append(buf, 0, n);
+    }
+    in.close();
+    return sb.toString();
+  }
+}
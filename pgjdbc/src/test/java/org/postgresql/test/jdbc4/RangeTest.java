@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.test.jdbc4;
+
+import org.postgresql.core.ServerVersion;
+import org.postgresql.test.TestUtil;
+import org.postgresql.test.jdbc2.BaseTest4;
+import org.postgresql.util.PGMultirange;
+import org.postgresql.util.PGRange;
+import org.postgresql.util.PGobject;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+
+@RunWith(Parameterized.class)
+public class RangeTest extends BaseTest4 {
+
+  public RangeTest(BinaryMode binaryMode) {
+    setBinaryMode(binaryMode);
+  }
+
+  @Parameterized.Parameters(name = "binary = {0}")
+  public static Iterable<Object[]> data() {
+    Collection<Object[]> ids = new ArrayList<Object[]>();
+    for (BinaryMode binaryMode : BinaryMode.values()) {
+      ids.add(new Object[]{binaryMode});
+    }
+    return ids;
+  }
+
+  @Override
+  public void setUp() throws Exception {
+    super.setUp();
+    assumeMinimumServerVersion(ServerVersion.v9_2);
+    TestUtil.createTable(con, "rangetest",
+        "id int, i4 int4range, i8 int8range, num numrange, d daterange, ts tsrange, "
+            + "tstz tstzrange, i4s int4range[]");
+  }
+
+  @Override
+  public void tearDown() throws SQLException {
+    TestUtil.dropTable(con, "rangetest");
+    super.tearDown();
+  }
+
+  @Test
+  public void roundTrip() throws SQLException {
+    PreparedStatement ps = con.prepareStatement(
+        "INSERT INTO rangetest VALUES (?, ?, ?, ?, ?, ?, ?, ?)");
+    ps.setInt(1, 1);
+    ps.setObject(2, PGRange.closedOpen(1, 10));
+    ps.setObject(3, PGRange.of(null, false, 5L, true));
+    ps.setObject(4, PGRange.of(new BigDecimal("1.5"), false, new BigDecimal("2.25"), true));
+    ps.setObject(5, PGRange.closedOpen(LocalDate.of(2021, 1, 1), LocalDate.of(2021, 2, 1)));
+    ps.setObject(6, PGRange.closedOpen(LocalDateTime.of(2021, 1, 1, 10, 0),
+        LocalDateTime.of(2021, 1, 1, 11, 30, 0, 500000000)));
+    ps.setObject(7, PGRange.closedOpen(OffsetDateTime.of(2021, 1, 1, 10, 0, 0, 0, ZoneOffset.UTC),
+        null));
+    ps.setObject(8, new PGRange<?>[]{PGRange.closedOpen(1, 2), null, PGRange.empty()});
+    ps.executeUpdate();
+    ps.close();
+
+    ps = con.prepareStatement("SELECT i4, i8, num, d, ts, tstz, i4s FROM rangetest WHERE id = 1");
+    for (int i = 0; i < 3; i++) {
+      ResultSet rs = ps.executeQuery();
+      Assert.assertTrue(rs.next());
+      Assert.assertEquals(PGRange.closedOpen(1, 10), rs.getObject(1, PGRange.class));
+      Assert.assertEquals("[1,10)", rs.getString(1));
+      // discrete ranges are canonicalized to [)
+      Assert.assertEquals(PGRange.of(null, false, 6L, false), rs.getObject(2, PGRange.class));
+      Assert.assertEquals(PGRange.of(new BigDecimal("1.5"), false, new BigDecimal("2.25"), true),
+          rs.getObject(3, PGRange.class));
+      Assert.assertEquals("(1.5,2.25]", rs.getString(3));
+      Assert.assertEquals(
+          PGRange.closedOpen(Date.valueOf("2021-01-01"), Date.valueOf("2021-02-01")),
+          rs.getObject(4, PGRange.class));
+      Assert.assertEquals("[2021-01-01,2021-02-01)", rs.getString(4));
+      Assert.assertEquals(
+          PGRange.closedOpen(Timestamp.valueOf("2021-01-01 10:00:00"),
+              Timestamp.valueOf("2021-01-01 11:30:00.5")),
+          rs.getObject(5, PGRange.class));
+      Assert.assertEquals("[\"2021-01-01 10:00:00\",\"2021-01-01 11:30:00.5\")", rs.getString(5));
+      PGRange<?> tstz = rs.getObject(6, PGRange.class);
+      Assert.assertEquals(
+          OffsetDateTime.of(2021, 1, 1, 10, 0, 0, 0, ZoneOffset.UTC).toInstant().toEpochMilli(),
+          ((Timestamp) tstz.getLower()).getTime());
+      Assert.assertTrue(tstz.isUpperInfinite());
+      Assert.assertArrayEquals(
+          new PGRange<?>[]{PGRange.closedOpen(1, 2), null, PGRange.empty()},
+          (Object[]) rs.getArray(7).getArray());
+      rs.close();
+    }
+    ps.close();
+  }
+
+  @Test
+  public void getObjectReturnsPGobject() throws SQLException {
+    PreparedStatement ps = con.prepareStatement("SELECT '[1,10)'::int4range");
+    for (int i = 0; i < 3; i++) {
+      ResultSet rs = ps.executeQuery();
+      Assert.assertTrue(rs.next());
+      PGobject range = (PGobject) rs.getObject(1);
+      Assert.assertEquals("int4range", range.getType());
+      Assert.assertEquals("[1,10)", range.getValue());
+      rs.close();
+    }
+    ps.close();
+  }
+
+  @Test
+  public void timestampBoundsAreTypedByServer() throws SQLException {
+    PreparedStatement ps = con.prepareStatement("SELECT ?::tsrange");
+    ps.setObject(1, PGRange.closedOpen(Timestamp.valueOf("2021-01-01 10:00:00"), null));
+    ResultSet rs = ps.executeQuery();
+    Assert.assertTrue(rs.next());
+    Assert.assertEquals(PGRange.closedOpen(Timestamp.valueOf("2021-01-01 10:00:00"), null),
+        rs.getObject(1, PGRange.class));
+    rs.close();
+    ps.close();
+  }
+
+  @Test
+  public void multirange() throws SQLException {
+    assumeMinimumServerVersion(ServerVersion.v14);
+    PGMultirange<Integer> value =
+        PGMultirange.of(PGRange.closedOpen(1, 3), PGRange.closedOpen(5, 7));
+    PreparedStatement ps = con.prepareStatement("SELECT ?, '{}'::int8multirange");
+    ps.setObject(1, value);
+    ResultSet rs = ps.executeQuery();
+    Assert.assertTrue(rs.next());
+    Assert.assertEquals(value, rs.getObject(1, PGMultirange.class));
+    Assert.assertEquals("{[1,3),[5,7)}", rs.getString(1));
+    Assert.assertEquals(PGMultirange.of(), rs.getObject(2, PGMultirange.class));
+    rs.close();
+    ps.close();
+  }
+}
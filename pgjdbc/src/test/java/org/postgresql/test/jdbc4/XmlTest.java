@@ -11,12 +11,14 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.junit.Assume.assumeTrue;
 
+import org.postgresql.PGStatement;
 import org.postgresql.core.ServerVersion;
 import org.postgresql.test.jdbc2.BaseTest4;
 
 import org.junit.Test;
 import org.w3c.dom.Node;
 
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.StringReader;
 import java.io.StringWriter;
@@ -184,6 +186,30 @@ public class XmlTest extends BaseTest4 {
     testRead(StreamSource.class);
   }
 
+  @Test
+  public void testReadBinary() throws Exception {
+    String document = "<a><b>\u00e4\u20ac</b></a>";
+    PreparedStatement ps = con.prepareStatement("SELECT ?::xml");
+    ps.unwrap(PGStatement.class).setPrepareThreshold(-1);
+    ps.setString(1, document);
+    ResultSet rs = ps.executeQuery();
+    assertTrue(rs.next());
+    assertEquals(document, rs.getString(1));
+
+    for (Class<? extends Source> sourceClass : Arrays.asList(DOMSource.class, SAXSource.class,
+        StAXSource.class, StreamSource.class)) {
+      StringWriter writer = new StringWriter();
+      identityTransformer.transform(rs.getSQLXML(1).getSource(sourceClass),
+          new StreamResult(writer));
+      assertTrue(sourceClass.getName(), writer.toString().endsWith(document));
+    }
+    SQLXML xml = rs.getSQLXML(1);
+    assertEquals(document, new BufferedReader(xml.getCharacterStream()).readLine());
+    assertEquals(document, xml.getString());
+    rs.close();
+    ps.close();
+  }
+
   private <T extends Result> void testWrite(Class<T> resultClass) throws Exception {
     Statement stmt = con.createStatement();
     stmt.execute("DELETE FROM xmltest");
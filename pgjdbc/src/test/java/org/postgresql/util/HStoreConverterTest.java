@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.postgresql.core.Encoding;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class HStoreConverterTest {
+
+  private static final Encoding UTF8 = Encoding.getJVMEncoding("UTF-8");
+
+  private static byte[] send(Map<?, ?> map) throws SQLException, IOException {
+    ByteStreamWriter writer = HStoreConverter.toByteStreamWriter(map, UTF8);
+    final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    writer.writeTo(new ByteStreamWriter.ByteStreamTarget() {
+      @Override
+      public OutputStream getOutputStream() {
+        return out;
+      }
+    });
+    assertEquals(writer.getLength(), out.size());
+    return out.toByteArray();
+  }
+
+  /**
+   * Orders the pairs the way the server sends them: by key length, then by key.
+   */
+  private static Map<String, String> serverOrder(Map<String, String> map) {
+    Map<String, String> sorted = new TreeMap<String, String>((a, b) ->
+        a.length() != b.length() ? a.length() - b.length() : a.compareTo(b));
+    sorted.putAll(map);
+    return sorted;
+  }
+
+  private static Map<String, String> sample() {
+    Map<String, String> map = new HashMap<String, String>();
+    for (int i = 0; i < 50; i++) {
+      map.put("k" + i, i % 7 == 0 ? null : "v\u00e4lue" + i);
+    }
+    map.put("", "empty key");
+    return map;
+  }
+
+  @Test
+  public void writerMatchesToBytes() throws Exception {
+    Map<String, String> map = new LinkedHashMap<String, String>();
+    map.put("a", "1");
+    map.put("b", null);
+    assertArrayEquals(HStoreConverter.toBytes(map, UTF8), send(map));
+  }
+
+  @Test
+  public void lookupInServerOrder() throws Exception {
+    Map<String, String> map = sample();
+    Map<String, String> lazy = HStoreConverter.fromBytes(send(serverOrder(map)), UTF8);
+    assertEquals(map.size(), lazy.size());
+    for (Map.Entry<String, String> e : map.entrySet()) {
+      assertTrue(lazy.containsKey(e.getKey()));
+      assertEquals(e.getValue(), lazy.get(e.getKey()));
+    }
+    assertFalse(lazy.containsKey("missing"));
+    assertFalse(lazy.containsKey(1));
+    assertNull(lazy.get("k999"));
+    assertEquals(map, lazy);
+    assertEquals(lazy, map);
+    assertEquals(map.hashCode(), lazy.hashCode());
+  }
+
+  @Test
+  public void lookupInAnyOrder() throws Exception {
+    Map<String, String> map = sample();
+    Map<String, String> lazy = HStoreConverter.fromBytes(send(map), UTF8);
+    for (Map.Entry<String, String> e : map.entrySet()) {
+      assertEquals(e.getValue(), lazy.get(e.getKey()));
+    }
+    assertNull(lazy.get("missing"));
+    assertEquals(map, lazy);
+  }
+
+  @Test
+  public void modification() throws Exception {
+    Map<String, String> map = sample();
+    Map<String, String> lazy = HStoreConverter.fromBytes(send(serverOrder(map)), UTF8);
+    assertEquals("v\u00e4lue1", lazy.put("k1", "new"));
+    assertEquals("v\u00e4lue2", lazy.remove("k2"));
+    map.put("k1", "new");
+    map.remove("k2");
+    assertEquals(map, lazy);
+    lazy.clear();
+    assertTrue(lazy.isEmpty());
+  }
+
+  @Test
+  public void empty() throws Exception {
+    Map<String, String> lazy =
+        HStoreConverter.fromBytes(send(new HashMap<String, String>()), UTF8);
+    assertTrue(lazy.isEmpty());
+    assertNull(lazy.get("a"));
+    assertFalse(lazy.entrySet().iterator().hasNext());
+  }
+
+  @Test
+  public void truncated() throws Exception {
+    byte[] bytes = send(sample());
+    try {
+      HStoreConverter.fromBytes(Arrays.copyOf(bytes, bytes.length - 1), UTF8);
+      fail("truncated value must be rejected");
+    } catch (PSQLException e) {
+      assertEquals(PSQLState.DATA_ERROR.getState(), e.getSQLState());
+    }
+  }
+}
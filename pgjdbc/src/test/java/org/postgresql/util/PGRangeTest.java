@@ -0,0 +1,52 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class PGRangeTest {
+
+  @Test
+  public void literals() {
+    assertEquals("[1,10)", PGRange.closedOpen(1, 10).toString());
+    assertEquals("(,5]", PGRange.of(null, true, 5, true).toString());
+    assertEquals("(1,)", PGRange.of(1, false, null, true).toString());
+    assertEquals("empty", PGRange.empty().toString());
+    assertEquals("[\"a b\",\"c\\\\\"\"\"]", PGRange.of("a b", true, "c\\\"", true).toString());
+  }
+
+  @Test
+  public void infiniteBoundsAreExclusive() {
+    PGRange<Integer> range = PGRange.of(null, true, null, true);
+    assertTrue(range.isLowerInfinite());
+    assertTrue(range.isUpperInfinite());
+    assertFalse(range.isLowerInclusive());
+    assertFalse(range.isUpperInclusive());
+    assertFalse(PGRange.empty().isLowerInfinite());
+  }
+
+  @Test
+  public void equality() {
+    assertEquals(PGRange.closedOpen(1, 10), PGRange.of(1, true, 10, false));
+    assertEquals(PGRange.closedOpen(1, 10).hashCode(), PGRange.of(1, true, 10, false).hashCode());
+    assertNotEquals(PGRange.closedOpen(1, 10), PGRange.of(1, true, 10, true));
+    assertNotEquals(PGRange.empty(), PGRange.of(null, false, null, false));
+  }
+
+  @Test
+  public void multirange() {
+    assertEquals("{[1,3),[5,7)}",
+        PGMultirange.of(PGRange.closedOpen(1, 3), PGRange.closedOpen(5, 7)).toString());
+    assertEquals("{}", PGMultirange.<Integer>of().toString());
+    assertEquals(PGMultirange.of(PGRange.closedOpen(1, 3)),
+        PGMultirange.of(PGRange.closedOpen(1, 3)));
+  }
+}
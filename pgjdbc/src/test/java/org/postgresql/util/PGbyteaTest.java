@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2021, PostgreSQL Global Development Group
+ * See the LICENSE file in the project root for more information.
+ */
+
+package org.postgresql.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+
+public class PGbyteaTest {
+
+  private static final byte[] DATA = new byte[]{0, 1, 0x7f, (byte) 0x80, (byte) 0xab, (byte) 0xff, '\\', 'a'};
+
+  @Test
+  public void hexLowerCase() throws SQLException {
+    assertArrayEquals(DATA, PGbytea.toBytes(ascii("\\x00017f80abff5c61")));
+  }
+
+  @Test
+  public void hexUpperCase() throws SQLException {
+    assertArrayEquals(DATA, PGbytea.toBytes(ascii("\\x00017F80ABFF5C61")));
+  }
+
+  @Test
+  public void octalEscaped() throws SQLException {
+    assertArrayEquals(DATA, PGbytea.toBytes(ascii("\\000\\001\\177\\200\\253\\377\\\\a")));
+  }
+
+  @Test
+  public void decodeHexIntoBuffer() {
+    byte[] dst = new byte[4];
+    PGbytea.decodeHex(ascii("\\x00017f80abff"), 6, dst, 1, 3);
+    assertArrayEquals(new byte[]{0, 0x7f, (byte) 0x80, (byte) 0xab}, dst);
+  }
+
+  @Test
+  public void hexStream() throws IOException {
+    InputStream in = PGbytea.toInputStream(ascii("\\x00017f80abff5c61"));
+    assertEquals(DATA.length, in.available());
+    assertEquals(0, in.read());
+    assertEquals(1, in.skip(1));
+    assertEquals(0x7f, in.read());
+    assertArrayEquals(new byte[]{(byte) 0x80, (byte) 0xab, (byte) 0xff, '\\', 'a'}, readFully(in, 2));
+    assertEquals(-1, in.read());
+  }
+
+  @Test
+  public void octalStream() throws IOException {
+    assertArrayEquals(DATA, readFully(PGbytea.toInputStream(ascii("\\000\\001\\177\\200\\253\\377\\\\a")), 3));
+  }
+
+  @Test
+  public void hexStreamFromStream() throws IOException {
+    // odd chunk sizes make hex digit pairs straddle the underlying reads
+    InputStream in = PGbytea.toInputStream(new TrickleInputStream(ascii("\\x00017f80abff5c61"), 3));
+    assertEquals(0, in.read());
+    assertArrayEquals(new byte[]{1, 0x7f, (byte) 0x80, (byte) 0xab, (byte) 0xff, '\\', 'a'}, readFully(in, 5));
+  }
+
+  @Test
+  public void octalStreamFromStream() throws IOException {
+    InputStream in = PGbytea.toInputStream(
+        new ByteArrayInputStream(ascii("\\000\\001\\177\\200\\253\\377\\\\a")));
+    assertArrayEquals(DATA, readFully(in, 3));
+  }
+
+  private static byte[] ascii(String s) {
+    return s.getBytes(StandardCharsets.US_ASCII);
+  }
+
+  private static byte[] readFully(InputStream in, int chunk) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buf = new byte[chunk];
+    int n;
+    while ((n = in.read(buf)) != -1) {
+      out.write(buf, 0, n);
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Returns at most {@code chunk} bytes per read.
+   */
+  private static class TrickleInputStream extends ByteArrayInputStream {
+    private final int chunk;
+
+    TrickleInputStream(byte[] buf, int chunk) {
+      super(buf);
+      this.chunk = chunk;
+    }
+
+    @Override
+    public synchronized int read(byte[] b, int off, int len) {
+      return super.read(b, off, Math.min(len, chunk));
+    }
+  }
+}